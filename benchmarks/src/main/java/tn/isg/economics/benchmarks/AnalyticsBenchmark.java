@@ -0,0 +1,126 @@
+package tn.isg.economics.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.service.AggregateKey;
+import tn.isg.economics.service.Aggregates;
+import tn.isg.economics.service.Aggregation;
+import tn.isg.economics.service.Dimension;
+import tn.isg.economics.service.ExportAnalyticsService;
+import tn.isg.economics.service.Measure;
+import tn.isg.economics.service.RecordPredicate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class AnalyticsBenchmark {
+
+    private static final RecordPredicate FILTER = RecordPredicate.productEq(ProductType.OLIVE_OIL)
+            .and(RecordPredicate.destinationIn("France", "Italy"))
+            .and(RecordPredicate.dateBetween(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31)));
+    private static final Aggregation CUBE = new Aggregation(
+            Set.of(Dimension.PRODUCT, Dimension.DESTINATION, Dimension.YEAR_MONTH), Set.of(Measure.values()));
+
+    private ExportAnalyticsService service;
+    private List<ExportRecord> records;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkData data) {
+        service = new ExportAnalyticsService(data.repository);
+        records = data.records;
+    }
+
+    @Benchmark
+    public List<ExportRecord> query() {
+        return service.query(FILTER);
+    }
+
+    @Benchmark
+    public List<ExportRecord> filter() {
+        return service.filter(records, FILTER);
+    }
+
+    @Benchmark
+    public Set<String> knownDestinations() {
+        return service.knownDestinations();
+    }
+
+    @Benchmark
+    public SortedMap<AggregateKey, Aggregates> aggregate() {
+        return service.aggregate(records, CUBE);
+    }
+
+    @Benchmark
+    public Aggregates summarize() {
+        return service.summarize(records, Measure.values());
+    }
+
+    @Benchmark
+    public DoubleSummaryStatistics volumeStats() {
+        return service.volumeStats(records);
+    }
+
+    @Benchmark
+    public BigDecimal averagePrice() {
+        return service.averagePrice(records);
+    }
+
+    @Benchmark
+    public Map<ProductType, BigDecimal> revenueByProduct() {
+        return service.revenueByProduct(records);
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> revenueByDestination() {
+        return service.revenueByDestination(records);
+    }
+
+    @Benchmark
+    public Set<String> destinations() {
+        return service.destinations(records);
+    }
+
+    @Benchmark
+    public Map<Integer, BigDecimal> averagePriceByMonth() {
+        return service.averagePriceByMonth(records);
+    }
+
+    @Benchmark
+    public Optional<LocalDate> minDate() {
+        return service.minDate(records);
+    }
+
+    @Benchmark
+    public Optional<LocalDate> maxDate() {
+        return service.maxDate(records);
+    }
+
+    @Benchmark
+    public Map<ProductType, Long> countBy() {
+        return service.countBy(records, ExportRecord::productType);
+    }
+}
@@ -0,0 +1,52 @@
+package tn.isg.economics.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tn.isg.economics.ai.SeriesIndex;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+import tn.isg.economics.service.SampleDataGenerator;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic dataset shared by the benchmarks: {@link #rows} records generated from a fixed seed and
+ * loaded into a columnar repository in batches, so even the largest size never exists as one list of
+ * record objects.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkData {
+
+    static final long SEED = 20240101L;
+    static final LocalDate START = LocalDate.of(2022, 1, 1);
+    static final int MONTHS = 36;
+    private static final int BATCH = 65_536;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    public ColumnarExportRecordRepository repository;
+    public List<ExportRecord> records;
+    public SeriesIndex series;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        repository = new ColumnarExportRecordRepository();
+        List<ExportRecord> batch = new ArrayList<>(BATCH);
+        new SampleDataGenerator(SEED).generate(START, MONTHS, rows, record -> {
+            batch.add(record);
+            if (batch.size() == BATCH) {
+                repository.append(batch);
+                batch.clear();
+            }
+        });
+        repository.append(batch);
+        records = repository.findAll();
+        series = SeriesIndex.of(records);
+    }
+}
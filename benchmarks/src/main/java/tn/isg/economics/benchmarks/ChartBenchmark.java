@@ -0,0 +1,59 @@
+package tn.isg.economics.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.isg.economics.dashboard.view.BarChartStrategy;
+import tn.isg.economics.dashboard.view.LineChartStrategy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chart rendering depends on the number of plotted points, not on the dataset size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class ChartBenchmark {
+
+    @Param({"12", "120", "1200"})
+    public int points;
+
+    private final BarChartStrategy bar = new BarChartStrategy();
+    private final LineChartStrategy line = new LineChartStrategy();
+    private Map<String, Double> data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        data = new LinkedHashMap<>();
+        for (int i = 0; i < points; i++) {
+            data.put("Point " + i, random.nextDouble() * 1_000_000);
+        }
+    }
+
+    @Benchmark
+    public String barChart() {
+        return bar.render(data);
+    }
+
+    @Benchmark
+    public String lineChart() {
+        return line.render(data);
+    }
+}
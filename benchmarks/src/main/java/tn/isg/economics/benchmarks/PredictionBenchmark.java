@@ -0,0 +1,59 @@
+package tn.isg.economics.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.isg.economics.ai.BaseAIModel;
+import tn.isg.economics.ai.DJLPredictor;
+import tn.isg.economics.model.PredictionRequest;
+import tn.isg.economics.model.PredictionResult;
+import tn.isg.economics.model.ProductType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=error"})
+public class PredictionBenchmark {
+
+    private static final LocalDate TARGET = BenchmarkData.START.plusMonths(BenchmarkData.MONTHS);
+
+    private static final List<PredictionRequest> GRID = PredictionRequest.grid(
+            List.of(ProductType.values()),
+            List.of("France", "Italy", "Spain", "Germany", "UK", "USA", "Canada", "Libya", "Algeria"),
+            List.of(TARGET, TARGET.plusMonths(1), TARGET.plusMonths(3), TARGET.plusMonths(6)));
+
+    private final BaseAIModel baseline = new BaseAIModel();
+    private final DJLPredictor djl = new DJLPredictor();
+
+    @Benchmark
+    public PredictionResult baselinePredict(BenchmarkData data) {
+        return baseline.predict(data.records, TARGET, ProductType.OLIVE_OIL, "France");
+    }
+
+    @Benchmark
+    public PredictionResult baselinePredictIndexed(BenchmarkData data) {
+        return baseline.predict(data.series, TARGET, ProductType.OLIVE_OIL, "France");
+    }
+
+    @Benchmark
+    public List<PredictionResult> baselinePredictBatch(BenchmarkData data) {
+        return baseline.predictBatch(data.series, GRID);
+    }
+
+    @Benchmark
+    public PredictionResult djlPredict(BenchmarkData data) {
+        return djl.predict(data.records, TARGET, ProductType.OLIVE_OIL, "France");
+    }
+}
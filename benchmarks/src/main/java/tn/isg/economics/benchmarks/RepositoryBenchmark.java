@@ -0,0 +1,52 @@
+package tn.isg.economics.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.repository.InMemoryExportRecordRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class RepositoryBenchmark {
+
+    private List<ExportRecord> heapRecords;
+    private InMemoryExportRecordRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkData data) {
+        // The in-memory repository holds record objects, so give it materialized ones
+        heapRecords = new ArrayList<>(data.records);
+        repository = new InMemoryExportRecordRepository();
+        repository.saveAll(heapRecords);
+    }
+
+    @Benchmark
+    public InMemoryExportRecordRepository saveAll() {
+        InMemoryExportRecordRepository fresh = new InMemoryExportRecordRepository();
+        fresh.saveAll(heapRecords);
+        return fresh;
+    }
+
+    @Benchmark
+    public Optional<ExportRecord> findLatest() {
+        return repository.findLatest();
+    }
+}
@@ -1,26 +1,28 @@
 package tn.isg.economics;
 
 import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.ai.CachingPredictor;
 import tn.isg.economics.ai.DJLPredictor;
 import tn.isg.economics.ai.LangChain4jReportGenerator;
 import tn.isg.economics.ai.Predictor;
+import tn.isg.economics.ai.ReportCache;
 import tn.isg.economics.ai.ReportGenerator;
+import tn.isg.economics.ai.SeriesIndex;
 import tn.isg.economics.dashboard.controller.GuiDashboardController;
 import tn.isg.economics.dashboard.model.DashboardModel;
 import tn.isg.economics.dashboard.view.SwingDashboardView;
+import tn.isg.economics.exceptions.PredictionException;
 import tn.isg.economics.model.ExportRecord;
-import tn.isg.economics.model.MarketIndicator;
-import tn.isg.economics.model.ProductType;
-import tn.isg.economics.repository.ExportRecordRepository;
-import tn.isg.economics.repository.InMemoryExportRecordRepository;
+import tn.isg.economics.repository.MappedSegmentExportRecordRepository;
 import tn.isg.economics.service.ExportAnalyticsService;
+import tn.isg.economics.service.MaterializedAggregates;
+import tn.isg.economics.service.RecordImporter;
+import tn.isg.economics.service.SampleDataGenerator;
 
-import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
@@ -30,25 +32,48 @@ import javax.swing.SwingUtilities;
  */
 @Slf4j
 public class App {
+    private static final String DATA_DIR_PROPERTY = "tn.isg.economics.dataDir";
+    private static final String SEED_PROPERTY = "tn.isg.economics.seed";
+    private static final String IMPORT_FILE_PROPERTY = "tn.isg.economics.importFile";
+
     public static void main(String[] args) {
         log.info("Starting Tunisian Agricultural Export AI System (GUI)...");
 
         SwingUtilities.invokeLater(() -> {
             try {
                 // Initialize components
-                ExportRecordRepository repository = new InMemoryExportRecordRepository();
-                ExportAnalyticsService analyticsService = new ExportAnalyticsService();
+                Path dataDirectory = Path.of(System.getProperty(DATA_DIR_PROPERTY, "data"));
+                long seed = Long.getLong(SEED_PROPERTY, System.nanoTime());
+                MappedSegmentExportRecordRepository repository = new MappedSegmentExportRecordRepository(dataDirectory);
+                Runtime.getRuntime().addShutdownHook(new Thread(repository::close));
+
+                // Load imported or sample data on first launch only; later launches map the persisted segments
+                String importFile = System.getProperty(IMPORT_FILE_PROPERTY);
+                if (repository.findAll().isEmpty() && importFile != null) {
+                    long imported = new RecordImporter().importInto(repository, Path.of(importFile));
+                    log.info("Imported {} export records from {}", imported, importFile);
+                } else if (repository.findAll().isEmpty()) {
+                    List<ExportRecord> sampleData = new SampleDataGenerator(seed)
+                            .generate(LocalDate.now().minusMonths(24), 24);
+                    repository.saveAll(sampleData);
+                    log.info("Loaded {} sample export records generated with seed {}", sampleData.size(), seed);
+                } else {
+                    log.info("Opened {} persisted export records from {}", repository.size(), dataDirectory);
+                }
 
-                // Load sample data
-                List<ExportRecord> sampleData = generateSampleData();
-                repository.saveAll(sampleData);
-                log.info("Loaded {} sample export records", sampleData.size());
+                // Analytics, aggregates and series read the mapped segments' column view directly, and filters
+                // are answered from the repository's indexes over it
+                ExportAnalyticsService analyticsService = new ExportAnalyticsService(
+                        repository, ForkJoinPool.commonPool(), ExportAnalyticsService.DEFAULT_PARALLEL_THRESHOLD);
+                MaterializedAggregates aggregates = new MaterializedAggregates(analyticsService, repository);
 
                 // Initialize AI components
-                Predictor predictor = new DJLPredictor(); // Uses BaseAIModel as fallback
-                ReportGenerator reportGenerator = new LangChain4jReportGenerator();
+                Predictor predictor = new CachingPredictor(createPredictor(seed)); // Uses BaseAIModel as fallback
+                SeriesIndex seriesIndex = new SeriesIndex(repository);
+                ReportGenerator reportGenerator = new LangChain4jReportGenerator(
+                        new ReportCache(dataDirectory.resolve("report-cache"), ReportCache.DEFAULT_CAPACITY));
 
-                // Initialize dashboard (MVC)
+                // Initialize dashboard (MVC); the model keeps the repository view, not a copy of it
                 DashboardModel model = new DashboardModel();
                 model.setRecords(repository.findAll());
 
@@ -57,7 +82,9 @@ public class App {
                         model,
                         view,
                         analyticsService,
+                        aggregates,
                         predictor,
+                        seriesIndex,
                         reportGenerator
                 );
 
@@ -76,62 +103,19 @@ public class App {
     }
 
     /**
-     * Generates sample Tunisian agricultural export data for demonstration.
+     * @return a predictor running the model named by {@value DJLPredictor#MODEL_PATH_PROPERTY}, or the
+     * baseline-backed one seeded with {@code seed} when no model is configured or it cannot be loaded
      */
-    private static List<ExportRecord> generateSampleData() {
-        List<ExportRecord> records = new ArrayList<>();
-        LocalDate startDate = LocalDate.now().minusMonths(24);
-        
-        ProductType[] products = ProductType.values();
-        String[] destinations = {"France", "Italy", "Spain", "Germany", "UK", "USA", "Canada", "Libya", "Algeria"};
-        
-        // Generate records for each month
-        for (int month = 0; month < 24; month++) {
-            LocalDate date = startDate.plusMonths(month);
-            
-            for (ProductType product : products) {
-                // Each product exported to 2-4 destinations per month
-                int numDestinations = 2 + (int)(Math.random() * 3);
-                
-                for (int d = 0; d < numDestinations; d++) {
-                    String destination = destinations[(int)(Math.random() * destinations.length)];
-                    
-                    // Base prices per product (in TND per ton)
-                    double basePrice = switch (product) {
-                        case OLIVE_OIL -> 8000 + (Math.random() * 2000);
-                        case DATES -> 3000 + (Math.random() * 1000);
-                        case CITRUS -> 1500 + (Math.random() * 500);
-                        case TOMATO -> 1200 + (Math.random() * 400);
-                        case ALMONDS -> 12000 + (Math.random() * 3000);
-                        case HARISSA -> 5000 + (Math.random() * 2000);
-                    };
-                    
-                    // Add seasonal variation
-                    double seasonalFactor = 1.0 + 0.2 * Math.sin(month * Math.PI / 6);
-                    double price = basePrice * seasonalFactor;
-                    
-                    // Volume in tons
-                    double volume = 10 + (Math.random() * 90);
-                    
-                    // Market indicators
-                    Map<MarketIndicator, Double> indicators = new HashMap<>();
-                    indicators.put(MarketIndicator.USD_TND, 3.0 + (Math.random() * 0.5));
-                    indicators.put(MarketIndicator.EUR_TND, 3.2 + (Math.random() * 0.4));
-                    indicators.put(MarketIndicator.BRENT_OIL, 70 + (Math.random() * 30));
-                    indicators.put(MarketIndicator.INFLATION_RATE, 5.0 + (Math.random() * 3.0));
-                    
-                    records.add(new ExportRecord(
-                            date,
-                            product,
-                            destination,
-                            volume,
-                            BigDecimal.valueOf(price).setScale(2, java.math.RoundingMode.HALF_UP),
-                            indicators
-                    ));
-                }
-            }
+    private static Predictor createPredictor(long seed) {
+        String modelPath = System.getProperty(DJLPredictor.MODEL_PATH_PROPERTY);
+        if (modelPath == null) {
+            return new DJLPredictor(seed);
+        }
+        try {
+            return new DJLPredictor(Path.of(modelPath));
+        } catch (PredictionException e) {
+            log.warn("Could not load model {}, using the baseline", modelPath, e);
+            return new DJLPredictor(seed);
         }
-        
-        return records;
     }
-}
\ No newline at end of file
+}
@@ -3,16 +3,21 @@ package tn.isg.economics.ai;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.Money;
+import tn.isg.economics.model.PredictionRequest;
 import tn.isg.economics.model.PredictionResult;
 import tn.isg.economics.model.PredictionStatus;
 import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordColumns;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 
 @Slf4j
@@ -40,66 +45,148 @@ public class BaseAIModel implements Predictor {
             throw new IllegalArgumentException("No historical data provided");
         }
 
-        // Filter by product and destination
-        List<ExportRecord> relevant = historicalData.stream()
-                .filter(r -> r.productType() == productType)
-                .filter(r -> Objects.equals(r.destination(), destination))
-                .sorted((a, b) -> b.date().compareTo(a.date())) // newest first
-                .limit(12) // last 12 records
-                .collect(Collectors.toList());
-
-        if (relevant.isEmpty()) {
-            // Fallback: use all records for this product
-            relevant = historicalData.stream()
-                    .filter(r -> r.productType() == productType)
-                    .sorted((a, b) -> b.date().compareTo(a.date()))
-                    .limit(12)
-                    .collect(Collectors.toList());
+        // Last 12 records (newest first) for the product and destination, and for the product alone as a
+        // fallback, collected in one pass without sorting or copying the history
+        RecentPrices relevant = new RecentPrices();
+        RecentPrices productOnly = new RecentPrices();
+        if (historicalData instanceof ExportRecordColumns columns) {
+            for (int row = 0, size = columns.size(); row < size; row++) {
+                if (columns.productType(row) == productType) {
+                    long day = columns.epochDay(row);
+                    long cents = columns.hasPrice(row) ? columns.priceCents(row) : 0;
+                    productOnly.offer(day, cents);
+                    if (Objects.equals(columns.destinationName(columns.destinationId(row)), destination)) {
+                        relevant.offer(day, cents);
+                    }
+                }
+            }
+        } else {
+            for (ExportRecord record : historicalData) {
+                if (record.productType() == productType) {
+                    long day = record.date().toEpochDay();
+                    boolean sameDestination = Objects.equals(record.destination(), destination);
+                    if (productOnly.accepts(day) || (sameDestination && relevant.accepts(day))) {
+                        long cents = record.pricePerTon() != null ? Money.toCents(record.pricePerTon()) : 0;
+                        productOnly.offer(day, cents);
+                        if (sameDestination) {
+                            relevant.offer(day, cents);
+                        }
+                    }
+                }
+            }
         }
 
-        if (relevant.isEmpty()) {
+        // Fallback: use all records for this product
+        return predict(relevant.size() > 0 ? relevant : productOnly, targetDate, productType, destination);
+    }
+
+    /**
+     * Predicts from the indexed series of {@code productType} to {@code destination}, falling back to the
+     * product's series over all destinations, without touching the rest of the history.
+     */
+    @Override
+    public PredictionResult predict(
+            SeriesIndex history,
+            LocalDate targetDate,
+            ProductType productType,
+            String destination
+    ) {
+        return predict(history.recentOrProduct(productType, destination), targetDate, productType, destination);
+    }
+
+    /**
+     * Computes the moving average and trend once per (product, destination) series and reuses them for
+     * every target date of that series; series are computed in parallel.
+     */
+    @Override
+    public List<PredictionResult> predictBatch(SeriesIndex history, List<PredictionRequest> requests) {
+        Map<SeriesKey, List<Integer>> bySeries = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PredictionRequest request = requests.get(i);
+            bySeries.computeIfAbsent(new SeriesKey(request.productType(), request.destination()),
+                    key -> new ArrayList<>()).add(i);
+        }
+
+        PredictionResult[] results = new PredictionResult[requests.size()];
+        bySeries.entrySet().parallelStream().forEach(series -> {
+            SeriesKey key = series.getKey();
+            RecentPrices relevant = history.recentOrProduct(key.productType(), key.destination());
+            Forecast forecast = relevant.size() > 0 ? forecast(relevant) : null;
+            for (int index : series.getValue()) {
+                LocalDate targetDate = requests.get(index).targetDate();
+                results[index] = forecast != null
+                        ? result(forecast, targetDate, key.productType(), key.destination())
+                        : new PredictionResult(targetDate, key.productType(), key.destination(), null, 0,
+                                PredictionStatus.FAILED, modelName);
+            }
+        });
+
+        log.info("Baseline batch prediction: {} requests over {} series", requests.size(), bySeries.size());
+        return Arrays.asList(results);
+    }
+
+    private PredictionResult predict(
+            RecentPrices relevant,
+            LocalDate targetDate,
+            ProductType productType,
+            String destination
+    ) {
+        if (relevant.size() == 0) {
             throw new IllegalArgumentException("No relevant historical data found");
         }
 
-        // Simple moving average
-        BigDecimal avgPrice = relevant.stream()
-                .map(ExportRecord::pricePerTon)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .divide(BigDecimal.valueOf(relevant.size()), 2, RoundingMode.HALF_UP);
+        Forecast forecast = forecast(relevant);
+
+        log.info("Baseline prediction for {} to {} on {}: {} TND/ton (conf={})",
+                productType, destination, targetDate, forecast.price(), forecast.confidence());
+
+        return result(forecast, targetDate, productType, destination);
+    }
+
+    private static Forecast forecast(RecentPrices relevant) {
+        // Simple moving average, absent prices counting as zero
+        long avgCents = Money.divide(sum(relevant, 0, relevant.size()), relevant.size());
 
         // Simple trend: compare last 3 vs previous 3
         if (relevant.size() >= 6) {
-            BigDecimal recentAvg = relevant.subList(0, 3).stream()
-                    .map(ExportRecord::pricePerTon)
-                    .filter(Objects::nonNull)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add)
-                    .divide(BigDecimal.valueOf(3), 2, RoundingMode.HALF_UP);
-
-            BigDecimal olderAvg = relevant.subList(3, 6).stream()
-                    .map(ExportRecord::pricePerTon)
-                    .filter(Objects::nonNull)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add)
-                    .divide(BigDecimal.valueOf(3), 2, RoundingMode.HALF_UP);
-
-            BigDecimal trend = recentAvg.subtract(olderAvg).divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
-            avgPrice = avgPrice.add(trend);
+            long recentAvg = Money.divide(sum(relevant, 0, 3), 3);
+            long olderAvg = Money.divide(sum(relevant, 3, 6), 3);
+            long trend = Money.divide(Money.subtract(recentAvg, olderAvg), 2);
+            avgCents = Money.add(avgCents, trend);
         }
+        BigDecimal avgPrice = avgCents < 0 ? BigDecimal.ZERO : Money.toBigDecimal(avgCents);
 
         // Confidence based on data quality
         double confidence = Math.min(0.7, 0.3 + (relevant.size() / 20.0));
+        return new Forecast(avgPrice, confidence);
+    }
 
-        log.info("Baseline prediction for {} to {} on {}: {} TND/ton (conf={})",
-                productType, destination, targetDate, avgPrice, confidence);
-
+    private PredictionResult result(Forecast forecast, LocalDate targetDate, ProductType productType, String destination) {
         return new PredictionResult(
                 targetDate,
                 productType,
                 destination,
-                avgPrice.max(BigDecimal.ZERO),
-                confidence,
+                forecast.price(),
+                forecast.confidence(),
                 PredictionStatus.SUCCESS,
                 modelName
         );
     }
-}
\ No newline at end of file
+
+    private static long sum(RecentPrices prices, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total = Money.add(total, prices.cents(i));
+        }
+        return total;
+    }
+
+    private record SeriesKey(ProductType productType, String destination) {
+    }
+
+    /**
+     * Target-date independent outcome of the baseline for one series.
+     */
+    private record Forecast(BigDecimal price, double confidence) {
+    }
+}
@@ -0,0 +1,188 @@
+package tn.isg.economics.ai;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.PredictionRequest;
+import tn.isg.economics.model.PredictionResult;
+import tn.isg.economics.model.PredictionStatus;
+import tn.isg.economics.model.ProductType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Predictor} decorator remembering the results of predictions made from a {@link SeriesIndex}.
+ * <p>
+ * Entries are keyed on (product, destination, target date) and tagged with the
+ * {@link SeriesIndex#version(ProductType, String) version} of the series they were computed from, so an
+ * append only invalidates the series it touches: the next lookup sees a newer version, counts an
+ * invalidation and recomputes. The least recently used entry is evicted beyond the capacity.
+ * {@link PredictionStatus#FAILED} results and predictions from plain record lists are never cached.
+ * A cache belongs to the model it decorates.
+ */
+public class CachingPredictor implements Predictor {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final Predictor delegate;
+    private final Map<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingPredictor(Predictor delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximum number of cached results
+     */
+    public CachingPredictor(Predictor delegate, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.delegate = delegate;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public PredictionResult predict(
+            List<ExportRecord> historicalData,
+            LocalDate targetDate,
+            ProductType productType,
+            String destination
+    ) {
+        return delegate.predict(historicalData, targetDate, productType, destination);
+    }
+
+    @Override
+    public PredictionResult predict(
+            SeriesIndex history,
+            LocalDate targetDate,
+            ProductType productType,
+            String destination
+    ) {
+        // Read before predicting: a concurrent append then only makes the entry look older than its data
+        long version = history.version(productType, destination);
+        Key key = new Key(productType, destination, targetDate);
+        PredictionResult cached = lookup(key, version);
+        if (cached != null) {
+            return cached;
+        }
+        PredictionResult result = delegate.predict(history, targetDate, productType, destination);
+        store(key, version, result);
+        return result;
+    }
+
+    @Override
+    public List<PredictionResult> predictBatch(List<ExportRecord> historicalData, List<PredictionRequest> requests) {
+        return delegate.predictBatch(historicalData, requests);
+    }
+
+    /**
+     * Answers cached requests directly and sends the others to the delegate as one batch.
+     */
+    @Override
+    public List<PredictionResult> predictBatch(SeriesIndex history, List<PredictionRequest> requests) {
+        PredictionResult[] results = new PredictionResult[requests.size()];
+        long[] versions = new long[requests.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PredictionRequest request = requests.get(i);
+            versions[i] = history.version(request.productType(), request.destination());
+            results[i] = lookup(key(request), versions[i]);
+            if (results[i] == null) {
+                missing.add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<PredictionResult> computed = delegate.predictBatch(history,
+                    missing.stream().map(requests::get).toList());
+            for (int i = 0; i < missing.size(); i++) {
+                int index = missing.get(i);
+                results[index] = computed.get(i);
+                store(key(requests.get(index)), versions[index], results[index]);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+
+    /**
+     * @return number of cached results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops every cached result, keeping the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), invalidations.sum(), evictions.sum());
+    }
+
+    private synchronized PredictionResult lookup(Key key, long version) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return entry.result();
+        }
+        if (entry != null) {
+            entries.remove(key);
+            invalidations.increment();
+        }
+        misses.increment();
+        return null;
+    }
+
+    private synchronized void store(Key key, long version, PredictionResult result) {
+        if (result.status() != PredictionStatus.FAILED) {
+            entries.put(key, new Entry(version, result));
+        }
+    }
+
+    private static Key key(PredictionRequest request) {
+        return new Key(request.productType(), request.destination(), request.targetDate());
+    }
+
+    /**
+     * Cache counters since creation. Every lookup is either a hit or a miss; invalidations are the misses that
+     * found an entry computed from an older version of the series.
+     */
+    public record Stats(long hits, long misses, long invalidations, long evictions) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private record Key(ProductType productType, String destination, LocalDate targetDate) {
+    }
+
+    private record Entry(long version, PredictionResult result) {
+    }
+}
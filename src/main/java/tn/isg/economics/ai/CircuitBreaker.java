@@ -0,0 +1,173 @@
+package tn.isg.economics.ai;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker over a remote backend, failing fast while the backend looks down.
+ * <p>
+ * While {@link State#CLOSED}, the outcomes of the last {@code windowSize} calls are kept; once at least
+ * {@code minimumCalls} of them are recorded and the share of failures reaches {@code failureRateThreshold},
+ * the breaker opens and {@link #tryAcquire()} refuses every call for {@code openDuration}. It then lets a
+ * single probe through ({@link State#HALF_OPEN}): a success closes it with an empty window, a failure opens it
+ * again. A probe that reports no outcome within {@code openDuration} is assumed lost, and another one is let
+ * through. Callers report the outcome of every acquired call with {@link #onSuccess()} or {@link #onFailure()}.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public static final int DEFAULT_WINDOW_SIZE = 10;
+    public static final int DEFAULT_MINIMUM_CALLS = 3;
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private final boolean[] window;
+    private int windowStart;
+    private int windowCalls;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private long probeStartedAt;
+    private boolean probing;
+
+    private long successes;
+    private long failures;
+    private long rejections;
+    private long openings;
+
+    public CircuitBreaker(String name) {
+        this(name, DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_CALLS, DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_OPEN_DURATION);
+    }
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(
+            String name,
+            int windowSize,
+            int minimumCalls,
+            double failureRateThreshold,
+            Duration openDuration,
+            LongSupplier clock
+    ) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException(
+                    "Invalid window size " + windowSize + " or minimum calls " + minimumCalls);
+        }
+        if (!(failureRateThreshold > 0 && failureRateThreshold <= 1)) {
+            throw new IllegalArgumentException("Failure rate threshold must be in (0, 1]: " + failureRateThreshold);
+        }
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if the call may go to the backend, false if it must fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        long now = clock.getAsLong();
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && (!probing || now - probeStartedAt >= openNanos)) {
+            probing = true;
+            probeStartedAt = now;
+            return true;
+        }
+        rejections++;
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        successes++;
+        if (state == State.HALF_OPEN) {
+            transition(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCalls >= minimumCalls && windowFailures >= failureRateThreshold * windowCalls) {
+                open();
+            }
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(state, successes, failures, rejections, openings);
+    }
+
+    private void record(boolean failure) {
+        int slot = (windowStart + windowCalls) % window.length;
+        if (windowCalls == window.length) {
+            if (window[windowStart]) {
+                windowFailures--;
+            }
+            windowStart = (windowStart + 1) % window.length;
+        } else {
+            windowCalls++;
+        }
+        window[slot] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        openings++;
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (next == State.CLOSED) {
+            windowStart = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+        }
+        probing = false;
+        if (next == State.OPEN) {
+            log.warn("Circuit breaker {} opened, failing fast for {} ms", name, openNanos / 1_000_000);
+        } else {
+            log.info("Circuit breaker {} {}", name, next == State.CLOSED ? "closed" : "half-open, probing");
+        }
+        state = next;
+    }
+
+    /**
+     * Current state and counters since creation. Rejections are the calls refused without reaching the backend.
+     */
+    public record Stats(State state, long successes, long failures, long rejections, long openings) {
+    }
+}
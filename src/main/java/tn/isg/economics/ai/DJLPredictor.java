@@ -1,31 +1,114 @@
 package tn.isg.economics.ai;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.exceptions.PredictionException;
 import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.PredictionRequest;
 import tn.isg.economics.model.PredictionResult;
 import tn.isg.economics.model.PredictionStatus;
 import tn.isg.economics.model.ProductType;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
- * DJL-based predictor (stub implementation).
- * In a real scenario, this would load and run a trained PyTorch/ONNX model.
+ * DJL-based predictor running a trained ONNX or TorchScript price model through an {@link InferenceEngine}.
+ * <p>
+ * Single predictions from concurrent callers are micro-batched into one tensor per forward pass; batch
+ * predictions fill their tensors directly from the {@link FeatureStore} of the history. The engine is
+ * warmed up on construction so the first request does not pay for lazy initialization. Without a model
+ * the predictor falls back to an enhanced {@link BaseAIModel} baseline, and any inference failure falls
+ * back to the plain baseline.
+ * <p>
+ * The enhanced baseline perturbs each price by a factor drawn from a {@link SplittableRandom} seeded with
+ * the predictor's seed and the request, so the same seed gives the same predictions in any thread order
+ * and concurrent callers share no generator.
  */
 @Slf4j
 @Getter
-public class DJLPredictor implements Predictor {
+public class DJLPredictor implements Predictor, AutoCloseable {
 
-    private static final String MODEL_NAME = "DJL-PyTorch";
+    /**
+     * System property naming the model file to load, see {@link InferenceEngine#load(Path, int)}.
+     */
+    public static final String MODEL_PATH_PROPERTY = "tn.isg.economics.modelPath";
+
+    /**
+     * Seed of predictors created without one.
+     */
+    public static final long DEFAULT_SEED = 42L;
+
+    private static final String BASELINE_MODEL_NAME = "DJL-PyTorch";
+    private static final int MAX_BATCH = 64;
+    private static final Duration MAX_BATCH_DELAY = Duration.ofMillis(2);
+    private static final Duration INFERENCE_TIMEOUT = Duration.ofSeconds(10);
 
     private final BaseAIModel fallback;
+    private final long seed;
+    private final String modelName;
+    @Getter(AccessLevel.NONE)
+    private final InferenceEngine engine;
+    @Getter(AccessLevel.NONE)
+    private final MicroBatcher batcher;
 
+    /**
+     * Creates a predictor without a model, using the enhanced baseline with {@link #DEFAULT_SEED}.
+     */
     public DJLPredictor() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a predictor without a model, using the enhanced baseline with the given seed.
+     */
+    public DJLPredictor(long seed) {
+        this(null, seed);
+    }
+
+    /**
+     * Loads the model at {@code modelPath} with one session per available processor.
+     */
+    public DJLPredictor(Path modelPath) {
+        this(InferenceEngine.load(modelPath, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param engine loaded model, owned and closed by this predictor, or {@code null} for the baseline
+     */
+    public DJLPredictor(InferenceEngine engine) {
+        this(engine, DEFAULT_SEED);
+    }
+
+    private DJLPredictor(InferenceEngine engine, long seed) {
         this.fallback = new BaseAIModel();
+        this.seed = seed;
+        this.modelName = engine != null ? engine.name() : BASELINE_MODEL_NAME;
+        this.engine = engine;
+        this.batcher = engine != null ? new MicroBatcher(engine, MAX_BATCH, MAX_BATCH_DELAY) : null;
+        if (engine != null) {
+            try {
+                warmUp();
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
     }
 
     @Override
@@ -35,44 +118,205 @@ public class DJLPredictor implements Predictor {
             ProductType productType,
             String destination
     ) {
+        if (engine != null) {
+            if (historicalData == null || historicalData.isEmpty()) {
+                throw new IllegalArgumentException("No historical data provided");
+            }
+            return predict(SeriesIndex.of(historicalData), targetDate, productType, destination);
+        }
+        return predict(() -> fallback.predict(historicalData, targetDate, productType, destination),
+                () -> fallback.predict(historicalData, targetDate, productType, destination));
+    }
+
+    @Override
+    public PredictionResult predict(
+            SeriesIndex history,
+            LocalDate targetDate,
+            ProductType productType,
+            String destination
+    ) {
+        Supplier<PredictionResult> baseline = () -> fallback.predict(history, targetDate, productType, destination);
+        if (engine == null) {
+            return predict(baseline, baseline);
+        }
+        return predict(() -> {
+            float[] features = new float[PriceFeatures.COUNT];
+            int points = history.features().fill(FloatBuffer.wrap(features), productType, destination, targetDate);
+            if (points == 0) {
+                throw new IllegalArgumentException("No relevant historical data found");
+            }
+            return result(score(features), points, targetDate, productType, destination);
+        }, baseline);
+    }
+
+    /**
+     * Fills the {@link FeatureStore} rows of each chunk of {@value #MAX_BATCH} requests into a direct buffer
+     * and scores the chunks in parallel over the engine's sessions.
+     */
+    @Override
+    public List<PredictionResult> predictBatch(SeriesIndex history, List<PredictionRequest> requests) {
+        if (engine == null) {
+            log.warn("DJL model not loaded, using enhanced baseline for {} requests", requests.size());
+            return fallback.predictBatch(history, requests).stream().map(this::enhanceOrFail).toList();
+        }
         try {
-            // TODO: In a real implementation, load a trained DJL model and perform inference
-            // For now, we use a more sophisticated baseline that simulates ML behavior
-            log.warn("DJL model not loaded, using enhanced baseline");
-
-            PredictionResult baseline = fallback.predict(historicalData, targetDate, productType, destination);
-
-
-            BigDecimal enhancedPrice = baseline.predictedPricePerTon()
-                    .multiply(BigDecimal.valueOf(0.95 + Math.random() * 0.1))
-                    .setScale(2, RoundingMode.HALF_UP);
-
-            return new PredictionResult(
-                    targetDate,
-                    productType,
-                    destination,
-                    enhancedPrice,
-                    Math.min(0.85, baseline.confidence() + 0.1),
-                    PredictionStatus.FALLBACK_USED,
-                    MODEL_NAME
-            );
+            FeatureStore store = history.features();
+            PredictionResult[] results = new PredictionResult[requests.size()];
+            IntStream.range(0, (requests.size() + MAX_BATCH - 1) / MAX_BATCH).parallel().forEach(chunk -> {
+                int from = chunk * MAX_BATCH;
+                int to = Math.min(requests.size(), from + MAX_BATCH);
+                FloatBuffer features = InferenceEngine.allocate(to - from);
+                int[] points = new int[to - from];
+                for (int i = from; i < to; i++) {
+                    PredictionRequest request = requests.get(i);
+                    points[i - from] = store.fill(features, request.productType(), request.destination(),
+                            request.targetDate());
+                }
+                float[] prices = features.position() > 0 ? engine.infer(features.flip()) : new float[0];
+                for (int i = from, row = 0; i < to; i++) {
+                    PredictionRequest request = requests.get(i);
+                    results[i] = points[i - from] == 0
+                            ? failed(request.targetDate(), request.productType(), request.destination())
+                            : result(prices[row++], points[i - from], request.targetDate(), request.productType(),
+                                    request.destination());
+                }
+            });
+            return Arrays.asList(results);
+        } catch (RuntimeException e) {
+            log.error("DJL batch prediction failed, using fallback", e);
+            return fallback.predictBatch(history, requests).stream()
+                    .map(result -> result.status() == PredictionStatus.FAILED ? result : fallbackResult(result))
+                    .map(this::renamed)
+                    .toList();
+        }
+    }
+
+    /**
+     * Releases the model sessions.
+     */
+    @Override
+    public void close() {
+        if (engine != null) {
+            batcher.close();
+            engine.close();
+        }
+    }
+
+    private PredictionResult predict(Supplier<PredictionResult> prediction, Supplier<PredictionResult> baseline) {
+        try {
+            if (engine == null) {
+                log.warn("DJL model not loaded, using enhanced baseline");
+                return enhance(baseline.get());
+            }
+            return prediction.get();
+        } catch (IllegalArgumentException e) {
+            // No usable history: the baseline would fail the same way
+            throw e;
         } catch (Exception e) {
             log.error("DJL prediction failed, using fallback", e);
-            PredictionResult fallbackResult = fallback.predict(historicalData, targetDate, productType, destination);
-            return new PredictionResult(
-                    fallbackResult.targetDate(),
-                    fallbackResult.productType(),
-                    fallbackResult.destination(),
-                    fallbackResult.predictedPricePerTon(),
-                    fallbackResult.confidence() * 0.8,
-                    PredictionStatus.FALLBACK_USED,
-                    MODEL_NAME
-            );
+            return fallbackResult(baseline.get());
         }
     }
 
-    @Override
-    public String getModelName() {
-        return MODEL_NAME;
+    /**
+     * Queues one row on the micro-batcher and waits at most {@link #INFERENCE_TIMEOUT} for its price.
+     *
+     * @throws PredictionException if inference fails, times out or the wait is interrupted
+     */
+    private float score(float[] features) {
+        CompletableFuture<Float> price = batcher.submit(features);
+        try {
+            return price.get(INFERENCE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new PredictionException("Batched inference failed", e.getCause());
+        } catch (TimeoutException e) {
+            price.cancel(false);
+            throw new PredictionException("No inference result within " + INFERENCE_TIMEOUT, e);
+        } catch (InterruptedException e) {
+            price.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PredictionException("Interrupted while waiting for inference", e);
+        }
+    }
+
+    private void warmUp() {
+        float[][] features = new float[MAX_BATCH][PriceFeatures.COUNT];
+        for (int i = 0; i < engine.poolSize(); i++) {
+            engine.infer(features);
+        }
+        log.info("DJL model warmed up on {} sessions", engine.poolSize());
+    }
+
+    private PredictionResult result(
+            float price,
+            int points,
+            LocalDate targetDate,
+            ProductType productType,
+            String destination
+    ) {
+        if (!Float.isFinite(price)) {
+            throw new IllegalStateException("Model returned " + price);
+        }
+        return new PredictionResult(
+                targetDate,
+                productType,
+                destination,
+                BigDecimal.valueOf(Math.max(0f, price)).setScale(2, RoundingMode.HALF_UP),
+                Math.min(0.85, 0.4 + points / 20.0),
+                PredictionStatus.SUCCESS,
+                modelName
+        );
+    }
+
+    private PredictionResult enhanceOrFail(PredictionResult baseline) {
+        return baseline.status() == PredictionStatus.FAILED ? renamed(baseline) : enhance(baseline);
+    }
+
+    private PredictionResult enhance(PredictionResult baseline) {
+        BigDecimal enhancedPrice = baseline.predictedPricePerTon()
+                .multiply(BigDecimal.valueOf(0.95 + random(baseline).nextDouble() * 0.1))
+                .setScale(2, RoundingMode.HALF_UP);
+
+        return new PredictionResult(
+                baseline.targetDate(),
+                baseline.productType(),
+                baseline.destination(),
+                enhancedPrice,
+                Math.min(0.85, baseline.confidence() + 0.1),
+                PredictionStatus.FALLBACK_USED,
+                modelName
+        );
+    }
+
+    /**
+     * @return a generator determined by the seed and the request, from stable hashes only
+     */
+    private SplittableRandom random(PredictionResult prediction) {
+        long key = seed;
+        key = 31 * key + prediction.productType().ordinal();
+        key = 31 * key + Objects.hashCode(prediction.destination());
+        key = 31 * key + prediction.targetDate().toEpochDay();
+        return new SplittableRandom(key);
+    }
+
+    private PredictionResult fallbackResult(PredictionResult baseline) {
+        return new PredictionResult(
+                baseline.targetDate(),
+                baseline.productType(),
+                baseline.destination(),
+                baseline.predictedPricePerTon(),
+                baseline.confidence() * 0.8,
+                PredictionStatus.FALLBACK_USED,
+                modelName
+        );
+    }
+
+    private PredictionResult renamed(PredictionResult result) {
+        return new PredictionResult(result.targetDate(), result.productType(), result.destination(),
+                result.predictedPricePerTon(), result.confidence(), result.status(), modelName);
+    }
+
+    private PredictionResult failed(LocalDate targetDate, ProductType productType, String destination) {
+        return new PredictionResult(targetDate, productType, destination, null, 0, PredictionStatus.FAILED, modelName);
     }
 }
@@ -0,0 +1,50 @@
+package tn.isg.economics.ai;
+
+import tn.isg.economics.model.ProductType;
+
+import java.nio.FloatBuffer;
+import java.time.LocalDate;
+
+/**
+ * {@link PriceFeatures} rows of every series of a {@link SeriesIndex}, served straight into inference
+ * buffers.
+ * <p>
+ * The prices and indicator values of a series are materialized as a dense float array when the series is
+ * first read after a change, so appends only invalidate the series they touch and feature engineering is not
+ * redone on every prediction. Filling a row copies that array and the horizon into the caller's buffer,
+ * typically the direct buffer an {@link InferenceEngine} reads its input tensor from.
+ */
+public final class FeatureStore {
+
+    private final SeriesIndex index;
+
+    FeatureStore(SeriesIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Writes the {@link PriceFeatures#COUNT} features of {@code productType} exported to {@code destination}
+     * at the position of {@code batch}, using the whole product when that destination has no records.
+     *
+     * @return number of price points behind the row, 0 if the product has no records and nothing was written
+     */
+    public int fill(FloatBuffer batch, ProductType productType, String destination, LocalDate targetDate) {
+        synchronized (index) {
+            SeriesState series = index.seriesOrProduct(productType, destination);
+            if (series == null || series.prices().size() == 0) {
+                return 0;
+            }
+            batch.put(series.features());
+            batch.put(PriceFeatures.horizon(series.prices().epochDay(0), targetDate));
+            return series.prices().size();
+        }
+    }
+
+    /**
+     * @return the features of the series, as filled by {@link #fill}, or {@code null} if the product has no records
+     */
+    public float[] row(ProductType productType, String destination, LocalDate targetDate) {
+        float[] row = new float[PriceFeatures.COUNT];
+        return fill(FloatBuffer.wrap(row), productType, destination, targetDate) > 0 ? row : null;
+    }
+}
@@ -0,0 +1,83 @@
+package tn.isg.economics.ai;
+
+import tn.isg.economics.exceptions.PredictionException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+
+/**
+ * A loaded price model that scores batches of {@link PriceFeatures} rows on the CPU. Implementations keep
+ * a pool of model sessions so concurrent callers run forward passes side by side.
+ */
+public interface InferenceEngine extends AutoCloseable {
+
+    /**
+     * Scores the rows between the position and the limit of {@code features}, row-major. A direct buffer in
+     * native byte order, see {@link #allocate(int)}, is handed to the runtime without being copied.
+     *
+     * @param features {@link PriceFeatures#COUNT} values per prediction
+     * @return predicted price per ton for each row
+     * @throws PredictionException if the forward pass fails
+     */
+    float[] infer(FloatBuffer features);
+
+    /**
+     * @param features one row of {@link PriceFeatures#COUNT} values per prediction
+     * @return predicted price per ton for each row
+     * @throws PredictionException if the forward pass fails
+     */
+    default float[] infer(float[][] features) {
+        FloatBuffer batch = allocate(features.length);
+        for (float[] row : features) {
+            batch.put(row);
+        }
+        return infer(batch.flip());
+    }
+
+    /**
+     * @return number of pooled sessions, i.e. forward passes that can run at the same time
+     */
+    int poolSize();
+
+    /**
+     * @return model name reported on the predictions this engine scores, naming its runtime
+     */
+    String name();
+
+    @Override
+    void close();
+
+    /**
+     * @return a direct buffer in native byte order holding {@code rows} feature rows
+     */
+    static FloatBuffer allocate(int rows) {
+        return ByteBuffer.allocateDirect(rows * PriceFeatures.COUNT * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+
+    /**
+     * @return number of rows between the position and the limit of {@code features}
+     * @throws IllegalArgumentException if that is not a whole number of rows
+     */
+    static int rows(FloatBuffer features) {
+        if (features.remaining() % PriceFeatures.COUNT != 0) {
+            throw new IllegalArgumentException(features.remaining() + " values are not rows of " + PriceFeatures.COUNT);
+        }
+        return features.remaining() / PriceFeatures.COUNT;
+    }
+
+    /**
+     * Loads an ONNX model ({@code .onnx}) with ONNX Runtime, anything else as a TorchScript model with DJL.
+     *
+     * @throws PredictionException if the model cannot be loaded
+     */
+    static InferenceEngine load(Path modelPath, int poolSize) {
+        String fileName = modelPath.getFileName().toString().toLowerCase();
+        return fileName.endsWith(".onnx")
+                ? new OnnxInferenceEngine(modelPath, poolSize)
+                : new TorchScriptInferenceEngine(modelPath, poolSize);
+    }
+}
@@ -1,16 +1,26 @@
 package tn.isg.economics.ai;
 
 import lombok.extern.slf4j.Slf4j;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.ollama.OllamaChatModel;
+import dev.langchain4j.model.ollama.OllamaStreamingChatModel;
+import dev.langchain4j.model.output.Response;
 import tn.isg.economics.exceptions.ReportGenerationException;
 import tn.isg.economics.model.ExportRecord;
 import tn.isg.economics.model.PredictionResult;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -21,14 +31,94 @@ import java.util.stream.Collectors;
 public class LangChain4jReportGenerator implements ReportGenerator {
 
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final String OLLAMA_URL = "http://localhost:11434";
+    private static final String MODEL_NAME = "llama2"; // you can change to another local model name
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(90);
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 2;
+    private static final String INSTRUCTIONS = "\n\nYou are an economic analyst. Generate a structured, concise market intelligence report in Markdown about Tunisian agricultural exports based on the data above.";
+
     private final ChatLanguageModel chatModel;
+    private final StreamingChatLanguageModel streamingModel;
+    private final ReportCache cache;
+    private final CircuitBreaker circuitBreaker;
+    private final ReportPrompt reportPrompt;
+    private final Semaphore modelCalls;
 
     public LangChain4jReportGenerator() {
+        this(new ReportCache(ReportCache.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * @param cache cache of the model's reports by prompt; template reports are never cached
+     */
+    public LangChain4jReportGenerator(ReportCache cache) {
+        this(cache, new CircuitBreaker("ollama"), DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param cache          cache of the model's reports by prompt; template reports are never cached
+     * @param circuitBreaker breaker over the Ollama calls; while it is open the template report is used at once
+     * @param timeout        connection and read timeout of every Ollama call
+     */
+    public LangChain4jReportGenerator(ReportCache cache, CircuitBreaker circuitBreaker, Duration timeout) {
+        this(cache, circuitBreaker, timeout, new ReportPrompt(), DEFAULT_MAX_CONCURRENT_CALLS);
+    }
+
+    /**
+     * @param cache              cache of the model's reports by prompt; template reports are never cached
+     * @param circuitBreaker     breaker over the Ollama calls; while it is open the template report is used at once
+     * @param timeout            connection and read timeout of every Ollama call
+     * @param reportPrompt       builder of prompts within the model's token budget
+     * @param maxConcurrentCalls maximum number of blocking Ollama calls at once, matching the requests the
+     *                           server runs in parallel; further callers wait for a turn
+     */
+    public LangChain4jReportGenerator(
+            ReportCache cache,
+            CircuitBreaker circuitBreaker,
+            Duration timeout,
+            ReportPrompt reportPrompt,
+            int maxConcurrentCalls
+    ) {
         // Ollama local model as primary LLM (http://localhost:11434)
-        this.chatModel = OllamaChatModel.builder()
-                .baseUrl("http://localhost:11434")
-                .modelName("llama2") // you can change to another local model name
-                .build();
+        this(
+                OllamaChatModel.builder()
+                        .baseUrl(OLLAMA_URL)
+                        .modelName(MODEL_NAME)
+                        .timeout(timeout)
+                        .build(),
+                OllamaStreamingChatModel.builder()
+                        .baseUrl(OLLAMA_URL)
+                        .modelName(MODEL_NAME)
+                        .timeout(timeout)
+                        .build(),
+                cache,
+                circuitBreaker,
+                reportPrompt,
+                maxConcurrentCalls
+        );
+    }
+
+    LangChain4jReportGenerator(
+            ChatLanguageModel chatModel,
+            StreamingChatLanguageModel streamingModel,
+            ReportCache cache,
+            CircuitBreaker circuitBreaker,
+            ReportPrompt reportPrompt,
+            int maxConcurrentCalls
+    ) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("Maximum concurrent calls must be positive: " + maxConcurrentCalls);
+        }
+        this.chatModel = chatModel;
+        this.streamingModel = streamingModel;
+        this.cache = cache;
+        this.circuitBreaker = circuitBreaker;
+        this.reportPrompt = reportPrompt;
+        this.modelCalls = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    public CircuitBreaker.Stats circuitBreakerStats() {
+        return circuitBreaker.stats();
     }
 
     @Override
@@ -38,58 +128,26 @@ public class LangChain4jReportGenerator implements ReportGenerator {
             Map<String, Object> statistics
     ) {
         try {
-            // Build structured prompt data
-            StringBuilder promptData = new StringBuilder();
-            promptData.append("# Tunisian Agricultural Export Market Intelligence Report\n\n");
-            promptData.append("## Historical Data Summary\n");
-            promptData.append(String.format("- Total Records: %d\n", historicalData.size()));
-
-            if (!historicalData.isEmpty()) {
-                LocalDate minDate = historicalData.stream()
-                        .map(ExportRecord::date)
-                        .min(LocalDate::compareTo)
-                        .orElse(LocalDate.now());
-                LocalDate maxDate = historicalData.stream()
-                        .map(ExportRecord::date)
-                        .max(LocalDate::compareTo)
-                        .orElse(LocalDate.now());
-                promptData.append(String.format("- Date Range: %s to %s\n", 
-                        minDate.format(DATE_FORMAT), maxDate.format(DATE_FORMAT)));
-            }
-
-            promptData.append("\n## Recent Predictions\n");
-            if (predictions.isEmpty()) {
-                promptData.append("- No predictions available\n");
-            } else {
-                for (PredictionResult pred : predictions) {
-                    promptData.append(String.format(
-                            "- %s: %s TND/ton (confidence: %.1f%%) for %s on %s\n",
-                            pred.productType(),
-                            pred.predictedPricePerTon(),
-                            pred.confidence() * 100,
-                            pred.destination(),
-                            pred.targetDate().format(DATE_FORMAT)
-                    ));
-                }
+            String prompt = reportPrompt.build(historicalData, predictions, statistics, INSTRUCTIONS);
+            String key = ReportCache.key(MODEL_NAME, prompt);
+            String cached = cachedReport(key);
+            if (cached != null) {
+                return cached;
             }
 
-            promptData.append("\n## Key Statistics\n");
-            statistics.forEach((key, value) -> {
-                promptData.append(String.format("- %s: %s\n", key, value));
-            });
-
             String report;
             try {
                 // Use Ollama via LangChain4j as the primary report generator
-                String llmResponse = chatModel.generate(
-                        promptData.toString() +
-                                "\n\nYou are an economic analyst. Generate a structured, concise market intelligence report in Markdown about Tunisian agricultural exports based on the data above."
-                );
-                report = llmResponse;
-            } catch (Exception llmError) {
+                report = callModel(prompt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ReportGenerationException("Interrupted while waiting for the model", e);
+            }
+            if (report != null) {
+                cache.put(key, report);
+            } else {
                 // Fallback to template-based report if Ollama is not available
-                log.warn("Ollama/LangChain4j call failed, using template report instead: {}", llmError.getMessage());
-                report = generateTemplateReport(promptData.toString(), historicalData, predictions, statistics);
+                report = generateTemplateReport(prompt, historicalData, predictions, statistics);
             }
 
             log.info("Generated market intelligence report ({} chars)", report.length());
@@ -100,8 +158,153 @@ public class LangChain4jReportGenerator implements ReportGenerator {
         }
     }
 
+    /**
+     * Streams the report from the Ollama streaming model, passing each token to {@code onChunk} as it arrives.
+     * If the model fails before its first token, the template report is delivered as a single chunk instead;
+     * a failure after that fails the future. The Ollama client cannot abort a request, so cancellation and the
+     * deadline stop the delivery of tokens while the model finishes in the background.
+     * A report found in the cache, or the template report while the circuit breaker is open, is delivered as a
+     * single chunk. The prompt, the cache lookup and the template report are prepared on a report thread, never on
+     * the caller's.
+     */
+    @Override
+    public CompletableFuture<String> generateReportAsync(
+            List<ExportRecord> historicalData,
+            List<PredictionResult> predictions,
+            Map<String, Object> statistics,
+            Consumer<String> onChunk,
+            Duration deadline
+    ) {
+        CompletableFuture<String> report = new CompletableFuture<>();
+        report.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        ReportThreads.ASYNC.execute(() -> {
+            try {
+                streamReport(historicalData, predictions, statistics, onChunk, report);
+            } catch (RuntimeException e) {
+                report.completeExceptionally(new ReportGenerationException("Failed to generate report: " + e.getMessage(), e));
+            }
+        });
+        return report;
+    }
+
+    private void streamReport(
+            List<ExportRecord> historicalData,
+            List<PredictionResult> predictions,
+            Map<String, Object> statistics,
+            Consumer<String> onChunk,
+            CompletableFuture<String> report
+    ) {
+        if (report.isDone()) {
+            return;
+        }
+        String prompt = reportPrompt.build(historicalData, predictions, statistics, INSTRUCTIONS);
+        String key = ReportCache.key(MODEL_NAME, prompt);
+        String cached = cachedReport(key);
+        if (cached != null) {
+            complete(report, cached, onChunk);
+            return;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            log.info("Ollama circuit breaker open, using template report");
+            complete(report, generateTemplateReport(prompt, historicalData, predictions, statistics), onChunk);
+            return;
+        }
+
+        StreamingResponseHandler<AiMessage> handler = new StreamingResponseHandler<>() {
+            // Tokens are delivered one at a time by the model's client thread
+            private final StringBuilder text = new StringBuilder();
+
+            @Override
+            public void onNext(String token) {
+                if (!report.isDone()) {
+                    text.append(token);
+                    onChunk.accept(token);
+                }
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                circuitBreaker.onSuccess();
+                if (report.complete(text.toString())) {
+                    cache.put(key, text.toString());
+                    log.info("Streamed market intelligence report ({} chars)", text.length());
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                circuitBreaker.onFailure();
+                if (report.isDone()) {
+                    return;
+                }
+                if (!text.isEmpty()) {
+                    report.completeExceptionally(new ReportGenerationException(
+                            "Report generation failed after " + text.length() + " chars: " + error.getMessage(), error));
+                    return;
+                }
+                log.warn("Ollama/LangChain4j streaming failed, using template report instead: {}", error.getMessage());
+                complete(report, generateTemplateReport(prompt, historicalData, predictions, statistics), onChunk);
+            }
+        };
+
+        try {
+            streamingModel.generate(prompt, handler);
+        } catch (RuntimeException e) {
+            handler.onError(e);
+        }
+    }
+
+    /**
+     * Delivers a whole report as a single chunk unless the caller has cancelled or the deadline has passed.
+     */
+    private static void complete(CompletableFuture<String> report, String text, Consumer<String> onChunk) {
+        if (!report.isDone()) {
+            onChunk.accept(text);
+            report.complete(text);
+        }
+    }
+
+    /**
+     * Calls the blocking model within the concurrency limit. The permit is taken before the circuit breaker is
+     * asked, so callers that queued while the model was failing fail fast once their turn comes, and a half-open
+     * probe is only granted to a caller about to make the call, which then always reports its outcome. Only the
+     * call holds a permit, so template reports for failed calls are built while other calls run.
+     *
+     * @return the model's report, or null if the breaker is open or the call failed
+     */
+    private String callModel(String prompt) throws InterruptedException {
+        modelCalls.acquire();
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                log.info("Ollama circuit breaker open, using template report");
+                return null;
+            }
+            try {
+                String report = chatModel.generate(prompt);
+                circuitBreaker.onSuccess();
+                return report;
+            } catch (RuntimeException llmError) {
+                circuitBreaker.onFailure();
+                log.warn("Ollama/LangChain4j call failed, using template report instead: {}", llmError.getMessage());
+                return null;
+            }
+        } finally {
+            modelCalls.release();
+        }
+    }
+
+    private String cachedReport(String key) {
+        String cached = cache.get(key);
+        if (cached != null) {
+            ReportCache.Stats stats = cache.stats();
+            log.info("Report served from cache ({} hits, hit rate {})", stats.hits(),
+                    String.format("%.1f%%", stats.hitRate() * 100));
+        }
+        return cached;
+    }
+
     private String generateTemplateReport(
-            String promptData,
+            String prompt,
             List<ExportRecord> historicalData,
             List<PredictionResult> predictions,
             Map<String, Object> statistics
@@ -0,0 +1,122 @@
+package tn.isg.economics.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.exceptions.PredictionException;
+
+import java.nio.FloatBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects single predictions from concurrent callers into batches so each forward pass scores one tensor
+ * of up to {@code maxBatch} rows. A batch is sent as soon as it is full or {@code maxDelay} after its first
+ * row arrived; one worker per pooled session keeps every session busy, packing its batches into a direct
+ * buffer of its own.
+ */
+@Slf4j
+final class MicroBatcher implements AutoCloseable {
+
+    private final InferenceEngine engine;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final Object lifecycle = new Object();
+    private volatile boolean closed;
+
+    MicroBatcher(InferenceEngine engine, int maxBatch, Duration maxDelay) {
+        this.engine = engine;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+        for (int i = 0; i < engine.poolSize(); i++) {
+            Thread worker = Thread.ofPlatform().daemon().name("inference-batcher-" + i).start(this::run);
+            workers.add(worker);
+        }
+    }
+
+    CompletableFuture<Float> submit(float[] features) {
+        CompletableFuture<Float> result = new CompletableFuture<>();
+        // Enqueue under the same lock close() flips the flag with, so nothing lands after the final drain
+        synchronized (lifecycle) {
+            if (closed) {
+                result.completeExceptionally(new PredictionException("Inference engine is closed"));
+            } else {
+                queue.add(new Pending(features, result));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        synchronized (lifecycle) {
+            closed = true;
+        }
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new PredictionException("Inference engine is closed"));
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        FloatBuffer features = InferenceEngine.allocate(maxBatch);
+        try {
+            while (!closed) {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                score(batch, features);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            batch.forEach(pending -> pending.result().completeExceptionally(
+                    new PredictionException("Inference engine is closed")));
+        }
+    }
+
+    private void score(List<Pending> batch, FloatBuffer features) {
+        features.clear();
+        batch.forEach(pending -> features.put(pending.features()));
+        try {
+            float[] prices = engine.infer(features.flip());
+            if (prices.length != batch.size()) {
+                throw new PredictionException("Model returned " + prices.length + " prices for " + batch.size()
+                        + " rows");
+            }
+            for (int i = 0; i < prices.length; i++) {
+                batch.get(i).result().complete(prices[i]);
+            }
+        } catch (RuntimeException e) {
+            log.error("Batched inference of {} rows failed", batch.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private record Pending(float[] features, CompletableFuture<Float> result) {
+    }
+}
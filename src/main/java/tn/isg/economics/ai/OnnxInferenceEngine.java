@@ -0,0 +1,117 @@
+package tn.isg.economics.ai;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.exceptions.PredictionException;
+
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * ONNX Runtime engine. The model takes one float tensor {@code [batch, PriceFeatures.COUNT]} and returns
+ * a float tensor {@code [batch]} or {@code [batch, 1]}. Each pooled session runs single-threaded, so
+ * parallelism comes from concurrent callers.
+ */
+@Slf4j
+public class OnnxInferenceEngine implements InferenceEngine {
+
+    private final OrtEnvironment environment = OrtEnvironment.getEnvironment();
+    private final List<OrtSession> sessions = new ArrayList<>();
+    private final BlockingQueue<OrtSession> idle;
+    private final String inputName;
+
+    public OnnxInferenceEngine(Path modelPath, int poolSize) {
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setIntraOpNumThreads(1);
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            for (int i = 0; i < poolSize; i++) {
+                OrtSession session = environment.createSession(modelPath.toString(), options);
+                sessions.add(session);
+                idle.add(session);
+            }
+            this.inputName = checkInput(sessions.get(0));
+        } catch (OrtException | RuntimeException e) {
+            close();
+            throw new PredictionException("Cannot load ONNX model " + modelPath, e);
+        }
+        log.info("Loaded ONNX model {} with {} sessions", modelPath, poolSize);
+    }
+
+    @Override
+    public float[] infer(FloatBuffer features) {
+        long[] shape = {InferenceEngine.rows(features), PriceFeatures.COUNT};
+        OrtSession session = acquire();
+        try (OnnxTensor input = OnnxTensor.createTensor(environment, features, shape);
+             OrtSession.Result result = session.run(Map.of(inputName, input))) {
+            Object output = result.get(0).getValue();
+            if (output instanceof float[] prices) {
+                return prices;
+            }
+            float[][] rows = (float[][]) output;
+            float[] prices = new float[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                prices[i] = rows[i][0];
+            }
+            return prices;
+        } catch (OrtException | ClassCastException e) {
+            throw new PredictionException("ONNX inference failed", e);
+        } finally {
+            idle.add(session);
+        }
+    }
+
+    @Override
+    public int poolSize() {
+        return sessions.size();
+    }
+
+    @Override
+    public String name() {
+        return "ONNX-Runtime";
+    }
+
+    @Override
+    public void close() {
+        for (OrtSession session : sessions) {
+            try {
+                session.close();
+            } catch (OrtException e) {
+                log.warn("Failed to close ONNX session", e);
+            }
+        }
+        sessions.clear();
+    }
+
+    private OrtSession acquire() {
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PredictionException("Interrupted while waiting for an ONNX session", e);
+        }
+    }
+
+    private static String checkInput(OrtSession session) throws OrtException {
+        Map.Entry<String, NodeInfo> input = session.getInputInfo().entrySet().iterator().next();
+        if (input.getValue().getInfo() instanceof TensorInfo tensor) {
+            long[] shape = tensor.getShape();
+            if (shape.length != 2 || (shape[1] != -1 && shape[1] != PriceFeatures.COUNT)) {
+                throw new PredictionException("Expected input [batch, " + PriceFeatures.COUNT + "] but model takes "
+                        + Arrays.toString(shape));
+            }
+        }
+        return input.getKey();
+    }
+}
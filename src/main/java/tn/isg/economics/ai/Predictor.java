@@ -1,6 +1,7 @@
 package tn.isg.economics.ai;
 
 import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.PredictionRequest;
 import tn.isg.economics.model.PredictionResult;
 
 import java.util.List;
@@ -25,6 +26,49 @@ public interface Predictor {
             String destination
     );
 
+    /**
+     * Predicts future price for a product from pre-grouped history, without scanning the full record list.
+     *
+     * @param history     recent points per series
+     * @param targetDate  date to predict for
+     * @param productType product type
+     * @param destination destination country
+     * @return prediction result
+     */
+    PredictionResult predict(
+            SeriesIndex history,
+            java.time.LocalDate targetDate,
+            tn.isg.economics.model.ProductType productType,
+            String destination
+    );
+
+    /**
+     * Predicts every request from one pass over {@code historicalData}.
+     *
+     * @param historicalData historical export records
+     * @param requests       forecasts to compute
+     * @return one result per request, in request order
+     * @see #predictBatch(SeriesIndex, List)
+     */
+    default List<PredictionResult> predictBatch(List<ExportRecord> historicalData, List<PredictionRequest> requests) {
+        if (historicalData == null || historicalData.isEmpty()) {
+            throw new IllegalArgumentException("No historical data provided");
+        }
+        return predictBatch(SeriesIndex.of(historicalData), requests);
+    }
+
+    /**
+     * Predicts every request from pre-grouped history. Requests on the same series share its state, and
+     * independent series may be computed in parallel. A request whose series has no history yields a
+     * {@link tn.isg.economics.model.PredictionStatus#FAILED} result without a price instead of failing
+     * the batch.
+     *
+     * @param history  recent points per series
+     * @param requests forecasts to compute
+     * @return one result per request, in request order
+     */
+    List<PredictionResult> predictBatch(SeriesIndex history, List<PredictionRequest> requests);
+
     /**
      * @return model name/identifier
      */
@@ -0,0 +1,58 @@
+package tn.isg.economics.ai;
+
+import tn.isg.economics.model.MarketIndicator;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Feature vector layout shared by every {@link InferenceEngine} model:
+ * <ol>
+ *     <li>the {@value RecentPrices#CAPACITY} most recent prices of the series in TND/ton, newest first,
+ *     padded with the oldest known price when the series is shorter;</li>
+ *     <li>the value of each {@link MarketIndicator} on the newest day of the series in ordinal order,
+ *     0 when unknown;</li>
+ *     <li>the horizon, in days from the newest price to the target date.</li>
+ * </ol>
+ * Everything but the horizon only depends on the series, which lets {@link FeatureStore} keep it
+ * materialized.
+ */
+public final class PriceFeatures {
+
+    public static final int COUNT = RecentPrices.CAPACITY + MarketIndicator.values().length + 1;
+
+    /**
+     * Number of leading values that do not depend on the target date.
+     */
+    static final int SERIES_COUNT = COUNT - 1;
+
+    private PriceFeatures() {
+    }
+
+    /**
+     * @param series     non-empty recent prices of the series
+     * @param indicators indicator values by ordinal, {@code NaN} when unknown
+     */
+    public static float[] of(RecentPrices series, double[] indicators, LocalDate targetDate) {
+        float[] features = new float[COUNT];
+        writeSeries(series, indicators, features);
+        features[COUNT - 1] = horizon(series.epochDay(0), targetDate);
+        return features;
+    }
+
+    /**
+     * Writes the first {@link #SERIES_COUNT} values of the layout into {@code features}.
+     */
+    static void writeSeries(RecentPrices series, double[] indicators, float[] features) {
+        for (int i = 0; i < RecentPrices.CAPACITY; i++) {
+            features[i] = series.cents(Math.min(i, series.size() - 1)) / 100f;
+        }
+        for (int i = 0; i < indicators.length; i++) {
+            features[RecentPrices.CAPACITY + i] = Double.isNaN(indicators[i]) ? 0f : (float) indicators[i];
+        }
+    }
+
+    static float horizon(long newestEpochDay, LocalDate targetDate) {
+        return ChronoUnit.DAYS.between(LocalDate.ofEpochDay(newestEpochDay), targetDate);
+    }
+}
@@ -0,0 +1,77 @@
+package tn.isg.economics.ai;
+
+import java.time.LocalDate;
+
+/**
+ * The {@value #CAPACITY} newest price points of a series, newest first, in fixed arrays. Points of the same
+ * day keep the order they were offered in, like a stable sort on descending date; absent prices count as
+ * zero cents. Offering a point costs at most {@value #CAPACITY} moves whatever the length of the series.
+ */
+public final class RecentPrices {
+
+    public static final int CAPACITY = 12;
+
+    private final long[] days = new long[CAPACITY];
+    private final long[] cents = new long[CAPACITY];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index 0 for the newest point
+     */
+    public long cents(int index) {
+        return cents[checkIndex(index)];
+    }
+
+    /**
+     * @param index 0 for the newest point
+     */
+    public LocalDate date(int index) {
+        return LocalDate.ofEpochDay(days[checkIndex(index)]);
+    }
+
+    long epochDay(int index) {
+        return days[checkIndex(index)];
+    }
+
+    /**
+     * @return whether a point of that day would be kept, so callers can skip converting its price otherwise
+     */
+    boolean accepts(long epochDay) {
+        return size < CAPACITY || days[CAPACITY - 1] < epochDay;
+    }
+
+    void offer(long epochDay, long priceCents) {
+        int position = size;
+        while (position > 0 && days[position - 1] < epochDay) {
+            position--;
+        }
+        if (position == CAPACITY) {
+            return;
+        }
+        int moved = Math.min(size, CAPACITY - 1) - position;
+        System.arraycopy(days, position, days, position + 1, moved);
+        System.arraycopy(cents, position, cents, position + 1, moved);
+        days[position] = epochDay;
+        cents[position] = priceCents;
+        size = Math.min(size + 1, CAPACITY);
+    }
+
+    RecentPrices copy() {
+        RecentPrices copy = new RecentPrices();
+        System.arraycopy(days, 0, copy.days, 0, size);
+        System.arraycopy(cents, 0, copy.cents, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,129 @@
+package tn.isg.economics.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.exceptions.EconomicsException;
+import tn.isg.economics.model.ReportRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Generates many reports at once, one virtual thread per report.
+ * <p>
+ * At most {@code maxPending} reports are outstanding: beyond that, {@link #submit} blocks until one completes,
+ * so a producer of requests never runs ahead of the generator. How many reports reach the model at the same time
+ * is up to the generator, see {@link LangChain4jReportGenerator}; reports waiting for the model cost a parked
+ * virtual thread. Cancelling a report interrupts its thread. Closing waits for the submitted reports.
+ */
+@Slf4j
+public class ReportBatchExecutor implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_PENDING = 64;
+
+    private final ReportGenerator generator;
+    private final Semaphore pending;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("report-", 0).factory());
+
+    public ReportBatchExecutor(ReportGenerator generator) {
+        this(generator, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param maxPending maximum number of submitted reports not yet complete
+     */
+    public ReportBatchExecutor(ReportGenerator generator, int maxPending) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Maximum pending reports must be positive: " + maxPending);
+        }
+        this.generator = generator;
+        this.pending = new Semaphore(maxPending);
+    }
+
+    /**
+     * Starts generating a report, first waiting while {@code maxPending} reports are outstanding.
+     *
+     * @return the report
+     */
+    public CompletableFuture<String> submit(ReportRequest request) throws InterruptedException {
+        pending.acquire();
+        CompletableFuture<String> report = new CompletableFuture<>();
+        // Released once the report is complete, failed or cancelled, even if its task never ran
+        report.whenComplete((text, error) -> pending.release());
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    report.complete(generator.generateReport(
+                            request.historicalData(), request.predictions(), request.statistics()));
+                } catch (Throwable e) {
+                    report.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            throw e;
+        }
+        report.whenComplete((text, error) -> {
+            if (report.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return report;
+    }
+
+    /**
+     * Generates every report, submitting them as fast as the pending limit allows. The first failure stops the
+     * submissions and cancels the reports still running.
+     *
+     * @return the reports in request order
+     * @throws EconomicsException if a report fails with a checked exception; unchecked ones are rethrown
+     */
+    public List<String> generateAll(List<ReportRequest> requests) throws InterruptedException {
+        long started = System.nanoTime();
+        List<CompletableFuture<String>> reports = new ArrayList<>(requests.size());
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        boolean complete = false;
+        try {
+            for (ReportRequest request : requests) {
+                if (firstFailure.isDone()) {
+                    break;
+                }
+                CompletableFuture<String> report = submit(request);
+                report.whenComplete((text, error) -> {
+                    if (error != null) {
+                        firstFailure.completeExceptionally(error);
+                    }
+                });
+                reports.add(report);
+            }
+            CompletableFuture.anyOf(firstFailure, CompletableFuture.allOf(reports.toArray(CompletableFuture[]::new)))
+                    .get();
+            complete = true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new EconomicsException("Report generation failed", e.getCause());
+        } finally {
+            if (!complete) {
+                reports.forEach(report -> report.cancel(true));
+            }
+        }
+        List<String> results = reports.stream().map(CompletableFuture::join).toList();
+        log.info("Generated {} reports in {} ms", results.size(), (System.nanoTime() - started) / 1_000_000);
+        return results;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
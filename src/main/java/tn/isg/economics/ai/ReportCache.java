@@ -0,0 +1,302 @@
+package tn.isg.economics.ai;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Cache of generated reports, addressed by the SHA-256 digest of the model name and the assembled prompt.
+ * <p>
+ * The least recently used reports are kept in memory up to the capacity. With a directory, every report is
+ * also written there as {@code <digest>.md}, so reports survive restarts: a memory miss looks for the file and
+ * promotes it. Files are written by a background thread, so {@link #put} never waits for the disk, and the
+ * least recently used files beyond the disk capacity are deleted there too; after a restart, file modification
+ * times give the order. The disk tier is best effort; failing to read or write it only costs a miss. The same
+ * prompt sent to the same model is assumed to deserve the same report.
+ */
+@Slf4j
+public class ReportCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final int DEFAULT_DISK_CAPACITY = 4096;
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String SUFFIX = ".md";
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "report-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path directory;
+    private final int diskCapacity;
+    private final Map<String, String> reports;
+    // Reports queued for the writer, readable before their file exists
+    private final Map<String, String> unwritten = new ConcurrentHashMap<>();
+    // Files on disk, least recently used first; only touched by the writer thread
+    private LinkedHashSet<String> files;
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a memory-only cache.
+     */
+    public ReportCache(int capacity) {
+        this(null, capacity);
+    }
+
+    /**
+     * Creates a cache keeping at most {@link #DEFAULT_DISK_CAPACITY} reports on disk.
+     *
+     * @param directory directory of the disk tier, created on the first write; null for a memory-only cache
+     * @param capacity  maximum number of reports kept in memory
+     */
+    public ReportCache(Path directory, int capacity) {
+        this(directory, capacity, DEFAULT_DISK_CAPACITY);
+    }
+
+    /**
+     * @param directory    directory of the disk tier, created on the first write; null for a memory-only cache
+     * @param capacity     maximum number of reports kept in memory
+     * @param diskCapacity maximum number of reports kept in the directory
+     */
+    public ReportCache(Path directory, int capacity, int diskCapacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (diskCapacity <= 0) {
+            throw new IllegalArgumentException("Disk capacity must be positive: " + diskCapacity);
+        }
+        this.directory = directory;
+        this.diskCapacity = diskCapacity;
+        this.reports = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                if (size() > capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the stable key of the report generated by {@code modelName} for {@code prompt}
+     */
+    public static String key(String modelName, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(prompt.getBytes(StandardCharsets.UTF_8));
+            return HEX.formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /**
+     * @return the cached report for {@code key}, or null
+     */
+    public String get(String key) {
+        synchronized (this) {
+            String report = reports.get(key);
+            if (report != null) {
+                memoryHits.increment();
+                return report;
+            }
+        }
+        String report = readFile(key);
+        if (report == null) {
+            misses.increment();
+            return null;
+        }
+        diskHits.increment();
+        synchronized (this) {
+            reports.put(key, report);
+        }
+        WRITER.execute(() -> touch(key));
+        return report;
+    }
+
+    /**
+     * Caches {@code report} in memory and queues it for the disk tier.
+     */
+    public void put(String key, String report) {
+        synchronized (this) {
+            reports.put(key, report);
+        }
+        if (directory != null) {
+            unwritten.put(key, report);
+            WRITER.execute(() -> writeFile(key, report));
+        }
+    }
+
+    /**
+     * Waits until the reports put so far are on disk.
+     */
+    public void flush() throws InterruptedException {
+        try {
+            WRITER.submit(() -> {
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Report cache writer failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return number of reports in memory
+     */
+    public synchronized int size() {
+        return reports.size();
+    }
+
+    public Stats stats() {
+        return new Stats(memoryHits.sum(), diskHits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private String readFile(String key) {
+        if (directory == null) {
+            return null;
+        }
+        String queued = unwritten.get(key);
+        if (queued != null) {
+            return queued;
+        }
+        try {
+            return Files.readString(file(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read cached report {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeFile(String key, String report) {
+        try {
+            Files.createDirectories(directory);
+            // Renamed into place so that a concurrent reader never sees a partial report
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            try {
+                Files.writeString(temp, report);
+                Files.move(temp, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            touch(key);
+            evictFiles();
+        } catch (IOException e) {
+            log.warn("Failed to write cached report {}: {}", key, e.getMessage());
+        } finally {
+            unwritten.remove(key, report);
+        }
+    }
+
+    /**
+     * Marks the file of {@code key} as the most recently used, here and in its modification time.
+     */
+    private void touch(String key) {
+        LinkedHashSet<String> known = files();
+        known.remove(key);
+        try {
+            Files.setLastModifiedTime(file(key), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // Evicted since it was read, or not written yet
+            return;
+        } catch (IOException e) {
+            // Only the order after a restart suffers
+        }
+        known.add(key);
+    }
+
+    private void evictFiles() {
+        LinkedHashSet<String> known = files();
+        Iterator<String> eldest = known.iterator();
+        while (known.size() > diskCapacity) {
+            String key = eldest.next();
+            eldest.remove();
+            try {
+                Files.deleteIfExists(file(key));
+            } catch (IOException e) {
+                log.warn("Failed to evict cached report {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the files of the directory, listed on first use in modification order
+     */
+    private LinkedHashSet<String> files() {
+        if (files == null) {
+            files = new LinkedHashSet<>();
+            try (Stream<Path> listing = Files.list(directory)) {
+                List<Path> existing = listing
+                        .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                        .sorted(Comparator.comparing(ReportCache::lastModified))
+                        .toList();
+                existing.forEach(path -> {
+                    String name = path.getFileName().toString();
+                    files.add(name.substring(0, name.length() - SUFFIX.length()));
+                });
+            } catch (NoSuchFileException e) {
+                // Nothing written yet
+            } catch (IOException e) {
+                log.warn("Failed to list cached reports in {}: {}", directory, e.getMessage());
+            }
+        }
+        return files;
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    /**
+     * Cache counters since creation. Every lookup is a memory hit, a disk hit or a miss.
+     */
+    public record Stats(long memoryHits, long diskHits, long misses, long evictions) {
+
+        public long hits() {
+            return memoryHits + diskHits;
+        }
+
+        public double hitRate() {
+            long lookups = hits() + misses;
+            return lookups == 0 ? 0 : (double) hits() / lookups;
+        }
+    }
+}
@@ -4,8 +4,12 @@ import tn.isg.economics.exceptions.ReportGenerationException;
 import tn.isg.economics.model.ExportRecord;
 import tn.isg.economics.model.PredictionResult;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Interface for generating market intelligence reports using LLMs.
@@ -24,4 +28,41 @@ public interface ReportGenerator {
             List<PredictionResult> predictions,
             Map<String, Object> statistics
     ) throws ReportGenerationException;
+
+    /**
+     * Generates a market intelligence report without blocking the caller.
+     * <p>
+     * Chunks of the report are passed to {@code onChunk}, in order and from a generator thread, as they are
+     * produced; their concatenation is the report the future completes with. Cancelling the future stops the
+     * delivery of chunks. If the report is not complete within {@code deadline}, the future fails with a
+     * {@link java.util.concurrent.TimeoutException}.
+     * <p>
+     * The default implementation runs {@link #generateReport} on a dedicated report thread and delivers the
+     * whole report as a single chunk.
+     *
+     * @param onChunk  receiver of the report chunks
+     * @param deadline maximum time to complete the report
+     * @return the complete report
+     */
+    default CompletableFuture<String> generateReportAsync(
+            List<ExportRecord> historicalData,
+            List<PredictionResult> predictions,
+            Map<String, Object> statistics,
+            Consumer<String> onChunk,
+            Duration deadline
+    ) {
+        CompletableFuture<String> report = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            try {
+                String text = generateReport(historicalData, predictions, statistics);
+                if (!report.isDone()) {
+                    onChunk.accept(text);
+                    report.complete(text);
+                }
+            } catch (RuntimeException e) {
+                report.completeExceptionally(e);
+            }
+        }, ReportThreads.ASYNC);
+        return report.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
 }
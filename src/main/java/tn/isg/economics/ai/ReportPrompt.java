@@ -0,0 +1,383 @@
+package tn.isg.economics.ai;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.PredictionResult;
+import tn.isg.economics.model.PredictionStatus;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordColumns;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Builds report prompts that fit a token budget, however many records, predictions and statistics there are.
+ * <p>
+ * Predictions are summarized per product, then the top {@code topK} movers against the last observed price of
+ * their series and the top {@code topK} most confident of the others are listed. Sections come in that order,
+ * followed by the statistics, and each takes the lines that still fit the budget, counting the ones it leaves
+ * out; the history summary and the instructions are always kept. Failed predictions are ignored.
+ */
+public final class ReportPrompt {
+
+    public static final int DEFAULT_TOKEN_BUDGET = 3000;
+    public static final int DEFAULT_TOP_K = 10;
+
+    private static final ProductType[] PRODUCTS = ProductType.values();
+
+    private final int tokenBudget;
+    private final int topK;
+
+    public ReportPrompt() {
+        this(DEFAULT_TOKEN_BUDGET, DEFAULT_TOP_K);
+    }
+
+    /**
+     * @param tokenBudget maximum estimated tokens of a prompt, instructions included
+     * @param topK        number of predictions listed in each of the movers and confidence sections
+     */
+    public ReportPrompt(int tokenBudget, int topK) {
+        if (tokenBudget <= 0 || topK < 0) {
+            throw new IllegalArgumentException("Invalid token budget " + tokenBudget + " or top K " + topK);
+        }
+        this.tokenBudget = tokenBudget;
+        this.topK = topK;
+    }
+
+    /**
+     * @return the prompt describing the data, followed by {@code instructions}
+     */
+    public String build(
+            List<ExportRecord> historicalData,
+            List<PredictionResult> predictions,
+            Map<String, Object> statistics,
+            String instructions
+    ) {
+        List<PredictionResult> usable = new ArrayList<>(predictions.size());
+        for (PredictionResult prediction : predictions) {
+            if (prediction.status() != PredictionStatus.FAILED) {
+                usable.add(prediction);
+            }
+        }
+        History history = new History(usable);
+        history.scan(historicalData);
+
+        StringBuilder prompt = new StringBuilder(4 * tokenBudget);
+        prompt.append("# Tunisian Agricultural Export Market Intelligence Report\n\n");
+        prompt.append("## Historical Data Summary\n");
+        prompt.append("- Total Records: ").append(historicalData.size()).append('\n');
+        if (history.minDay <= history.maxDay) {
+            prompt.append("- Date Range: ").append(LocalDate.ofEpochDay(history.minDay))
+                    .append(" to ").append(LocalDate.ofEpochDay(history.maxDay)).append('\n');
+        }
+        int remaining = tokenBudget - estimateTokens(prompt) - estimateTokens(instructions);
+
+        if (usable.isEmpty()) {
+            remaining = appendSection(prompt, "\n## Recent Predictions\n", List.of("- No predictions available\n"), remaining);
+        } else {
+            remaining = appendSection(prompt, "\n## Predictions by Product (" + usable.size() + ")\n",
+                    productSummaries(usable), remaining);
+            List<Move> moves = history.moves();
+            List<Move> movers = top(moves, Comparator.comparingDouble(move -> Math.abs(move.change())));
+            remaining = appendSection(prompt, "\n## Largest Predicted Moves vs Last Observed Price\n",
+                    movers.stream().map(ReportPrompt::moveLine).toList(), remaining);
+            Set<PredictionResult> listed = Collections.newSetFromMap(new IdentityHashMap<>());
+            movers.forEach(move -> listed.add(move.prediction()));
+            List<PredictionResult> others = usable.stream().filter(prediction -> !listed.contains(prediction)).toList();
+            remaining = appendSection(prompt, "\n## Most Confident Predictions\n",
+                    top(others, Comparator.comparingDouble(PredictionResult::confidence)).stream()
+                            .map(ReportPrompt::predictionLine).toList(), remaining);
+        }
+
+        List<String> statisticLines = new ArrayList<>(statistics.size());
+        statistics.forEach((key, value) -> statisticLines.add("- " + key + ": " + value + "\n"));
+        appendSection(prompt, "\n## Key Statistics\n", statisticLines, remaining);
+        return prompt.append(instructions).toString();
+    }
+
+    /**
+     * Estimates the tokens of {@code text} for a local model: one per started group of four letters in a word,
+     * one per digit, as llama-family tokenizers split numbers into digits, and one per other visible character.
+     * It errs on the high side for English text.
+     */
+    public static int estimateTokens(CharSequence text) {
+        int tokens = 0;
+        int letters = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c)) {
+                if (letters++ % 4 == 0) {
+                    tokens++;
+                }
+            } else {
+                letters = 0;
+                if (!Character.isWhitespace(c)) {
+                    tokens++;
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Appends the title and the lines that fit in {@code remaining} tokens, then the count of the others.
+     *
+     * @return the tokens left
+     */
+    private static int appendSection(StringBuilder prompt, String title, List<String> lines, int remaining) {
+        int titleTokens = estimateTokens(title);
+        if (lines.isEmpty() || titleTokens > remaining) {
+            return remaining;
+        }
+        prompt.append(title);
+        remaining -= titleTokens;
+        for (int i = 0; i < lines.size(); i++) {
+            int tokens = estimateTokens(lines.get(i));
+            if (tokens > remaining) {
+                String omitted = "- (" + (lines.size() - i) + " more omitted)\n";
+                int omittedTokens = estimateTokens(omitted);
+                if (omittedTokens <= remaining) {
+                    prompt.append(omitted);
+                    remaining -= omittedTokens;
+                }
+                break;
+            }
+            prompt.append(lines.get(i));
+            remaining -= tokens;
+        }
+        return remaining;
+    }
+
+    private static List<String> productSummaries(List<PredictionResult> predictions) {
+        int[] counts = new int[PRODUCTS.length];
+        int[] priced = new int[PRODUCTS.length];
+        double[] priceSums = new double[PRODUCTS.length];
+        double[] confidenceSums = new double[PRODUCTS.length];
+        BigDecimal[] minPrices = new BigDecimal[PRODUCTS.length];
+        BigDecimal[] maxPrices = new BigDecimal[PRODUCTS.length];
+        List<Set<String>> destinations = new ArrayList<>(PRODUCTS.length);
+        for (int p = 0; p < PRODUCTS.length; p++) {
+            destinations.add(new HashSet<>());
+        }
+        for (PredictionResult prediction : predictions) {
+            int p = prediction.productType().ordinal();
+            BigDecimal price = prediction.predictedPricePerTon();
+            counts[p]++;
+            confidenceSums[p] += prediction.confidence();
+            destinations.get(p).add(prediction.destination());
+            if (price != null) {
+                priced[p]++;
+                priceSums[p] += price.doubleValue();
+                minPrices[p] = minPrices[p] == null || price.compareTo(minPrices[p]) < 0 ? price : minPrices[p];
+                maxPrices[p] = maxPrices[p] == null || price.compareTo(maxPrices[p]) > 0 ? price : maxPrices[p];
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        for (int p = 0; p < PRODUCTS.length; p++) {
+            if (counts[p] == 0) {
+                continue;
+            }
+            line.setLength(0);
+            line.append("- ").append(PRODUCTS[p]).append(": ").append(counts[p]).append(" predictions, ")
+                    .append(destinations.get(p).size()).append(" destinations");
+            if (minPrices[p] != null) {
+                line.append(", avg ");
+                appendFixed(line, priceSums[p] / priced[p], 100);
+                line.append(" TND/ton (min ").append(minPrices[p].toPlainString())
+                        .append(", max ").append(maxPrices[p].toPlainString()).append(')');
+            }
+            line.append(", avg confidence ");
+            appendPercent(line, confidenceSums[p] / counts[p]);
+            lines.add(line.append('\n').toString());
+        }
+        return lines;
+    }
+
+    private static String moveLine(Move move) {
+        PredictionResult prediction = move.prediction();
+        StringBuilder line = new StringBuilder(96);
+        appendSeries(line, prediction);
+        line.append(": ").append(move.lastPrice().toPlainString()).append(" → ")
+                .append(prediction.predictedPricePerTon().toPlainString()).append(" TND/ton (");
+        if (move.change() >= 0) {
+            line.append('+');
+        }
+        appendPercent(line, move.change());
+        line.append("), confidence ");
+        appendPercent(line, prediction.confidence());
+        return line.append('\n').toString();
+    }
+
+    private static String predictionLine(PredictionResult prediction) {
+        StringBuilder line = new StringBuilder(80);
+        appendSeries(line, prediction);
+        line.append(": ").append(prediction.predictedPricePerTon() == null ? "-" : prediction.predictedPricePerTon().toPlainString())
+                .append(" TND/ton, confidence ");
+        appendPercent(line, prediction.confidence());
+        return line.append('\n').toString();
+    }
+
+    private static void appendSeries(StringBuilder line, PredictionResult prediction) {
+        line.append("- ").append(prediction.productType()).append(" → ").append(prediction.destination())
+                .append(" on ").append(prediction.targetDate());
+    }
+
+    private static void appendPercent(StringBuilder out, double ratio) {
+        appendFixed(out, ratio * 100, 10);
+        out.append('%');
+    }
+
+    /**
+     * Appends {@code value} rounded to one or two decimals, {@code scale} being 10 or 100.
+     */
+    private static void appendFixed(StringBuilder out, double value, long scale) {
+        if (!Double.isFinite(value)) {
+            out.append(value);
+            return;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            out.append('-');
+        }
+        out.append(scaled / scale).append('.');
+        long fraction = scaled % scale;
+        if (scale == 100 && fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+
+    /**
+     * @return the {@code topK} greatest elements by {@code order}, greatest first
+     */
+    private <T> List<T> top(List<T> elements, Comparator<T> order) {
+        if (topK == 0) {
+            return List.of();
+        }
+        PriorityQueue<T> best = new PriorityQueue<>(topK + 1, order);
+        for (T element : elements) {
+            best.add(element);
+            if (best.size() > topK) {
+                best.poll();
+            }
+        }
+        List<T> sorted = new ArrayList<>(best);
+        sorted.sort(order.reversed());
+        return sorted;
+    }
+
+    /**
+     * A prediction and its relative change from the last observed price of its series.
+     */
+    private record Move(PredictionResult prediction, BigDecimal lastPrice, double change) {
+    }
+
+    /**
+     * Date range of the history and last observed price of each predicted series, gathered in one pass.
+     */
+    private static final class History {
+
+        private final List<PredictionResult> predictions;
+        private final Map<ProductType, Map<String, LastPrice>> lastPrices = new EnumMap<>(ProductType.class);
+        private long minDay = Long.MAX_VALUE;
+        private long maxDay = Long.MIN_VALUE;
+
+        History(List<PredictionResult> predictions) {
+            this.predictions = predictions;
+            for (PredictionResult prediction : predictions) {
+                lastPrices.computeIfAbsent(prediction.productType(), product -> new HashMap<>())
+                        .putIfAbsent(prediction.destination(), new LastPrice());
+            }
+        }
+
+        void scan(List<ExportRecord> records) {
+            if (records instanceof ExportRecordColumns columns) {
+                scan(columns);
+                return;
+            }
+            for (ExportRecord record : records) {
+                long day = record.date().toEpochDay();
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+                Map<String, LastPrice> byDestination = lastPrices.get(record.productType());
+                LastPrice last = byDestination == null ? null : byDestination.get(record.destination());
+                if (last != null && record.pricePerTon() != null && day >= last.day) {
+                    last.day = day;
+                    last.price = record.pricePerTon();
+                }
+            }
+        }
+
+        /**
+         * Rows are ordered by date, so the last priced row of a series holds its last price.
+         */
+        private void scan(ExportRecordColumns columns) {
+            int size = columns.size();
+            if (size == 0) {
+                return;
+            }
+            minDay = columns.epochDay(0);
+            maxDay = columns.epochDay(size - 1);
+            if (predictions.isEmpty()) {
+                return;
+            }
+            int destinationCount = columns.destinationCount();
+            LastPrice[][] byId = new LastPrice[PRODUCTS.length][];
+            for (int row = 0; row < size; row++) {
+                if (!columns.hasPrice(row)) {
+                    continue;
+                }
+                int p = columns.productType(row).ordinal();
+                LastPrice[] byDestination = byId[p];
+                if (byDestination == null) {
+                    Map<String, LastPrice> byName = lastPrices.get(PRODUCTS[p]);
+                    byDestination = byId[p] = new LastPrice[destinationCount];
+                    for (int id = 0; byName != null && id < destinationCount; id++) {
+                        byDestination[id] = byName.get(columns.destinationName(id));
+                    }
+                }
+                LastPrice last = byDestination[columns.destinationId(row)];
+                if (last != null) {
+                    last.day = columns.epochDay(row);
+                    last.cents = columns.priceCents(row);
+                    last.price = null;
+                }
+            }
+            lastPrices.values().forEach(byName -> byName.values().forEach(last -> {
+                if (last.price == null && last.day != Long.MIN_VALUE) {
+                    last.price = BigDecimal.valueOf(last.cents, ExportRecordColumns.PRICE_SCALE);
+                }
+            }));
+        }
+
+        List<Move> moves() {
+            List<Move> moves = new ArrayList<>();
+            for (PredictionResult prediction : predictions) {
+                LastPrice last = lastPrices.get(prediction.productType()).get(prediction.destination());
+                BigDecimal predicted = prediction.predictedPricePerTon();
+                if (last.price != null && last.price.signum() > 0 && predicted != null) {
+                    double change = predicted.doubleValue() / last.price.doubleValue() - 1;
+                    moves.add(new Move(prediction, last.price, change));
+                }
+            }
+            return moves;
+        }
+    }
+
+    private static final class LastPrice {
+        long day = Long.MIN_VALUE;
+        long cents;
+        BigDecimal price;
+    }
+}
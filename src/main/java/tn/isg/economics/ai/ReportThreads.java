@@ -0,0 +1,19 @@
+package tn.isg.economics.ai;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads preparing asynchronous reports. Building the prompt, reading the cache from disk and writing the
+ * template report all happen here rather than on the caller's thread, which for the dashboard is the event
+ * dispatch thread. The work mostly waits on the disk and the model, so each report gets a virtual thread of
+ * its own instead of a slot in the common pool.
+ */
+final class ReportThreads {
+
+    static final ExecutorService ASYNC = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("report-async-", 0).factory());
+
+    private ReportThreads() {
+    }
+}
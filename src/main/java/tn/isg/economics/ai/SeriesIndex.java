@@ -0,0 +1,196 @@
+package tn.isg.economics.ai;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.Money;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordColumns;
+import tn.isg.economics.repository.ExportRecordRepository;
+import tn.isg.economics.repository.RepositoryChangeListener;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * History pre-grouped into the recent points of every (product, destination) series and of every
+ * product, so a {@link Predictor} reads the last {@value RecentPrices#CAPACITY} prices of a series
+ * directly instead of filtering and sorting the whole history on each call.
+ * <p>
+ * Each series also keeps the market indicator values of its newest day, and {@link #features()} serves
+ * the model inputs derived from both. An index built with {@link #SeriesIndex(ExportRecordRepository)}
+ * follows the repository: appends are offered to their series, a {@code saveAll} rebuilds the index.
+ */
+public class SeriesIndex implements RepositoryChangeListener, AutoCloseable {
+
+    private static final MarketIndicator[] INDICATORS = MarketIndicator.values();
+
+    private final ExportRecordRepository repository;
+    private final Map<ProductType, SeriesState> byProduct = new EnumMap<>(ProductType.class);
+    private final Map<ProductType, Map<String, SeriesState>> byDestination = new EnumMap<>(ProductType.class);
+    private final FeatureStore features = new FeatureStore(this);
+
+    private SeriesIndex() {
+        this.repository = null;
+    }
+
+    /**
+     * Indexes {@code repository} and keeps following it until {@link #close()}.
+     */
+    public SeriesIndex(ExportRecordRepository repository) {
+        this.repository = repository;
+        // The initial records arrive through onReplace, so an append racing with construction is counted once
+        repository.follow(this);
+    }
+
+    /**
+     * @return a fixed index of {@code records}
+     */
+    public static SeriesIndex of(List<ExportRecord> records) {
+        SeriesIndex index = new SeriesIndex();
+        index.add(records);
+        return index;
+    }
+
+    @Override
+    public synchronized void onAppend(List<ExportRecord> appended, long sequence) {
+        add(appended);
+    }
+
+    @Override
+    public synchronized void onReplace(List<ExportRecord> records, long sequence) {
+        byProduct.clear();
+        byDestination.clear();
+        add(records);
+    }
+
+    /**
+     * @return copy of the recent points of {@code productType} exported to {@code destination}, empty if none
+     */
+    public synchronized RecentPrices recent(ProductType productType, String destination) {
+        SeriesState series = series(productType, destination);
+        return series != null ? series.prices().copy() : new RecentPrices();
+    }
+
+    /**
+     * @return copy of the recent points of {@code productType} over all destinations, empty if none
+     */
+    public synchronized RecentPrices recent(ProductType productType) {
+        SeriesState series = byProduct.get(productType);
+        return series != null ? series.prices().copy() : new RecentPrices();
+    }
+
+    /**
+     * @return copy of the recent points of {@code productType} to {@code destination}, or of the whole product
+     * when no record has that destination, empty if the product has no records
+     */
+    public synchronized RecentPrices recentOrProduct(ProductType productType, String destination) {
+        SeriesState series = seriesOrProduct(productType, destination);
+        return series != null ? series.prices().copy() : new RecentPrices();
+    }
+
+    /**
+     * Identifies the data a prediction for the series would read: the version changes when records of the
+     * series are appended, or of the whole product while {@code destination} has none, and never repeats
+     * across series or indexes.
+     *
+     * @return version of the series of {@code productType} to {@code destination}, 0 if the product has no records
+     */
+    public synchronized long version(ProductType productType, String destination) {
+        SeriesState series = seriesOrProduct(productType, destination);
+        return series != null ? series.version() : 0;
+    }
+
+    /**
+     * @return model inputs of the indexed series, kept up to date with this index
+     */
+    public FeatureStore features() {
+        return features;
+    }
+
+    /**
+     * Stops following the repository.
+     */
+    @Override
+    public void close() {
+        if (repository != null) {
+            repository.removeChangeListener(this);
+        }
+    }
+
+    /**
+     * @return state of the series of {@code productType} to {@code destination}, or of the whole product when
+     * no record has that destination, {@code null} if the product has no records; callers hold this index's lock
+     */
+    SeriesState seriesOrProduct(ProductType productType, String destination) {
+        SeriesState series = series(productType, destination);
+        return series != null ? series : byProduct.get(productType);
+    }
+
+    private SeriesState series(ProductType productType, String destination) {
+        Map<String, SeriesState> destinations = byDestination.get(productType);
+        return destinations != null ? destinations.get(destination) : null;
+    }
+
+    private synchronized void add(List<ExportRecord> records) {
+        if (records instanceof ExportRecordColumns columns) {
+            for (int row = 0, size = columns.size(); row < size; row++) {
+                long epochDay = columns.epochDay(row);
+                long priceCents = columns.hasPrice(row) ? columns.priceCents(row) : 0;
+                ProductType productType = columns.productType(row);
+                SeriesState product = productState(productType);
+                SeriesState destination = destinationState(productType, columns.destinationName(columns.destinationId(row)));
+                product.offer(epochDay, priceCents);
+                destination.offer(epochDay, priceCents);
+                boolean productDay = product.startsIndicatorDay(epochDay);
+                boolean destinationDay = destination.startsIndicatorDay(epochDay);
+                if (productDay || destinationDay) {
+                    for (MarketIndicator indicator : INDICATORS) {
+                        if (columns.hasIndicator(row, indicator)) {
+                            double value = columns.indicator(row, indicator);
+                            if (productDay) {
+                                product.indicator(indicator, value);
+                            }
+                            if (destinationDay) {
+                                destination.indicator(indicator, value);
+                            }
+                        }
+                    }
+                }
+            }
+        } else {
+            for (ExportRecord record : records) {
+                long epochDay = record.date().toEpochDay();
+                BigDecimal price = record.pricePerTon();
+                long priceCents = price != null ? Money.toCents(price) : 0;
+                SeriesState product = productState(record.productType());
+                SeriesState destination = destinationState(record.productType(), record.destination());
+                product.offer(epochDay, priceCents);
+                destination.offer(epochDay, priceCents);
+                boolean productDay = product.startsIndicatorDay(epochDay);
+                boolean destinationDay = destination.startsIndicatorDay(epochDay);
+                if ((productDay || destinationDay) && record.indicators() != null) {
+                    record.indicators().forEach((indicator, value) -> {
+                        if (productDay) {
+                            product.indicator(indicator, value);
+                        }
+                        if (destinationDay) {
+                            destination.indicator(indicator, value);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private SeriesState productState(ProductType productType) {
+        return byProduct.computeIfAbsent(productType, p -> new SeriesState());
+    }
+
+    private SeriesState destinationState(ProductType productType, String destination) {
+        return byDestination.computeIfAbsent(productType, p -> new HashMap<>())
+                .computeIfAbsent(destination, d -> new SeriesState());
+    }
+}
@@ -0,0 +1,87 @@
+package tn.isg.economics.ai;
+
+import tn.isg.economics.model.MarketIndicator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incrementally maintained state of one series: its recent prices, the indicator values of its newest day
+ * and the {@link PriceFeatures} values derived from both, rebuilt on the first read after a change, along
+ * with a version identifying that state.
+ * Guarded by the owning {@link SeriesIndex}.
+ */
+final class SeriesState {
+
+    /**
+     * Versions are unique across every series of every index, so a version identifies one state of one series.
+     */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final RecentPrices prices = new RecentPrices();
+    private final double[] indicators = new double[MarketIndicator.values().length];
+    private long indicatorDay = Long.MIN_VALUE;
+    private float[] features;
+    private long version;
+    private boolean changed = true;
+
+    SeriesState() {
+        Arrays.fill(indicators, Double.NaN);
+    }
+
+    RecentPrices prices() {
+        return prices;
+    }
+
+    void offer(long epochDay, long priceCents) {
+        if (prices.accepts(epochDay)) {
+            prices.offer(epochDay, priceCents);
+            changed();
+        }
+    }
+
+    /**
+     * @return whether indicators of {@code epochDay} belong to the newest day, clearing older ones first
+     */
+    boolean startsIndicatorDay(long epochDay) {
+        if (epochDay > indicatorDay) {
+            indicatorDay = epochDay;
+            Arrays.fill(indicators, Double.NaN);
+            changed();
+        }
+        return epochDay == indicatorDay;
+    }
+
+    void indicator(MarketIndicator indicator, double value) {
+        indicators[indicator.ordinal()] = value;
+        changed();
+    }
+
+    /**
+     * @return a number that changes whenever the prices or indicators of the series do, drawn on the first
+     * call after a change so bulk loads do not pay for it per record
+     */
+    long version() {
+        if (changed) {
+            version = VERSIONS.incrementAndGet();
+            changed = false;
+        }
+        return version;
+    }
+
+    /**
+     * @return the first {@link PriceFeatures#SERIES_COUNT} feature values, shared: callers must not modify it
+     */
+    float[] features() {
+        if (features == null) {
+            features = new float[PriceFeatures.SERIES_COUNT];
+            PriceFeatures.writeSeries(prices, indicators, features);
+        }
+        return features;
+    }
+
+    private void changed() {
+        features = null;
+        changed = true;
+    }
+}
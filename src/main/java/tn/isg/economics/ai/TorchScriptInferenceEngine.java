@@ -0,0 +1,94 @@
+package tn.isg.economics.ai;
+
+import ai.djl.MalformedModelException;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.repository.zoo.Criteria;
+import ai.djl.repository.zoo.ModelNotFoundException;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.translate.NoopTranslator;
+import ai.djl.translate.TranslateException;
+import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.exceptions.PredictionException;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * DJL PyTorch engine for TorchScript models, with the same tensor contract as {@link OnnxInferenceEngine}.
+ * DJL predictors are not thread-safe, so each pooled one serves a single forward pass at a time.
+ */
+@Slf4j
+public class TorchScriptInferenceEngine implements InferenceEngine {
+
+    private final ZooModel<NDList, NDList> model;
+    private final List<ai.djl.inference.Predictor<NDList, NDList>> predictors = new ArrayList<>();
+    private final BlockingQueue<ai.djl.inference.Predictor<NDList, NDList>> idle;
+
+    public TorchScriptInferenceEngine(Path modelPath, int poolSize) {
+        Criteria<NDList, NDList> criteria = Criteria.builder()
+                .setTypes(NDList.class, NDList.class)
+                .optModelPath(modelPath)
+                .optEngine("PyTorch")
+                .optTranslator(new NoopTranslator())
+                .build();
+        try {
+            this.model = criteria.loadModel();
+        } catch (IOException | ModelNotFoundException | MalformedModelException e) {
+            throw new PredictionException("Cannot load TorchScript model " + modelPath, e);
+        }
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            ai.djl.inference.Predictor<NDList, NDList> predictor = model.newPredictor();
+            predictors.add(predictor);
+            idle.add(predictor);
+        }
+        log.info("Loaded TorchScript model {} with {} predictors", modelPath, poolSize);
+    }
+
+    @Override
+    public float[] infer(FloatBuffer features) {
+        Shape shape = new Shape(InferenceEngine.rows(features), PriceFeatures.COUNT);
+        ai.djl.inference.Predictor<NDList, NDList> predictor = acquire();
+        try (NDManager manager = model.getNDManager().newSubManager()) {
+            NDList output = predictor.predict(new NDList(manager.create(features, shape)));
+            return output.singletonOrThrow().toFloatArray();
+        } catch (TranslateException | RuntimeException e) {
+            throw new PredictionException("TorchScript inference failed", e);
+        } finally {
+            idle.add(predictor);
+        }
+    }
+
+    @Override
+    public int poolSize() {
+        return predictors.size();
+    }
+
+    @Override
+    public String name() {
+        return "DJL-PyTorch";
+    }
+
+    @Override
+    public void close() {
+        predictors.forEach(ai.djl.inference.Predictor::close);
+        predictors.clear();
+        model.close();
+    }
+
+    private ai.djl.inference.Predictor<NDList, NDList> acquire() {
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PredictionException("Interrupted while waiting for a DJL predictor", e);
+        }
+    }
+}
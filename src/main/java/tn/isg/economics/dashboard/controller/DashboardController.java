@@ -3,6 +3,7 @@ package tn.isg.economics.dashboard.controller;
 import lombok.extern.slf4j.Slf4j;
 import tn.isg.economics.ai.Predictor;
 import tn.isg.economics.ai.ReportGenerator;
+import tn.isg.economics.ai.SeriesIndex;
 import tn.isg.economics.dashboard.model.DashboardModel;
 import tn.isg.economics.dashboard.view.ChartFactory;
 import tn.isg.economics.dashboard.view.ChartStrategy;
@@ -10,10 +11,14 @@ import tn.isg.economics.dashboard.view.ConsoleDashboardView;
 import tn.isg.economics.model.ExportRecord;
 import tn.isg.economics.model.PredictionResult;
 import tn.isg.economics.model.ProductType;
+import tn.isg.economics.service.Aggregates;
 import tn.isg.economics.service.ExportAnalyticsService;
+import tn.isg.economics.service.MaterializedAggregates;
+import tn.isg.economics.service.RecordExporter;
+import tn.isg.economics.service.Measure;
+import tn.isg.economics.service.RecordPredicate;
 
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
@@ -28,27 +33,35 @@ public class DashboardController {
     private final DashboardModel model;
     private final ConsoleDashboardView view;
     private final ExportAnalyticsService analyticsService;
+    private final MaterializedAggregates aggregates;
     private final Predictor predictor;
+    private final SeriesIndex seriesIndex;
     private final ReportGenerator reportGenerator;
     private final Scanner scanner;
     private final Deque<Command> commandHistory = new ArrayDeque<>();
     private final Deque<Command> undoStack = new ArrayDeque<>();
-    private List<ExportRecord> filteredRecords = new ArrayList<>();
+    // The model's records while no filter is active, never a copy of them
+    private List<ExportRecord> filteredRecords;
+    private RecordPredicate activeFilter = RecordPredicate.always();
 
     public DashboardController(
             DashboardModel model,
             ConsoleDashboardView view,
             ExportAnalyticsService analyticsService,
+            MaterializedAggregates aggregates,
             Predictor predictor,
+            SeriesIndex seriesIndex,
             ReportGenerator reportGenerator
     ) {
         this.model = model;
         this.view = view;
         this.analyticsService = analyticsService;
+        this.aggregates = aggregates;
         this.predictor = predictor;
+        this.seriesIndex = seriesIndex;
         this.reportGenerator = reportGenerator;
         this.scanner = new Scanner(System.in);
-        this.filteredRecords = new ArrayList<>(model.getRecords());
+        this.filteredRecords = model.getRecords();
     }
 
     public void run() {
@@ -113,14 +126,16 @@ public class DashboardController {
 
         try {
             int filterChoice = Integer.parseInt(scanner.nextLine().trim());
-            List<ExportRecord> original = new ArrayList<>(filteredRecords);
+            List<ExportRecord> original = filteredRecords;
+            RecordPredicate originalFilter = activeFilter;
 
             switch (filterChoice) {
                 case 1 -> filterByProduct();
                 case 2 -> filterByDateRange();
                 case 3 -> filterByDestination();
                 case 4 -> {
-                    filteredRecords = new ArrayList<>(model.getRecords());
+                    activeFilter = RecordPredicate.always();
+                    filteredRecords = model.getRecords();
                     view.displayMessage("Filters cleared.");
                 }
                 default -> {
@@ -130,7 +145,7 @@ public class DashboardController {
             }
 
             // Command pattern for undo
-            Command filterCommand = new FilterCommand(original, filteredRecords);
+            Command filterCommand = new FilterCommand(original, originalFilter, filteredRecords, activeFilter);
             executeCommand(filterCommand);
 
             updateStatistics();
@@ -146,7 +161,7 @@ public class DashboardController {
         System.out.print("Enter product number: ");
         int idx = Integer.parseInt(scanner.nextLine().trim());
         ProductType product = ProductType.values()[idx];
-        filteredRecords = analyticsService.filter(filteredRecords, r -> r.productType() == product);
+        applyFilter(RecordPredicate.productEq(product));
         view.displayMessage("Filtered by product: " + product);
     }
 
@@ -155,8 +170,7 @@ public class DashboardController {
         LocalDate start = LocalDate.parse(scanner.nextLine().trim());
         System.out.print("End date (YYYY-MM-DD): ");
         LocalDate end = LocalDate.parse(scanner.nextLine().trim());
-        filteredRecords = analyticsService.filter(filteredRecords, r -> 
-                !r.date().isBefore(start) && !r.date().isAfter(end));
+        applyFilter(RecordPredicate.dateBetween(start, end));
         view.displayMessage("Filtered by date range: " + start + " to " + end);
     }
 
@@ -170,10 +184,19 @@ public class DashboardController {
         System.out.print("Enter destination number: ");
         int idx = Integer.parseInt(scanner.nextLine().trim());
         String dest = destList.get(idx);
-        filteredRecords = analyticsService.filter(filteredRecords, r -> r.destination().equals(dest));
+        applyFilter(RecordPredicate.destinationIn(dest));
         view.displayMessage("Filtered by destination: " + dest);
     }
 
+    /**
+     * Narrows the active filters. Chained filters are fused into one predicate and planned as a whole
+     * instead of re-filtering the previous result.
+     */
+    private void applyFilter(RecordPredicate filter) {
+        activeFilter = activeFilter.and(filter);
+        filteredRecords = analyticsService.query(activeFilter);
+    }
+
     private void showCharts() {
         view.displayMessage("=== CHARTS ===");
         System.out.println("1. Revenue by Product (Bar Chart)");
@@ -185,7 +208,10 @@ public class DashboardController {
             Map<String, Double> data;
 
             if (chartChoice == 1) {
-                data = analyticsService.revenueByProduct(filteredRecords).entrySet().stream()
+                Map<ProductType, BigDecimal> revenue = aggregates.canAnswer(activeFilter)
+                        ? aggregates.revenueByProduct(activeFilter)
+                        : analyticsService.revenueByProduct(filteredRecords);
+                data = revenue.entrySet().stream()
                         .collect(Collectors.toMap(
                                 e -> e.getKey().name(),
                                 e -> e.getValue().doubleValue()
@@ -193,7 +219,10 @@ public class DashboardController {
                 ChartStrategy strategy = ChartFactory.createChart(ChartFactory.ChartType.BAR);
                 view.displayChart("Revenue by Product", data, strategy);
             } else if (chartChoice == 2) {
-                data = analyticsService.averagePriceByMonth(filteredRecords).entrySet().stream()
+                Map<Integer, BigDecimal> averages = aggregates.canAnswer(activeFilter)
+                        ? aggregates.averagePriceByMonth(activeFilter)
+                        : analyticsService.averagePriceByMonth(filteredRecords);
+                data = averages.entrySet().stream()
                         .collect(Collectors.toMap(
                                 e -> "Month " + e.getKey(),
                                 e -> e.getValue().doubleValue()
@@ -228,12 +257,10 @@ public class DashboardController {
             System.out.print("Target date (YYYY-MM-DD): ");
             LocalDate targetDate = LocalDate.parse(scanner.nextLine().trim());
 
-            PredictionResult result = predictor.predict(
-                    filteredRecords.isEmpty() ? model.getRecords() : filteredRecords,
-                    targetDate,
-                    product,
-                    destination
-            );
+            // Unfiltered predictions read the indexed series instead of scanning every record
+            PredictionResult result = activeFilter.equals(RecordPredicate.always())
+                    ? predictor.predict(seriesIndex, targetDate, product, destination)
+                    : predictor.predict(filteredRecords, targetDate, product, destination);
 
             List<PredictionResult> currentPreds = new ArrayList<>(model.getPredictions());
             currentPreds.add(result);
@@ -257,7 +284,7 @@ public class DashboardController {
         view.displayMessage("=== GENERATING REPORT ===");
         try {
             String report = reportGenerator.generateReport(
-                    filteredRecords.isEmpty() ? model.getRecords() : filteredRecords,
+                    filteredRecords,
                     model.getPredictions(),
                     computeStatistics()
             );
@@ -285,6 +312,7 @@ public class DashboardController {
         view.displayMessage("=== EXPORT DATA ===");
         System.out.println("1. Export to CSV");
         System.out.println("2. Export to JSON");
+        System.out.println("3. Export to columnar binary (.txcf)");
         System.out.print("Choice: ");
 
         try {
@@ -292,12 +320,14 @@ public class DashboardController {
             System.out.print("Filename (without extension): ");
             String filename = scanner.nextLine().trim();
 
-            List<ExportRecord> dataToExport = filteredRecords.isEmpty() ? model.getRecords() : filteredRecords;
+            List<ExportRecord> dataToExport = filteredRecords;
 
             if (exportChoice == 1) {
-                exportToCSV(dataToExport, filename + ".csv");
+                RecordExporter.exportToCsv(dataToExport, Path.of(filename + ".csv"));
             } else if (exportChoice == 2) {
-                exportToJSON(dataToExport, filename + ".json");
+                RecordExporter.exportToJson(dataToExport, Path.of(filename + ".json"));
+            } else if (exportChoice == 3) {
+                RecordExporter.exportToColumnar(dataToExport, Path.of(filename + ".txcf"));
             } else {
                 view.displayError("Invalid choice.");
                 return;
@@ -312,50 +342,15 @@ public class DashboardController {
         }
     }
 
-    private void exportToCSV(List<ExportRecord> records, String filename) throws IOException {
-        Path path = Path.of(filename);
-        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
-            writer.println("Date,ProductType,Destination,VolumeTons,PricePerTon");
-            for (ExportRecord record : records) {
-                writer.printf("%s,%s,%s,%.2f,%s\n",
-                        record.date(),
-                        record.productType(),
-                        record.destination(),
-                        record.volumeTons(),
-                        record.pricePerTon());
-            }
-        }
-    }
-
-    private void exportToJSON(List<ExportRecord> records, String filename) throws IOException {
-        Path path = Path.of(filename);
-        StringBuilder json = new StringBuilder("[\n");
-        for (int i = 0; i < records.size(); i++) {
-            ExportRecord r = records.get(i);
-            json.append("  {\n");
-            json.append("    \"date\": \"").append(r.date()).append("\",\n");
-            json.append("    \"productType\": \"").append(r.productType()).append("\",\n");
-            json.append("    \"destination\": \"").append(r.destination()).append("\",\n");
-            json.append("    \"volumeTons\": ").append(r.volumeTons()).append(",\n");
-            json.append("    \"pricePerTon\": ").append(r.pricePerTon()).append("\n");
-            json.append("  }");
-            if (i < records.size() - 1) json.append(",");
-            json.append("\n");
-        }
-        json.append("]");
-        Files.writeString(path, json.toString());
-    }
-
     private Map<String, Object> computeStatistics() {
         Map<String, Object> stats = new LinkedHashMap<>();
-        if (filteredRecords.isEmpty()) {
-            filteredRecords = new ArrayList<>(model.getRecords());
-        }
 
         stats.put("Total Records", filteredRecords.size());
         if (!filteredRecords.isEmpty()) {
-            stats.put("Average Price", analyticsService.averagePrice(filteredRecords));
-            var volumeStats = analyticsService.volumeStats(filteredRecords);
+            Aggregates summary = analyticsService.summarize(filteredRecords,
+                    Measure.PRICE_AVG, Measure.VOLUME_SUM, Measure.VOLUME_AVG, Measure.VOLUME_MIN, Measure.VOLUME_MAX);
+            stats.put("Average Price", summary.averagePrice());
+            var volumeStats = summary.volume();
             stats.put("Total Volume (tons)", volumeStats.getSum());
             stats.put("Avg Volume (tons)", volumeStats.getAverage());
             stats.put("Min Volume (tons)", volumeStats.getMin());
@@ -386,22 +381,30 @@ public class DashboardController {
 
     private class FilterCommand implements Command {
         private final List<ExportRecord> oldState;
+        private final RecordPredicate oldFilter;
         private final List<ExportRecord> newState;
-
-        public FilterCommand(List<ExportRecord> oldState, List<ExportRecord> newState) {
-            this.oldState = new ArrayList<>(oldState);
-            this.newState = new ArrayList<>(newState);
+        private final RecordPredicate newFilter;
+
+        // Filter results are never modified in place, so both states are kept by reference
+        public FilterCommand(List<ExportRecord> oldState, RecordPredicate oldFilter,
+                             List<ExportRecord> newState, RecordPredicate newFilter) {
+            this.oldState = oldState;
+            this.oldFilter = oldFilter;
+            this.newState = newState;
+            this.newFilter = newFilter;
         }
 
         @Override
         public void execute() {
-            filteredRecords = new ArrayList<>(newState);
+            filteredRecords = newState;
+            activeFilter = newFilter;
             updateStatistics();
         }
 
         @Override
         public void undo() {
-            filteredRecords = new ArrayList<>(oldState);
+            filteredRecords = oldState;
+            activeFilter = oldFilter;
             updateStatistics();
         }
 
@@ -3,6 +3,7 @@ package tn.isg.economics.dashboard.controller;
 import lombok.extern.slf4j.Slf4j;
 import tn.isg.economics.ai.Predictor;
 import tn.isg.economics.ai.ReportGenerator;
+import tn.isg.economics.ai.SeriesIndex;
 import tn.isg.economics.dashboard.model.DashboardModel;
 import tn.isg.economics.dashboard.view.ChartFactory;
 import tn.isg.economics.dashboard.view.ChartStrategy;
@@ -10,13 +11,23 @@ import tn.isg.economics.dashboard.view.SwingDashboardView;
 import tn.isg.economics.model.ExportRecord;
 import tn.isg.economics.model.PredictionResult;
 import tn.isg.economics.model.ProductType;
+import tn.isg.economics.service.Aggregates;
 import tn.isg.economics.service.ExportAnalyticsService;
+import tn.isg.economics.service.MaterializedAggregates;
+import tn.isg.economics.service.Measure;
+import tn.isg.economics.service.RecordPredicate;
 
 import javax.swing.*;
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -25,27 +36,39 @@ import java.util.stream.Collectors;
 @Slf4j
 public class GuiDashboardController {
 
+    private static final Duration REPORT_DEADLINE = Duration.ofMinutes(2);
+
     private final DashboardModel model;
     private final SwingDashboardView view;
     private final ExportAnalyticsService analyticsService;
+    private final MaterializedAggregates aggregates;
     private final Predictor predictor;
+    private final SeriesIndex seriesIndex;
     private final ReportGenerator reportGenerator;
 
-    private List<ExportRecord> filteredRecords = new ArrayList<>();
+    // The model's records while no filter is active, otherwise the rows matching it, possibly none
+    private List<ExportRecord> filteredRecords;
+    private RecordPredicate activeFilter = RecordPredicate.always();
+    private CompletableFuture<String> pendingReport;
+    private int reportRun;
 
     public GuiDashboardController(
             DashboardModel model,
             SwingDashboardView view,
             ExportAnalyticsService analyticsService,
+            MaterializedAggregates aggregates,
             Predictor predictor,
+            SeriesIndex seriesIndex,
             ReportGenerator reportGenerator
     ) {
         this.model = model;
         this.view = view;
         this.analyticsService = analyticsService;
+        this.aggregates = aggregates;
         this.predictor = predictor;
+        this.seriesIndex = seriesIndex;
         this.reportGenerator = reportGenerator;
-        this.filteredRecords = new ArrayList<>(model.getRecords());
+        this.filteredRecords = model.getRecords();
         wireActions();
         updateStatistics();
     }
@@ -80,10 +103,16 @@ public class GuiDashboardController {
                     JOptionPane.QUESTION_MESSAGE
             );
 
-            filteredRecords = analyticsService.filter(model.getRecords(), r ->
-                    r.productType() == product &&
-                            (destination == null || destination.isBlank() || r.destination().equalsIgnoreCase(destination.trim()))
-            );
+            RecordPredicate filter = RecordPredicate.productEq(product);
+            if (destination != null && !destination.isBlank()) {
+                // Destinations match case-insensitively: resolve the typed name against the stored ones
+                Set<String> matching = analyticsService.knownDestinations().stream()
+                        .filter(d -> d.equalsIgnoreCase(destination.trim()))
+                        .collect(Collectors.toSet());
+                filter = filter.and(RecordPredicate.destinationIn(matching));
+            }
+            activeFilter = filter;
+            filteredRecords = analyticsService.query(filter);
 
             updateStatistics();
             view.showStatistics(model.getStatistics());
@@ -124,13 +153,15 @@ public class GuiDashboardController {
             if (dateStr == null || dateStr.isBlank()) return;
 
             LocalDate targetDate = LocalDate.parse(dateStr.trim());
+            if (!unfiltered() && filteredRecords.isEmpty()) {
+                view.showError("Prediction error: no records match the active filter");
+                return;
+            }
 
-            PredictionResult result = predictor.predict(
-                    filteredRecords.isEmpty() ? model.getRecords() : filteredRecords,
-                    targetDate,
-                    product,
-                    destination.trim()
-            );
+            // Unfiltered predictions read the indexed series, which the caching predictor can answer from its cache
+            PredictionResult result = unfiltered()
+                    ? predictor.predict(seriesIndex, targetDate, product, destination.trim())
+                    : predictor.predict(filteredRecords, targetDate, product, destination.trim());
 
             List<PredictionResult> preds = new ArrayList<>(model.getPredictions());
             preds.add(result);
@@ -148,25 +179,58 @@ public class GuiDashboardController {
         }
     }
 
+    /**
+     * Starts streaming a report into the view, or cancels the one being generated. Chunks and the outcome are
+     * handed back to the event thread, and dropped once their run is no longer the current one.
+     */
     private void onGenerateReport() {
+        int run = ++reportRun;
+        if (pendingReport != null) {
+            pendingReport.cancel(true);
+            pendingReport = null;
+            view.setReportRunning(false);
+            return;
+        }
+        view.showReport("");
+        view.setReportRunning(true);
         try {
-            String report = reportGenerator.generateReport(
-                    filteredRecords.isEmpty() ? model.getRecords() : filteredRecords,
+            pendingReport = reportGenerator.generateReportAsync(
+                    filteredRecords,
                     model.getPredictions(),
-                    model.getStatistics()
+                    model.getStatistics(),
+                    chunk -> SwingUtilities.invokeLater(() -> {
+                        if (run == reportRun) {
+                            view.appendReport(chunk);
+                        }
+                    }),
+                    REPORT_DEADLINE
             );
-            view.showReport(report);
         } catch (Exception ex) {
+            view.setReportRunning(false);
             log.error("Report generation error", ex);
             view.showError("Report generation error: " + ex.getMessage());
+            return;
         }
+        pendingReport.whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            if (run != reportRun) {
+                return;
+            }
+            pendingReport = null;
+            view.setReportRunning(false);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                String message = cause instanceof TimeoutException
+                        ? "no complete report within " + REPORT_DEADLINE.toSeconds() + " s"
+                        : cause.getMessage();
+                log.error("Report generation error", cause);
+                view.showError("Report generation error: " + message);
+            }
+        }));
     }
 
     private void onChartRevenue() {
         try {
-            Map<String, Double> data = analyticsService.revenueByProduct(
-                            filteredRecords.isEmpty() ? model.getRecords() : filteredRecords)
-                    .entrySet().stream()
+            Map<String, Double> data = revenueByProduct().entrySet().stream()
                     .collect(Collectors.toMap(
                             e -> e.getKey().name(),
                             e -> e.getValue().doubleValue()
@@ -182,9 +246,7 @@ public class GuiDashboardController {
 
     private void onChartPrice() {
         try {
-            Map<String, Double> data = analyticsService.averagePriceByMonth(
-                            filteredRecords.isEmpty() ? model.getRecords() : filteredRecords)
-                    .entrySet().stream()
+            Map<String, Double> data = averagePriceByMonth().entrySet().stream()
                     .collect(Collectors.toMap(
                             e -> "Month " + e.getKey(),
                             e -> e.getValue().doubleValue()
@@ -198,13 +260,34 @@ public class GuiDashboardController {
         }
     }
 
+    /**
+     * Chart data for the records on screen, rolled up from the materialized cells when the filter allows it.
+     */
+    private Map<ProductType, BigDecimal> revenueByProduct() {
+        return aggregates.canAnswer(activeFilter)
+                ? aggregates.revenueByProduct(activeFilter)
+                : analyticsService.revenueByProduct(filteredRecords);
+    }
+
+    private Map<Integer, BigDecimal> averagePriceByMonth() {
+        return aggregates.canAnswer(activeFilter)
+                ? aggregates.averagePriceByMonth(activeFilter)
+                : analyticsService.averagePriceByMonth(filteredRecords);
+    }
+
+    private boolean unfiltered() {
+        return activeFilter.equals(RecordPredicate.always());
+    }
+
     private void updateStatistics() {
         var stats = new java.util.LinkedHashMap<String, Object>();
-        List<ExportRecord> data = filteredRecords.isEmpty() ? model.getRecords() : filteredRecords;
+        List<ExportRecord> data = filteredRecords;
         stats.put("Total Records", data.size());
         if (!data.isEmpty()) {
-            stats.put("Average Price", analyticsService.averagePrice(data));
-            var volumeStats = analyticsService.volumeStats(data);
+            Aggregates summary = analyticsService.summarize(data,
+                    Measure.PRICE_AVG, Measure.VOLUME_SUM, Measure.VOLUME_AVG, Measure.VOLUME_MIN, Measure.VOLUME_MAX);
+            stats.put("Average Price", summary.averagePrice());
+            var volumeStats = summary.volume();
             stats.put("Total Volume (tons)", volumeStats.getSum());
             stats.put("Avg Volume (tons)", volumeStats.getAverage());
             stats.put("Min Volume (tons)", volumeStats.getMin());
@@ -33,8 +33,11 @@ public class DashboardModel {
         listeners.forEach(DashboardModelListener::onModelChanged);
     }
 
+    /**
+     * Keeps {@code records} by reference, so it must not be modified afterwards; repository views never are.
+     */
     public void setRecords(List<ExportRecord> records) {
-        this.records = new ArrayList<>(records);
+        this.records = records;
         notifyListeners();
     }
 
@@ -101,6 +101,20 @@ public class SwingDashboardView extends JFrame implements DashboardModelListener
         outputArea.setText(report);
     }
 
+    /**
+     * Appends a chunk of a report being generated.
+     */
+    public void appendReport(String chunk) {
+        outputArea.append(chunk);
+    }
+
+    /**
+     * Switches the report button between starting a report and cancelling the one being generated.
+     */
+    public void setReportRunning(boolean running) {
+        reportButton.setText(running ? "Cancel AI Report" : "Generate AI Report");
+    }
+
     public void showStatistics(Map<String, Object> stats) {
         StringBuilder sb = new StringBuilder();
         sb.append("STATISTICS:\n\n");
@@ -0,0 +1,63 @@
+package tn.isg.economics.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic on amounts held as a {@code long} number of cents (scale {@value #SCALE}), so
+ * hot loops can add, subtract and average prices without allocating {@link BigDecimal}s. Every operation
+ * throws {@link ArithmeticException} on overflow and rounds HALF_UP exactly like
+ * {@code setScale(2, RoundingMode.HALF_UP)} and {@code divide(divisor, 2, RoundingMode.HALF_UP)} do.
+ * Convert with {@link #toCents(BigDecimal)} and {@link #toBigDecimal(long)} at API boundaries only.
+ */
+public final class Money {
+
+    /**
+     * Number of decimal places of a cent amount.
+     */
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * @return {@code amount} rounded HALF_UP to cents
+     * @throws ArithmeticException if the amount does not fit a long number of cents
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @return {@code cents} as a BigDecimal of scale {@value #SCALE}
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public static long add(long cents, long otherCents) {
+        return Math.addExact(cents, otherCents);
+    }
+
+    public static long subtract(long cents, long otherCents) {
+        return Math.subtractExact(cents, otherCents);
+    }
+
+    /**
+     * @return {@code cents / divisor} rounded HALF_UP to cents, like
+     * {@code toBigDecimal(cents).divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP)}
+     * @throws ArithmeticException if {@code divisor} is zero or the quotient overflows
+     */
+    public static long divide(long cents, long divisor) {
+        if (cents == Long.MIN_VALUE && divisor == -1) {
+            throw new ArithmeticException("long overflow");
+        }
+        long quotient = cents / divisor;
+        long remainder = Math.abs(cents % divisor);
+        // Half of the divisor or more rounds away from zero; compared without doubling the remainder
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (cents < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+}
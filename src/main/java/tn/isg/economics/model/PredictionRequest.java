@@ -0,0 +1,39 @@
+package tn.isg.economics.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * One forecast to compute in a batch (DTO).
+ *
+ * @param productType product category
+ * @param destination destination country
+ * @param targetDate  date to predict for
+ */
+public record PredictionRequest(
+        ProductType productType,
+        String destination,
+        LocalDate targetDate
+) {
+
+    /**
+     * @return one request per product × destination × target date
+     */
+    public static List<PredictionRequest> grid(
+            Collection<ProductType> productTypes,
+            Collection<String> destinations,
+            Collection<LocalDate> targetDates
+    ) {
+        List<PredictionRequest> requests = new ArrayList<>(productTypes.size() * destinations.size() * targetDates.size());
+        for (ProductType productType : productTypes) {
+            for (String destination : destinations) {
+                for (LocalDate targetDate : targetDates) {
+                    requests.add(new PredictionRequest(productType, destination, targetDate));
+                }
+            }
+        }
+        return requests;
+    }
+}
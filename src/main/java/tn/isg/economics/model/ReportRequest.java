@@ -0,0 +1,18 @@
+package tn.isg.economics.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One report to generate in a batch (DTO).
+ *
+ * @param historicalData historical export records
+ * @param predictions    recent predictions
+ * @param statistics     computed statistics
+ */
+public record ReportRequest(
+        List<ExportRecord> historicalData,
+        List<PredictionResult> predictions,
+        Map<String, Object> statistics
+) {
+}
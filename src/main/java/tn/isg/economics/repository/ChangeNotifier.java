@@ -0,0 +1,46 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change sequence and listener bookkeeping shared by the repository implementations.
+ */
+final class ChangeNotifier {
+
+    private final List<RepositoryChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    long sequence() {
+        return sequence.get();
+    }
+
+    void addListener(RepositoryChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Adds {@code listener} and replays {@code current} to it; callers hold their write lock.
+     */
+    void follow(RepositoryChangeListener listener, List<ExportRecord> current) {
+        listeners.add(listener);
+        listener.onReplace(current, sequence.get());
+    }
+
+    void removeListener(RepositoryChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    void appended(List<ExportRecord> records) {
+        long current = sequence.incrementAndGet();
+        listeners.forEach(listener -> listener.onAppend(records, current));
+    }
+
+    void replaced(List<ExportRecord> records) {
+        long current = sequence.incrementAndGet();
+        listeners.forEach(listener -> listener.onReplace(records, current));
+    }
+}
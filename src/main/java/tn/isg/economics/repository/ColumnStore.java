@@ -0,0 +1,333 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.Money;
+import tn.isg.economics.model.ProductType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primitive column arrays backing {@link ColumnarExportRecordRepository}.
+ * One slot per row in every array; indicator columns are only allocated once a row carries that indicator.
+ * Every added row is also registered in the store's {@link RecordIndexes}.
+ * <p>
+ * A store is filled by one thread before it is published; after that it is never changed. Appends build a
+ * successor with {@link #appended}, which shares the column arrays but only writes slots past this store's
+ * size, so views of this store keep reading their rows without locking. Bitmap words hold bits of both, so
+ * they are written with release and read with acquire semantics.
+ */
+final class ColumnStore {
+
+    static final long NULL_PRICE = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final ProductType[] PRODUCTS = ProductType.values();
+    private static final MarketIndicator[] INDICATORS = MarketIndicator.values();
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    int size;
+    volatile int latestRow = -1;
+    int[] epochDays;
+    byte[] products;
+    int[] destinationIds;
+    double[] volumes;
+    long[] prices;
+    final double[][] indicatorValues;
+    final long[][] indicatorPresence;
+
+    final DestinationDictionary destinations;
+    final RecordIndexes indexes;
+
+    ColumnStore(int capacity) {
+        this(capacity, new DestinationDictionary());
+    }
+
+    ColumnStore(int capacity, DestinationDictionary destinations) {
+        this.destinations = destinations;
+        this.indexes = new RecordIndexes(destinations);
+        this.indicatorValues = new double[INDICATORS.length][];
+        this.indicatorPresence = new long[INDICATORS.length][];
+        int initial = Math.max(capacity, INITIAL_CAPACITY);
+        epochDays = new int[initial];
+        products = new byte[initial];
+        destinationIds = new int[initial];
+        volumes = new double[initial];
+        prices = new long[initial];
+    }
+
+    /**
+     * Successor sharing the column arrays and the indexes of {@code base}, see {@link #appended}.
+     */
+    private ColumnStore(ColumnStore base) {
+        this.destinations = base.destinations;
+        this.indexes = base.indexes;
+        this.indicatorValues = base.indicatorValues.clone();
+        this.indicatorPresence = base.indicatorPresence.clone();
+        this.size = base.size;
+        this.epochDays = base.epochDays;
+        this.products = base.products;
+        this.destinationIds = base.destinationIds;
+        this.volumes = base.volumes;
+        this.prices = base.prices;
+    }
+
+    /**
+     * Returns a store holding these rows followed by {@code sortedRows}, leaving this store unchanged. The
+     * successor takes over the column arrays and indexes, so it must be created at most once per store, by
+     * the thread that owns the repository's writes.
+     */
+    ColumnStore appended(List<ExportRecord> sortedRows) {
+        ColumnStore next = new ColumnStore(this);
+        sortedRows.forEach(next::add);
+        return next;
+    }
+
+    /**
+     * @return a view over the rows of this store, for reading them through {@link ExportRecordColumns}
+     */
+    ColumnarRecordList rows() {
+        return new ColumnarRecordList(this, size);
+    }
+
+    int capacity() {
+        return epochDays.length;
+    }
+
+    void add(ExportRecord record) {
+        ensureCapacity(size + 1);
+        int row = size;
+        epochDays[row] = (int) record.date().toEpochDay();
+        products[row] = (byte) record.productType().ordinal();
+        destinationIds[row] = destinations.idOf(record.destination());
+        volumes[row] = record.volumeTons();
+        prices[row] = toCents(record.pricePerTon());
+        Map<MarketIndicator, Double> indicators = record.indicators();
+        if (indicators != null) {
+            indicators.forEach((indicator, value) -> {
+                if (value != null) {
+                    setIndicator(row, indicator.ordinal(), value);
+                }
+            });
+        }
+        indexes.add(row, epochDays[row], products[row], destinationIds[row]);
+        size++;
+    }
+
+    /**
+     * Appends row {@code row} of {@code source} without materializing it as an {@link ExportRecord}.
+     */
+    void copyRow(ExportRecordColumns source, int row) {
+        ensureCapacity(size + 1);
+        int target = size;
+        epochDays[target] = source.epochDay(row);
+        products[target] = (byte) source.productType(row).ordinal();
+        destinationIds[target] = destinations.idOf(source.destinationName(source.destinationId(row)));
+        volumes[target] = source.volumeTons(row);
+        prices[target] = source.hasPrice(row) ? source.priceCents(row) : NULL_PRICE;
+        for (MarketIndicator indicator : INDICATORS) {
+            if (source.hasIndicator(row, indicator)) {
+                setIndicator(target, indicator.ordinal(), source.indicator(row, indicator));
+            }
+        }
+        indexes.add(target, epochDays[target], products[target], destinationIds[target]);
+        size++;
+    }
+
+    /**
+     * Returns a new store holding these rows merged with {@code incoming} (date-sorted). Incoming records
+     * go after stored rows of the same day. Runs between insertion points are block-copied, and this
+     * store is left untouched so existing views stay valid.
+     */
+    ColumnStore mergedWith(List<ExportRecord> incoming) {
+        ColumnStore merged = new ColumnStore(size + incoming.size(), destinations);
+        int read = 0;
+        for (ExportRecord record : incoming) {
+            int until = upperBound((int) record.date().toEpochDay(), read);
+            merged.copyRange(this, read, until);
+            merged.add(record);
+            read = until;
+        }
+        merged.copyRange(this, read, size);
+        return merged;
+    }
+
+    /**
+     * Returns a new store holding rows {@code [0, rows)} of this store merged with every row of {@code late},
+     * a date-sorted store sharing this store's dictionary. Late rows go after stored rows of the same day.
+     */
+    ColumnStore mergedWith(int rows, ColumnStore late) {
+        ColumnStore merged = new ColumnStore(rows + late.size, destinations);
+        int read = 0;
+        for (int row = 0; row < late.size; row++) {
+            int until = Math.min(upperBound(late.epochDays[row], read), rows);
+            merged.copyRange(this, read, until);
+            merged.copyRange(late, row, row + 1);
+            read = until;
+        }
+        merged.copyRange(this, read, rows);
+        return merged;
+    }
+
+    /**
+     * @return for every row of {@code late}, its index once merged into this store by {@link #mergedWith(int, ColumnStore)}
+     */
+    int[] mergedPositions(ColumnStore late) {
+        int[] positions = new int[late.size];
+        int bound = 0;
+        for (int row = 0; row < late.size; row++) {
+            bound = upperBound(late.epochDays[row], bound);
+            positions[row] = bound + row;
+        }
+        return positions;
+    }
+
+    /**
+     * @return first row in {@code [from, size)} whose epoch day is greater than or equal to {@code epochDay}
+     */
+    int lowerBound(int epochDay, int from) {
+        int low = from;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return first row in {@code [from, size)} whose epoch day is strictly greater than {@code epochDay}
+     */
+    int upperBound(int epochDay, int from) {
+        return epochDay == Integer.MAX_VALUE ? size : lowerBound(epochDay + 1, from);
+    }
+
+    boolean hasIndicator(int row, int indicator) {
+        long[] presence = indicatorPresence[indicator];
+        return presence != null && ((long) WORDS.getAcquire(presence, row >>> 6) & (1L << row)) != 0;
+    }
+
+    ExportRecord record(int row) {
+        long cents = prices[row];
+        return new ExportRecord(
+                LocalDate.ofEpochDay(epochDays[row]),
+                PRODUCTS[products[row]],
+                destinations.name(destinationIds[row]),
+                volumes[row],
+                cents == NULL_PRICE ? null : BigDecimal.valueOf(cents, ExportRecordColumns.PRICE_SCALE),
+                indicators(row)
+        );
+    }
+
+    /**
+     * Approximate heap retained by the column arrays, the indexes and the destination dictionary.
+     */
+    long estimatedHeapBytes() {
+        long bytes = MemoryFootprint.intArray(epochDays.length)
+                + MemoryFootprint.byteArray(products.length)
+                + MemoryFootprint.intArray(destinationIds.length)
+                + MemoryFootprint.doubleArray(volumes.length)
+                + MemoryFootprint.longArray(prices.length);
+        for (int i = 0; i < INDICATORS.length; i++) {
+            if (indicatorValues[i] != null) {
+                bytes += MemoryFootprint.doubleArray(indicatorValues[i].length)
+                        + MemoryFootprint.longArray(indicatorPresence[i].length);
+            }
+        }
+        return bytes + indexes.estimatedHeapBytes() + destinations.estimatedHeapBytes();
+    }
+
+    private Map<MarketIndicator, Double> indicators(int row) {
+        EnumMap<MarketIndicator, Double> values = null;
+        for (int i = 0; i < INDICATORS.length; i++) {
+            if (hasIndicator(row, i)) {
+                if (values == null) {
+                    values = new EnumMap<>(MarketIndicator.class);
+                }
+                values.put(INDICATORS[i], indicatorValues[i][row]);
+            }
+        }
+        return values == null ? Map.of() : Collections.unmodifiableMap(values);
+    }
+
+    private void setIndicator(int row, int indicator, double value) {
+        if (indicatorValues[indicator] == null) {
+            indicatorValues[indicator] = new double[capacity()];
+            indicatorPresence[indicator] = new long[bitmapWords(capacity())];
+        }
+        indicatorValues[indicator][row] = value;
+        long[] presence = indicatorPresence[indicator];
+        WORDS.setRelease(presence, row >>> 6, presence[row >>> 6] | 1L << row);
+    }
+
+    /**
+     * Appends rows {@code [from, to)} of {@code source}, which must share this store's dictionary.
+     */
+    void copyRange(ColumnStore source, int from, int to) {
+        int count = to - from;
+        if (count == 0) {
+            return;
+        }
+        ensureCapacity(size + count);
+        System.arraycopy(source.epochDays, from, epochDays, size, count);
+        System.arraycopy(source.products, from, products, size, count);
+        System.arraycopy(source.destinationIds, from, destinationIds, size, count);
+        System.arraycopy(source.volumes, from, volumes, size, count);
+        System.arraycopy(source.prices, from, prices, size, count);
+        for (int i = 0; i < INDICATORS.length; i++) {
+            if (source.indicatorValues[i] == null) {
+                continue;
+            }
+            for (int row = from; row < to; row++) {
+                if (source.hasIndicator(row, i)) {
+                    setIndicator(size + row - from, i, source.indicatorValues[i][row]);
+                }
+            }
+        }
+        for (int row = size; row < size + count; row++) {
+            indexes.add(row, epochDays[row], products[row], destinationIds[row]);
+        }
+        size += count;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= capacity()) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity() + (capacity() >> 1));
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+        products = Arrays.copyOf(products, newCapacity);
+        destinationIds = Arrays.copyOf(destinationIds, newCapacity);
+        volumes = Arrays.copyOf(volumes, newCapacity);
+        prices = Arrays.copyOf(prices, newCapacity);
+        for (int i = 0; i < INDICATORS.length; i++) {
+            if (indicatorValues[i] != null) {
+                indicatorValues[i] = Arrays.copyOf(indicatorValues[i], newCapacity);
+                indicatorPresence[i] = Arrays.copyOf(indicatorPresence[i], bitmapWords(newCapacity));
+            }
+        }
+    }
+
+    static long toCents(BigDecimal price) {
+        if (price == null) {
+            return NULL_PRICE;
+        }
+        return Money.toCents(price);
+    }
+
+    private static int bitmapWords(int bits) {
+        return (bits + 63) >>> 6;
+    }
+}
@@ -0,0 +1,320 @@
+package tn.isg.economics.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.annotations.Audit;
+import tn.isg.economics.model.ExportRecord;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Column-oriented in-memory repository for large export histories.
+ * <p>
+ * Rows are kept date-sorted in primitive arrays: {@code int} epoch days, {@code byte} product ordinals,
+ * dictionary-encoded destination ids, {@code double} volumes, prices as longs scaled by
+ * {@link ExportRecordColumns#PRICE_SCALE} (rounded HALF_UP) and one dense {@code double[]} per
+ * market indicator with a presence bitmap. {@link ExportRecord}s are only created when a caller reads them.
+ * <p>
+ * Appended rows dated on or after the latest stored day extend the main store: a successor store shares its
+ * column arrays and fills only the slots past the published rows, then is published as a new snapshot.
+ * Earlier rows are merged into a small date-sorted late run instead, which reads interleave with the main
+ * rows, so a late batch costs about its own size rather than a copy of the table. Once the late run reaches
+ * the compaction threshold it is merged into a new main store in the background. No published store is ever
+ * changed, so lists already handed out stay valid and can be read from any thread without locking.
+ * <p>
+ * Product, destination and date indexes (see {@link RecordIndexes}) are maintained with the rows, so
+ * {@link #query(RecordQuery)} results are views over the matching rows only.
+ */
+@Slf4j
+@Audit(owner = "dashboard")
+public class ColumnarExportRecordRepository implements IndexedExportRecordRepository {
+
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 4096;
+
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "columnar-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int compactionThreshold;
+    private final ChangeNotifier notifier = new ChangeNotifier();
+    private final Object compactionLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(new ColumnStore(0));
+    private long stateVersion;
+    private boolean compacting;
+    private final List<ExportRecord> lateDuringCompaction = new ArrayList<>();
+
+    public ColumnarExportRecordRepository() {
+        this(DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param compactionThreshold late-run rows that trigger a background merge into the main store
+     */
+    public ColumnarExportRecordRepository(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @Override
+    public ColumnarRecordList findAll() {
+        Snapshot current = snapshot;
+        return current.range(0, current.store.size + current.late.size);
+    }
+
+    /**
+     * Replaces the stored records. Date-sorted {@link ExportRecordColumns} sources, such as another
+     * repository's {@code findAll()}, are copied column by column without creating records.
+     */
+    @Override
+    public synchronized void saveAll(List<ExportRecord> records) {
+        ColumnStore replacement = new ColumnStore(records.size());
+        if (records instanceof ExportRecordColumns columns && isSortedByDate(columns)) {
+            for (int row = 0; row < columns.size(); row++) {
+                replacement.copyRow(columns, row);
+            }
+        } else {
+            List<ExportRecord> sorted = records;
+            if (!isSortedByDate(records)) {
+                sorted = new ArrayList<>(records);
+                sorted.sort(Comparator.comparing(ExportRecord::date));
+            }
+            for (ExportRecord record : sorted) {
+                replacement.add(record);
+            }
+        }
+        stateVersion++;
+        lateDuringCompaction.clear();
+        publish(new Snapshot(replacement));
+        notifier.replaced(findAll());
+    }
+
+    @Override
+    public Optional<ExportRecord> findLatest() {
+        // Late rows are always dated before the latest main row
+        ColumnStore current = snapshot.store;
+        int row = current.latestRow;
+        return row < 0 ? Optional.empty() : Optional.of(current.record(row));
+    }
+
+    @Override
+    public synchronized void append(List<ExportRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<ExportRecord> incoming = new ArrayList<>(records);
+        incoming.sort(Comparator.comparing(ExportRecord::date));
+
+        Snapshot current = snapshot;
+        ColumnStore main = current.store;
+        long latestDay = main.size == 0 ? Long.MIN_VALUE : main.epochDays[main.size - 1];
+        int split = 0;
+        while (split < incoming.size() && incoming.get(split).date().toEpochDay() < latestDay) {
+            split++;
+        }
+        List<ExportRecord> earlier = incoming.subList(0, split);
+        List<ExportRecord> inOrder = incoming.subList(split, incoming.size());
+        // Late rows stay dated before every main row appended here, so their merged positions do not move
+        ColumnStore nextMain = inOrder.isEmpty() ? main : main.appended(inOrder);
+        if (earlier.isEmpty()) {
+            publish(new Snapshot(nextMain, current.late, current.latePositions));
+        } else {
+            ColumnStore late = current.late.mergedWith(earlier);
+            publish(new Snapshot(nextMain, late, nextMain.mergedPositions(late)));
+            if (compacting) {
+                lateDuringCompaction.addAll(earlier);
+            } else if (late.size >= compactionThreshold) {
+                compacting = true;
+                COMPACTOR.execute(this::compact);
+            }
+        }
+        notifier.appended(List.copyOf(incoming));
+    }
+
+    /**
+     * Merges the late run into a new main store. The merge runs without the repository lock; rows appended
+     * meanwhile are carried over to the new store and late run when it is installed.
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            compactLateRun();
+        }
+    }
+
+    private void compactLateRun() {
+        Snapshot base;
+        int rows;
+        long version;
+        synchronized (this) {
+            base = snapshot;
+            // Rows queued since scheduling are part of this late run already
+            lateDuringCompaction.clear();
+            if (base.late.size == 0) {
+                compacting = false;
+                return;
+            }
+            compacting = true;
+            rows = base.store.size;
+            version = stateVersion;
+        }
+
+        ColumnStore merged = base.store.mergedWith(rows, base.late);
+
+        synchronized (this) {
+            compacting = false;
+            if (version != stateVersion) {
+                // saveAll replaced everything while we were merging
+                lateDuringCompaction.clear();
+                return;
+            }
+            ColumnStore main = snapshot.store;
+            merged.copyRange(main, rows, main.size);
+            List<ExportRecord> pending = new ArrayList<>(lateDuringCompaction);
+            lateDuringCompaction.clear();
+            pending.sort(Comparator.comparing(ExportRecord::date));
+            ColumnStore late = new ColumnStore(0, merged.destinations).mergedWith(pending);
+            publish(new Snapshot(merged, late, merged.mergedPositions(late)));
+        }
+        log.debug("Compacted {} late rows into a store of {} rows", base.late.size, rows + base.late.size);
+    }
+
+    @Override
+    public ColumnarRecordList findSince(LocalDate from) {
+        Snapshot current = snapshot;
+        int size = current.store.size + current.late.size;
+        int day = (int) from.toEpochDay();
+        int first = current.store.lowerBound(day, 0) + current.late.lowerBound(day, 0);
+        return current.range(first, Math.max(0, size - first));
+    }
+
+    /**
+     * Matching rows are found through the indexes; the result reads the store rows lazily.
+     */
+    @Override
+    public synchronized ColumnarRecordList query(RecordQuery query) {
+        Snapshot current = snapshot;
+        if (current.late.size == 0) {
+            return current.store.indexes.query(current.store, query);
+        }
+        int[] mainRows = current.store.indexes.rows(current.store.rows(), query);
+        int[] lateRows = current.late.indexes.rows(current.late.rows(), query);
+        return new ColumnarRecordList(current.store, current.late, current.merge(mainRows, lateRows));
+    }
+
+    @Override
+    public synchronized int count(RecordQuery query) {
+        Snapshot current = snapshot;
+        return current.store.indexes.count(current.store.rows(), query)
+                + current.late.indexes.count(current.late.rows(), query);
+    }
+
+    @Override
+    public Set<String> destinations() {
+        DestinationDictionary dictionary = snapshot.store.destinations;
+        Set<String> names = new LinkedHashSet<>();
+        for (int id = 0, count = dictionary.size(); id < count; id++) {
+            names.add(dictionary.name(id));
+        }
+        return names;
+    }
+
+    @Override
+    public long changeSequence() {
+        return notifier.sequence();
+    }
+
+    @Override
+    public void addChangeListener(RepositoryChangeListener listener) {
+        notifier.addListener(listener);
+    }
+
+    @Override
+    public synchronized void follow(RepositoryChangeListener listener) {
+        notifier.follow(listener, findAll());
+    }
+
+    @Override
+    public void removeChangeListener(RepositoryChangeListener listener) {
+        notifier.removeListener(listener);
+    }
+
+    @Override
+    public int size() {
+        Snapshot current = snapshot;
+        return current.store.size + current.late.size;
+    }
+
+    /**
+     * @return approximate heap retained by this repository, see {@link MemoryFootprint}
+     */
+    public long estimatedHeapBytes() {
+        Snapshot current = snapshot;
+        return current.store.estimatedHeapBytes() + current.late.estimatedHeapBytes();
+    }
+
+    private void publish(Snapshot updated) {
+        // Rows are date-sorted; report the first row of the latest day like a stream max() would
+        ColumnStore main = updated.store;
+        main.latestRow = main.size == 0 ? -1 : main.lowerBound(main.epochDays[main.size - 1], 0);
+        snapshot = updated;
+    }
+
+    private static boolean isSortedByDate(List<ExportRecord> records) {
+        for (int i = 1; i < records.size(); i++) {
+            if (records.get(i - 1).date().isAfter(records.get(i).date())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSortedByDate(ExportRecordColumns columns) {
+        for (int row = 1; row < columns.size(); row++) {
+            if (columns.epochDay(row - 1) > columns.epochDay(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Main store plus the late run, with the merged index of every late row.
+     */
+    private record Snapshot(ColumnStore store, ColumnStore late, int[] latePositions) {
+
+        Snapshot(ColumnStore store) {
+            this(store, new ColumnStore(0, store.destinations), new int[0]);
+        }
+
+        ColumnarRecordList range(int offset, int size) {
+            return late.size == 0
+                    ? new ColumnarRecordList(store, offset, size)
+                    : new ColumnarRecordList(store, late, latePositions, offset, size);
+        }
+
+        /**
+         * Interleaves ascending main and late rows by date, late rows after main rows of the same day.
+         */
+        int[] merge(int[] mainRows, int[] lateRows) {
+            int[] merged = new int[mainRows.length + lateRows.length];
+            int m = 0;
+            int l = 0;
+            for (int i = 0; i < merged.length; i++) {
+                if (l == lateRows.length
+                        || (m < mainRows.length && store.epochDays[mainRows[m]] <= late.epochDays[lateRows[l]])) {
+                    merged[i] = mainRows[m++];
+                } else {
+                    merged[i] = ~lateRows[l++];
+                }
+            }
+            return merged;
+        }
+    }
+}
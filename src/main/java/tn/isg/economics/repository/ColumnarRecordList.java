@@ -0,0 +1,168 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list view over the rows of a {@link ColumnarExportRecordRepository}.
+ * Elements are materialized as {@link ExportRecord}s only when accessed; primitive
+ * callers can read the columns directly through {@link ExportRecordColumns}.
+ * <p>
+ * A view may also cover the repository's late run: rows that arrived out of date order and are kept in a
+ * second store until they are compacted into the main one.
+ */
+public final class ColumnarRecordList extends AbstractList<ExportRecord>
+        implements ExportRecordColumns, RandomAccess {
+
+    private static final ProductType[] PRODUCTS = ProductType.values();
+
+    private final ColumnStore store;
+    private final ColumnStore late;
+    private final int[] latePositions;
+    private final int offset;
+    private final int size;
+    private final int[] rows;
+
+    ColumnarRecordList(ColumnStore store, int size) {
+        this(store, 0, size);
+    }
+
+    /**
+     * View over store rows {@code [offset, offset + size)}.
+     */
+    ColumnarRecordList(ColumnStore store, int offset, int size) {
+        this(store, null, null, offset, size, null);
+    }
+
+    /**
+     * View over the store rows listed in {@code rows}, which must be ascending.
+     */
+    ColumnarRecordList(ColumnStore store, int[] rows) {
+        this(store, null, null, 0, rows.length, rows);
+    }
+
+    /**
+     * View over rows {@code [offset, offset + size)} of {@code store} merged with {@code late}, where
+     * {@code latePositions} gives the merged index of every late row (see {@link ColumnStore#mergedPositions}).
+     */
+    ColumnarRecordList(ColumnStore store, ColumnStore late, int[] latePositions, int offset, int size) {
+        this(store, late, latePositions, offset, size, null);
+    }
+
+    /**
+     * View over {@code rows} in merged order, where a negative entry {@code ~row} is row {@code row} of {@code late}.
+     */
+    ColumnarRecordList(ColumnStore store, ColumnStore late, int[] rows) {
+        this(store, late, null, 0, rows.length, rows);
+    }
+
+    private ColumnarRecordList(ColumnStore store, ColumnStore late, int[] latePositions, int offset, int size,
+                               int[] rows) {
+        this.store = store;
+        this.late = late;
+        this.latePositions = latePositions;
+        this.offset = offset;
+        this.size = size;
+        this.rows = rows;
+    }
+
+    @Override
+    public ExportRecord get(int index) {
+        int row = checkRow(index);
+        return row >= 0 ? store.record(row) : late.record(~row);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int epochDay(int row) {
+        int index = checkRow(row);
+        return index >= 0 ? store.epochDays[index] : late.epochDays[~index];
+    }
+
+    @Override
+    public ProductType productType(int row) {
+        int index = checkRow(row);
+        return PRODUCTS[index >= 0 ? store.products[index] : late.products[~index]];
+    }
+
+    @Override
+    public int destinationId(int row) {
+        int index = checkRow(row);
+        return index >= 0 ? store.destinationIds[index] : late.destinationIds[~index];
+    }
+
+    @Override
+    public String destinationName(int destinationId) {
+        return store.destinations.name(destinationId);
+    }
+
+    @Override
+    public int destinationCount() {
+        return store.destinations.size();
+    }
+
+    @Override
+    public double volumeTons(int row) {
+        int index = checkRow(row);
+        return index >= 0 ? store.volumes[index] : late.volumes[~index];
+    }
+
+    @Override
+    public boolean hasPrice(int row) {
+        return priceCents(row) != ColumnStore.NULL_PRICE;
+    }
+
+    @Override
+    public long priceCents(int row) {
+        int index = checkRow(row);
+        return index >= 0 ? store.prices[index] : late.prices[~index];
+    }
+
+    @Override
+    public boolean hasIndicator(int row, MarketIndicator indicator) {
+        int index = checkRow(row);
+        return index >= 0
+                ? store.hasIndicator(index, indicator.ordinal())
+                : late.hasIndicator(~index, indicator.ordinal());
+    }
+
+    @Override
+    public double indicator(int row, MarketIndicator indicator) {
+        int index = checkRow(row);
+        double[] values = (index >= 0 ? store : late).indicatorValues[indicator.ordinal()];
+        return values == null ? Double.NaN : values[index >= 0 ? index : ~index];
+    }
+
+    @Override
+    public ExportRecord record(int row) {
+        return get(row);
+    }
+
+    /**
+     * @return the store row behind {@code row}, or {@code ~lateRow} for a row of the late run
+     */
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        if (rows != null) {
+            return rows[row];
+        }
+        if (latePositions == null) {
+            return offset + row;
+        }
+        int merged = offset + row;
+        int lateRow = Arrays.binarySearch(latePositions, merged);
+        // Otherwise -(insertion point) - 1: the insertion point counts the late rows before this one
+        return lateRow >= 0 ? ~lateRow : merged + lateRow + 1;
+    }
+}
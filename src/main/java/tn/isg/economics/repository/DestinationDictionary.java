@@ -0,0 +1,56 @@
+package tn.isg.economics.repository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only dictionary assigning dense int ids to destination names.
+ * Ids are never reassigned, so readers holding an id can always resolve it.
+ */
+final class DestinationDictionary {
+
+    private final Map<String, Integer> index = new HashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile int count;
+
+    synchronized int idOf(String destination) {
+        Integer id = index.get(destination);
+        if (id != null) {
+            return id;
+        }
+        String[] current = names;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+        }
+        current[count] = destination;
+        names = current;
+        index.put(destination, count);
+        return count++;
+    }
+
+    /**
+     * @return the id of {@code destination}, or -1 if it was never added
+     */
+    synchronized int find(String destination) {
+        Integer id = index.get(destination);
+        return id == null ? -1 : id;
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int size() {
+        return count;
+    }
+
+    long estimatedHeapBytes() {
+        String[] current = names;
+        long bytes = MemoryFootprint.referenceArray(current.length) + MemoryFootprint.hashMap(count);
+        for (int i = 0; i < count; i++) {
+            bytes += MemoryFootprint.string(current[i]) + MemoryFootprint.BOXED;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,54 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.Money;
+import tn.isg.economics.model.ProductType;
+
+/**
+ * Primitive, column-oriented read access to a set of export records.
+ * Rows are addressed by index {@code 0..size()-1} and are ordered by date.
+ */
+public interface ExportRecordColumns {
+
+    /**
+     * Number of decimal places kept for prices stored as scaled longs.
+     */
+    int PRICE_SCALE = Money.SCALE;
+
+    int size();
+
+    int epochDay(int row);
+
+    ProductType productType(int row);
+
+    /**
+     * @return dictionary id of the destination, see {@link #destinationName(int)}
+     */
+    int destinationId(int row);
+
+    String destinationName(int destinationId);
+
+    /**
+     * @return number of distinct destination ids in the dictionary
+     */
+    int destinationCount();
+
+    double volumeTons(int row);
+
+    boolean hasPrice(int row);
+
+    /**
+     * @return price per ton scaled by {@link #PRICE_SCALE}; only meaningful when {@link #hasPrice(int)}
+     */
+    long priceCents(int row);
+
+    boolean hasIndicator(int row, MarketIndicator indicator);
+
+    double indicator(int row, MarketIndicator indicator);
+
+    /**
+     * Materializes the row as an {@link ExportRecord}.
+     */
+    ExportRecord record(int row);
+}
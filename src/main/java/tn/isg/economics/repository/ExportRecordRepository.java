@@ -2,11 +2,13 @@ package tn.isg.economics.repository;
 
 import tn.isg.economics.model.ExportRecord;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Data access contract.
+ * Records are kept in date order; records sharing a date keep the order in which they were stored.
  */
 public interface ExportRecordRepository {
     List<ExportRecord> findAll();
@@ -14,5 +16,36 @@ public interface ExportRecordRepository {
     void saveAll(List<ExportRecord> records);
 
     Optional<ExportRecord> findLatest();
-}
 
+    /**
+     * @return number of stored records, counted without materializing them
+     */
+    int size();
+
+    /**
+     * Adds {@code records} to the stored ones without rewriting them. Records dated on a day
+     * that is already stored are placed after the existing records of that day.
+     */
+    void append(List<ExportRecord> records);
+
+    /**
+     * @return records dated on or after {@code from}, in date order
+     */
+    List<ExportRecord> findSince(LocalDate from);
+
+    /**
+     * @return number incremented by every {@link #saveAll(List)} and non-empty {@link #append(List)}
+     */
+    long changeSequence();
+
+    void addChangeListener(RepositoryChangeListener listener);
+
+    /**
+     * Registers {@code listener} and first hands it the current records through
+     * {@link RepositoryChangeListener#onReplace}, atomically with writes, so every record reaches it exactly
+     * once: in that snapshot or in a later callback.
+     */
+    void follow(RepositoryChangeListener listener);
+
+    void removeChangeListener(RepositoryChangeListener listener);
+}
@@ -4,7 +4,9 @@ import lombok.Getter;
 import tn.isg.economics.annotations.Audit;
 import tn.isg.economics.model.ExportRecord;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -17,6 +19,8 @@ public class InMemoryExportRecordRepository implements ExportRecordRepository {
 
     @Getter
     private final List<ExportRecord> storage = new ArrayList<>();
+    private final ChangeNotifier notifier = new ChangeNotifier();
+    private int latestIndex = -1;
 
     @Override
     public List<ExportRecord> findAll() {
@@ -28,11 +32,90 @@ public class InMemoryExportRecordRepository implements ExportRecordRepository {
         storage.clear();
         storage.addAll(records);
         storage.sort(Comparator.comparing(ExportRecord::date));
+        updateLatest();
+        notifier.replaced(findAll());
     }
 
     @Override
     public Optional<ExportRecord> findLatest() {
-        return storage.stream().max(Comparator.comparing(ExportRecord::date));
+        return latestIndex < 0 ? Optional.empty() : Optional.of(storage.get(latestIndex));
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+
+    @Override
+    public void append(List<ExportRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<ExportRecord> incoming = new ArrayList<>(records);
+        incoming.sort(Comparator.comparing(ExportRecord::date));
+
+        int existing = storage.size();
+        if (existing == 0 || !incoming.get(0).date().isBefore(storage.get(existing - 1).date())) {
+            storage.addAll(incoming);
+        } else {
+            // Merge from the back: only rows dated after the earliest incoming record move
+            storage.addAll(Collections.nCopies(incoming.size(), null));
+            int read = existing - 1;
+            int write = storage.size() - 1;
+            for (int next = incoming.size() - 1; next >= 0; write--) {
+                ExportRecord candidate = incoming.get(next);
+                if (read >= 0 && storage.get(read).date().isAfter(candidate.date())) {
+                    storage.set(write, storage.get(read--));
+                } else {
+                    storage.set(write, candidate);
+                    next--;
+                }
+            }
+        }
+        updateLatest();
+        notifier.appended(List.copyOf(incoming));
+    }
+
+    @Override
+    public List<ExportRecord> findSince(LocalDate from) {
+        return List.copyOf(storage.subList(lowerBound(from), storage.size()));
+    }
+
+    @Override
+    public long changeSequence() {
+        return notifier.sequence();
     }
-}
 
+    @Override
+    public void addChangeListener(RepositoryChangeListener listener) {
+        notifier.addListener(listener);
+    }
+
+    @Override
+    public void follow(RepositoryChangeListener listener) {
+        notifier.follow(listener, findAll());
+    }
+
+    @Override
+    public void removeChangeListener(RepositoryChangeListener listener) {
+        notifier.removeListener(listener);
+    }
+
+    private void updateLatest() {
+        latestIndex = storage.isEmpty() ? -1 : lowerBound(storage.get(storage.size() - 1).date());
+    }
+
+    private int lowerBound(LocalDate date) {
+        int low = 0;
+        int high = storage.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (storage.get(mid).date().isBefore(date)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
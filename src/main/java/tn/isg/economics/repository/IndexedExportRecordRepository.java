@@ -0,0 +1,27 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repository that answers {@link RecordQuery} lookups from secondary indexes instead of scanning.
+ */
+public interface IndexedExportRecordRepository extends ExportRecordRepository {
+
+    /**
+     * @return matching records in stored (date) order
+     */
+    List<ExportRecord> query(RecordQuery query);
+
+    /**
+     * @return number of records {@link #query(RecordQuery)} would return
+     */
+    int count(RecordQuery query);
+
+    /**
+     * @return every destination name stored so far
+     */
+    Set<String> destinations();
+}
@@ -0,0 +1,151 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.exceptions.DataAccessException;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only memory mapping of a {@link SegmentFile}. Opening only reads the header and the
+ * destination dictionary; column values are read straight from the mapping, so pages are
+ * loaded lazily through the OS page cache.
+ */
+final class MappedSegment {
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final SegmentFile.Layout layout;
+    private final int minEpochDay;
+    private final int maxEpochDay;
+    private final String[] dictionary;
+    private int[] globalIds;
+
+    private MappedSegment(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != SegmentFile.MAGIC || buffer.getInt(4) != SegmentFile.VERSION) {
+            throw new DataAccessException("Not a segment file: " + path);
+        }
+        int rows = buffer.getInt(SegmentFile.OFFSET_ROW_COUNT);
+        this.minEpochDay = buffer.getInt(SegmentFile.OFFSET_MIN_DAY);
+        this.maxEpochDay = buffer.getInt(SegmentFile.OFFSET_MAX_DAY);
+        this.layout = SegmentFile.Layout.of(rows, buffer.getInt(SegmentFile.OFFSET_INDICATOR_MASK));
+
+        int count = buffer.getInt(SegmentFile.OFFSET_DICTIONARY_COUNT);
+        int position = (int) buffer.getLong(SegmentFile.OFFSET_DICTIONARY);
+        this.dictionary = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getShort(position) & 0xFFFF;
+            byte[] name = new byte[length];
+            buffer.get(position + 2, name);
+            dictionary[i] = new String(name, StandardCharsets.UTF_8);
+            position += 2 + length;
+        }
+    }
+
+    static MappedSegment open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedSegment(path, buffer);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to map segment " + path, e);
+        }
+    }
+
+    /**
+     * Resolves the segment-local destination ids against the repository-wide dictionary.
+     */
+    void bind(DestinationDictionary destinations) {
+        int[] ids = new int[dictionary.length];
+        for (int i = 0; i < dictionary.length; i++) {
+            ids[i] = destinations.idOf(dictionary[i]);
+        }
+        globalIds = ids;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int rows() {
+        return layout.rows();
+    }
+
+    int minEpochDay() {
+        return minEpochDay;
+    }
+
+    int maxEpochDay() {
+        return maxEpochDay;
+    }
+
+    int epochDay(int row) {
+        return buffer.getInt((int) (layout.days() + 4L * row));
+    }
+
+    int productOrdinal(int row) {
+        return buffer.get((int) (layout.products() + row));
+    }
+
+    int destinationId(int row) {
+        return globalIds[buffer.getInt((int) (layout.destinations() + 4L * row))];
+    }
+
+    double volumeTons(int row) {
+        return buffer.getDouble((int) (layout.volumes() + 8L * row));
+    }
+
+    long priceCents(int row) {
+        return buffer.getLong((int) (layout.prices() + 8L * row));
+    }
+
+    boolean hasIndicator(int row, int indicator) {
+        long offset = layout.indicatorPresence()[indicator];
+        return offset >= 0 && (buffer.getLong((int) (offset + 8L * (row >>> 6))) & (1L << row)) != 0;
+    }
+
+    double indicator(int row, int indicator) {
+        long offset = layout.indicatorValues()[indicator];
+        return offset < 0 ? Double.NaN : buffer.getDouble((int) (offset + 8L * row));
+    }
+
+    /**
+     * @return first row whose epoch day is strictly greater than {@code epochDay}
+     */
+    int upperBound(int epochDay) {
+        int low = 0;
+        int high = rows();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDay(mid) <= epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return first row whose epoch day is greater than or equal to {@code epochDay}
+     */
+    int lowerBound(int epochDay) {
+        int low = 0;
+        int high = rows();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDay(mid) < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
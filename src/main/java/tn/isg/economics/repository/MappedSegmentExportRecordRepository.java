@@ -0,0 +1,429 @@
+package tn.isg.economics.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.annotations.Audit;
+import tn.isg.economics.exceptions.DataAccessException;
+import tn.isg.economics.model.ExportRecord;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent repository backed by immutable, month-partitioned segment files that are memory-mapped on open.
+ * <p>
+ * Opening only maps the files listed in the {@code MANIFEST} and reads their headers and destination
+ * dictionaries, so start-up cost does not depend on the number of rows; column pages are faulted in
+ * lazily by the OS. New rows go to an append-only tail log and are merged into fresh segment
+ * generations by a background compaction once the tail grows past a threshold.
+ * <p>
+ * {@link RecordQuery} lookups go through {@link RecordIndexes} over the mapped rows. They are built by the first
+ * query after opening or compacting, and extended by appends dated on or after the latest stored day; an
+ * earlier-dated append shifts row numbers, so it leaves the next query to rebuild them.
+ */
+@Slf4j
+@Audit(owner = "dashboard")
+public class MappedSegmentExportRecordRepository implements IndexedExportRecordRepository, AutoCloseable {
+
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 100_000;
+
+    static final int MAX_SEGMENT_ROWS = 4_000_000;
+    static final String MANIFEST = "MANIFEST";
+
+    private final Path directory;
+    private final int compactionThreshold;
+    private final DestinationDictionary destinations = new DestinationDictionary();
+    private final ChangeNotifier notifier = new ChangeNotifier();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "segment-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private List<MappedSegment> segments = new ArrayList<>();
+    private List<TailLog> tails = new ArrayList<>();
+    private long generation;
+    private long stateVersion;
+    private boolean compactionScheduled;
+    private volatile SegmentedRecordList snapshot;
+    // Indexes over every row of snapshot, or null until the next query rebuilds them
+    private RecordIndexes indexes;
+    private volatile Optional<ExportRecord> latest = Optional.empty();
+
+    public MappedSegmentExportRecordRepository(Path directory) {
+        this(directory, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public MappedSegmentExportRecordRepository(Path directory, int compactionThreshold) {
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+        open();
+    }
+
+    @Override
+    public SegmentedRecordList findAll() {
+        return snapshot;
+    }
+
+    @Override
+    public synchronized void saveAll(List<ExportRecord> records) {
+        List<ExportRecord> sorted = new ArrayList<>(records.size());
+        for (ExportRecord record : records) {
+            sorted.add(normalize(record));
+        }
+        sorted.sort(Comparator.comparing(ExportRecord::date));
+
+        long gen = ++generation;
+        List<MappedSegment> written = writeSegments(sorted, gen);
+        TailLog tail = TailLog.open(directory.resolve(tailName(gen)));
+
+        List<MappedSegment> oldSegments = segments;
+        List<TailLog> oldTails = tails;
+        segments = written;
+        tails = new ArrayList<>(List.of(tail));
+        stateVersion++;
+        writeManifest();
+        oldTails.forEach(this::discard);
+        oldSegments.forEach(segment -> delete(segment.path()));
+        refreshSnapshot();
+        notifier.replaced(snapshot);
+        log.info("Saved {} records into {} segments under {}", sorted.size(), segments.size(), directory);
+    }
+
+    @Override
+    public Optional<ExportRecord> findLatest() {
+        return latest;
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Writes {@code records} durably to the tail log and schedules a compaction when the tail is large enough.
+     */
+    @Override
+    public synchronized void append(List<ExportRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<ExportRecord> normalized = new ArrayList<>(records.size());
+        for (ExportRecord record : records) {
+            normalized.add(normalize(record));
+        }
+        normalized.sort(Comparator.comparing(ExportRecord::date));
+        tails.get(tails.size() - 1).append(normalized);
+        SegmentedRecordList previous = snapshot;
+        boolean inOrder = previous.isEmpty()
+                || normalized.get(0).date().toEpochDay() >= previous.epochDay(previous.size() - 1);
+        publish(previous.withTailRows(normalized));
+        if (indexes != null && inOrder) {
+            indexes.addAll(snapshot, previous.size());
+        } else {
+            indexes = null;
+        }
+        if (tailRows() >= compactionThreshold && !compactionScheduled) {
+            compactionScheduled = true;
+            compactor.execute(this::compact);
+        }
+        notifier.appended(List.copyOf(normalized));
+    }
+
+    @Override
+    public List<ExportRecord> findSince(LocalDate from) {
+        SegmentedRecordList current = snapshot;
+        return current.subList(current.lowerBound((int) from.toEpochDay()), current.size());
+    }
+
+    /**
+     * Matching rows are found through the indexes; the result reads the mapped rows lazily.
+     */
+    @Override
+    public synchronized List<ExportRecord> query(RecordQuery query) {
+        return indexes().query(snapshot, query);
+    }
+
+    @Override
+    public synchronized int count(RecordQuery query) {
+        return indexes().count(snapshot, query);
+    }
+
+    @Override
+    public Set<String> destinations() {
+        Set<String> names = new LinkedHashSet<>();
+        for (int id = 0, count = destinations.size(); id < count; id++) {
+            names.add(destinations.name(id));
+        }
+        return names;
+    }
+
+    /**
+     * @return change sequence since this repository instance was opened
+     */
+    @Override
+    public long changeSequence() {
+        return notifier.sequence();
+    }
+
+    @Override
+    public void addChangeListener(RepositoryChangeListener listener) {
+        notifier.addListener(listener);
+    }
+
+    @Override
+    public synchronized void follow(RepositoryChangeListener listener) {
+        notifier.follow(listener, findAll());
+    }
+
+    @Override
+    public void removeChangeListener(RepositoryChangeListener listener) {
+        notifier.removeListener(listener);
+    }
+
+    /**
+     * Merges the current tail rows into new segment generations. Appends arriving meanwhile go to a fresh
+     * tail and are picked up by the next compaction.
+     */
+    public void compact() {
+        List<MappedSegment> baseSegments;
+        List<TailLog> compacting;
+        long gen;
+        long version;
+        synchronized (this) {
+            compactionScheduled = false;
+            if (tailRows() == 0) {
+                return;
+            }
+            gen = ++generation;
+            compacting = new ArrayList<>(tails);
+            tails.add(TailLog.open(directory.resolve(tailName(gen))));
+            writeManifest();
+            baseSegments = segments;
+            version = stateVersion;
+        }
+
+        Map<YearMonth, List<ExportRecord>> tailByMonth = new TreeMap<>();
+        for (TailLog tail : compacting) {
+            for (ExportRecord record : tail.rows()) {
+                tailByMonth.computeIfAbsent(YearMonth.from(record.date()), m -> new ArrayList<>()).add(record);
+            }
+        }
+
+        List<MappedSegment> replaced = new ArrayList<>();
+        List<MappedSegment> written = new ArrayList<>();
+        for (Map.Entry<YearMonth, List<ExportRecord>> month : tailByMonth.entrySet()) {
+            List<MappedSegment> monthSegments = baseSegments.stream()
+                    .filter(segment -> month(segment).equals(month.getKey()))
+                    .toList();
+            SegmentedRecordList merged = new SegmentedRecordList(monthSegments, month.getValue(), destinations);
+            written.addAll(writeMonth(month.getKey(), merged, gen));
+            replaced.addAll(monthSegments);
+        }
+
+        synchronized (this) {
+            if (version != stateVersion) {
+                // saveAll replaced everything while we were merging
+                written.forEach(segment -> delete(segment.path()));
+                return;
+            }
+            List<MappedSegment> next = new ArrayList<>(segments);
+            next.removeAll(replaced);
+            next.addAll(written);
+            next.sort(Comparator.comparing(MappedSegmentExportRecordRepository::month));
+            segments = next;
+            tails.removeAll(compacting);
+            stateVersion++;
+            writeManifest();
+            compacting.forEach(this::discard);
+            replaced.forEach(segment -> delete(segment.path()));
+            refreshSnapshot();
+        }
+        log.info("Compacted {} tail months into {} segments", tailByMonth.size(), written.size());
+    }
+
+    /**
+     * Waits for a running compaction, without holding the repository lock it needs to finish, then closes
+     * the tail logs.
+     */
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            tails.forEach(TailLog::close);
+        }
+    }
+
+    private synchronized void open() {
+        try {
+            Files.createDirectories(directory);
+            Path manifest = directory.resolve(MANIFEST);
+            Set<String> live = new HashSet<>();
+            if (Files.exists(manifest)) {
+                for (String line : Files.readAllLines(manifest)) {
+                    String[] parts = line.split(" ", 2);
+                    switch (parts[0]) {
+                        case "generation" -> generation = Long.parseLong(parts[1]);
+                        case "segment" -> segments.add(MappedSegment.open(directory.resolve(parts[1])));
+                        case "tail" -> tails.add(TailLog.open(directory.resolve(parts[1])));
+                        default -> throw new DataAccessException("Corrupt manifest line: " + line);
+                    }
+                    if (parts.length > 1) {
+                        live.add(parts[1]);
+                    }
+                }
+            }
+            if (tails.isEmpty()) {
+                TailLog tail = TailLog.open(directory.resolve(tailName(generation)));
+                tails.add(tail);
+                live.add(tail.path().getFileName().toString());
+                writeManifest();
+            }
+            removeStaleFiles(live);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to open segment store " + directory, e);
+        }
+        segments.forEach(segment -> segment.bind(destinations));
+        refreshSnapshot();
+        log.info("Opened segment store {} with {} segments and {} tail rows", directory, segments.size(), tailRows());
+    }
+
+    private List<MappedSegment> writeSegments(List<ExportRecord> sorted, long gen) {
+        List<MappedSegment> written = new ArrayList<>();
+        int start = 0;
+        while (start < sorted.size()) {
+            YearMonth month = YearMonth.from(sorted.get(start).date());
+            ColumnStore store = new ColumnStore(0);
+            int end = start;
+            while (end < sorted.size() && YearMonth.from(sorted.get(end).date()).equals(month)) {
+                store.add(sorted.get(end++));
+            }
+            written.addAll(writeMonth(month, new ColumnarRecordList(store, store.size), gen));
+            start = end;
+        }
+        return written;
+    }
+
+    private List<MappedSegment> writeMonth(YearMonth month, ExportRecordColumns rows, long gen) {
+        List<MappedSegment> written = new ArrayList<>();
+        for (int from = 0, chunk = 0; from < rows.size(); from += MAX_SEGMENT_ROWS, chunk++) {
+            int to = Math.min(rows.size(), from + MAX_SEGMENT_ROWS);
+            Path path = directory.resolve("seg-" + month + "-" + gen + "-" + chunk + ".seg");
+            SegmentFile.write(path, rows, from, to);
+            MappedSegment segment = MappedSegment.open(path);
+            segment.bind(destinations);
+            written.add(segment);
+        }
+        return written;
+    }
+
+    private void writeManifest() {
+        StringBuilder manifest = new StringBuilder();
+        manifest.append("generation ").append(generation).append('\n');
+        segments.forEach(segment -> manifest.append("segment ").append(segment.path().getFileName()).append('\n'));
+        tails.forEach(tail -> manifest.append("tail ").append(tail.path().getFileName()).append('\n'));
+        try {
+            Path temp = directory.resolve(MANIFEST + ".tmp");
+            Files.writeString(temp, manifest);
+            Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to write manifest in " + directory, e);
+        }
+    }
+
+    private void removeStaleFiles(Set<String> live) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{seg-*,tail-*}")) {
+            for (Path file : files) {
+                if (!live.contains(file.getFileName().toString())) {
+                    delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot from the segments and every tail row, after the segments changed.
+     */
+    private void refreshSnapshot() {
+        List<ExportRecord> tailRows = new ArrayList<>();
+        tails.forEach(tail -> tailRows.addAll(tail.rows()));
+        publish(new SegmentedRecordList(segments, tailRows, destinations));
+        indexes = null;
+    }
+
+    private RecordIndexes indexes() {
+        if (indexes == null) {
+            indexes = RecordIndexes.of(snapshot, destinations);
+        }
+        return indexes;
+    }
+
+    private void publish(SegmentedRecordList current) {
+        latest = current.isEmpty()
+                ? Optional.empty()
+                : Optional.of(current.get(current.lowerBound(current.epochDay(current.size() - 1))));
+        snapshot = current;
+    }
+
+    private int tailRows() {
+        return tails.stream().mapToInt(tail -> tail.rows().size()).sum();
+    }
+
+    private void discard(TailLog tail) {
+        tail.close();
+        delete(tail.path());
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Still mapped on some platforms; removeStaleFiles retries on the next open
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static YearMonth month(MappedSegment segment) {
+        return YearMonth.from(LocalDate.ofEpochDay(segment.minEpochDay()));
+    }
+
+    private static String tailName(long gen) {
+        return "tail-" + gen + ".log";
+    }
+
+    private static ExportRecord normalize(ExportRecord record) {
+        if (record.pricePerTon() == null || record.pricePerTon().scale() == ExportRecordColumns.PRICE_SCALE) {
+            return record;
+        }
+        return new ExportRecord(
+                record.date(),
+                record.productType(),
+                record.destination(),
+                record.volumeTons(),
+                record.pricePerTon().setScale(ExportRecordColumns.PRICE_SCALE, RoundingMode.HALF_UP),
+                record.indicators()
+        );
+    }
+}
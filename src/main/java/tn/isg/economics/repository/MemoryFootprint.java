@@ -0,0 +1,105 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shallow heap size estimates used to compare the row-oriented and columnar repositories.
+ * Figures assume a 64-bit JVM with compressed oops (12-byte headers, 4-byte references, 8-byte alignment).
+ */
+public final class MemoryFootprint {
+
+    static final int HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+    static final int BOXED = 16;
+
+    private static final int EXPORT_RECORD = align(HEADER + 5 * REFERENCE + 8);
+    private static final int LOCAL_DATE = align(HEADER + 4 + 2 + 2);
+    private static final int BIG_DECIMAL = align(HEADER + 3 * REFERENCE + 4 + 4 + 8);
+    private static final int HASH_MAP = align(HEADER + 4 * REFERENCE + 4 * 4);
+    private static final int HASH_MAP_NODE = align(HEADER + 4 + 3 * REFERENCE);
+    private static final int BOXED_DOUBLE = align(HEADER + 8);
+
+    private MemoryFootprint() {
+    }
+
+    /**
+     * Estimates the heap held by {@code records} as stored by {@link InMemoryExportRecordRepository}:
+     * the backing list, every record object and the objects it references. Shared dates and
+     * destination strings are only counted once.
+     */
+    public static long rowOriented(List<ExportRecord> records) {
+        Set<Object> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = referenceArray(records.size()) + align(HEADER + REFERENCE + 4 + 4);
+        for (ExportRecord r : records) {
+            bytes += EXPORT_RECORD;
+            if (r.date() != null && shared.add(r.date())) {
+                bytes += LOCAL_DATE;
+            }
+            if (r.destination() != null && shared.add(r.destination())) {
+                bytes += string(r.destination());
+            }
+            if (r.pricePerTon() != null) {
+                bytes += BIG_DECIMAL;
+            }
+            Map<?, ?> indicators = r.indicators();
+            if (indicators != null && shared.add(indicators)) {
+                bytes += hashMap(indicators.size()) + (long) indicators.size() * BOXED_DOUBLE;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the heap held by the column arrays of {@code repository}.
+     */
+    public static long columnar(ColumnarExportRecordRepository repository) {
+        return repository.estimatedHeapBytes();
+    }
+
+    static long hashMap(int entries) {
+        int table = 16;
+        while (table * 0.75 < entries) {
+            table <<= 1;
+        }
+        return HASH_MAP + referenceArray(table) + (long) entries * HASH_MAP_NODE;
+    }
+
+    static long string(String value) {
+        return align(HEADER + REFERENCE + 4 + 1 + 1) + byteArray(value.length());
+    }
+
+    static long byteArray(int length) {
+        return align(ARRAY_HEADER + (long) length);
+    }
+
+    static long intArray(int length) {
+        return align(ARRAY_HEADER + 4L * length);
+    }
+
+    static long longArray(int length) {
+        return align(ARRAY_HEADER + 8L * length);
+    }
+
+    static long doubleArray(int length) {
+        return align(ARRAY_HEADER + 8L * length);
+    }
+
+    static long referenceArray(int length) {
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,303 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ProductType;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Secondary indexes over date-sorted rows, such as a {@link ColumnStore} or the segments of a
+ * {@link MappedSegmentExportRecordRepository}: one {@link RowBitmap} per product, one sorted posting list of
+ * rows per destination id, and the first row of every distinct day.
+ * <p>
+ * A query is answered by turning the date range into a row range, then enumerating the smallest candidate
+ * set (posting lists, product bitmaps or the row range itself) and probing the other criteria against the
+ * columns, so its cost follows the most selective criterion rather than the table size.
+ */
+final class RecordIndexes {
+
+    private static final int PRODUCT_COUNT = ProductType.values().length;
+
+    private final DestinationDictionary destinations;
+    private final RowBitmap[] productRows = new RowBitmap[PRODUCT_COUNT];
+    private int[][] postings = new int[16][];
+    private int[] postingSizes = new int[16];
+    private int[] days = new int[64];
+    private int[] dayStarts = new int[64];
+    private int dayCount;
+
+    RecordIndexes(DestinationDictionary destinations) {
+        this.destinations = destinations;
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            productRows[i] = new RowBitmap();
+        }
+    }
+
+    /**
+     * Indexes row {@code row}; rows must be added in ascending row and day order.
+     */
+    void add(int row, int epochDay, int product, int destinationId) {
+        productRows[product].add(row);
+        addPosting(destinationId, row);
+        if (dayCount == 0 || days[dayCount - 1] != epochDay) {
+            if (dayCount == days.length) {
+                days = Arrays.copyOf(days, dayCount * 2);
+                dayStarts = Arrays.copyOf(dayStarts, dayCount * 2);
+            }
+            days[dayCount] = epochDay;
+            dayStarts[dayCount] = row;
+            dayCount++;
+        }
+    }
+
+    /**
+     * Indexes every row of {@code rows}.
+     */
+    static RecordIndexes of(ExportRecordColumns rows, DestinationDictionary destinations) {
+        RecordIndexes indexes = new RecordIndexes(destinations);
+        indexes.addAll(rows, 0);
+        return indexes;
+    }
+
+    /**
+     * Indexes rows {@code from} to the end of {@code rows}.
+     */
+    void addAll(ExportRecordColumns rows, int from) {
+        for (int row = from, size = rows.size(); row < size; row++) {
+            add(row, rows.epochDay(row), rows.productType(row).ordinal(), rows.destinationId(row));
+        }
+    }
+
+    ColumnarRecordList query(ColumnStore store, RecordQuery query) {
+        ColumnarRecordList columns = store.rows();
+        Plan plan = plan(columns, query);
+        if (plan.isEmpty()) {
+            return new ColumnarRecordList(store, 0, 0);
+        }
+        if (plan.productMask == null && plan.destinationIds == null) {
+            return new ColumnarRecordList(store, plan.from, plan.to - plan.from);
+        }
+        return new ColumnarRecordList(store, select(columns, plan));
+    }
+
+    SelectedRecordList query(ExportRecordColumns columns, RecordQuery query) {
+        Plan plan = plan(columns, query);
+        if (plan.isEmpty()) {
+            return new SelectedRecordList(columns, 0, 0);
+        }
+        if (plan.productMask == null && plan.destinationIds == null) {
+            return new SelectedRecordList(columns, plan.from, plan.to - plan.from);
+        }
+        return new SelectedRecordList(columns, select(columns, plan));
+    }
+
+    /**
+     * @return ascending rows matching {@code query}
+     */
+    int[] rows(ExportRecordColumns columns, RecordQuery query) {
+        Plan plan = plan(columns, query);
+        if (plan.isEmpty()) {
+            return new int[0];
+        }
+        if (plan.productMask == null && plan.destinationIds == null) {
+            int[] rows = new int[plan.to - plan.from];
+            Arrays.setAll(rows, i -> plan.from + i);
+            return rows;
+        }
+        return select(columns, plan);
+    }
+
+    int count(ExportRecordColumns columns, RecordQuery query) {
+        Plan plan = plan(columns, query);
+        if (plan.isEmpty()) {
+            return 0;
+        }
+        if (plan.productMask == null && plan.destinationIds == null) {
+            return plan.to - plan.from;
+        }
+        if (plan.productMask == null) {
+            return (int) plan.destinationCandidates;
+        }
+        if (plan.destinationIds == null) {
+            return (int) plan.productCandidates;
+        }
+        return select(columns, plan).length;
+    }
+
+    long estimatedHeapBytes() {
+        long bytes = MemoryFootprint.referenceArray(postings.length) + MemoryFootprint.intArray(postingSizes.length)
+                + MemoryFootprint.intArray(days.length) + MemoryFootprint.intArray(dayStarts.length);
+        for (RowBitmap bitmap : productRows) {
+            bytes += bitmap.estimatedHeapBytes();
+        }
+        for (int[] posting : postings) {
+            if (posting != null) {
+                bytes += MemoryFootprint.intArray(posting.length);
+            }
+        }
+        return bytes;
+    }
+
+    private Plan plan(ExportRecordColumns columns, RecordQuery query) {
+        Plan plan = new Plan();
+        int size = columns.size();
+        plan.from = query.from() == null ? 0 : firstRowOnOrAfter(query.from().toEpochDay(), size);
+        plan.to = query.to() == null ? size : firstRowOnOrAfter(query.to().toEpochDay() + 1, size);
+        if (query.products() != null) {
+            plan.productMask = new boolean[PRODUCT_COUNT];
+            plan.productCandidates = 0;
+            for (ProductType product : query.products()) {
+                plan.productMask[product.ordinal()] = true;
+                plan.productCandidates += productRows[product.ordinal()].cardinality(plan.from, plan.to);
+            }
+        }
+        if (query.destinations() != null) {
+            plan.destinationIds = destinationIds(query.destinations());
+            plan.destinationMask = new boolean[destinations.size()];
+            plan.destinationCandidates = 0;
+            for (int id : plan.destinationIds) {
+                plan.destinationMask[id] = true;
+                plan.destinationCandidates += postingRange(id, plan.to) - postingRange(id, plan.from);
+            }
+        }
+        return plan;
+    }
+
+    private int[] select(ExportRecordColumns columns, Plan plan) {
+        RowBuffer rows = new RowBuffer();
+        long range = plan.to - plan.from;
+        if (plan.destinationCandidates <= Math.min(plan.productCandidates, range)) {
+            for (int id : plan.destinationIds) {
+                int[] posting = postings[id];
+                for (int i = postingRange(id, plan.from), end = postingRange(id, plan.to); i < end; i++) {
+                    int row = posting[i];
+                    if (plan.productMask == null || plan.productMask[columns.productType(row).ordinal()]) {
+                        rows.add(row);
+                    }
+                }
+            }
+            return rows.sorted(plan.destinationIds.length > 1);
+        }
+        if (plan.productCandidates <= range) {
+            int sources = 0;
+            for (int product = 0; product < PRODUCT_COUNT; product++) {
+                if (plan.productMask[product]) {
+                    sources++;
+                    productRows[product].forEach(plan.from, plan.to, row -> {
+                        if (plan.destinationMask == null || plan.destinationMask[columns.destinationId(row)]) {
+                            rows.add(row);
+                        }
+                    });
+                }
+            }
+            return rows.sorted(sources > 1);
+        }
+        for (int row = plan.from; row < plan.to; row++) {
+            if ((plan.productMask == null || plan.productMask[columns.productType(row).ordinal()])
+                    && (plan.destinationMask == null || plan.destinationMask[columns.destinationId(row)])) {
+                rows.add(row);
+            }
+        }
+        return rows.sorted(false);
+    }
+
+    private int[] destinationIds(Set<String> names) {
+        int[] ids = new int[names.size()];
+        int count = 0;
+        for (String destination : names) {
+            int id = destinations.find(destination);
+            if (id >= 0) {
+                ids[count++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private int firstRowOnOrAfter(long epochDay, int size) {
+        int low = 0;
+        int high = dayCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == dayCount ? size : dayStarts[low];
+    }
+
+    /**
+     * @return index of the first posting of {@code destinationId} whose row is not below {@code row}
+     */
+    private int postingRange(int destinationId, int row) {
+        if (destinationId >= postings.length || postings[destinationId] == null) {
+            return 0;
+        }
+        int[] posting = postings[destinationId];
+        int low = 0;
+        int high = postingSizes[destinationId];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (posting[mid] < row) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void addPosting(int destinationId, int row) {
+        if (destinationId >= postings.length) {
+            int length = Math.max(destinationId + 1, postings.length * 2);
+            postings = Arrays.copyOf(postings, length);
+            postingSizes = Arrays.copyOf(postingSizes, length);
+        }
+        int[] posting = postings[destinationId];
+        int size = postingSizes[destinationId];
+        if (posting == null) {
+            posting = postings[destinationId] = new int[8];
+        } else if (size == posting.length) {
+            posting = postings[destinationId] = Arrays.copyOf(posting, size + (size >> 1));
+        }
+        posting[size] = row;
+        postingSizes[destinationId] = size + 1;
+    }
+
+    private static final class Plan {
+        int from;
+        int to;
+        boolean[] productMask;
+        int[] destinationIds;
+        boolean[] destinationMask;
+        long productCandidates = Long.MAX_VALUE;
+        long destinationCandidates = Long.MAX_VALUE;
+
+        boolean isEmpty() {
+            return from >= to
+                    || (productMask != null && productCandidates == 0)
+                    || (destinationIds != null && destinationCandidates == 0);
+        }
+    }
+
+    private static final class RowBuffer {
+        private int[] rows = new int[16];
+        private int size;
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        int[] sorted(boolean merge) {
+            int[] result = Arrays.copyOf(rows, size);
+            if (merge) {
+                Arrays.sort(result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Conjunctive lookup by product, destination and inclusive date range.
+ * A {@code null} component is unconstrained; an empty set matches nothing.
+ */
+public record RecordQuery(Set<ProductType> products, Set<String> destinations, LocalDate from, LocalDate to) {
+
+    private static final RecordQuery ALL = new RecordQuery(null, null, null, null);
+
+    public RecordQuery {
+        products = products == null ? null : Set.copyOf(products);
+        destinations = destinations == null ? null : Set.copyOf(destinations);
+    }
+
+    public static RecordQuery all() {
+        return ALL;
+    }
+
+    public static RecordQuery product(ProductType product) {
+        return new RecordQuery(Set.of(product), null, null, null);
+    }
+
+    public static RecordQuery destination(String destination) {
+        return new RecordQuery(null, Set.of(destination), null, null);
+    }
+
+    public static RecordQuery destinations(Set<String> destinations) {
+        return new RecordQuery(null, destinations, null, null);
+    }
+
+    public static RecordQuery between(LocalDate from, LocalDate to) {
+        return new RecordQuery(null, null, from, to);
+    }
+
+    /**
+     * @return query matching the records matched by both this query and {@code other}
+     */
+    public RecordQuery and(RecordQuery other) {
+        return new RecordQuery(
+                intersect(products, other.products),
+                intersect(destinations, other.destinations),
+                later(from, other.from),
+                earlier(to, other.to)
+        );
+    }
+
+    public boolean matches(ExportRecord record) {
+        return (products == null || products.contains(record.productType()))
+                && (destinations == null || destinations.contains(record.destination()))
+                && (from == null || !record.date().isBefore(from))
+                && (to == null || !record.date().isAfter(to));
+    }
+
+    private static <T> Set<T> intersect(Set<T> left, Set<T> right) {
+        if (left == null || right == null) {
+            return left == null ? right : left;
+        }
+        Set<T> both = new HashSet<>(left);
+        both.retainAll(right);
+        return both;
+    }
+
+    private static LocalDate later(LocalDate left, LocalDate right) {
+        return left == null ? right : right == null || left.isAfter(right) ? left : right;
+    }
+
+    private static LocalDate earlier(LocalDate left, LocalDate right) {
+        return left == null ? right : right == null || left.isBefore(right) ? left : right;
+    }
+}
@@ -0,0 +1,24 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+
+import java.util.List;
+
+/**
+ * Observer notified after an {@link ExportRecordRepository} changed (Observer pattern).
+ * Callbacks run on the writing thread and should return quickly.
+ */
+public interface RepositoryChangeListener {
+
+    /**
+     * @param appended records added by {@link ExportRecordRepository#append(List)}, in date order
+     * @param sequence change sequence number after the append
+     */
+    void onAppend(List<ExportRecord> appended, long sequence);
+
+    /**
+     * @param records  full content after {@link ExportRecordRepository#saveAll(List)}, in date order
+     * @param sequence change sequence number after the replacement
+     */
+    void onReplace(List<ExportRecord> records, long sequence);
+}
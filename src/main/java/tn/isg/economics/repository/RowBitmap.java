@@ -0,0 +1,245 @@
+package tn.isg.economics.repository;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of row ids in the style of a roaring bitmap: ids are split into 2^16-row chunks and each
+ * chunk is stored either as a sorted {@code char[]} (sparse, up to 4096 ids) or a 1024-word bitmap (dense).
+ */
+final class RowBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int count;
+    private int cardinality;
+
+    void add(int row) {
+        char key = (char) (row >>> 16);
+        int index = find(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key);
+        }
+        if (containers[index].add((char) row)) {
+            cardinality++;
+            if (containers[index] instanceof ArrayContainer array && array.size > ARRAY_LIMIT) {
+                containers[index] = array.toBitmap();
+            }
+        }
+    }
+
+    boolean contains(int row) {
+        int index = find((char) (row >>> 16));
+        return index >= 0 && containers[index].contains((char) row);
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * @return number of ids in {@code [from, to)}
+     */
+    int cardinality(int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        int total = 0;
+        for (int i = startContainer(from); i < count; i++) {
+            int base = keys[i] << 16;
+            if (base >= to) {
+                break;
+            }
+            total += containers[i].count(Math.max(from - base, 0), Math.min(to - base, 1 << 16));
+        }
+        return total;
+    }
+
+    /**
+     * Calls {@code action} for every id in {@code [from, to)} in ascending order.
+     */
+    void forEach(int from, int to, IntConsumer action) {
+        for (int i = startContainer(from); i < count; i++) {
+            int base = keys[i] << 16;
+            if (base >= to) {
+                break;
+            }
+            containers[i].forEach(base, Math.max(from - base, 0), Math.min(to - base, 1 << 16), action);
+        }
+    }
+
+    long estimatedHeapBytes() {
+        long bytes = MemoryFootprint.byteArray(2 * keys.length) + MemoryFootprint.referenceArray(containers.length);
+        for (int i = 0; i < count; i++) {
+            bytes += containers[i].estimatedHeapBytes();
+        }
+        return bytes;
+    }
+
+    private int startContainer(int from) {
+        int index = find((char) (from >>> 16));
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private int find(char key) {
+        // Rows are mostly added in ascending order, so check the last container first
+        if (count > 0 && keys[count - 1] == key) {
+            return count - 1;
+        }
+        return Arrays.binarySearch(keys, 0, count, key);
+    }
+
+    private void insertContainer(int index, char key) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            containers = Arrays.copyOf(containers, count * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, count - index);
+        System.arraycopy(containers, index, containers, index + 1, count - index);
+        keys[index] = key;
+        containers[index] = new ArrayContainer();
+        count++;
+    }
+
+    private abstract static sealed class Container permits ArrayContainer, BitmapContainer {
+        abstract boolean add(char low);
+
+        abstract boolean contains(char low);
+
+        abstract int count(int from, int to);
+
+        abstract void forEach(int base, int from, int to, IntConsumer action);
+
+        abstract long estimatedHeapBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values = new char[8];
+        private int size;
+
+        @Override
+        boolean add(char low) {
+            if (size > 0 && values[size - 1] < low) {
+                append(size, low);
+                return true;
+            }
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                return false;
+            }
+            append(-index - 1, low);
+            return true;
+        }
+
+        private void append(int index, char low) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = low;
+            size++;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        int count(int from, int to) {
+            return lowerBound(to) - lowerBound(from);
+        }
+
+        @Override
+        void forEach(int base, int from, int to, IntConsumer action) {
+            for (int i = lowerBound(from); i < size && values[i] < to; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        long estimatedHeapBytes() {
+            return MemoryFootprint.byteArray(2 * values.length) + 16;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+
+        private int lowerBound(int low) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < low) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words = new long[BITMAP_WORDS];
+
+        @Override
+        boolean add(char low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before | (1L << low);
+            return before != words[low >>> 6];
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        int count(int from, int to) {
+            int total = 0;
+            for (int low = from; low < to; ) {
+                int word = low >>> 6;
+                long bits = words[word] & (-1L << low);
+                int wordEnd = (word + 1) << 6;
+                if (to < wordEnd) {
+                    bits &= (1L << to) - 1;
+                }
+                total += Long.bitCount(bits);
+                low = wordEnd;
+            }
+            return total;
+        }
+
+        @Override
+        void forEach(int base, int from, int to, IntConsumer action) {
+            for (int low = from; low < to; ) {
+                int word = low >>> 6;
+                long bits = words[word] & (-1L << low);
+                int wordEnd = (word + 1) << 6;
+                if (to < wordEnd) {
+                    bits &= (1L << to) - 1;
+                }
+                while (bits != 0) {
+                    action.accept(base | (word << 6) | Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+                low = wordEnd;
+            }
+        }
+
+        @Override
+        long estimatedHeapBytes() {
+            return MemoryFootprint.longArray(BITMAP_WORDS) + 16;
+        }
+    }
+}
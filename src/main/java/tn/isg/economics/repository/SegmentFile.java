@@ -0,0 +1,161 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.exceptions.DataAccessException;
+import tn.isg.economics.model.MarketIndicator;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary layout of an immutable segment file (little-endian, every section 8-byte aligned):
+ * <pre>
+ * header   64 bytes  magic, version, rowCount, minEpochDay, maxEpochDay, indicatorMask,
+ *                    dictionaryCount, dictionaryOffset
+ * int[]    epoch days
+ * byte[]   product ordinals
+ * int[]    destination ids (segment-local dictionary)
+ * double[] volumes in tons
+ * long[]   prices scaled by {@link ExportRecordColumns#PRICE_SCALE}, {@link Long#MIN_VALUE} for null
+ * per indicator in indicatorMask: long[] presence bitmap, double[] values
+ * dictionary: (short length, UTF-8 bytes) per destination
+ * </pre>
+ */
+final class SegmentFile {
+
+    static final int MAGIC = 0x53475854; // "TXGS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    static final int OFFSET_ROW_COUNT = 8;
+    static final int OFFSET_MIN_DAY = 12;
+    static final int OFFSET_MAX_DAY = 16;
+    static final int OFFSET_INDICATOR_MASK = 20;
+    static final int OFFSET_DICTIONARY_COUNT = 24;
+    static final int OFFSET_DICTIONARY = 32;
+
+    private static final MarketIndicator[] INDICATORS = MarketIndicator.values();
+
+    private SegmentFile() {
+    }
+
+    /**
+     * Column offsets derived from the row count and indicator mask of a segment.
+     */
+    record Layout(int rows, int indicatorMask, long days, long products, long destinations,
+                  long volumes, long prices, long[] indicatorPresence, long[] indicatorValues, long end) {
+
+        static Layout of(int rows, int indicatorMask) {
+            long days = HEADER_SIZE;
+            long products = days + align(4L * rows);
+            long destinations = products + align(rows);
+            long volumes = destinations + align(4L * rows);
+            long prices = volumes + 8L * rows;
+            long cursor = prices + 8L * rows;
+            long[] presence = new long[INDICATORS.length];
+            long[] values = new long[INDICATORS.length];
+            Arrays.fill(presence, -1);
+            Arrays.fill(values, -1);
+            for (int i = 0; i < INDICATORS.length; i++) {
+                if ((indicatorMask & (1 << i)) != 0) {
+                    presence[i] = cursor;
+                    cursor += 8L * bitmapWords(rows);
+                    values[i] = cursor;
+                    cursor += 8L * rows;
+                }
+            }
+            return new Layout(rows, indicatorMask, days, products, destinations, volumes, prices, presence, values, cursor);
+        }
+    }
+
+    /**
+     * Writes rows {@code [from, to)} of {@code source} (already date-sorted) to {@code path}.
+     */
+    static void write(Path path, ExportRecordColumns source, int from, int to) {
+        int rows = to - from;
+        int indicatorMask = 0;
+        int[] localIds = new int[source.destinationCount()];
+        Arrays.fill(localIds, -1);
+        String[] dictionary = new String[Math.max(1, Math.min(source.destinationCount(), rows))];
+        int dictionaryCount = 0;
+        long dictionaryBytes = 0;
+        for (int row = from; row < to; row++) {
+            for (int i = 0; i < INDICATORS.length; i++) {
+                if (source.hasIndicator(row, INDICATORS[i])) {
+                    indicatorMask |= 1 << i;
+                }
+            }
+            int global = source.destinationId(row);
+            if (localIds[global] < 0) {
+                if (dictionaryCount == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, dictionaryCount * 2);
+                }
+                String name = source.destinationName(global);
+                dictionary[dictionaryCount] = name;
+                dictionaryBytes += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+                localIds[global] = dictionaryCount++;
+            }
+        }
+
+        Layout layout = Layout.of(rows, indicatorMask);
+        long fileSize = layout.end() + dictionaryBytes;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new DataAccessException("Segment too large to map: " + fileSize + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+
+            out.putInt(0, MAGIC);
+            out.putInt(4, VERSION);
+            out.putInt(OFFSET_ROW_COUNT, rows);
+            out.putInt(OFFSET_MIN_DAY, rows == 0 ? 0 : source.epochDay(from));
+            out.putInt(OFFSET_MAX_DAY, rows == 0 ? 0 : source.epochDay(to - 1));
+            out.putInt(OFFSET_INDICATOR_MASK, indicatorMask);
+            out.putInt(OFFSET_DICTIONARY_COUNT, dictionaryCount);
+            out.putLong(OFFSET_DICTIONARY, layout.end());
+
+            for (int i = 0; i < rows; i++) {
+                int row = from + i;
+                out.putInt((int) (layout.days() + 4L * i), source.epochDay(row));
+                out.put((int) (layout.products() + i), (byte) source.productType(row).ordinal());
+                out.putInt((int) (layout.destinations() + 4L * i), localIds[source.destinationId(row)]);
+                out.putDouble((int) (layout.volumes() + 8L * i), source.volumeTons(row));
+                out.putLong((int) (layout.prices() + 8L * i),
+                        source.hasPrice(row) ? source.priceCents(row) : ColumnStore.NULL_PRICE);
+                for (int k = 0; k < INDICATORS.length; k++) {
+                    if (layout.indicatorPresence()[k] >= 0 && source.hasIndicator(row, INDICATORS[k])) {
+                        int word = (int) (layout.indicatorPresence()[k] + 8L * (i >>> 6));
+                        out.putLong(word, out.getLong(word) | (1L << i));
+                        out.putDouble((int) (layout.indicatorValues()[k] + 8L * i), source.indicator(row, INDICATORS[k]));
+                    }
+                }
+            }
+
+            out.position((int) layout.end());
+            for (int i = 0; i < dictionaryCount; i++) {
+                byte[] name = dictionary[i].getBytes(StandardCharsets.UTF_8);
+                out.putShort((short) name.length);
+                out.put(name);
+            }
+            out.force();
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to write segment " + path, e);
+        }
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static int bitmapWords(int bits) {
+        return (bits + 63) >>> 6;
+    }
+}
@@ -0,0 +1,340 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only, date-ordered view over mapped segments plus the not-yet-compacted tail rows.
+ * Tail rows are merged after segment rows of the same day, matching the order a stable sort by date would give.
+ * <p>
+ * The tail arrays can have spare capacity past {@code tailLength}. Lists derived by {@link #withTailRows} share
+ * them: each list only reads its own first {@code tailLength} rows, and the one list that claimed the end of the
+ * arrays may fill the spare rows for its successor.
+ */
+public final class SegmentedRecordList extends AbstractList<ExportRecord>
+        implements ExportRecordColumns, RandomAccess {
+
+    private static final ProductType[] PRODUCTS = ProductType.values();
+    private static final MarketIndicator[] INDICATORS = MarketIndicator.values();
+
+    private final MappedSegment[] segments;
+    private final int[] segmentStarts;
+    private final ExportRecord[] tail;
+    private final int[] tailDestinationIds;
+    private final int[] tailPositions;
+    private final int tailLength;
+    // Rows of the shared tail arrays handed out so far
+    private final AtomicInteger tailClaimed;
+    private final DestinationDictionary destinations;
+    private final int size;
+
+    SegmentedRecordList(List<MappedSegment> segments, List<ExportRecord> tailRows, DestinationDictionary destinations) {
+        this.segments = segments.toArray(MappedSegment[]::new);
+        this.destinations = destinations;
+        this.segmentStarts = new int[this.segments.length + 1];
+        for (int i = 0; i < this.segments.length; i++) {
+            segmentStarts[i + 1] = segmentStarts[i] + this.segments[i].rows();
+        }
+
+        this.tail = tailRows.toArray(ExportRecord[]::new);
+        Arrays.sort(tail, Comparator.comparing(ExportRecord::date));
+        this.tailDestinationIds = new int[tail.length];
+        this.tailPositions = new int[tail.length];
+        for (int j = 0; j < tail.length; j++) {
+            tailDestinationIds[j] = destinations.idOf(tail[j].destination());
+            tailPositions[j] = segmentUpperBound((int) tail[j].date().toEpochDay()) + j;
+        }
+        this.tailLength = tail.length;
+        this.tailClaimed = new AtomicInteger(tailLength);
+        this.size = segmentStarts[this.segments.length] + tailLength;
+    }
+
+    private SegmentedRecordList(SegmentedRecordList base, ExportRecord[] tail, int[] tailDestinationIds, int[] tailPositions,
+                                int tailLength, AtomicInteger tailClaimed) {
+        this.segments = base.segments;
+        this.segmentStarts = base.segmentStarts;
+        this.destinations = base.destinations;
+        this.tail = tail;
+        this.tailDestinationIds = tailDestinationIds;
+        this.tailPositions = tailPositions;
+        this.tailLength = tailLength;
+        this.tailClaimed = tailClaimed;
+        this.size = segmentStarts[segments.length] + tailLength;
+    }
+
+    /**
+     * Adds {@code sortedRows} to the tail rows, after the ones of the same day. Rows dated on or after the last
+     * tail row go into the spare capacity of the tail arrays, which grow by doubling, so a run of in-order
+     * appends costs amortized O(k log segments); earlier rows are merged in O(tail + k log segments) rather
+     * than sorting the whole tail again.
+     *
+     * @param sortedRows rows ordered by date
+     * @return a list with the same segments and the merged tail
+     */
+    SegmentedRecordList withTailRows(List<ExportRecord> sortedRows) {
+        int k = sortedRows.size();
+        if (k == 0) {
+            return this;
+        }
+        int merged = tailLength + k;
+        if (tailLength > 0 && sortedRows.get(0).date().isBefore(tail[tailLength - 1].date())) {
+            return mergedTail(sortedRows, merged);
+        }
+        if (merged <= tail.length && tailClaimed.compareAndSet(tailLength, merged)) {
+            appendTail(sortedRows, tail, tailDestinationIds, tailPositions);
+            return new SegmentedRecordList(this, tail, tailDestinationIds, tailPositions, merged, tailClaimed);
+        }
+        int capacity = Math.max(merged, Math.max(16, tailLength * 2));
+        ExportRecord[] rows = Arrays.copyOf(tail, capacity);
+        int[] ids = Arrays.copyOf(tailDestinationIds, capacity);
+        int[] positions = Arrays.copyOf(tailPositions, capacity);
+        appendTail(sortedRows, rows, ids, positions);
+        return new SegmentedRecordList(this, rows, ids, positions, merged, new AtomicInteger(merged));
+    }
+
+    private void appendTail(List<ExportRecord> sortedRows, ExportRecord[] rows, int[] ids, int[] positions) {
+        for (int j = tailLength, added = 0; added < sortedRows.size(); j++, added++) {
+            ExportRecord row = sortedRows.get(added);
+            rows[j] = row;
+            ids[j] = destinations.idOf(row.destination());
+            positions[j] = segmentUpperBound((int) row.date().toEpochDay()) + j;
+        }
+    }
+
+    private SegmentedRecordList mergedTail(List<ExportRecord> sortedRows, int merged) {
+        ExportRecord[] rows = new ExportRecord[merged];
+        int[] ids = new int[merged];
+        int[] positions = new int[merged];
+        int old = 0;
+        int added = 0;
+        for (int j = 0; j < merged; j++) {
+            if (old == tailLength
+                    || added < sortedRows.size() && sortedRows.get(added).date().isBefore(tail[old].date())) {
+                ExportRecord row = sortedRows.get(added++);
+                rows[j] = row;
+                ids[j] = destinations.idOf(row.destination());
+                positions[j] = segmentUpperBound((int) row.date().toEpochDay()) + j;
+            } else {
+                rows[j] = tail[old];
+                ids[j] = tailDestinationIds[old];
+                positions[j] = tailPositions[old] - old + j;
+                old++;
+            }
+        }
+        return new SegmentedRecordList(this, rows, ids, positions, merged, new AtomicInteger(merged));
+    }
+
+    @Override
+    public ExportRecord get(int index) {
+        return record(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int epochDay(int row) {
+        int t = tailIndex(row);
+        if (t >= 0) {
+            return (int) tail[t].date().toEpochDay();
+        }
+        int global = segmentRow(row, t);
+        int s = segmentOf(global);
+        return segments[s].epochDay(global - segmentStarts[s]);
+    }
+
+    @Override
+    public ProductType productType(int row) {
+        int t = tailIndex(row);
+        if (t >= 0) {
+            return tail[t].productType();
+        }
+        int global = segmentRow(row, t);
+        int s = segmentOf(global);
+        return PRODUCTS[segments[s].productOrdinal(global - segmentStarts[s])];
+    }
+
+    @Override
+    public int destinationId(int row) {
+        int t = tailIndex(row);
+        if (t >= 0) {
+            return tailDestinationIds[t];
+        }
+        int global = segmentRow(row, t);
+        int s = segmentOf(global);
+        return segments[s].destinationId(global - segmentStarts[s]);
+    }
+
+    @Override
+    public String destinationName(int destinationId) {
+        return destinations.name(destinationId);
+    }
+
+    @Override
+    public int destinationCount() {
+        return destinations.size();
+    }
+
+    @Override
+    public double volumeTons(int row) {
+        int t = tailIndex(row);
+        if (t >= 0) {
+            return tail[t].volumeTons();
+        }
+        int global = segmentRow(row, t);
+        int s = segmentOf(global);
+        return segments[s].volumeTons(global - segmentStarts[s]);
+    }
+
+    @Override
+    public boolean hasPrice(int row) {
+        return priceCents(row) != ColumnStore.NULL_PRICE;
+    }
+
+    @Override
+    public long priceCents(int row) {
+        int t = tailIndex(row);
+        if (t >= 0) {
+            return ColumnStore.toCents(tail[t].pricePerTon());
+        }
+        int global = segmentRow(row, t);
+        int s = segmentOf(global);
+        return segments[s].priceCents(global - segmentStarts[s]);
+    }
+
+    @Override
+    public boolean hasIndicator(int row, MarketIndicator indicator) {
+        int t = tailIndex(row);
+        if (t >= 0) {
+            Map<MarketIndicator, Double> indicators = tail[t].indicators();
+            return indicators != null && indicators.get(indicator) != null;
+        }
+        int global = segmentRow(row, t);
+        int s = segmentOf(global);
+        return segments[s].hasIndicator(global - segmentStarts[s], indicator.ordinal());
+    }
+
+    @Override
+    public double indicator(int row, MarketIndicator indicator) {
+        int t = tailIndex(row);
+        if (t >= 0) {
+            Double value = tail[t].indicators() == null ? null : tail[t].indicators().get(indicator);
+            return value == null ? Double.NaN : value;
+        }
+        int global = segmentRow(row, t);
+        int s = segmentOf(global);
+        return segments[s].indicator(global - segmentStarts[s], indicator.ordinal());
+    }
+
+    @Override
+    public ExportRecord record(int row) {
+        int t = tailIndex(row);
+        if (t >= 0) {
+            return tail[t];
+        }
+        int global = segmentRow(row, t);
+        int s = segmentOf(global);
+        MappedSegment segment = segments[s];
+        int local = global - segmentStarts[s];
+        long cents = segment.priceCents(local);
+        EnumMap<MarketIndicator, Double> indicators = null;
+        for (MarketIndicator indicator : INDICATORS) {
+            if (segment.hasIndicator(local, indicator.ordinal())) {
+                if (indicators == null) {
+                    indicators = new EnumMap<>(MarketIndicator.class);
+                }
+                indicators.put(indicator, segment.indicator(local, indicator.ordinal()));
+            }
+        }
+        return new ExportRecord(
+                LocalDate.ofEpochDay(segment.epochDay(local)),
+                PRODUCTS[segment.productOrdinal(local)],
+                destinations.name(segment.destinationId(local)),
+                segment.volumeTons(local),
+                cents == ColumnStore.NULL_PRICE ? null : BigDecimal.valueOf(cents, PRICE_SCALE),
+                indicators == null ? Map.of() : Collections.unmodifiableMap(indicators)
+        );
+    }
+
+    /**
+     * @return first row whose epoch day is greater than or equal to {@code epochDay}
+     */
+    public int lowerBound(int epochDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDay(mid) < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        return row;
+    }
+
+    /**
+     * @return index into {@link #tail} when {@code row} is a tail row, otherwise {@code -(tail rows before row) - 1}
+     */
+    private int tailIndex(int row) {
+        checkRow(row);
+        return tailLength == 0 ? -1 : Arrays.binarySearch(tailPositions, 0, tailLength, row);
+    }
+
+    private static int segmentRow(int row, int tailSearch) {
+        return row + tailSearch + 1;
+    }
+
+    private int segmentOf(int globalSegmentRow) {
+        int s = Arrays.binarySearch(segmentStarts, globalSegmentRow);
+        if (s >= 0) {
+            // Skip empty segments sharing the same start offset
+            while (s + 1 < segmentStarts.length && segmentStarts[s + 1] == globalSegmentRow) {
+                s++;
+            }
+            return s;
+        }
+        return -s - 2;
+    }
+
+    private int segmentUpperBound(int epochDay) {
+        int low = 0;
+        int high = segments.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segments[mid].minEpochDay() <= epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // Segments [0, low) start on or before epochDay; only the last of them can straddle it
+        int rows = segmentStarts[low];
+        for (int s = low - 1; s >= 0 && segments[s].maxEpochDay() > epochDay; s--) {
+            rows = segmentStarts[s] + segments[s].upperBound(epochDay);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,112 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view over selected rows of another column source, as returned by indexed queries on a
+ * {@link MappedSegmentExportRecordRepository}. Rows are read from the source when accessed.
+ */
+final class SelectedRecordList extends AbstractList<ExportRecord> implements ExportRecordColumns, RandomAccess {
+
+    private final ExportRecordColumns source;
+    private final int offset;
+    private final int size;
+    private final int[] rows;
+
+    /**
+     * View over source rows {@code [offset, offset + size)}.
+     */
+    SelectedRecordList(ExportRecordColumns source, int offset, int size) {
+        this.source = source;
+        this.offset = offset;
+        this.size = size;
+        this.rows = null;
+    }
+
+    /**
+     * View over the source rows listed in {@code rows}, which must be ascending.
+     */
+    SelectedRecordList(ExportRecordColumns source, int[] rows) {
+        this.source = source;
+        this.offset = 0;
+        this.size = rows.length;
+        this.rows = rows;
+    }
+
+    @Override
+    public ExportRecord get(int index) {
+        return source.record(sourceRow(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int epochDay(int row) {
+        return source.epochDay(sourceRow(row));
+    }
+
+    @Override
+    public ProductType productType(int row) {
+        return source.productType(sourceRow(row));
+    }
+
+    @Override
+    public int destinationId(int row) {
+        return source.destinationId(sourceRow(row));
+    }
+
+    @Override
+    public String destinationName(int destinationId) {
+        return source.destinationName(destinationId);
+    }
+
+    @Override
+    public int destinationCount() {
+        return source.destinationCount();
+    }
+
+    @Override
+    public double volumeTons(int row) {
+        return source.volumeTons(sourceRow(row));
+    }
+
+    @Override
+    public boolean hasPrice(int row) {
+        return source.hasPrice(sourceRow(row));
+    }
+
+    @Override
+    public long priceCents(int row) {
+        return source.priceCents(sourceRow(row));
+    }
+
+    @Override
+    public boolean hasIndicator(int row, MarketIndicator indicator) {
+        return source.hasIndicator(sourceRow(row), indicator);
+    }
+
+    @Override
+    public double indicator(int row, MarketIndicator indicator) {
+        return source.indicator(sourceRow(row), indicator);
+    }
+
+    @Override
+    public ExportRecord record(int row) {
+        return source.record(sourceRow(row));
+    }
+
+    private int sourceRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        return rows == null ? offset + row : rows[row];
+    }
+}
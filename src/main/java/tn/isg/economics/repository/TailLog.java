@@ -0,0 +1,168 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.exceptions.DataAccessException;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only, row-oriented log holding records that have not been compacted into segments yet.
+ * Each row is {@code int day, byte product, short length + UTF-8 destination, double volume,
+ * long price, byte indicatorMask, double per indicator}. A torn trailing row (crash mid-write)
+ * is dropped and truncated on open.
+ */
+final class TailLog implements AutoCloseable {
+
+    private static final ProductType[] PRODUCTS = ProductType.values();
+    private static final MarketIndicator[] INDICATORS = MarketIndicator.values();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final List<ExportRecord> rows;
+
+    private TailLog(Path path, FileChannel channel, List<ExportRecord> rows) {
+        this.path = path;
+        this.channel = channel;
+        this.rows = rows;
+    }
+
+    static TailLog open(Path path) {
+        try {
+            List<ExportRecord> rows = new ArrayList<>();
+            long valid = 0;
+            if (Files.exists(path)) {
+                ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+                while (in.hasRemaining()) {
+                    try {
+                        rows.add(decode(in));
+                        valid = in.position();
+                    } catch (BufferUnderflowException torn) {
+                        break;
+                    }
+                }
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.truncate(valid);
+            channel.position(valid);
+            return new TailLog(path, channel, rows);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to open tail log " + path, e);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * @return rows in the order they were appended
+     */
+    List<ExportRecord> rows() {
+        return rows;
+    }
+
+    /**
+     * Writes {@code records} and forces them to disk. Prices are stored with
+     * {@link ExportRecordColumns#PRICE_SCALE} decimals, so callers should pass normalized records.
+     */
+    void append(List<ExportRecord> records) {
+        ByteBuffer out = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            for (ExportRecord record : records) {
+                byte[] destination = record.destination().getBytes(StandardCharsets.UTF_8);
+                int needed = 4 + 1 + 2 + destination.length + 8 + 8 + 1 + 8 * INDICATORS.length;
+                if (out.remaining() < needed) {
+                    flush(out);
+                    if (out.capacity() < needed) {
+                        out = ByteBuffer.allocate(needed).order(ByteOrder.LITTLE_ENDIAN);
+                    }
+                }
+                encode(out, record, destination);
+            }
+            flush(out);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to append to tail log " + path, e);
+        }
+        rows.addAll(records);
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to close tail log " + path, e);
+        }
+    }
+
+    private void flush(ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    private static void encode(ByteBuffer out, ExportRecord record, byte[] destination) {
+        out.putInt((int) record.date().toEpochDay());
+        out.put((byte) record.productType().ordinal());
+        out.putShort((short) destination.length);
+        out.put(destination);
+        out.putDouble(record.volumeTons());
+        out.putLong(ColumnStore.toCents(record.pricePerTon()));
+        Map<MarketIndicator, Double> indicators = record.indicators() == null ? Map.of() : record.indicators();
+        int mask = 0;
+        for (MarketIndicator indicator : INDICATORS) {
+            if (indicators.get(indicator) != null) {
+                mask |= 1 << indicator.ordinal();
+            }
+        }
+        out.put((byte) mask);
+        for (MarketIndicator indicator : INDICATORS) {
+            if ((mask & (1 << indicator.ordinal())) != 0) {
+                out.putDouble(indicators.get(indicator));
+            }
+        }
+    }
+
+    private static ExportRecord decode(ByteBuffer in) {
+        int day = in.getInt();
+        ProductType product = PRODUCTS[in.get()];
+        byte[] destination = new byte[in.getShort() & 0xFFFF];
+        in.get(destination);
+        double volume = in.getDouble();
+        long cents = in.getLong();
+        int mask = in.get();
+        Map<MarketIndicator, Double> indicators = new EnumMap<>(MarketIndicator.class);
+        for (MarketIndicator indicator : INDICATORS) {
+            if ((mask & (1 << indicator.ordinal())) != 0) {
+                indicators.put(indicator, in.getDouble());
+            }
+        }
+        return new ExportRecord(
+                LocalDate.ofEpochDay(day),
+                product,
+                new String(destination, StandardCharsets.UTF_8),
+                volume,
+                cents == ColumnStore.NULL_PRICE ? null : BigDecimal.valueOf(cents, ExportRecordColumns.PRICE_SCALE),
+                indicators
+        );
+    }
+}
@@ -0,0 +1,29 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.ProductType;
+
+import java.time.YearMonth;
+import java.util.Comparator;
+
+/**
+ * Group of an aggregation result; components for dimensions that were not grouped on are {@code null}.
+ */
+public record AggregateKey(ProductType product, String destination, Integer month, YearMonth yearMonth)
+        implements Comparable<AggregateKey> {
+
+    /**
+     * Key of the single group produced when no dimension is grouped on.
+     */
+    public static final AggregateKey ALL = new AggregateKey(null, null, null, null);
+
+    private static final Comparator<AggregateKey> ORDER = Comparator
+            .comparing(AggregateKey::product, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(AggregateKey::destination, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(AggregateKey::yearMonth, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(AggregateKey::month, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    @Override
+    public int compareTo(AggregateKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,203 @@
+package tn.isg.economics.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.DoubleSummaryStatistics;
+import java.util.Set;
+
+/**
+ * Measures of one aggregation group, accumulated in primitives: money as exact scaled longs, the volume sum
+ * as an {@link ExactDoubleSum} rounded once when read. No measure depends on the order rows are added or
+ * groups are merged in. Only the measures the {@link Aggregation} asked for are maintained; the others read
+ * as empty.
+ */
+public final class Aggregates {
+
+    private final boolean volumes;
+    private final boolean prices;
+    private final boolean priceRange;
+    private final boolean revenues;
+
+    private long count;
+    private final ExactDoubleSum volumeSum = new ExactDoubleSum();
+    private double minVolume = Double.POSITIVE_INFINITY;
+    private double maxVolume = Double.NEGATIVE_INFINITY;
+    private final ExactDecimalSum priceSum = new ExactDecimalSum();
+    private final ExactDecimalSum revenue = new ExactDecimalSum();
+    private boolean priced;
+    private long minPrice;
+    private int minPriceScale;
+    private long maxPrice;
+    private int maxPriceScale;
+
+    Aggregates(Set<Measure> measures) {
+        this.volumes = measures.stream().anyMatch(Measure::isVolume);
+        this.prices = measures.contains(Measure.PRICE_SUM) || measures.contains(Measure.PRICE_AVG);
+        this.priceRange = measures.contains(Measure.PRICE_MIN) || measures.contains(Measure.PRICE_MAX);
+        this.revenues = measures.contains(Measure.REVENUE);
+    }
+
+    /**
+     * Adds a record without a price.
+     */
+    void add(double volumeTons) {
+        count++;
+        if (volumes) {
+            volumeSum.add(volumeTons);
+            minVolume = Math.min(minVolume, volumeTons);
+            maxVolume = Math.max(maxVolume, volumeTons);
+        }
+    }
+
+    /**
+     * Adds a record whose price per ton is {@code priceUnscaled * 10^-priceScale}.
+     */
+    void add(double volumeTons, long priceUnscaled, int priceScale) {
+        add(volumeTons);
+        if (prices) {
+            priceSum.add(priceUnscaled, priceScale);
+        }
+        if (priceRange) {
+            trackRange(priceUnscaled, priceScale);
+        }
+        if (revenues) {
+            long packed = ShortestDecimal.decompose(volumeTons);
+            if (packed != ShortestDecimal.UNSUPPORTED) {
+                revenue.addProduct(priceUnscaled, priceScale, ShortestDecimal.unscaled(packed), ShortestDecimal.scale(packed));
+            } else {
+                revenue.add(BigDecimal.valueOf(priceUnscaled, priceScale).multiply(BigDecimal.valueOf(volumeTons)));
+            }
+        }
+    }
+
+    /**
+     * Adds a record priced with an arbitrary {@link BigDecimal}.
+     */
+    void add(double volumeTons, BigDecimal price) {
+        if (price == null) {
+            add(volumeTons);
+        } else if (price.scale() >= 0 && price.precision() < 19) {
+            add(volumeTons, price.unscaledValue().longValue(), price.scale());
+        } else {
+            add(volumeTons);
+            if (prices) {
+                priceSum.add(price);
+            }
+            if (priceRange) {
+                trackRange(price);
+            }
+            if (revenues) {
+                revenue.add(price.multiply(BigDecimal.valueOf(volumeTons)));
+            }
+        }
+    }
+
+    /**
+     * Folds {@code other}, accumulated for the same measures, into this group.
+     */
+    void merge(Aggregates other) {
+        count += other.count;
+        volumeSum.merge(other.volumeSum);
+        minVolume = Math.min(minVolume, other.minVolume);
+        maxVolume = Math.max(maxVolume, other.maxVolume);
+        priceSum.merge(other.priceSum);
+        revenue.merge(other.revenue);
+        if (other.priced) {
+            trackRange(other.minPrice, other.minPriceScale);
+            trackRange(other.maxPrice, other.maxPriceScale);
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return volume statistics; the sum is the exact sum of the volumes rounded to the nearest double
+     */
+    public DoubleSummaryStatistics volume() {
+        if (count == 0 || !volumes) {
+            return new DoubleSummaryStatistics();
+        }
+        return new DoubleSummaryStatistics(count, minVolume, maxVolume, volumeSum.toDouble());
+    }
+
+    public BigDecimal priceSum() {
+        return priceSum.toBigDecimal();
+    }
+
+    /**
+     * @return sum of prices divided by {@link #count()}, HALF_UP to 2 decimals, or zero for an empty group
+     */
+    public BigDecimal averagePrice() {
+        if (count == 0) {
+            return BigDecimal.ZERO;
+        }
+        return priceSum().divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @return lowest price, or {@code null} if no record had one
+     */
+    public BigDecimal minPrice() {
+        return priced ? BigDecimal.valueOf(minPrice, minPriceScale) : null;
+    }
+
+    /**
+     * @return highest price, or {@code null} if no record had one
+     */
+    public BigDecimal maxPrice() {
+        return priced ? BigDecimal.valueOf(maxPrice, maxPriceScale) : null;
+    }
+
+    public BigDecimal revenue() {
+        return revenue.toBigDecimal();
+    }
+
+    /**
+     * @return value of {@code measure}: a {@code Long} count, a {@code Double} volume or a {@code BigDecimal}
+     */
+    public Object value(Measure measure) {
+        return switch (measure) {
+            case COUNT -> count;
+            case VOLUME_SUM -> volume().getSum();
+            case VOLUME_AVG -> volume().getAverage();
+            case VOLUME_MIN -> volume().getMin();
+            case VOLUME_MAX -> volume().getMax();
+            case PRICE_SUM -> priceSum();
+            case PRICE_AVG -> averagePrice();
+            case PRICE_MIN -> minPrice();
+            case PRICE_MAX -> maxPrice();
+            case REVENUE -> revenue();
+        };
+    }
+
+    private void trackRange(long unscaled, int scale) {
+        if (!priced) {
+            priced = true;
+            minPrice = maxPrice = unscaled;
+            minPriceScale = maxPriceScale = scale;
+            return;
+        }
+        if (compare(unscaled, scale, minPrice, minPriceScale) < 0) {
+            minPrice = unscaled;
+            minPriceScale = scale;
+        }
+        if (compare(unscaled, scale, maxPrice, maxPriceScale) > 0) {
+            maxPrice = unscaled;
+            maxPriceScale = scale;
+        }
+    }
+
+    private void trackRange(BigDecimal price) {
+        // Only reached for prices with 19+ digits or a negative scale; the range keeps them to the cent
+        trackRange(price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact(), 2);
+    }
+
+    private static int compare(long left, int leftScale, long right, int rightScale) {
+        if (leftScale == rightScale) {
+            return Long.compare(left, right);
+        }
+        return BigDecimal.valueOf(left, leftScale).compareTo(BigDecimal.valueOf(right, rightScale));
+    }
+}
@@ -0,0 +1,27 @@
+package tn.isg.economics.service;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Declares the measures to compute and the dimensions to group by; run it with
+ * {@link ExportAnalyticsService#aggregate(java.util.List, Aggregation)}.
+ */
+public record Aggregation(Set<Dimension> dimensions, Set<Measure> measures) {
+
+    public Aggregation {
+        dimensions = Set.copyOf(dimensions);
+        measures = Set.copyOf(measures);
+    }
+
+    public static Aggregation of(Measure... measures) {
+        return new Aggregation(Set.of(), Set.copyOf(List.of(measures)));
+    }
+
+    /**
+     * @return this aggregation grouped by {@code dimensions} instead
+     */
+    public Aggregation by(Dimension... dimensions) {
+        return new Aggregation(Set.copyOf(List.of(dimensions)), measures);
+    }
+}
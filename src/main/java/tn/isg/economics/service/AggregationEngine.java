@@ -0,0 +1,256 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordColumns;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Evaluates an {@link Aggregation}. Each row's group is packed into a long (product ordinal, destination
+ * id, month) and looked up in a primitive hash table, so the scan creates no objects per row;
+ * {@link ExportRecordColumns} sources are read without materializing records.
+ * <p>
+ * Large random-access inputs can be split with a {@link RowSpliterator} into fork-join tasks that each fill
+ * their own table; the tables are merged pairwise as the tasks join. Every measure is exact or order
+ * independent, see {@link Aggregates}, so the result is identical to a sequential scan.
+ */
+final class AggregationEngine {
+
+    private static final ProductType[] PRODUCTS = ProductType.values();
+    private static final int DESTINATION_SHIFT = 32;
+    private static final int PRODUCT_SHIFT = 56;
+    private static final int MIN_CHUNK = 4096;
+
+    private final Aggregation aggregation;
+    private final boolean byProduct;
+    private final boolean byDestination;
+    private final boolean byMonth;
+    private final boolean byYearMonth;
+    private final ConcurrentHashMap<String, Integer> destinationIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextDestinationId = new AtomicInteger();
+
+    AggregationEngine(Aggregation aggregation) {
+        this.aggregation = aggregation;
+        this.byProduct = aggregation.dimensions().contains(Dimension.PRODUCT);
+        this.byDestination = aggregation.dimensions().contains(Dimension.DESTINATION);
+        this.byMonth = aggregation.dimensions().contains(Dimension.MONTH);
+        this.byYearMonth = aggregation.dimensions().contains(Dimension.YEAR_MONTH);
+    }
+
+    SortedMap<AggregateKey, Aggregates> run(List<ExportRecord> records) {
+        GroupTable groups = new GroupTable();
+        if (records instanceof ExportRecordColumns columns) {
+            for (int row = 0, size = columns.size(); row < size; row++) {
+                accumulate(groups, columns, row);
+            }
+        } else {
+            for (ExportRecord record : records) {
+                accumulate(groups, record);
+            }
+        }
+        return result(groups, records);
+    }
+
+    /**
+     * Scans in parallel on {@code pool} when {@code records} is random access and has at least
+     * {@code threshold} rows, sequentially otherwise.
+     */
+    SortedMap<AggregateKey, Aggregates> run(List<ExportRecord> records, ForkJoinPool pool, int threshold) {
+        int size = records.size();
+        if (pool == null || size < threshold || !(records instanceof RandomAccess)) {
+            return run(records);
+        }
+        int chunk = Math.max(MIN_CHUNK, size / (pool.getParallelism() * 4));
+        GroupTable groups = pool.invoke(new ScanTask(records, new RowSpliterator(0, size, chunk)));
+        return result(groups, records);
+    }
+
+    private void accumulate(GroupTable groups, ExportRecordColumns columns, int row) {
+        Aggregates group = groups.get(key(columns.productType(row).ordinal(), columns.destinationId(row),
+                columns.epochDay(row)));
+        if (columns.hasPrice(row)) {
+            group.add(columns.volumeTons(row), columns.priceCents(row), ExportRecordColumns.PRICE_SCALE);
+        } else {
+            group.add(columns.volumeTons(row));
+        }
+    }
+
+    private void accumulate(GroupTable groups, ExportRecord record) {
+        int destinationId = 0;
+        if (byDestination) {
+            Integer known = destinationIds.get(record.destination());
+            destinationId = known != null ? known : destinationIds.computeIfAbsent(record.destination(),
+                    name -> nextDestinationId.getAndIncrement());
+        }
+        Aggregates group = groups.get(key(record.productType().ordinal(), destinationId, record.date().toEpochDay()));
+        group.add(record.volumeTons(), record.pricePerTon());
+    }
+
+    private long key(int product, int destinationId, long epochDay) {
+        long key = 0;
+        if (byProduct) {
+            key |= (long) product << PRODUCT_SHIFT;
+        }
+        if (byDestination) {
+            key |= (long) destinationId << DESTINATION_SHIFT;
+        }
+        if (byMonth || byYearMonth) {
+            int yearMonth = yearMonthIndex(epochDay);
+            key |= (byYearMonth ? yearMonth : Math.floorMod(yearMonth, 12) + 1) & 0xFFFF_FFFFL;
+        }
+        return key;
+    }
+
+    private SortedMap<AggregateKey, Aggregates> result(GroupTable groups, List<ExportRecord> records) {
+        IntFunction<String> destinationName;
+        if (records instanceof ExportRecordColumns columns) {
+            destinationName = columns::destinationName;
+        } else {
+            String[] names = new String[destinationIds.size()];
+            destinationIds.forEach((name, id) -> names[id] = name);
+            destinationName = id -> names[id];
+        }
+        SortedMap<AggregateKey, Aggregates> result = new TreeMap<>();
+        groups.forEach((key, group) -> {
+            int time = (int) key;
+            YearMonth yearMonth = byYearMonth ? YearMonth.of(Math.floorDiv(time, 12), Math.floorMod(time, 12) + 1) : null;
+            result.put(new AggregateKey(
+                    byProduct ? PRODUCTS[(int) (key >>> PRODUCT_SHIFT)] : null,
+                    byDestination ? destinationName.apply((int) (key >>> DESTINATION_SHIFT) & 0xFF_FFFF) : null,
+                    byMonth ? Integer.valueOf(byYearMonth ? yearMonth.getMonthValue() : time) : null,
+                    yearMonth
+            ), group);
+        });
+        return result;
+    }
+
+    /**
+     * @return {@code year * 12 + month - 1} of the given day, without creating a {@link java.time.LocalDate}
+     */
+    static int yearMonthIndex(long epochDay) {
+        // Civil-from-days on a calendar starting in March, see java.time.LocalDate#ofEpochDay
+        long zeroDay = epochDay + 719_468;
+        long era = Math.floorDiv(zeroDay, 146_097);
+        long dayOfEra = zeroDay - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long marchMonth = (5 * dayOfYear + 2) / 153;
+        long month = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    /**
+     * Open-addressing map from packed group key to its {@link Aggregates}.
+     */
+    private final class GroupTable {
+        private long[] keys = new long[16];
+        private Aggregates[] values = new Aggregates[16];
+        private int size;
+
+        Aggregates get(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] != null) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            Aggregates created = new Aggregates(aggregation.measures());
+            keys[slot] = key;
+            values[slot] = created;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return created;
+        }
+
+        /**
+         * Folds every group of {@code other} into this table.
+         */
+        void merge(GroupTable other) {
+            other.forEach((key, group) -> get(key).merge(group));
+        }
+
+        void forEach(GroupConsumer action) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (values[slot] != null) {
+                    action.accept(keys[slot], values[slot]);
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Aggregates[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Aggregates[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = hash(oldKeys[i]) & mask;
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long mixed = key * 0x9E37_79B9_7F4A_7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+
+    /**
+     * Splits its rows until they fit one chunk, scans each chunk into a private table and merges the
+     * tables of both halves on join, so no table is ever shared between threads.
+     */
+    private final class ScanTask extends RecursiveTask<GroupTable> {
+        private final List<ExportRecord> records;
+        private final RowSpliterator rows;
+
+        ScanTask(List<ExportRecord> records, RowSpliterator rows) {
+            this.records = records;
+            this.rows = rows;
+        }
+
+        @Override
+        protected GroupTable compute() {
+            RowSpliterator prefix = rows.trySplit();
+            if (prefix == null) {
+                GroupTable groups = new GroupTable();
+                if (records instanceof ExportRecordColumns columns) {
+                    rows.forEachRemaining((int row) -> accumulate(groups, columns, row));
+                } else {
+                    rows.forEachRemaining((int row) -> accumulate(groups, records.get(row)));
+                }
+                return groups;
+            }
+            ScanTask left = new ScanTask(records, prefix);
+            left.fork();
+            GroupTable right = new ScanTask(records, rows).compute();
+            GroupTable merged = left.join();
+            merged.merge(right);
+            return merged;
+        }
+    }
+
+    @FunctionalInterface
+    private interface GroupConsumer {
+        void accept(long key, Aggregates group);
+    }
+}
@@ -0,0 +1,207 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Binary layout of a columnar export file ({@code .txcf}, little-endian):
+ * <pre>
+ * header       magic, version
+ * row groups   per group of up to {@value #ROW_GROUP_ROWS} rows, one chunk per {@link Column}:
+ *                DATE         zigzag varint of the first epoch day, then of each day minus the previous one
+ *                PRODUCT      one ordinal byte per row
+ *                DESTINATION  varint of dictionary id + 1 per row, 0 for null
+ *                VOLUME       doubles
+ *                PRICE        presence bitmap, then zigzag varint of each present price in cents
+ *                one per indicator: presence bitmap, then a double per present value; empty if none
+ * footer       column count, per column (name, type, encoding)
+ *              dictionary count, per destination (short length, UTF-8 bytes)
+ *              row count, row group count, per group: rows, per column (offset, length),
+ *                then {@link Stats}
+ * trailer      footer length, magic
+ * </pre>
+ * Strings are a short length followed by UTF-8 bytes. The footer describes every column and the value range
+ * of every row group, so readers can check the schema and skip row groups, and untouched column chunks,
+ * without decoding them.
+ */
+final class ColumnarFile {
+
+    static final int MAGIC = 0x46435854; // "TXCF"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int TRAILER_SIZE = 8;
+    static final int ROW_GROUP_ROWS = 1 << 16;
+
+    static final ProductType[] PRODUCTS = ProductType.values();
+    static final MarketIndicator[] INDICATORS = MarketIndicator.values();
+
+    private ColumnarFile() {
+    }
+
+    /**
+     * Columns in file order: the fixed ones, then one per {@link MarketIndicator}.
+     */
+    enum Column {
+        DATE("date", "INT32", "DELTA_VARINT"),
+        PRODUCT("productType", "ENUM8", "PLAIN"),
+        DESTINATION("destination", "STRING", "DICTIONARY_VARINT"),
+        VOLUME("volumeTons", "FLOAT64", "PLAIN"),
+        PRICE("pricePerTon", "DECIMAL(2)", "NULLABLE_ZIGZAG_VARINT");
+
+        static final int COUNT = values().length + INDICATORS.length;
+
+        final String fieldName;
+        final String type;
+        final String encoding;
+
+        Column(String fieldName, String type, String encoding) {
+            this.fieldName = fieldName;
+            this.type = type;
+            this.encoding = encoding;
+        }
+
+        /**
+         * @return (name, type, encoding) of every column in file order
+         */
+        static String[][] schema() {
+            String[][] schema = new String[COUNT][];
+            for (Column column : values()) {
+                schema[column.ordinal()] = new String[]{column.fieldName, column.type, column.encoding};
+            }
+            for (MarketIndicator indicator : INDICATORS) {
+                schema[indicatorColumn(indicator.ordinal())] = new String[]{
+                        "indicators." + indicator.name(), "FLOAT64", "NULLABLE_PLAIN"};
+            }
+            return schema;
+        }
+
+        static int indicatorColumn(int indicator) {
+            return values().length + indicator;
+        }
+    }
+
+    /**
+     * Value ranges of a row group. Volume and indicator bounds ignore NaN; an indicator absent from the group
+     * has NaN bounds, and {@code hasPrice} is false when every price is null.
+     *
+     * @param destinations bitmap of the dictionary ids + 1 present, bit 0 standing for null
+     */
+    record Stats(
+            int minDay,
+            int maxDay,
+            int productMask,
+            long[] destinations,
+            double minVolume,
+            double maxVolume,
+            boolean hasPrice,
+            long minPrice,
+            long maxPrice,
+            double[] minIndicators,
+            double[] maxIndicators
+    ) {
+
+        void write(ByteBuffer out) {
+            out.putInt(minDay).putInt(maxDay).putInt(productMask);
+            out.putInt(destinations.length);
+            for (long word : destinations) {
+                out.putLong(word);
+            }
+            out.putDouble(minVolume).putDouble(maxVolume);
+            out.put((byte) (hasPrice ? 1 : 0)).putLong(minPrice).putLong(maxPrice);
+            for (int i = 0; i < INDICATORS.length; i++) {
+                out.putDouble(minIndicators[i]).putDouble(maxIndicators[i]);
+            }
+        }
+
+        static Stats read(ByteBuffer in) {
+            int minDay = in.getInt();
+            int maxDay = in.getInt();
+            int productMask = in.getInt();
+            long[] destinations = new long[in.getInt()];
+            for (int i = 0; i < destinations.length; i++) {
+                destinations[i] = in.getLong();
+            }
+            double minVolume = in.getDouble();
+            double maxVolume = in.getDouble();
+            boolean hasPrice = in.get() != 0;
+            long minPrice = in.getLong();
+            long maxPrice = in.getLong();
+            double[] minIndicators = new double[INDICATORS.length];
+            double[] maxIndicators = new double[INDICATORS.length];
+            for (int i = 0; i < INDICATORS.length; i++) {
+                minIndicators[i] = in.getDouble();
+                maxIndicators[i] = in.getDouble();
+            }
+            return new Stats(minDay, maxDay, productMask, destinations, minVolume, maxVolume, hasPrice, minPrice,
+                    maxPrice, minIndicators, maxIndicators);
+        }
+
+        int size() {
+            return 4 * 4 + 8 * destinations.length + 2 * 8 + 1 + 2 * 8 + 2 * 8 * INDICATORS.length;
+        }
+
+        boolean hasDestination(int idPlusOne) {
+            int word = idPlusOne >>> 6;
+            return word < destinations.length && (destinations[word] & (1L << idPlusOne)) != 0;
+        }
+
+        /**
+         * @param dictionary destination ids + 1 by name, null mapping to 0
+         * @return false only if no row of the group can match {@code predicate}
+         */
+        boolean mayMatch(RecordPredicate predicate, Map<String, Integer> dictionary) {
+            return switch (predicate) {
+                case RecordPredicate.ProductEq eq -> (productMask & (1 << eq.product().ordinal())) != 0;
+                case RecordPredicate.DestinationIn in -> in.destinations().stream()
+                        .map(dictionary::get)
+                        .anyMatch(id -> id != null && hasDestination(id));
+                case RecordPredicate.DateBetween between ->
+                        (between.from() == null || maxDay >= between.from().toEpochDay())
+                                && (between.to() == null || minDay <= between.to().toEpochDay());
+                // NaN bounds (no comparable volume) fail both comparisons, like NaN volumes fail the range
+                case RecordPredicate.VolumeRange range -> maxVolume >= range.min() && minVolume <= range.max();
+                case RecordPredicate.IndicatorThreshold threshold -> threshold.above()
+                        ? maxIndicators[threshold.indicator().ordinal()] > threshold.threshold()
+                        : minIndicators[threshold.indicator().ordinal()] < threshold.threshold();
+                case RecordPredicate.And and -> and.terms().stream().allMatch(term -> mayMatch(term, dictionary));
+                case RecordPredicate.Or or -> or.terms().stream().anyMatch(term -> mayMatch(term, dictionary));
+                // Statistics bound values, not their complement
+                case RecordPredicate.Not not -> true;
+            };
+        }
+    }
+
+    static int bitmapWords(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
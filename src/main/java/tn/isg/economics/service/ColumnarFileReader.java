@@ -0,0 +1,366 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.exceptions.DataAccessException;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordColumns;
+import tn.isg.economics.service.ColumnarFile.Column;
+import tn.isg.economics.service.ColumnarFile.Stats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static tn.isg.economics.service.ColumnarFile.INDICATORS;
+import static tn.isg.economics.service.ColumnarFile.PRODUCTS;
+
+/**
+ * Reader of the columnar files written by {@link RecordExporter#exportToColumnar}.
+ * <p>
+ * Only the footer is read on opening. A filtered read skips the row groups whose statistics rule out the
+ * {@link RecordPredicate}, then decodes, within the remaining ones, only the column chunks the predicate
+ * looks at; the other chunks are read for matching rows only. Prices come back at the cent scale of
+ * {@link ExportRecordColumns#PRICE_SCALE}. A reader can be shared by concurrent callers.
+ */
+public final class ColumnarFileReader implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long rowCount;
+    private final String[] dictionary;
+    private final Map<String, Integer> destinationIds = new HashMap<>();
+    private final int[] groupRows;
+    private final long[][] groupOffsets;
+    private final int[][] groupLengths;
+    private final Stats[] groupStats;
+
+    private ColumnarFileReader(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        long size = channel.size();
+        if (size < ColumnarFile.HEADER_SIZE + ColumnarFile.TRAILER_SIZE) {
+            throw invalid("too short");
+        }
+        ByteBuffer header = readAt(0, ColumnarFile.HEADER_SIZE);
+        ByteBuffer trailer = readAt(size - ColumnarFile.TRAILER_SIZE, ColumnarFile.TRAILER_SIZE);
+        if (header.getInt() != ColumnarFile.MAGIC || trailer.getInt(4) != ColumnarFile.MAGIC) {
+            throw invalid("not a columnar export file");
+        }
+        int version = header.getInt();
+        if (version != ColumnarFile.VERSION) {
+            throw invalid("unsupported version " + version);
+        }
+        int footerLength = trailer.getInt(0);
+        if (footerLength < 0 || footerLength > size - ColumnarFile.HEADER_SIZE - ColumnarFile.TRAILER_SIZE) {
+            throw invalid("corrupt footer");
+        }
+        ByteBuffer footer = readAt(size - ColumnarFile.TRAILER_SIZE - footerLength, footerLength);
+
+        String[][] expected = Column.schema();
+        String[][] schema = new String[footer.getInt()][];
+        for (int i = 0; i < schema.length; i++) {
+            schema[i] = new String[]{string(footer), string(footer), string(footer)};
+        }
+        if (!Arrays.deepEquals(expected, schema)) {
+            throw invalid("unsupported columns " + Arrays.deepToString(schema));
+        }
+        dictionary = new String[footer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = string(footer);
+            destinationIds.put(dictionary[i], i + 1);
+        }
+        rowCount = footer.getLong();
+        int groups = footer.getInt();
+        groupRows = new int[groups];
+        groupOffsets = new long[groups][Column.COUNT];
+        groupLengths = new int[groups][Column.COUNT];
+        groupStats = new Stats[groups];
+        for (int g = 0; g < groups; g++) {
+            groupRows[g] = footer.getInt();
+            for (int c = 0; c < Column.COUNT; c++) {
+                groupOffsets[g][c] = footer.getLong();
+                groupLengths[g][c] = footer.getInt();
+            }
+            groupStats[g] = Stats.read(footer);
+        }
+    }
+
+    /**
+     * Opens {@code path} and reads its footer.
+     *
+     * @throws DataAccessException if the file cannot be read or is not a columnar export file
+     */
+    public static ColumnarFileReader open(Path path) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            return new ColumnarFileReader(path, channel);
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            if (e instanceof DataAccessException dataAccess) {
+                throw dataAccess;
+            }
+            throw new DataAccessException("Failed to open columnar file " + path, e);
+        }
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    public int rowGroupCount() {
+        return groupRows.length;
+    }
+
+    /**
+     * @return every record, in file order
+     */
+    public List<ExportRecord> read() {
+        return read(RecordPredicate.always());
+    }
+
+    /**
+     * @return the records matching {@code filter}, in file order
+     */
+    public List<ExportRecord> read(RecordPredicate filter) {
+        boolean all = filter instanceof RecordPredicate.And and && and.terms().isEmpty();
+        List<ExportRecord> records = new ArrayList<>();
+        for (int g = 0; g < groupRows.length; g++) {
+            if (!mayMatch(g, filter)) {
+                continue;
+            }
+            RowGroup group = new RowGroup(g);
+            for (int row = 0; row < group.size(); row++) {
+                if (all || filter.test(group, row)) {
+                    records.add(group.record(row));
+                }
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return false if the statistics of row group {@code group} show no row can match {@code filter}
+     */
+    boolean mayMatch(int group, RecordPredicate filter) {
+        return groupStats[group].mayMatch(filter, destinationIds);
+    }
+
+    private ByteBuffer readAt(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw invalid("truncated");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private DataAccessException invalid(String problem) {
+        return new DataAccessException("Invalid columnar file " + path + ": " + problem);
+    }
+
+    /**
+     * Columns of one row group, each decoded from its chunk on first access.
+     */
+    private final class RowGroup implements ExportRecordColumns {
+
+        private final int group;
+        private final int rows;
+        private int[] days;
+        private byte[] products;
+        private int[] destinations;
+        private double[] volumes;
+        private long[] pricePresence;
+        private long[] prices;
+        private final long[][] indicatorPresence = new long[INDICATORS.length][];
+        private final double[][] indicatorValues = new double[INDICATORS.length][];
+        private LocalDate date;
+
+        RowGroup(int group) {
+            this.group = group;
+            this.rows = groupRows[group];
+        }
+
+        @Override
+        public int size() {
+            return rows;
+        }
+
+        @Override
+        public int epochDay(int row) {
+            if (days == null) {
+                ByteBuffer chunk = chunk(Column.DATE.ordinal());
+                int[] decoded = new int[rows];
+                long day = 0;
+                for (int i = 0; i < rows; i++) {
+                    day += ColumnarFile.unzigzag(ColumnarFile.getVarLong(chunk));
+                    decoded[i] = (int) day;
+                }
+                days = decoded;
+            }
+            return days[row];
+        }
+
+        @Override
+        public ProductType productType(int row) {
+            if (products == null) {
+                byte[] decoded = new byte[rows];
+                chunk(Column.PRODUCT.ordinal()).get(decoded);
+                products = decoded;
+            }
+            return PRODUCTS[products[row]];
+        }
+
+        @Override
+        public int destinationId(int row) {
+            if (destinations == null) {
+                ByteBuffer chunk = chunk(Column.DESTINATION.ordinal());
+                int[] decoded = new int[rows];
+                for (int i = 0; i < rows; i++) {
+                    decoded[i] = (int) ColumnarFile.getVarLong(chunk);
+                }
+                destinations = decoded;
+            }
+            return destinations[row];
+        }
+
+        @Override
+        public String destinationName(int destinationId) {
+            return destinationId == 0 ? null : dictionary[destinationId - 1];
+        }
+
+        @Override
+        public int destinationCount() {
+            return dictionary.length + 1;
+        }
+
+        @Override
+        public double volumeTons(int row) {
+            if (volumes == null) {
+                double[] decoded = new double[rows];
+                chunk(Column.VOLUME.ordinal()).asDoubleBuffer().get(decoded);
+                volumes = decoded;
+            }
+            return volumes[row];
+        }
+
+        @Override
+        public boolean hasPrice(int row) {
+            if (pricePresence == null) {
+                ByteBuffer chunk = chunk(Column.PRICE.ordinal());
+                long[] presence = new long[ColumnarFile.bitmapWords(rows)];
+                chunk.asLongBuffer().get(presence);
+                chunk.position(8 * presence.length);
+                long[] decoded = new long[rows];
+                for (int i = 0; i < rows; i++) {
+                    if ((presence[i >>> 6] & (1L << i)) != 0) {
+                        decoded[i] = ColumnarFile.unzigzag(ColumnarFile.getVarLong(chunk));
+                    }
+                }
+                prices = decoded;
+                pricePresence = presence;
+            }
+            return (pricePresence[row >>> 6] & (1L << row)) != 0;
+        }
+
+        @Override
+        public long priceCents(int row) {
+            hasPrice(row);
+            return prices[row];
+        }
+
+        @Override
+        public boolean hasIndicator(int row, MarketIndicator indicator) {
+            int k = indicator.ordinal();
+            if (indicatorPresence[k] == null) {
+                ByteBuffer chunk = chunk(Column.indicatorColumn(k));
+                long[] presence = new long[ColumnarFile.bitmapWords(rows)];
+                double[] decoded = new double[rows];
+                if (chunk.hasRemaining()) {
+                    chunk.asLongBuffer().get(presence);
+                    chunk.position(8 * presence.length);
+                    for (int i = 0; i < rows; i++) {
+                        if ((presence[i >>> 6] & (1L << i)) != 0) {
+                            decoded[i] = chunk.getDouble();
+                        }
+                    }
+                }
+                indicatorValues[k] = decoded;
+                indicatorPresence[k] = presence;
+            }
+            return (indicatorPresence[k][row >>> 6] & (1L << row)) != 0;
+        }
+
+        @Override
+        public double indicator(int row, MarketIndicator indicator) {
+            hasIndicator(row, indicator);
+            return indicatorValues[indicator.ordinal()][row];
+        }
+
+        @Override
+        public ExportRecord record(int row) {
+            int day = epochDay(row);
+            if (date == null || date.toEpochDay() != day) {
+                date = LocalDate.ofEpochDay(day);
+            }
+            EnumMap<MarketIndicator, Double> indicators = null;
+            for (MarketIndicator indicator : INDICATORS) {
+                if (hasIndicator(row, indicator)) {
+                    if (indicators == null) {
+                        indicators = new EnumMap<>(MarketIndicator.class);
+                    }
+                    indicators.put(indicator, indicator(row, indicator));
+                }
+            }
+            return new ExportRecord(
+                    date,
+                    productType(row),
+                    destinationName(destinationId(row)),
+                    volumeTons(row),
+                    hasPrice(row) ? BigDecimal.valueOf(priceCents(row), PRICE_SCALE) : null,
+                    indicators == null ? Map.of() : Collections.unmodifiableMap(indicators)
+            );
+        }
+
+        private ByteBuffer chunk(int column) {
+            try {
+                return readAt(groupOffsets[group][column], groupLengths[group][column]);
+            } catch (IOException e) {
+                throw new DataAccessException("Failed to read columnar file " + path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.Money;
+import tn.isg.economics.repository.ExportRecordColumns;
+import tn.isg.economics.service.ColumnarFile.Column;
+import tn.isg.economics.service.ColumnarFile.Stats;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static tn.isg.economics.service.ColumnarFile.INDICATORS;
+import static tn.isg.economics.service.ColumnarFile.ROW_GROUP_ROWS;
+
+/**
+ * Writes records in the {@link ColumnarFile} layout, buffering one row group of primitive columns at a time.
+ */
+final class ColumnarFileWriter {
+
+    private static final long NULL_PRICE = Long.MIN_VALUE;
+
+    private final FileChannel out;
+    private final ByteBuffer chunk = ByteBuffer.allocateDirect(ROW_GROUP_ROWS * 10 + 8 * ColumnarFile.bitmapWords(ROW_GROUP_ROWS))
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private long position = ColumnarFile.HEADER_SIZE;
+    private long rowCount;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<Integer> groupRows = new ArrayList<>();
+    private final List<long[]> groupOffsets = new ArrayList<>();
+    private final List<int[]> groupLengths = new ArrayList<>();
+    private final List<Stats> groupStats = new ArrayList<>();
+
+    private int rows;
+    private final int[] days = new int[ROW_GROUP_ROWS];
+    private final byte[] products = new byte[ROW_GROUP_ROWS];
+    private final int[] destinations = new int[ROW_GROUP_ROWS];
+    private final double[] volumes = new double[ROW_GROUP_ROWS];
+    private final long[] prices = new long[ROW_GROUP_ROWS];
+    private final double[][] indicatorValues = new double[INDICATORS.length][ROW_GROUP_ROWS];
+    private final long[][] indicatorPresence = new long[INDICATORS.length][ColumnarFile.bitmapWords(ROW_GROUP_ROWS)];
+    private final boolean[] indicatorUsed = new boolean[INDICATORS.length];
+
+    private ColumnarFileWriter(FileChannel out) {
+        this.out = out;
+    }
+
+    static void write(List<ExportRecord> records, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ColumnarFileWriter writer = new ColumnarFileWriter(channel);
+            ByteBuffer header = ByteBuffer.allocate(ColumnarFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            ExportBuffer.writeFully(channel, header.putInt(ColumnarFile.MAGIC).putInt(ColumnarFile.VERSION).flip());
+            if (records instanceof ExportRecordColumns columns) {
+                int[] ids = new int[columns.destinationCount()];
+                Arrays.fill(ids, -1);
+                for (int row = 0, size = columns.size(); row < size; row++) {
+                    writer.add(columns, row, ids);
+                }
+            } else {
+                for (ExportRecord record : records) {
+                    writer.add(record);
+                }
+            }
+            writer.finish();
+        }
+    }
+
+    private void add(ExportRecord record) throws IOException {
+        days[rows] = Math.toIntExact(record.date().toEpochDay());
+        products[rows] = (byte) record.productType().ordinal();
+        destinations[rows] = destinationId(record.destination());
+        volumes[rows] = record.volumeTons();
+        prices[rows] = record.pricePerTon() == null ? NULL_PRICE : Money.toCents(record.pricePerTon());
+        if (record.indicators() != null) {
+            record.indicators().forEach((indicator, value) -> {
+                if (value != null) {
+                    setIndicator(indicator.ordinal(), value);
+                }
+            });
+        }
+        next();
+    }
+
+    /**
+     * @param ids ids in this file by destination id of {@code columns}, -1 until looked up
+     */
+    private void add(ExportRecordColumns columns, int row, int[] ids) throws IOException {
+        days[rows] = columns.epochDay(row);
+        products[rows] = (byte) columns.productType(row).ordinal();
+        int sourceId = columns.destinationId(row);
+        if (ids[sourceId] < 0) {
+            ids[sourceId] = destinationId(columns.destinationName(sourceId));
+        }
+        destinations[rows] = ids[sourceId];
+        volumes[rows] = columns.volumeTons(row);
+        prices[rows] = columns.hasPrice(row) ? columns.priceCents(row) : NULL_PRICE;
+        for (MarketIndicator indicator : INDICATORS) {
+            if (columns.hasIndicator(row, indicator)) {
+                setIndicator(indicator.ordinal(), columns.indicator(row, indicator));
+            }
+        }
+        next();
+    }
+
+    private int destinationId(String destination) {
+        if (destination == null) {
+            return 0;
+        }
+        Integer id = dictionary.get(destination);
+        if (id == null) {
+            names.add(destination);
+            id = names.size();
+            dictionary.put(destination, id);
+        }
+        return id;
+    }
+
+    private void setIndicator(int indicator, double value) {
+        indicatorValues[indicator][rows] = value;
+        indicatorPresence[indicator][rows >>> 6] |= 1L << rows;
+        indicatorUsed[indicator] = true;
+    }
+
+    private void next() throws IOException {
+        rowCount++;
+        if (++rows == ROW_GROUP_ROWS) {
+            flushGroup();
+        }
+    }
+
+    private void flushGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        long[] offsets = new long[Column.COUNT];
+        int[] lengths = new int[Column.COUNT];
+
+        chunk.clear();
+        int previous = 0;
+        for (int i = 0; i < rows; i++) {
+            ColumnarFile.putVarLong(chunk, ColumnarFile.zigzag((long) days[i] - previous));
+            previous = days[i];
+        }
+        writeChunk(Column.DATE.ordinal(), offsets, lengths);
+
+        chunk.clear().put(products, 0, rows);
+        writeChunk(Column.PRODUCT.ordinal(), offsets, lengths);
+
+        chunk.clear();
+        int productMask = 0;
+        long[] destinationBits = new long[ColumnarFile.bitmapWords(names.size() + 1)];
+        for (int i = 0; i < rows; i++) {
+            ColumnarFile.putVarLong(chunk, destinations[i]);
+            productMask |= 1 << products[i];
+            destinationBits[destinations[i] >>> 6] |= 1L << destinations[i];
+        }
+        writeChunk(Column.DESTINATION.ordinal(), offsets, lengths);
+
+        chunk.clear();
+        chunk.asDoubleBuffer().put(volumes, 0, rows);
+        chunk.position(8 * rows);
+        writeChunk(Column.VOLUME.ordinal(), offsets, lengths);
+
+        chunk.clear();
+        long[] pricePresence = new long[ColumnarFile.bitmapWords(rows)];
+        long minPrice = Long.MAX_VALUE;
+        long maxPrice = Long.MIN_VALUE;
+        for (int i = 0; i < rows; i++) {
+            if (prices[i] != NULL_PRICE) {
+                pricePresence[i >>> 6] |= 1L << i;
+                minPrice = Math.min(minPrice, prices[i]);
+                maxPrice = Math.max(maxPrice, prices[i]);
+            }
+        }
+        chunk.asLongBuffer().put(pricePresence);
+        chunk.position(8 * pricePresence.length);
+        for (int i = 0; i < rows; i++) {
+            if (prices[i] != NULL_PRICE) {
+                ColumnarFile.putVarLong(chunk, ColumnarFile.zigzag(prices[i]));
+            }
+        }
+        writeChunk(Column.PRICE.ordinal(), offsets, lengths);
+
+        double[] minIndicators = new double[INDICATORS.length];
+        double[] maxIndicators = new double[INDICATORS.length];
+        for (int k = 0; k < INDICATORS.length; k++) {
+            chunk.clear();
+            minIndicators[k] = Double.NaN;
+            maxIndicators[k] = Double.NaN;
+            if (indicatorUsed[k]) {
+                long[] presence = indicatorPresence[k];
+                int words = ColumnarFile.bitmapWords(rows);
+                chunk.asLongBuffer().put(presence, 0, words);
+                chunk.position(8 * words);
+                for (int i = 0; i < rows; i++) {
+                    if ((presence[i >>> 6] & (1L << i)) != 0) {
+                        double value = indicatorValues[k][i];
+                        chunk.putDouble(value);
+                        minIndicators[k] = min(minIndicators[k], value);
+                        maxIndicators[k] = max(maxIndicators[k], value);
+                    }
+                }
+                Arrays.fill(presence, 0);
+                indicatorUsed[k] = false;
+            }
+            writeChunk(Column.indicatorColumn(k), offsets, lengths);
+        }
+
+        double minVolume = Double.NaN;
+        double maxVolume = Double.NaN;
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        for (int i = 0; i < rows; i++) {
+            minVolume = min(minVolume, volumes[i]);
+            maxVolume = max(maxVolume, volumes[i]);
+            minDay = Math.min(minDay, days[i]);
+            maxDay = Math.max(maxDay, days[i]);
+        }
+        boolean hasPrice = minPrice <= maxPrice;
+        groupStats.add(new Stats(minDay, maxDay, productMask, destinationBits, minVolume, maxVolume, hasPrice,
+                hasPrice ? minPrice : 0, hasPrice ? maxPrice : 0, minIndicators, maxIndicators));
+        groupRows.add(rows);
+        groupOffsets.add(offsets);
+        groupLengths.add(lengths);
+        rows = 0;
+    }
+
+    private void writeChunk(int column, long[] offsets, int[] lengths) throws IOException {
+        chunk.flip();
+        offsets[column] = position;
+        lengths[column] = chunk.remaining();
+        position += chunk.remaining();
+        ExportBuffer.writeFully(out, chunk);
+    }
+
+    private void finish() throws IOException {
+        flushGroup();
+        String[][] schema = Column.schema();
+        List<byte[]> columnStrings = new ArrayList<>();
+        for (String[] column : schema) {
+            for (String value : column) {
+                columnStrings.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        List<byte[]> dictionaryStrings = names.stream().map(name -> name.getBytes(StandardCharsets.UTF_8)).toList();
+        int size = 4 + 4 + 8 + 4 + ColumnarFile.TRAILER_SIZE;
+        for (byte[] string : columnStrings) {
+            size += 2 + string.length;
+        }
+        for (byte[] string : dictionaryStrings) {
+            size += 2 + string.length;
+        }
+        for (Stats stats : groupStats) {
+            size += 4 + Column.COUNT * (8 + 4) + stats.size();
+        }
+
+        ByteBuffer footer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        footer.putInt(schema.length);
+        columnStrings.forEach(string -> putString(footer, string));
+        footer.putInt(dictionaryStrings.size());
+        dictionaryStrings.forEach(string -> putString(footer, string));
+        footer.putLong(rowCount).putInt(groupStats.size());
+        for (int g = 0; g < groupStats.size(); g++) {
+            footer.putInt(groupRows.get(g));
+            for (int c = 0; c < Column.COUNT; c++) {
+                footer.putLong(groupOffsets.get(g)[c]).putInt(groupLengths.get(g)[c]);
+            }
+            groupStats.get(g).write(footer);
+        }
+        footer.putInt(size - ColumnarFile.TRAILER_SIZE).putInt(ColumnarFile.MAGIC);
+        ExportBuffer.writeFully(out, footer.flip());
+    }
+
+    private static void putString(ByteBuffer out, byte[] string) {
+        out.putShort((short) string.length).put(string);
+    }
+
+    /**
+     * @return the smaller value, NaN standing for no value yet; NaN values are ignored
+     */
+    private static double min(double current, double value) {
+        return Double.isNaN(current) || value < current ? value : current;
+    }
+
+    private static double max(double current, double value) {
+        return Double.isNaN(current) || value > current ? value : current;
+    }
+}
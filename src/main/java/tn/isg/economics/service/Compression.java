@@ -0,0 +1,60 @@
+package tn.isg.economics.service;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression applied to exported and imported files.
+ */
+public enum Compression {
+    NONE,
+    /**
+     * gzip ({@code .gz}), readable by every tool.
+     */
+    GZIP,
+    /**
+     * Zstandard ({@code .zst}), several times faster than gzip for a similar ratio.
+     */
+    ZSTD;
+
+    /**
+     * @return the compression implied by the file name: {@code .gz}, {@code .zst} or none
+     */
+    public static Compression of(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".gz")) {
+            return GZIP;
+        }
+        return fileName.endsWith(".zst") ? ZSTD : NONE;
+    }
+
+    /**
+     * @return a channel compressing into {@code out}; closing it ends the compressed stream and closes {@code out}
+     */
+    WritableByteChannel wrap(WritableByteChannel out) throws IOException {
+        return switch (this) {
+            case NONE -> out;
+            case GZIP -> new GzipChannel(out);
+            case ZSTD -> new ZstdChannel(out);
+        };
+    }
+
+    /**
+     * @return a channel decompressing {@code in}; closing it closes {@code in}
+     */
+    ReadableByteChannel unwrap(ReadableByteChannel in) throws IOException {
+        return switch (this) {
+            case NONE -> in;
+            case GZIP -> Channels.newChannel(new GZIPInputStream(Channels.newInputStream(in), 1 << 16));
+            case ZSTD -> Channels.newChannel(new ZstdInputStreamNoFinalizer(
+                    new BufferedInputStream(Channels.newInputStream(in), 1 << 16)));
+        };
+    }
+}
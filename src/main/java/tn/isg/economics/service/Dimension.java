@@ -0,0 +1,14 @@
+package tn.isg.economics.service;
+
+/**
+ * Group-by keys of an {@link Aggregation}.
+ */
+public enum Dimension {
+    PRODUCT,
+    DESTINATION,
+    /**
+     * Month of year (1-12), all years together.
+     */
+    MONTH,
+    YEAR_MONTH
+}
@@ -0,0 +1,87 @@
+package tn.isg.economics.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Exact running sum of decimals given as unscaled longs, equal (value and scale) to folding the same
+ * values with {@link BigDecimal#add} from {@link BigDecimal#ZERO}.
+ * <p>
+ * Each scale gets its own 128-bit two's-complement accumulator, so adding a value or a product of two
+ * longs allocates nothing; the slots are combined into a {@link BigDecimal} once, when read. Values with
+ * a negative or very large scale, and slots that would overflow 128 bits, spill into a BigDecimal.
+ */
+final class ExactDecimalSum {
+
+    private static final int MAX_SCALE = 40;
+
+    private final long[] high = new long[MAX_SCALE + 1];
+    private final long[] low = new long[MAX_SCALE + 1];
+    private int maxScale;
+    private BigDecimal spill = BigDecimal.ZERO;
+
+    void add(long unscaled, int scale) {
+        add(unscaled >> 63, unscaled, scale);
+    }
+
+    /**
+     * Adds {@code a * 10^-scaleA * b * 10^-scaleB}.
+     */
+    void addProduct(long a, int scaleA, long b, int scaleB) {
+        add(Math.multiplyHigh(a, b), a * b, scaleA + scaleB);
+    }
+
+    void add(BigDecimal value) {
+        if (value.scale() >= 0 && value.scale() <= MAX_SCALE && value.precision() < 19) {
+            add(value.unscaledValue().longValue(), value.scale());
+        } else {
+            spill = spill.add(value);
+        }
+    }
+
+    void merge(ExactDecimalSum other) {
+        for (int scale = 0; scale <= other.maxScale; scale++) {
+            if (other.high[scale] != 0 || other.low[scale] != 0) {
+                add(other.high[scale], other.low[scale], scale);
+            }
+        }
+        maxScale = Math.max(maxScale, other.maxScale);
+        spill = spill.add(other.spill);
+    }
+
+    BigDecimal toBigDecimal() {
+        BigInteger total = BigInteger.ZERO;
+        for (int scale = 0; scale <= maxScale; scale++) {
+            if (high[scale] != 0 || low[scale] != 0) {
+                total = total.add(toBigInteger(high[scale], low[scale]).multiply(BigInteger.TEN.pow(maxScale - scale)));
+            }
+        }
+        return new BigDecimal(total, maxScale).add(spill);
+    }
+
+    private void add(long valueHigh, long valueLow, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            spill = spill.add(new BigDecimal(toBigInteger(valueHigh, valueLow), scale));
+            return;
+        }
+        maxScale = Math.max(maxScale, scale);
+        long sumLow = low[scale] + valueLow;
+        long carry = Long.compareUnsigned(sumLow, valueLow) < 0 ? 1 : 0;
+        long sumHigh;
+        try {
+            sumHigh = Math.addExact(Math.addExact(high[scale], valueHigh), carry);
+        } catch (ArithmeticException overflow) {
+            spill = spill.add(new BigDecimal(toBigInteger(high[scale], low[scale]), scale))
+                    .add(new BigDecimal(toBigInteger(valueHigh, valueLow), scale));
+            high[scale] = 0;
+            low[scale] = 0;
+            return;
+        }
+        high[scale] = sumHigh;
+        low[scale] = sumLow;
+    }
+
+    private static BigInteger toBigInteger(long high, long low) {
+        return BigInteger.valueOf(high).shiftLeft(64).add(new BigInteger(Long.toUnsignedString(low)));
+    }
+}
@@ -0,0 +1,93 @@
+package tn.isg.economics.service;
+
+import java.util.Arrays;
+
+/**
+ * Exact running sum of doubles, read as the exact total rounded once to the nearest double (ties to even).
+ * <p>
+ * The total is kept as a short list of non-overlapping partials in increasing magnitude (Shewchuk's
+ * algorithm, as in Python's {@code math.fsum}), so no rounding error is ever dropped. Since the value read is
+ * a function of the exact total only, it does not depend on the order values are added or sums are merged
+ * in. Non-finite values, and totals overflowing the double range, are summed separately like a plain
+ * double sum would.
+ */
+final class ExactDoubleSum {
+
+    private double[] partials = new double[4];
+    private int size;
+    private double nonFinite;
+
+    void add(double value) {
+        if (!Double.isFinite(value)) {
+            nonFinite += value;
+            return;
+        }
+        double x = value;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            double y = partials[i];
+            if (Math.abs(x) < Math.abs(y)) {
+                double swap = x;
+                x = y;
+                y = swap;
+            }
+            double hi = x + y;
+            if (!Double.isFinite(hi)) {
+                // The exact total left the double range: it reads as the infinity a double sum reaches
+                nonFinite += hi;
+                size = 0;
+                return;
+            }
+            double lo = y - (hi - x);
+            if (lo != 0) {
+                partials[kept++] = lo;
+            }
+            x = hi;
+        }
+        if (kept == partials.length) {
+            partials = Arrays.copyOf(partials, kept * 2);
+        }
+        partials[kept++] = x;
+        size = kept;
+    }
+
+    void merge(ExactDoubleSum other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.partials[i]);
+        }
+        nonFinite += other.nonFinite;
+    }
+
+    /**
+     * @return the exact total rounded to the nearest double, or the sum of the non-finite values if any
+     */
+    double toDouble() {
+        if (nonFinite != 0) {
+            return nonFinite;
+        }
+        int n = size;
+        if (n == 0) {
+            return 0.0;
+        }
+        double hi = partials[--n];
+        double lo = 0;
+        while (n > 0) {
+            double x = hi;
+            double y = partials[--n];
+            hi = x + y;
+            lo = y - (hi - x);
+            if (lo != 0) {
+                break;
+            }
+        }
+        // Round half to even across the partials below: a tie at this level is broken by the next partial
+        if (n > 0 && ((lo < 0 && partials[n - 1] < 0) || (lo > 0 && partials[n - 1] > 0))) {
+            double y = lo * 2;
+            double x = hi + y;
+            if (y == x - hi) {
+                hi = x;
+            }
+        }
+        return hi + 0.0;
+    }
+}
@@ -2,17 +2,22 @@ package tn.isg.economics.service;
 
 import tn.isg.economics.model.ExportRecord;
 import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordColumns;
+import tn.isg.economics.repository.ExportRecordRepository;
+import tn.isg.economics.repository.IndexedExportRecordRepository;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.DoubleSummaryStatistics;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -21,45 +26,110 @@ import java.util.stream.Collectors;
  */
 public class ExportAnalyticsService {
 
+    /**
+     * Row count from which aggregations are split across the fork-join pool.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 200_000;
+
+    private final ExportRecordRepository repository;
+    private final QueryPlanner planner;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public ExportAnalyticsService() {
+        this(null);
+    }
+
+    /**
+     * @param repository source for {@link #query(RecordPredicate)}; its indexes are used when it has them
+     */
+    public ExportAnalyticsService(ExportRecordRepository repository) {
+        this(repository, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parallel mode: aggregations over at least {@code parallelThreshold} records run as fork-join tasks on
+     * {@code pool}. The results are identical to the sequential scan's.
+     */
+    public ExportAnalyticsService(ExportRecordRepository repository, ForkJoinPool pool, int parallelThreshold) {
+        this.repository = repository;
+        this.planner = new QueryPlanner(repository);
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Records of the repository matching {@code predicate}, in date order. The predicate is planned as an
+     * index lookup followed by one pass of the remaining conditions, see {@link QueryPlanner}.
+     */
+    public List<ExportRecord> query(RecordPredicate predicate) {
+        requireRepository();
+        QueryPlan plan = planner.plan(predicate);
+        List<ExportRecord> candidates = plan.usesIndex()
+                ? ((IndexedExportRecordRepository) repository).query(plan.indexLookup())
+                : repository.findAll();
+        return plan.residualIsTrivial() ? candidates : scan(candidates, plan.residual());
+    }
+
+    /**
+     * @return destination names known to the repository
+     */
+    public Set<String> knownDestinations() {
+        if (repository instanceof IndexedExportRecordRepository indexed) {
+            return indexed.destinations();
+        }
+        return destinations(requireRepository().findAll());
+    }
+
+    /**
+     * Structured {@link RecordPredicate}s are reordered by selectivity and, on columnar lists, evaluated
+     * without materializing rejected records.
+     */
     public List<ExportRecord> filter(List<ExportRecord> records, RecordFilter filter) {
+        if (filter instanceof RecordPredicate predicate) {
+            return scan(records, planner.optimize(predicate));
+        }
         return records.stream().filter(filter::test).toList();
     }
 
+    /**
+     * Computes every measure of {@code aggregation} for each of its groups in one pass over {@code records}.
+     * Money measures are accumulated as scaled longs and equal the corresponding {@code BigDecimal}
+     * arithmetic exactly.
+     */
+    public SortedMap<AggregateKey, Aggregates> aggregate(List<ExportRecord> records, Aggregation aggregation) {
+        return new AggregationEngine(aggregation).run(records, pool, parallelThreshold);
+    }
+
+    /**
+     * @return the requested measures over all of {@code records}
+     */
+    public Aggregates summarize(List<ExportRecord> records, Measure... measures) {
+        Aggregation aggregation = Aggregation.of(measures);
+        Aggregates all = aggregate(records, aggregation).get(AggregateKey.ALL);
+        return all != null ? all : new Aggregates(aggregation.measures());
+    }
+
     public DoubleSummaryStatistics volumeStats(List<ExportRecord> records) {
-        return records.stream().collect(Collectors.summarizingDouble(ExportRecord::volumeTons));
+        return summarize(records, Measure.VOLUME_SUM).volume();
     }
 
     public BigDecimal averagePrice(List<ExportRecord> records) {
-        if (records.isEmpty()) return BigDecimal.ZERO;
-        BigDecimal sum = records.stream()
-                .map(ExportRecord::pricePerTon)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        return sum.divide(BigDecimal.valueOf(records.size()), 2, RoundingMode.HALF_UP);
+        return summarize(records, Measure.PRICE_AVG).averagePrice();
     }
 
     public Map<ProductType, BigDecimal> revenueByProduct(List<ExportRecord> records) {
-        return records.stream()
-                .collect(Collectors.groupingBy(
-                        ExportRecord::productType,
-                        TreeMap::new,
-                        Collectors.mapping(
-                                r -> r.pricePerTon().multiply(BigDecimal.valueOf(r.volumeTons())),
-                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)
-                        )
-                ));
+        Map<ProductType, BigDecimal> revenue = new TreeMap<>();
+        aggregate(records, Aggregation.of(Measure.REVENUE).by(Dimension.PRODUCT))
+                .forEach((key, group) -> revenue.put(key.product(), group.revenue()));
+        return revenue;
     }
 
     public Map<String, BigDecimal> revenueByDestination(List<ExportRecord> records) {
-        return records.stream()
-                .collect(Collectors.groupingBy(
-                        ExportRecord::destination,
-                        TreeMap::new,
-                        Collectors.mapping(
-                                r -> r.pricePerTon().multiply(BigDecimal.valueOf(r.volumeTons())),
-                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)
-                        )
-                ));
+        Map<String, BigDecimal> revenue = new TreeMap<>();
+        aggregate(records, Aggregation.of(Measure.REVENUE).by(Dimension.DESTINATION))
+                .forEach((key, group) -> revenue.put(key.destination(), group.revenue()));
+        return revenue;
     }
 
     public Set<String> destinations(List<ExportRecord> records) {
@@ -67,22 +137,10 @@ public class ExportAnalyticsService {
     }
 
     public Map<Integer, BigDecimal> averagePriceByMonth(List<ExportRecord> records) {
-        return records.stream()
-                .collect(Collectors.groupingBy(
-                        r -> r.date().getMonthValue(),
-                        TreeMap::new,
-                        Collectors.mapping(
-                                ExportRecord::pricePerTon,
-                                Collectors.collectingAndThen(
-                                        Collectors.toList(),
-                                        prices -> {
-                                            if (prices.isEmpty()) return BigDecimal.ZERO;
-                                            BigDecimal s = prices.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
-                                            return s.divide(BigDecimal.valueOf(prices.size()), 2, RoundingMode.HALF_UP);
-                                        }
-                                )
-                        )
-                ));
+        Map<Integer, BigDecimal> averages = new TreeMap<>();
+        aggregate(records, Aggregation.of(Measure.PRICE_AVG).by(Dimension.MONTH))
+                .forEach((key, group) -> averages.put(key.month(), group.averagePrice()));
+        return averages;
     }
 
     public Optional<LocalDate> minDate(List<ExportRecord> records) {
@@ -96,5 +154,24 @@ public class ExportAnalyticsService {
     public <K> Map<K, Long> countBy(List<ExportRecord> records, Function<ExportRecord, K> classifier) {
         return records.stream().collect(Collectors.groupingBy(classifier, Collectors.counting()));
     }
-}
 
+    private static List<ExportRecord> scan(List<ExportRecord> records, RecordPredicate predicate) {
+        if (records instanceof ExportRecordColumns columns) {
+            List<ExportRecord> matches = new ArrayList<>();
+            for (int row = 0; row < columns.size(); row++) {
+                if (predicate.test(columns, row)) {
+                    matches.add(columns.record(row));
+                }
+            }
+            return Collections.unmodifiableList(matches);
+        }
+        return records.stream().filter(predicate::test).toList();
+    }
+
+    private ExportRecordRepository requireRepository() {
+        if (repository == null) {
+            throw new IllegalStateException("No repository configured for queries");
+        }
+        return repository;
+    }
+}
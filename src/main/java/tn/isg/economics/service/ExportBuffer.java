@@ -0,0 +1,163 @@
+package tn.isg.economics.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Output buffer formatting numbers and dates straight into a direct byte buffer, which is drained to a
+ * channel whenever it fills up, so memory stays constant whatever the amount written.
+ */
+final class ExportBuffer implements Closeable {
+
+    /**
+     * Longest digits of {@link #putLong(long)} or {@link #putDecimal(long, int)} with a scale up to 18, sign excluded.
+     */
+    private static final int MAX_NUMBER_LENGTH = 21;
+    private static final byte[] LONG_MIN = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel out;
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[MAX_NUMBER_LENGTH];
+    private long dateEpochDay = Long.MIN_VALUE;
+    private byte[] date;
+
+    /**
+     * Buffers in a new direct buffer of {@code capacity} bytes.
+     */
+    ExportBuffer(WritableByteChannel out, int capacity) {
+        this(out, ByteBuffer.allocateDirect(capacity));
+    }
+
+    ExportBuffer(WritableByteChannel out, ByteBuffer buffer) {
+        if (buffer.capacity() < MAX_NUMBER_LENGTH + 2) {
+            throw new IllegalArgumentException("Capacity too small: " + buffer.capacity());
+        }
+        this.out = out;
+        this.buffer = buffer.clear();
+    }
+
+    void put(byte value) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put(value);
+    }
+
+    void put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes {@code value} in decimal, like {@link Long#toString(long)}.
+     */
+    void putLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            put(LONG_MIN);
+            return;
+        }
+        ensure(MAX_NUMBER_LENGTH + 1);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, start, digits.length - start);
+    }
+
+    /**
+     * Writes {@code unscaled / 10^scale} in plain notation with exactly {@code scale} decimals, like
+     * {@link BigDecimal#toPlainString()} of {@code BigDecimal.valueOf(unscaled, scale)}.
+     *
+     * @param scale between 0 and 18
+     */
+    void putDecimal(long unscaled, int scale) throws IOException {
+        if (scale == 0) {
+            putLong(unscaled);
+            return;
+        }
+        if (unscaled == Long.MIN_VALUE) {
+            put(BigDecimal.valueOf(unscaled, scale).toPlainString().getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        ensure(MAX_NUMBER_LENGTH + 1);
+        if (unscaled < 0) {
+            buffer.put((byte) '-');
+            unscaled = -unscaled;
+        }
+        int start = digits.length;
+        for (int i = 0; i < scale; i++) {
+            digits[--start] = (byte) ('0' + unscaled % 10);
+            unscaled /= 10;
+        }
+        digits[--start] = '.';
+        do {
+            digits[--start] = (byte) ('0' + unscaled % 10);
+            unscaled /= 10;
+        } while (unscaled != 0);
+        buffer.put(digits, start, digits.length - start);
+    }
+
+    /**
+     * Writes the date like {@link LocalDate#toString()}, reusing the previous bytes for runs of the same day.
+     */
+    void putDate(long epochDay) throws IOException {
+        if (epochDay != dateEpochDay) {
+            date = LocalDate.ofEpochDay(epochDay).toString().getBytes(StandardCharsets.US_ASCII);
+            dateEpochDay = epochDay;
+        }
+        put(date);
+    }
+
+    /**
+     * Drains the buffered bytes to the channel.
+     */
+    void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * Flushes, then closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    static void writeFully(WritableByteChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        writeFully(out, buffer.flip());
+        buffer.clear();
+    }
+}
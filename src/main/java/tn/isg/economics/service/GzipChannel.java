@@ -0,0 +1,79 @@
+package tn.isg.economics.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * gzip stream written through direct buffers: unlike {@link java.util.zip.GZIPOutputStream}, input is
+ * deflated and checksummed in place without being copied to a heap array first.
+ */
+final class GzipChannel implements WritableByteChannel {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final byte[] NO_INPUT = new byte[0];
+
+    private final WritableByteChannel out;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer compressed = ByteBuffer.allocateDirect(1 << 16);
+    private long size;
+    private boolean open = true;
+
+    GzipChannel(WritableByteChannel out) throws IOException {
+        this.out = out;
+        ExportBuffer.writeFully(out, ByteBuffer.wrap(HEADER));
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        int length = source.remaining();
+        crc.update(source.duplicate());
+        deflater.setInput(source);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+        // The deflater keeps a reference to the caller's buffer, which is refilled once we return
+        deflater.setInput(NO_INPUT);
+        size += length;
+        return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.getValue()).putInt((int) size).flip();
+            ExportBuffer.writeFully(out, trailer);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void deflate() throws IOException {
+        compressed.clear();
+        deflater.deflate(compressed);
+        ExportBuffer.writeFully(out, compressed.flip());
+    }
+}
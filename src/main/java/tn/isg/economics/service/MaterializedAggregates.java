@@ -0,0 +1,167 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordRepository;
+import tn.isg.economics.repository.RepositoryChangeListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Materialized view of a repository as a cube of {@link Aggregates}, one cell per
+ * (product, destination, year-month) with every {@link Measure}.
+ * <p>
+ * Appended records update their cell in constant time; a {@code saveAll} rebuilds the cube with
+ * {@link ExportAnalyticsService#aggregate}. Roll-ups merge cells instead of rescanning rows; the
+ * accumulators do not depend on merge order, so roll-ups equal the service's results on the same records.
+ * Filters can be answered as long as they only constrain product, destination and whole months, see {@link #canAnswer}.
+ */
+public class MaterializedAggregates implements RepositoryChangeListener, AutoCloseable {
+
+    private static final Aggregation CUBE = new Aggregation(
+            Set.of(Dimension.PRODUCT, Dimension.DESTINATION, Dimension.YEAR_MONTH), Set.of(Measure.values()));
+
+    private final ExportAnalyticsService analytics;
+    private final ExportRecordRepository repository;
+    private final Map<AggregateKey, Aggregates> cells = new HashMap<>();
+
+    public MaterializedAggregates(ExportAnalyticsService analytics, ExportRecordRepository repository) {
+        this.analytics = analytics;
+        this.repository = repository;
+        repository.follow(this);
+    }
+
+    @Override
+    public synchronized void onAppend(List<ExportRecord> appended, long sequence) {
+        for (ExportRecord record : appended) {
+            AggregateKey key = new AggregateKey(record.productType(), record.destination(), null, YearMonth.from(record.date()));
+            cells.computeIfAbsent(key, k -> new Aggregates(CUBE.measures())).add(record.volumeTons(), record.pricePerTon());
+        }
+    }
+
+    @Override
+    public synchronized void onReplace(List<ExportRecord> records, long sequence) {
+        rebuild(records);
+    }
+
+    /**
+     * @return number of non-empty cells
+     */
+    public synchronized int cellCount() {
+        return cells.size();
+    }
+
+    /**
+     * @return whether {@code filter} only constrains product, destination and whole calendar months,
+     * so {@link #rollUp(Aggregation, RecordPredicate)} can evaluate it on cells
+     */
+    public boolean canAnswer(RecordPredicate filter) {
+        return switch (filter) {
+            case RecordPredicate.ProductEq ignored -> true;
+            case RecordPredicate.DestinationIn ignored -> true;
+            case RecordPredicate.DateBetween between -> (between.from() == null || between.from().getDayOfMonth() == 1)
+                    && (between.to() == null || between.to().equals(YearMonth.from(between.to()).atEndOfMonth()));
+            case RecordPredicate.And and -> and.terms().stream().allMatch(this::canAnswer);
+            case RecordPredicate.Or or -> or.terms().stream().allMatch(this::canAnswer);
+            case RecordPredicate.Not not -> canAnswer(not.predicate());
+            default -> false;
+        };
+    }
+
+    /**
+     * Rolls the cells matching {@code filter} up to the dimensions of {@code aggregation}.
+     * Groups carry every measure, not only the requested ones.
+     *
+     * @throws IllegalArgumentException if {@link #canAnswer(RecordPredicate)} is false for {@code filter}
+     */
+    public synchronized SortedMap<AggregateKey, Aggregates> rollUp(Aggregation aggregation, RecordPredicate filter) {
+        if (!canAnswer(filter)) {
+            throw new IllegalArgumentException("Filter is not aligned with the aggregate cells: " + filter);
+        }
+        Set<Dimension> dimensions = aggregation.dimensions();
+        SortedMap<AggregateKey, Aggregates> result = new TreeMap<>();
+        cells.forEach((cell, aggregates) -> {
+            if (matches(filter, cell)) {
+                AggregateKey key = new AggregateKey(
+                        dimensions.contains(Dimension.PRODUCT) ? cell.product() : null,
+                        dimensions.contains(Dimension.DESTINATION) ? cell.destination() : null,
+                        dimensions.contains(Dimension.MONTH) ? cell.yearMonth().getMonthValue() : null,
+                        dimensions.contains(Dimension.YEAR_MONTH) ? cell.yearMonth() : null
+                );
+                result.computeIfAbsent(key, k -> new Aggregates(CUBE.measures())).merge(aggregates);
+            }
+        });
+        return result;
+    }
+
+    public SortedMap<AggregateKey, Aggregates> rollUp(Aggregation aggregation) {
+        return rollUp(aggregation, RecordPredicate.always());
+    }
+
+    /**
+     * @see ExportAnalyticsService#revenueByProduct(List)
+     */
+    public Map<ProductType, BigDecimal> revenueByProduct(RecordPredicate filter) {
+        Map<ProductType, BigDecimal> revenue = new TreeMap<>();
+        rollUp(Aggregation.of(Measure.REVENUE).by(Dimension.PRODUCT), filter)
+                .forEach((key, group) -> revenue.put(key.product(), group.revenue()));
+        return revenue;
+    }
+
+    /**
+     * @see ExportAnalyticsService#revenueByDestination(List)
+     */
+    public Map<String, BigDecimal> revenueByDestination(RecordPredicate filter) {
+        Map<String, BigDecimal> revenue = new TreeMap<>();
+        rollUp(Aggregation.of(Measure.REVENUE).by(Dimension.DESTINATION), filter)
+                .forEach((key, group) -> revenue.put(key.destination(), group.revenue()));
+        return revenue;
+    }
+
+    /**
+     * @see ExportAnalyticsService#averagePriceByMonth(List)
+     */
+    public Map<Integer, BigDecimal> averagePriceByMonth(RecordPredicate filter) {
+        Map<Integer, BigDecimal> averages = new TreeMap<>();
+        rollUp(Aggregation.of(Measure.PRICE_AVG).by(Dimension.MONTH), filter)
+                .forEach((key, group) -> averages.put(key.month(), group.averagePrice()));
+        return averages;
+    }
+
+    /**
+     * Stops following the repository.
+     */
+    @Override
+    public void close() {
+        repository.removeChangeListener(this);
+    }
+
+    private void rebuild(List<ExportRecord> records) {
+        cells.clear();
+        cells.putAll(analytics.aggregate(records, CUBE));
+    }
+
+    private static boolean matches(RecordPredicate filter, AggregateKey cell) {
+        return switch (filter) {
+            case RecordPredicate.ProductEq eq -> cell.product() == eq.product();
+            case RecordPredicate.DestinationIn in -> in.destinations().contains(cell.destination());
+            case RecordPredicate.DateBetween between -> {
+                LocalDate first = cell.yearMonth().atDay(1);
+                yield (between.from() == null || !first.isBefore(between.from()))
+                        && (between.to() == null || !first.isAfter(between.to()));
+            }
+            case RecordPredicate.And and -> and.terms().stream().allMatch(term -> matches(term, cell));
+            case RecordPredicate.Or or -> or.terms().stream().anyMatch(term -> matches(term, cell));
+            case RecordPredicate.Not not -> !matches(not.predicate(), cell);
+            default -> throw new IllegalArgumentException("Not a cell predicate: " + filter);
+        };
+    }
+}
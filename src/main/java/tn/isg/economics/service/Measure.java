@@ -0,0 +1,29 @@
+package tn.isg.economics.service;
+
+/**
+ * Values an {@link Aggregation} can compute per group.
+ * Money measures are exact {@link java.math.BigDecimal}s; volume measures follow
+ * {@link java.util.DoubleSummaryStatistics}.
+ */
+public enum Measure {
+    COUNT,
+    VOLUME_SUM,
+    VOLUME_AVG,
+    VOLUME_MIN,
+    VOLUME_MAX,
+    PRICE_SUM,
+    /**
+     * Sum of prices divided by the number of records, rounded HALF_UP to 2 decimals.
+     */
+    PRICE_AVG,
+    PRICE_MIN,
+    PRICE_MAX,
+    /**
+     * Sum of price per ton times volume; records without a price contribute nothing.
+     */
+    REVENUE;
+
+    boolean isVolume() {
+        return this == VOLUME_SUM || this == VOLUME_AVG || this == VOLUME_MIN || this == VOLUME_MAX;
+    }
+}
@@ -0,0 +1,25 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.repository.RecordQuery;
+
+/**
+ * Execution plan produced by {@link QueryPlanner}: an optional index lookup followed by a single pass of
+ * the residual predicate over its result (or over all records when {@code indexLookup} is {@code null}).
+ *
+ * @param indexLookup   conditions answered by repository indexes, or {@code null} for a full scan
+ * @param residual      conditions evaluated per row, most selective first
+ * @param estimatedRows expected number of candidate rows fed to {@code residual}
+ */
+public record QueryPlan(RecordQuery indexLookup, RecordPredicate residual, long estimatedRows) {
+
+    public boolean usesIndex() {
+        return indexLookup != null;
+    }
+
+    /**
+     * @return whether every candidate row matches, so the residual pass can be skipped
+     */
+    public boolean residualIsTrivial() {
+        return residual.equals(RecordPredicate.always());
+    }
+}
@@ -0,0 +1,166 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordRepository;
+import tn.isg.economics.repository.IndexedExportRecordRepository;
+import tn.isg.economics.repository.RecordQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns a {@link RecordPredicate} into a {@link QueryPlan}.
+ * <p>
+ * Top-level product, destination and date conditions are folded into one {@link RecordQuery}; when the
+ * repository is indexed and that lookup keeps at most {@link #INDEX_THRESHOLD} of the rows it is answered
+ * by the indexes, otherwise the whole predicate becomes a single scan. Remaining conditions are reordered
+ * so that the most selective ones are tested first, using index counts where available and fixed
+ * estimates otherwise.
+ */
+public class QueryPlanner {
+
+    /**
+     * Largest fraction of the table an index lookup may return before a scan is preferred.
+     */
+    static final double INDEX_THRESHOLD = 0.5;
+
+    private static final double PRODUCT_SELECTIVITY = 1.0 / ProductType.values().length;
+    private static final double DESTINATION_SELECTIVITY = 0.1;
+    private static final double RANGE_SELECTIVITY = 0.5;
+
+    private final ExportRecordRepository repository;
+
+    /**
+     * @param repository source of the row counts used for planning, or {@code null} to plan with estimates only
+     */
+    public QueryPlanner(ExportRecordRepository repository) {
+        this.repository = repository;
+    }
+
+    public QueryPlan plan(RecordPredicate predicate) {
+        List<RecordPredicate> conjuncts = predicate instanceof RecordPredicate.And and
+                ? and.terms()
+                : List.of(predicate);
+        RecordQuery lookup = RecordQuery.all();
+        List<RecordPredicate> residual = new ArrayList<>();
+        for (RecordPredicate conjunct : conjuncts) {
+            RecordQuery indexable = indexable(conjunct);
+            if (indexable != null) {
+                lookup = lookup.and(indexable);
+            } else {
+                residual.add(conjunct);
+            }
+        }
+
+        long total = totalRows();
+        if (repository instanceof IndexedExportRecordRepository indexed && !lookup.equals(RecordQuery.all())) {
+            long rows = indexed.count(lookup);
+            if (rows <= total * INDEX_THRESHOLD) {
+                return new QueryPlan(lookup, reorder(RecordPredicate.And.of(residual), total), rows);
+            }
+        }
+        return new QueryPlan(null, reorder(predicate, total), total);
+    }
+
+    /**
+     * @return equivalent predicate whose conjunctions test the most selective terms first and whose
+     * disjunctions test the most likely terms first
+     */
+    public RecordPredicate optimize(RecordPredicate predicate) {
+        return reorder(predicate, totalRows());
+    }
+
+    private RecordPredicate reorder(RecordPredicate predicate, long total) {
+        if (predicate instanceof RecordPredicate.And and) {
+            List<RecordPredicate> terms = new ArrayList<>();
+            and.terms().forEach(term -> terms.add(reorder(term, total)));
+            terms.sort(Comparator.comparingDouble(term -> selectivity(term, total)));
+            return new RecordPredicate.And(terms);
+        }
+        if (predicate instanceof RecordPredicate.Or or) {
+            List<RecordPredicate> terms = new ArrayList<>();
+            or.terms().forEach(term -> terms.add(reorder(term, total)));
+            terms.sort(Comparator.comparingDouble(term -> -selectivity(term, total)));
+            return new RecordPredicate.Or(terms);
+        }
+        if (predicate instanceof RecordPredicate.Not not) {
+            return new RecordPredicate.Not(reorder(not.predicate(), total));
+        }
+        return predicate;
+    }
+
+    /**
+     * @return estimated fraction of rows matching {@code predicate}
+     */
+    double selectivity(RecordPredicate predicate, long total) {
+        if (repository instanceof IndexedExportRecordRepository indexed && total > 0) {
+            RecordQuery indexable = indexable(predicate);
+            if (indexable != null) {
+                return (double) indexed.count(indexable) / total;
+            }
+        }
+        return switch (predicate) {
+            case RecordPredicate.ProductEq ignored -> PRODUCT_SELECTIVITY;
+            case RecordPredicate.DestinationIn in -> Math.min(1.0, in.destinations().size() * DESTINATION_SELECTIVITY);
+            case RecordPredicate.DateBetween ignored -> RANGE_SELECTIVITY;
+            case RecordPredicate.VolumeRange ignored -> RANGE_SELECTIVITY;
+            case RecordPredicate.IndicatorThreshold ignored -> RANGE_SELECTIVITY;
+            case RecordPredicate.And and -> {
+                double product = 1.0;
+                for (RecordPredicate term : and.terms()) {
+                    product *= selectivity(term, total);
+                }
+                yield product;
+            }
+            case RecordPredicate.Or or -> {
+                double none = 1.0;
+                for (RecordPredicate term : or.terms()) {
+                    none *= 1.0 - selectivity(term, total);
+                }
+                yield 1.0 - none;
+            }
+            case RecordPredicate.Not not -> 1.0 - selectivity(not.predicate(), total);
+        };
+    }
+
+    /**
+     * @return the index lookup equivalent to {@code predicate}, or {@code null} if the indexes cannot answer it
+     */
+    static RecordQuery indexable(RecordPredicate predicate) {
+        return switch (predicate) {
+            case RecordPredicate.ProductEq eq -> RecordQuery.product(eq.product());
+            case RecordPredicate.DestinationIn in -> RecordQuery.destinations(in.destinations());
+            case RecordPredicate.DateBetween between -> RecordQuery.between(between.from(), between.to());
+            case RecordPredicate.Or or -> indexableUnion(or.terms());
+            default -> null;
+        };
+    }
+
+    /**
+     * Disjunctions of products, or of destinations, map to a single set lookup.
+     */
+    private static RecordQuery indexableUnion(List<RecordPredicate> terms) {
+        Set<ProductType> products = new HashSet<>();
+        Set<String> destinations = new HashSet<>();
+        for (RecordPredicate term : terms) {
+            if (term instanceof RecordPredicate.ProductEq eq) {
+                products.add(eq.product());
+            } else if (term instanceof RecordPredicate.DestinationIn in) {
+                destinations.addAll(in.destinations());
+            } else {
+                return null;
+            }
+        }
+        if (destinations.isEmpty()) {
+            return new RecordQuery(products, null, null, null);
+        }
+        return products.isEmpty() ? RecordQuery.destinations(destinations) : null;
+    }
+
+    private long totalRows() {
+        return repository == null ? 0 : repository.size();
+    }
+}
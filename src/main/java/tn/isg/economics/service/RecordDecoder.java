@@ -0,0 +1,686 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.exceptions.DataAccessException;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses CSV lines or JSON objects straight from bytes into export records, the reverse of
+ * {@link RecordEncoder}: dates, product types and numbers are decoded in place, and destinations are
+ * looked up by their bytes so each distinct name becomes one shared {@code String}.
+ * <p>
+ * Decimals of up to 18 digits without an exponent are converted exactly, which yields the same doubles as
+ * {@link Double#parseDouble(String)} and the same BigDecimals as {@link BigDecimal#BigDecimal(String)};
+ * other numbers go through those methods. Records without indicators get an empty map.
+ * A decoder is not thread-safe.
+ */
+final class RecordDecoder {
+
+    private static final ProductType[] PRODUCTS = ProductType.values();
+    private static final MarketIndicator[] INDICATORS = MarketIndicator.values();
+    private static final byte[][] PRODUCT_NAMES = new byte[PRODUCTS.length][];
+    private static final byte[][] INDICATOR_NAMES = new byte[INDICATORS.length][];
+    private static final byte[] CSV_HEADER = bytes(RecordExporter.CSV_HEADER.strip());
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] DATE = bytes("date");
+    private static final byte[] PRODUCT_TYPE = bytes("productType");
+    private static final byte[] DESTINATION = bytes("destination");
+    private static final byte[] VOLUME_TONS = bytes("volumeTons");
+    private static final byte[] PRICE_PER_TON = bytes("pricePerTon");
+    private static final byte[] INDICATORS_KEY = bytes("indicators");
+    /**
+     * Powers of ten exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = new double[23];
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final int MAX_EXACT_DIGITS = 18;
+
+    static {
+        for (ProductType product : PRODUCTS) {
+            PRODUCT_NAMES[product.ordinal()] = bytes(product.name());
+        }
+        for (MarketIndicator indicator : INDICATORS) {
+            INDICATOR_NAMES[indicator.ordinal()] = bytes(indicator.name());
+        }
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final Map<String, String> interned;
+    private byte[] bytes;
+    private int position;
+    private int end;
+    private long offset;
+
+    /**
+     * Open-addressing table from destination bytes to names; {@code null} keys are free slots.
+     */
+    private byte[][] names = new byte[16][];
+    private String[] values = new String[16];
+    private int nameCount;
+
+    private int dateKey = -1;
+    private LocalDate date;
+
+    /**
+     * Number read by {@link #number(int)}: unscaled value and scale, valid when that method returns true.
+     */
+    private long unscaled;
+    private int scale;
+    private boolean negative;
+    private int numberStart;
+
+    /**
+     * @param interned names already decoded by any decoder, so equal destinations share one instance;
+     *                 must be thread-safe when shared
+     */
+    RecordDecoder(Map<String, String> interned) {
+        this.interned = interned;
+    }
+
+    /**
+     * Parses the lines of {@code bytes[from, to)} in the {@link RecordExporter#exportToCsv} layout.
+     *
+     * @param offset position of {@code bytes[from]} in the input, for error messages
+     * @param header whether the lines start with the CSV header
+     */
+    List<ExportRecord> csv(byte[] bytes, int from, int to, long offset, boolean header) {
+        reset(bytes, from, to, offset);
+        if (header) {
+            int lineEnd = lineEnd();
+            int headerEnd = lineEnd > from && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            if (!Arrays.equals(bytes, from, headerEnd, CSV_HEADER, 0, CSV_HEADER.length)) {
+                throw malformed("Unsupported CSV header");
+            }
+            position = Math.min(lineEnd + 1, end);
+        }
+        List<ExportRecord> records = new ArrayList<>((to - from) / 48 + 1);
+        while (position < end) {
+            if (bytes[position] == '\n' || bytes[position] == '\r') {
+                position++;
+                continue;
+            }
+            LocalDate recordDate = date(field());
+            expect(',');
+            ProductType product = product(field());
+            expect(',');
+            String destination = csvDestination();
+            expect(',');
+            double volume = volume(field());
+            expect(',');
+            BigDecimal price = csvPrice();
+            if (position < end && bytes[position] == '\r') {
+                position++;
+            }
+            if (position < end && bytes[position] != '\n') {
+                throw malformed("Expected end of line");
+            }
+            records.add(new ExportRecord(recordDate, product, destination, volume, price, Map.of()));
+        }
+        return records;
+    }
+
+    /**
+     * Parses the JSON objects of {@code bytes[from, to)}, as written by {@link RecordExporter#exportToJson}
+     * or one per line. Unknown fields are skipped; {@code indicators} may hold an object of
+     * {@link MarketIndicator} names to numbers.
+     *
+     * @param offset position of {@code bytes[from]} in the input, for error messages
+     * @param array  whether the objects are elements of an array, so brackets and commas separate them
+     */
+    List<ExportRecord> json(byte[] bytes, int from, int to, long offset, boolean array) {
+        reset(bytes, from, to, offset);
+        List<ExportRecord> records = new ArrayList<>((to - from) / 128 + 1);
+        while (true) {
+            skipWhitespace();
+            while (array && position < end && (bytes[position] == '[' || bytes[position] == ',' || bytes[position] == ']')) {
+                position++;
+                skipWhitespace();
+            }
+            if (position == end) {
+                return records;
+            }
+            records.add(jsonObject());
+        }
+    }
+
+    private ExportRecord jsonObject() {
+        expect('{');
+        LocalDate recordDate = null;
+        ProductType product = null;
+        String destination = null;
+        double volume = Double.NaN;
+        boolean hasVolume = false;
+        BigDecimal price = null;
+        Map<MarketIndicator, Double> indicators = Map.of();
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            throw malformed("Empty record");
+        }
+        while (true) {
+            int keyStart = position + 1;
+            int keyEnd = string();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (key(keyStart, keyEnd, DATE)) {
+                recordDate = date(stringValue());
+                position++;
+            } else if (key(keyStart, keyEnd, PRODUCT_TYPE)) {
+                product = product(stringValue());
+                position++;
+            } else if (key(keyStart, keyEnd, DESTINATION)) {
+                destination = literalNull() ? null : jsonDestination();
+            } else if (key(keyStart, keyEnd, VOLUME_TONS)) {
+                volume = volume(numberEnd());
+                hasVolume = true;
+            } else if (key(keyStart, keyEnd, PRICE_PER_TON)) {
+                price = literalNull() ? null : price(numberEnd());
+            } else if (key(keyStart, keyEnd, INDICATORS_KEY)) {
+                indicators = literalNull() ? Map.of() : indicators();
+            } else {
+                skipValue();
+            }
+            skipWhitespace();
+            byte next = next();
+            if (next == '}') {
+                break;
+            }
+            if (next != ',') {
+                position--;
+                throw malformed("Expected ',' or '}'");
+            }
+            skipWhitespace();
+        }
+        if (recordDate == null || product == null || !hasVolume) {
+            throw malformed("Record without date, productType or volumeTons");
+        }
+        return new ExportRecord(recordDate, product, destination, volume, price, indicators);
+    }
+
+    private Map<MarketIndicator, Double> indicators() {
+        expect('{');
+        Map<MarketIndicator, Double> indicators = new EnumMap<>(MarketIndicator.class);
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return Collections.unmodifiableMap(indicators);
+        }
+        while (true) {
+            int keyStart = position + 1;
+            int keyEnd = string();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            MarketIndicator indicator = indicator(keyStart, keyEnd - 1);
+            if (indicator == null || literalNull()) {
+                skipValue();
+            } else {
+                indicators.put(indicator, volume(numberEnd()));
+            }
+            skipWhitespace();
+            byte next = next();
+            if (next == '}') {
+                return Collections.unmodifiableMap(indicators);
+            }
+            if (next != ',') {
+                position--;
+                throw malformed("Expected ',' or '}'");
+            }
+            skipWhitespace();
+        }
+    }
+
+    /**
+     * @return the end of the field starting at the current position, at the next comma or line end
+     */
+    private int field() {
+        int i = position;
+        while (i < end && bytes[i] != ',' && bytes[i] != '\n' && bytes[i] != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    private int lineEnd() {
+        int i = position;
+        while (i < end && bytes[i] != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Reads a {@code yyyy-MM-dd} date ending at {@code fieldEnd}, reusing the previous instance for runs of
+     * the same day.
+     */
+    private LocalDate date(int fieldEnd) {
+        int start = position;
+        if (fieldEnd - start == 10 && bytes[start + 4] == '-' && bytes[start + 7] == '-') {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            if ((year | month | day) >= 0) {
+                int key = (year * 100 + month) * 100 + day;
+                if (key != dateKey) {
+                    try {
+                        date = LocalDate.of(year, month, day);
+                    } catch (DateTimeException e) {
+                        throw malformed("Invalid date");
+                    }
+                    dateKey = key;
+                }
+                position = fieldEnd;
+                return date;
+            }
+        }
+        try {
+            LocalDate parsed = LocalDate.parse(ascii(start, fieldEnd));
+            position = fieldEnd;
+            return parsed;
+        } catch (DateTimeException e) {
+            throw malformed("Invalid date");
+        }
+    }
+
+    /**
+     * @return the decimal value of {@code count} digits at {@code from}, or -1 if one is not a digit
+     */
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private ProductType product(int fieldEnd) {
+        for (int i = 0; i < PRODUCT_NAMES.length; i++) {
+            if (Arrays.equals(bytes, position, fieldEnd, PRODUCT_NAMES[i], 0, PRODUCT_NAMES[i].length)) {
+                position = fieldEnd;
+                return PRODUCTS[i];
+            }
+        }
+        throw malformed("Unknown product type");
+    }
+
+    private MarketIndicator indicator(int keyStart, int keyEnd) {
+        for (int i = 0; i < INDICATOR_NAMES.length; i++) {
+            if (Arrays.equals(bytes, keyStart, keyEnd, INDICATOR_NAMES[i], 0, INDICATOR_NAMES[i].length)) {
+                return INDICATORS[i];
+            }
+        }
+        return null;
+    }
+
+    private String csvDestination() {
+        if (peek() != '"') {
+            int fieldEnd = field();
+            if (Arrays.equals(bytes, position, fieldEnd, NULL, 0, NULL.length)) {
+                position = fieldEnd;
+                return null;
+            }
+            String name = name(position, fieldEnd, false);
+            position = fieldEnd;
+            return name;
+        }
+        // Quoted: doubled quotes stand for one
+        int start = ++position;
+        boolean escaped = false;
+        while (true) {
+            if (position == end) {
+                throw malformed("Unterminated quoted field");
+            }
+            if (bytes[position] == '"') {
+                if (position + 1 < end && bytes[position + 1] == '"') {
+                    escaped = true;
+                    position += 2;
+                    continue;
+                }
+                break;
+            }
+            position++;
+        }
+        String name = escaped
+                ? intern(new String(bytes, start, position - start, StandardCharsets.UTF_8).replace("\"\"", "\""))
+                : name(start, position, false);
+        position++;
+        return name;
+    }
+
+    private String jsonDestination() {
+        int start = position + 1;
+        int stringEnd = string();
+        return name(start, stringEnd - 1, hasBackslash(start, stringEnd - 1));
+    }
+
+    /**
+     * @return the interned name of the bytes {@code [from, to)}, unescaping JSON escapes if {@code escaped}
+     */
+    private String name(int from, int to, boolean escaped) {
+        if (escaped) {
+            return intern(unescape(new String(bytes, from, to - from, StandardCharsets.UTF_8)));
+        }
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int mask = names.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (names[slot] != null) {
+            if (Arrays.equals(names[slot], 0, names[slot].length, bytes, from, to)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        String name = intern(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        names[slot] = Arrays.copyOfRange(bytes, from, to);
+        values[slot] = name;
+        if (++nameCount * 2 > names.length) {
+            growNames();
+        }
+        return name;
+    }
+
+    private void growNames() {
+        byte[][] oldNames = names;
+        String[] oldValues = values;
+        names = new byte[oldNames.length * 2][];
+        values = new String[oldNames.length * 2];
+        int mask = names.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int hash = 1;
+                for (byte b : oldNames[i]) {
+                    hash = 31 * hash + b;
+                }
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (names[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                names[slot] = oldNames[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private String intern(String name) {
+        String existing = interned.putIfAbsent(name, name);
+        return existing != null ? existing : name;
+    }
+
+    private BigDecimal csvPrice() {
+        int fieldEnd = field();
+        if (fieldEnd == position || Arrays.equals(bytes, position, fieldEnd, NULL, 0, NULL.length)) {
+            position = fieldEnd;
+            return null;
+        }
+        return price(fieldEnd);
+    }
+
+    /**
+     * Reads the number ending at {@code numberEnd} as a double.
+     */
+    private double volume(int numberEnd) {
+        if (number(numberEnd) && unscaled < MAX_EXACT_DOUBLE && scale < POWERS_OF_TEN.length) {
+            // Both operands are exact, so the correctly rounded quotient is the double nearest the decimal
+            double magnitude = scale == 0 ? unscaled : unscaled / POWERS_OF_TEN[scale];
+            return negative ? -magnitude : magnitude;
+        }
+        try {
+            return Double.parseDouble(ascii(numberStart, numberEnd));
+        } catch (NumberFormatException e) {
+            position = numberStart;
+            throw malformed("Invalid number");
+        }
+    }
+
+    private BigDecimal price(int numberEnd) {
+        if (number(numberEnd)) {
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+        }
+        try {
+            return new BigDecimal(ascii(numberStart, numberEnd));
+        } catch (NumberFormatException e) {
+            position = numberStart;
+            throw malformed("Invalid number");
+        }
+    }
+
+    /**
+     * Reads the digits up to {@code numberEnd} into {@link #unscaled} and {@link #scale}, moving past them.
+     *
+     * @return whether the number is a plain decimal of at most {@value #MAX_EXACT_DIGITS} digits; otherwise
+     * it must be parsed from {@link #numberStart}
+     */
+    private boolean number(int numberEnd) {
+        numberStart = position;
+        negative = position < numberEnd && bytes[position] == '-';
+        int i = negative ? position + 1 : position;
+        long value = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < numberEnd; i++) {
+            int digit = bytes[i] - '0';
+            if (digit >= 0 && digit <= 9) {
+                value = value * 10 + digit;
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (bytes[i] == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            throw malformed("Invalid number");
+        }
+        position = numberEnd;
+        unscaled = value;
+        scale = Math.max(decimals, 0);
+        return i == numberEnd && digits <= MAX_EXACT_DIGITS;
+    }
+
+    /**
+     * @return the end of the JSON number starting at the current position
+     */
+    private int numberEnd() {
+        int i = position;
+        while (i < end) {
+            byte b = bytes[i];
+            if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Expects a JSON string without escapes and returns its end, leaving the position on the closing quote.
+     */
+    private int stringValue() {
+        int start = position + 1;
+        int stringEnd = string();
+        if (hasBackslash(start, stringEnd - 1)) {
+            position = start;
+            throw malformed("Unexpected escape");
+        }
+        position = start;
+        return stringEnd - 1;
+    }
+
+    /**
+     * Moves past the JSON string at the current position.
+     *
+     * @return the position after its closing quote
+     */
+    private int string() {
+        expect('"');
+        while (true) {
+            if (position >= end) {
+                throw malformed("Unterminated string");
+            }
+            byte b = bytes[position++];
+            if (b == '"') {
+                return position;
+            }
+            if (b == '\\') {
+                position++;
+            }
+        }
+    }
+
+    private boolean hasBackslash(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean literalNull() {
+        if (Arrays.equals(bytes, position, Math.min(position + NULL.length, end), NULL, 0, NULL.length)) {
+            position += NULL.length;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipValue() {
+        byte first = peek();
+        if (first == '"') {
+            string();
+            return;
+        }
+        if (first != '{' && first != '[') {
+            while (position < end && bytes[position] != ',' && bytes[position] != '}' && bytes[position] != ']'
+                    && !whitespace(bytes[position])) {
+                position++;
+            }
+            return;
+        }
+        int depth = 0;
+        do {
+            byte b = peek();
+            if (b == '"') {
+                string();
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+            position++;
+        } while (depth > 0);
+    }
+
+    private static String unescape(String value) {
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                unescaped.append(c);
+                continue;
+            }
+            char escape = value.charAt(++i);
+            switch (escape) {
+                case 'b' -> unescaped.append('\b');
+                case 'f' -> unescaped.append('\f');
+                case 'n' -> unescaped.append('\n');
+                case 'r' -> unescaped.append('\r');
+                case 't' -> unescaped.append('\t');
+                case 'u' -> {
+                    if (i + 4 >= value.length()) {
+                        throw new DataAccessException("Invalid escape in " + value);
+                    }
+                    try {
+                        unescaped.append((char) Integer.parseInt(value, i + 1, i + 5, 16));
+                    } catch (NumberFormatException e) {
+                        throw new DataAccessException("Invalid escape in " + value, e);
+                    }
+                    i += 4;
+                }
+                default -> unescaped.append(escape);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    private boolean key(int keyStart, int keyEnd, byte[] name) {
+        return Arrays.equals(bytes, keyStart, keyEnd - 1, name, 0, name.length);
+    }
+
+    private void reset(byte[] bytes, int from, int to, long offset) {
+        this.bytes = bytes;
+        this.position = from;
+        this.end = to;
+        this.offset = offset - from;
+    }
+
+    private void skipWhitespace() {
+        while (position < end && whitespace(bytes[position])) {
+            position++;
+        }
+    }
+
+    private static boolean whitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private byte peek() {
+        if (position >= end) {
+            throw malformed("Unexpected end of input");
+        }
+        return bytes[position];
+    }
+
+    private byte next() {
+        byte b = peek();
+        position++;
+        return b;
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw malformed("Expected '" + expected + "'");
+        }
+        position++;
+    }
+
+    private String ascii(int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.US_ASCII);
+    }
+
+    private DataAccessException malformed(String problem) {
+        return new DataAccessException(problem + " at offset " + (offset + position));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,245 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordColumns;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes export records as CSV lines or JSON objects into an {@link ExportBuffer} without per-row
+ * formatting objects: product and destination names are encoded once, dates once per day, and numbers
+ * are written digit by digit. Column stores are read row by row without materializing records.
+ * <p>
+ * The output is the one {@link RecordExporter} has always produced: CSV volumes rounded HALF_UP to two
+ * decimals, JSON volumes as {@link Double#toString(double)}, prices as {@link BigDecimal#toString()}.
+ * Destinations are quoted in CSV when they contain a separator and escaped in JSON.
+ * An encoder is not thread-safe.
+ */
+final class RecordEncoder {
+
+    private static final byte[] CSV_HEADER = RecordExporter.CSV_HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] JSON_START = bytes("[\n");
+    private static final byte[] JSON_SEPARATOR = bytes(",\n");
+    private static final byte[] JSON_DATE = bytes("  {\n    \"date\": \"");
+    private static final byte[] JSON_PRODUCT = bytes("\",\n    \"productType\": \"");
+    private static final byte[] JSON_DESTINATION = bytes("\",\n    \"destination\": ");
+    private static final byte[] JSON_VOLUME = bytes(",\n    \"volumeTons\": ");
+    private static final byte[] JSON_PRICE = bytes(",\n    \"pricePerTon\": ");
+    private static final byte[] JSON_OBJECT_END = bytes("\n  }");
+    private static final byte[][] PRODUCTS = new byte[ProductType.values().length][];
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        for (ProductType product : ProductType.values()) {
+            PRODUCTS[product.ordinal()] = bytes(product.name());
+        }
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final ExportBuffer out;
+    private final Map<String, byte[]> destinations = new HashMap<>();
+    private ExportRecordColumns columns;
+    private byte[][] columnDestinations;
+    private long jsonObjects;
+
+    RecordEncoder(ExportBuffer out) {
+        this.out = out;
+    }
+
+    void csvHeader() throws IOException {
+        out.put(CSV_HEADER);
+    }
+
+    void csv(ExportRecord record) throws IOException {
+        out.putDate(record.date().toEpochDay());
+        out.put((byte) ',');
+        out.put(PRODUCTS[record.productType().ordinal()]);
+        out.put((byte) ',');
+        out.put(destinations.computeIfAbsent(record.destination(), RecordEncoder::csvString));
+        out.put((byte) ',');
+        csvVolume(record.volumeTons());
+        out.put((byte) ',');
+        price(record.pricePerTon());
+        out.put((byte) '\n');
+    }
+
+    void csv(ExportRecordColumns rows, int row) throws IOException {
+        out.putDate(rows.epochDay(row));
+        out.put((byte) ',');
+        out.put(PRODUCTS[rows.productType(row).ordinal()]);
+        out.put((byte) ',');
+        out.put(columnDestination(rows, row, false));
+        out.put((byte) ',');
+        csvVolume(rows.volumeTons(row));
+        out.put((byte) ',');
+        price(rows, row);
+        out.put((byte) '\n');
+    }
+
+    void jsonStart() throws IOException {
+        out.put(JSON_START);
+    }
+
+    void json(ExportRecord record) throws IOException {
+        jsonObjectStart(record.date().toEpochDay(), record.productType());
+        out.put(destinations.computeIfAbsent(record.destination(), RecordEncoder::jsonString));
+        out.put(JSON_VOLUME);
+        jsonVolume(record.volumeTons());
+        out.put(JSON_PRICE);
+        price(record.pricePerTon());
+        out.put(JSON_OBJECT_END);
+    }
+
+    void json(ExportRecordColumns rows, int row) throws IOException {
+        jsonObjectStart(rows.epochDay(row), rows.productType(row));
+        out.put(columnDestination(rows, row, true));
+        out.put(JSON_VOLUME);
+        jsonVolume(rows.volumeTons(row));
+        out.put(JSON_PRICE);
+        price(rows, row);
+        out.put(JSON_OBJECT_END);
+    }
+
+    void jsonEnd() throws IOException {
+        if (jsonObjects > 0) {
+            out.put((byte) '\n');
+        }
+        out.put((byte) ']');
+    }
+
+    private void jsonObjectStart(long epochDay, ProductType productType) throws IOException {
+        if (jsonObjects++ > 0) {
+            out.put(JSON_SEPARATOR);
+        }
+        out.put(JSON_DATE);
+        out.putDate(epochDay);
+        out.put(JSON_PRODUCT);
+        out.put(PRODUCTS[productType.ordinal()]);
+        out.put(JSON_DESTINATION);
+    }
+
+    /**
+     * Writes {@code BigDecimal.valueOf(volume).setScale(2, HALF_UP)}.
+     */
+    private void csvVolume(double volume) throws IOException {
+        long decimal = ShortestDecimal.decompose(volume);
+        if (decimal == ShortestDecimal.UNSUPPORTED) {
+            out.put(bytes(BigDecimal.valueOf(volume).setScale(2, RoundingMode.HALF_UP).toPlainString()));
+            return;
+        }
+        long unscaled = ShortestDecimal.unscaled(decimal);
+        int scale = ShortestDecimal.scale(decimal);
+        if (scale <= 2) {
+            out.putDecimal(unscaled * POWERS_OF_TEN[2 - scale], 2);
+            return;
+        }
+        long divisor = POWERS_OF_TEN[scale - 2];
+        long rounded = unscaled / divisor;
+        if (Math.abs(unscaled % divisor) * 2 >= divisor) {
+            rounded += unscaled < 0 ? -1 : 1;
+        }
+        out.putDecimal(rounded, 2);
+    }
+
+    /**
+     * Writes {@link Double#toString(double)} of {@code volume}.
+     */
+    private void jsonVolume(double volume) throws IOException {
+        long decimal = ShortestDecimal.decompose(volume);
+        if (decimal == ShortestDecimal.UNSUPPORTED) {
+            out.put(bytes(Double.toString(volume)));
+        } else {
+            out.putDecimal(ShortestDecimal.unscaled(decimal), ShortestDecimal.scale(decimal));
+        }
+    }
+
+    /**
+     * Writes {@link BigDecimal#toString()} of {@code price}, or {@code null}.
+     */
+    private void price(BigDecimal price) throws IOException {
+        if (price == null) {
+            out.put(NULL);
+            return;
+        }
+        int scale = price.scale();
+        // toString is plain for these, with the same digits as toPlainString
+        if (scale >= 0 && scale < POWERS_OF_TEN.length && price.precision() < POWERS_OF_TEN.length
+                && price.precision() - 1 - scale >= -6) {
+            out.putDecimal(price.unscaledValue().longValue(), scale);
+        } else {
+            out.put(bytes(price.toString()));
+        }
+    }
+
+    private void price(ExportRecordColumns rows, int row) throws IOException {
+        if (rows.hasPrice(row)) {
+            out.putDecimal(rows.priceCents(row), ExportRecordColumns.PRICE_SCALE);
+        } else {
+            out.put(NULL);
+        }
+    }
+
+    private byte[] columnDestination(ExportRecordColumns rows, int row, boolean json) {
+        if (rows != columns || columnDestinations.length < rows.destinationCount()) {
+            columns = rows;
+            columnDestinations = new byte[rows.destinationCount()][];
+        }
+        int id = rows.destinationId(row);
+        byte[] name = columnDestinations[id];
+        if (name == null) {
+            String destination = rows.destinationName(id);
+            name = json ? jsonString(destination) : csvString(destination);
+            columnDestinations[id] = name;
+        }
+        return name;
+    }
+
+    private static byte[] csvString(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+        return ('"' + value.replace("\"", "\"\"") + '"').getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] jsonString(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
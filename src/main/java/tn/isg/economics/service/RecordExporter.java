@@ -0,0 +1,86 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.repository.ExportRecordColumns;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes export records to CSV, JSON or columnar binary files.
+ * <p>
+ * Records are streamed through a {@value #BUFFER_SIZE}-byte direct buffer, so memory use does not grow with
+ * the number of records. Column stores are exported without materializing their rows. Files are compressed
+ * as their name implies, see {@link Compression#of(Path)}, unless a compression is given.
+ */
+public final class RecordExporter {
+
+    static final String CSV_HEADER = "Date,ProductType,Destination,VolumeTons,PricePerTon\n";
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private RecordExporter() {
+    }
+
+    public static void exportToCsv(List<ExportRecord> records, Path path) throws IOException {
+        exportToCsv(records, path, Compression.of(path));
+    }
+
+    public static void exportToCsv(List<ExportRecord> records, Path path, Compression compression) throws IOException {
+        try (ExportBuffer out = open(path, compression)) {
+            RecordEncoder encoder = new RecordEncoder(out);
+            encoder.csvHeader();
+            if (records instanceof ExportRecordColumns columns) {
+                for (int row = 0, size = columns.size(); row < size; row++) {
+                    encoder.csv(columns, row);
+                }
+            } else {
+                for (ExportRecord record : records) {
+                    encoder.csv(record);
+                }
+            }
+        }
+    }
+
+    public static void exportToJson(List<ExportRecord> records, Path path) throws IOException {
+        exportToJson(records, path, Compression.of(path));
+    }
+
+    public static void exportToJson(List<ExportRecord> records, Path path, Compression compression) throws IOException {
+        try (ExportBuffer out = open(path, compression)) {
+            RecordEncoder encoder = new RecordEncoder(out);
+            encoder.jsonStart();
+            if (records instanceof ExportRecordColumns columns) {
+                for (int row = 0, size = columns.size(); row < size; row++) {
+                    encoder.json(columns, row);
+                }
+            } else {
+                for (ExportRecord record : records) {
+                    encoder.json(record);
+                }
+            }
+            encoder.jsonEnd();
+        }
+    }
+
+    /**
+     * Writes {@code records} as a columnar binary file: dictionary-encoded destinations, delta-encoded dates and
+     * per-row-group value ranges, read back by {@link ColumnarFileReader}. Prices are stored in cents.
+     */
+    public static void exportToColumnar(List<ExportRecord> records, Path path) throws IOException {
+        ColumnarFileWriter.write(records, path);
+    }
+
+    static ExportBuffer open(Path path, Compression compression) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            return new ExportBuffer(compression.wrap(channel), BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package tn.isg.economics.service;
+
+import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.exceptions.EconomicsException;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.repository.ExportRecordRepository;
+import tn.isg.economics.repository.MappedSegmentExportRecordRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Bulk loader of export records from the CSV and JSON files {@link RecordExporter} writes, and from JSON
+ * lines files with one such object per line.
+ * <p>
+ * The file is read sequentially in chunks of {@value #CHUNK_SIZE} bytes, each cut after its last complete
+ * record; the rest is carried over to the next chunk. Chunks are parsed in parallel by
+ * {@link RecordDecoder}s, without intermediate strings, and handed over in file order with at most two
+ * chunks per worker in memory at any time, so files of any size load in bounded memory. Destinations are
+ * interned across the whole file. Compressed files are decompressed on the fly.
+ */
+@Slf4j
+public class RecordImporter {
+
+    static final int CHUNK_SIZE = 4 << 20;
+
+    private final int parallelism;
+    private final int chunkSize;
+
+    /**
+     * Layout of an import file.
+     */
+    public enum Format {
+        /**
+         * The header and lines of {@link RecordExporter#exportToCsv}; quoted fields may span lines.
+         */
+        CSV,
+        /**
+         * An array of objects, as written by {@link RecordExporter#exportToJson}.
+         */
+        JSON,
+        /**
+         * One object per line.
+         */
+        JSON_LINES;
+
+        /**
+         * @return the format implied by the file name once any {@code .gz} or {@code .zst} suffix is removed:
+         * {@code .csv}, {@code .json}, or {@code .jsonl} and {@code .ndjson} for JSON lines
+         * @throws IllegalArgumentException for other names
+         */
+        public static Format of(Path path) {
+            String fileName = path.getFileName().toString().toLowerCase().replaceFirst("\\.(gz|zst)$", "");
+            if (fileName.endsWith(".csv")) {
+                return CSV;
+            }
+            if (fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson")) {
+                return JSON_LINES;
+            }
+            if (fileName.endsWith(".json")) {
+                return JSON;
+            }
+            throw new IllegalArgumentException("Unknown record file format: " + path);
+        }
+    }
+
+    /**
+     * Parses on one worker per available processor.
+     */
+    public RecordImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism number of worker threads parsing chunks
+     */
+    public RecordImporter(int parallelism) {
+        this(parallelism, CHUNK_SIZE);
+    }
+
+    RecordImporter(int parallelism, int chunkSize) {
+        if (parallelism <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Parallelism and chunk size must be positive");
+        }
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Appends the records of {@code path} to {@code repository}, one batch per chunk. The format and
+     * compression are those implied by the file name, see {@link Format#of(Path)} and {@link Compression#of(Path)}.
+     *
+     * @return number of records imported
+     */
+    public long importInto(ExportRecordRepository repository, Path path) throws IOException {
+        return read(path, repository::append);
+    }
+
+    /**
+     * Hands the records of {@code path} over to {@code sink} in file order, one batch per chunk, from the
+     * calling thread. The format and compression are those implied by the file name.
+     *
+     * @return number of records read
+     */
+    public long read(Path path, Consumer<List<ExportRecord>> sink) throws IOException {
+        return read(path, Format.of(path), Compression.of(path), sink);
+    }
+
+    /**
+     * Hands the records of {@code path} over to {@code sink} in file order, one batch per chunk, from the
+     * calling thread.
+     *
+     * @return number of records read
+     * @throws tn.isg.economics.exceptions.DataAccessException if the file is malformed
+     */
+    public long read(Path path, Format format, Compression compression, Consumer<List<ExportRecord>> sink)
+            throws IOException {
+        long started = System.nanoTime();
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+        ReadableByteChannel in;
+        try {
+            in = compression.unwrap(file);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "record-importer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, String> destinations = new ConcurrentHashMap<>();
+        Queue<byte[]> freeChunks = new ConcurrentLinkedQueue<>();
+        Queue<Future<List<ExportRecord>>> inFlight = new ArrayDeque<>();
+        Splitter splitter = new Splitter(format);
+        long records = 0;
+        try (in) {
+            byte[] chunk = new byte[chunkSize];
+            int length = 0;
+            long offset = 0;
+            boolean eof = false;
+            while (!eof) {
+                int scanned = length;
+                ByteBuffer target = ByteBuffer.wrap(chunk, length, chunk.length - length);
+                while (target.hasRemaining() && !eof) {
+                    eof = in.read(target) < 0;
+                }
+                length = target.position();
+                int boundary = eof ? length : splitter.lastBoundary(chunk, scanned, length);
+                if (boundary < 0) {
+                    // A record longer than the chunk: read on into a larger one
+                    chunk = Arrays.copyOf(chunk, chunk.length * 2);
+                    continue;
+                }
+                if (inFlight.size() == 2 * parallelism) {
+                    records += accept(inFlight.remove(), sink);
+                }
+                byte[] next = freeChunks.poll();
+                if (next == null || next.length < length - boundary) {
+                    next = new byte[Math.max(chunkSize, length - boundary)];
+                }
+                System.arraycopy(chunk, boundary, next, 0, length - boundary);
+                if (boundary > 0 || offset == 0) {
+                    inFlight.add(workers.submit(parse(format, chunk, boundary, offset, destinations, freeChunks)));
+                }
+                offset += boundary;
+                length -= boundary;
+                chunk = next;
+            }
+            while (!inFlight.isEmpty()) {
+                records += accept(inFlight.remove(), sink);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EconomicsException("Interrupted while importing " + path, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new EconomicsException("Import of " + path + " failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        log.info("Imported {} records from {} in {} ms", records, path, (System.nanoTime() - started) / 1_000_000);
+        return records;
+    }
+
+    /**
+     * Imports {@code input} into the {@link MappedSegmentExportRecordRepository} directory {@code output}.
+     * <p>
+     * Usage: {@code RecordImporter <input.csv|.json|.jsonl[.gz|.zst]> <segment-directory>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: RecordImporter <input.csv|.json|.jsonl[.gz|.zst]> <segment-directory>");
+            System.exit(2);
+        }
+        try (MappedSegmentExportRecordRepository repository = new MappedSegmentExportRecordRepository(Path.of(args[1]))) {
+            new RecordImporter().importInto(repository, Path.of(args[0]));
+        }
+    }
+
+    private static long accept(Future<List<ExportRecord>> parsed, Consumer<List<ExportRecord>> sink)
+            throws InterruptedException, ExecutionException {
+        List<ExportRecord> records = parsed.get();
+        if (!records.isEmpty()) {
+            sink.accept(records);
+        }
+        return records.size();
+    }
+
+    private Callable<List<ExportRecord>> parse(
+            Format format,
+            byte[] chunk,
+            int length,
+            long offset,
+            Map<String, String> destinations,
+            Queue<byte[]> freeChunks
+    ) {
+        return () -> {
+            RecordDecoder decoder = new RecordDecoder(destinations);
+            List<ExportRecord> records = switch (format) {
+                case CSV -> offset == 0 && length == 0
+                        ? List.of()
+                        : decoder.csv(chunk, 0, length, offset, offset == 0);
+                case JSON -> decoder.json(chunk, 0, length, offset, true);
+                case JSON_LINES -> decoder.json(chunk, 0, length, offset, false);
+            };
+            if (chunk.length == chunkSize) {
+                freeChunks.add(chunk);
+            }
+            return records;
+        };
+    }
+
+    /**
+     * Finds where the records of a chunk end, following quotes and nesting from the start of the file.
+     */
+    private static final class Splitter {
+
+        private final Format format;
+        private boolean quoted;
+        private boolean escaped;
+        private int depth;
+
+        Splitter(Format format) {
+            this.format = format;
+        }
+
+        /**
+         * Scans {@code bytes[from, to)}, the bytes following those scanned by the previous calls.
+         *
+         * @return the position after the last complete record of {@code bytes[0, to)}, or -1 if the
+         * bytes scanned since the last chunk was cut hold none
+         */
+        int lastBoundary(byte[] bytes, int from, int to) {
+            int boundary = -1;
+            switch (format) {
+                case JSON_LINES -> {
+                    // Strings hold no raw line breaks
+                    for (int i = to - 1; i >= from; i--) {
+                        if (bytes[i] == '\n') {
+                            return i + 1;
+                        }
+                    }
+                }
+                case CSV -> {
+                    for (int i = from; i < to; i++) {
+                        byte b = bytes[i];
+                        if (b == '"') {
+                            quoted = !quoted;
+                        } else if (b == '\n' && !quoted) {
+                            boundary = i + 1;
+                        }
+                    }
+                }
+                case JSON -> {
+                    for (int i = from; i < to; i++) {
+                        byte b = bytes[i];
+                        if (quoted) {
+                            if (escaped) {
+                                escaped = false;
+                            } else if (b == '\\') {
+                                escaped = true;
+                            } else if (b == '"') {
+                                quoted = false;
+                            }
+                        } else if (b == '"') {
+                            quoted = true;
+                        } else if (b == '{' || b == '[') {
+                            depth++;
+                        } else if (b == '}' || b == ']') {
+                            // An element of the top-level array ends
+                            if (--depth == 1 && b == '}') {
+                                boundary = i + 1;
+                            }
+                        }
+                    }
+                }
+            }
+            return boundary;
+        }
+    }
+}
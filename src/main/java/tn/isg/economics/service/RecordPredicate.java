@@ -0,0 +1,282 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordColumns;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Structured {@link RecordFilter}: a tree of product, destination, date, volume and indicator conditions
+ * combined with and/or/not. Unlike a lambda it can be inspected, so {@link QueryPlanner} can answer it
+ * from repository indexes and evaluate the rest directly on columns.
+ */
+public sealed interface RecordPredicate extends RecordFilter {
+
+    /**
+     * Evaluates row {@code row} of {@code columns} without materializing it as an {@link ExportRecord}.
+     */
+    boolean test(ExportRecordColumns columns, int row);
+
+    /**
+     * @return predicate matching every record
+     */
+    static RecordPredicate always() {
+        return And.TRUE;
+    }
+
+    static RecordPredicate productEq(ProductType product) {
+        return new ProductEq(product);
+    }
+
+    static RecordPredicate destinationIn(String... destinations) {
+        return new DestinationIn(Set.copyOf(List.of(destinations)));
+    }
+
+    static RecordPredicate destinationIn(Set<String> destinations) {
+        return new DestinationIn(destinations);
+    }
+
+    /**
+     * @param from first matching day, or {@code null} for no lower bound
+     * @param to   last matching day, or {@code null} for no upper bound
+     */
+    static RecordPredicate dateBetween(LocalDate from, LocalDate to) {
+        return new DateBetween(from, to);
+    }
+
+    /**
+     * @return predicate matching volumes in {@code [min, max]}
+     */
+    static RecordPredicate volumeBetween(double min, double max) {
+        return new VolumeRange(min, max);
+    }
+
+    /**
+     * @return predicate matching records whose {@code indicator} is present and strictly above {@code threshold}
+     */
+    static RecordPredicate indicatorAbove(MarketIndicator indicator, double threshold) {
+        return new IndicatorThreshold(indicator, threshold, true);
+    }
+
+    /**
+     * @return predicate matching records whose {@code indicator} is present and strictly below {@code threshold}
+     */
+    static RecordPredicate indicatorBelow(MarketIndicator indicator, double threshold) {
+        return new IndicatorThreshold(indicator, threshold, false);
+    }
+
+    static RecordPredicate allOf(RecordPredicate... predicates) {
+        return And.of(List.of(predicates));
+    }
+
+    static RecordPredicate anyOf(RecordPredicate... predicates) {
+        return Or.of(List.of(predicates));
+    }
+
+    static RecordPredicate not(RecordPredicate predicate) {
+        return predicate instanceof Not not ? not.predicate() : new Not(predicate);
+    }
+
+    /**
+     * @return conjunction of both predicates, flattened so chained filters stay a single {@link And}
+     */
+    default RecordPredicate and(RecordPredicate other) {
+        return allOf(this, other);
+    }
+
+    default RecordPredicate or(RecordPredicate other) {
+        return anyOf(this, other);
+    }
+
+    default RecordPredicate negate() {
+        return not(this);
+    }
+
+    record ProductEq(ProductType product) implements RecordPredicate {
+        public ProductEq {
+            Objects.requireNonNull(product, "product");
+        }
+
+        @Override
+        public boolean test(ExportRecord record) {
+            return record.productType() == product;
+        }
+
+        @Override
+        public boolean test(ExportRecordColumns columns, int row) {
+            return columns.productType(row) == product;
+        }
+    }
+
+    record DestinationIn(Set<String> destinations) implements RecordPredicate {
+        public DestinationIn {
+            destinations = Set.copyOf(destinations);
+        }
+
+        @Override
+        public boolean test(ExportRecord record) {
+            return destinations.contains(record.destination());
+        }
+
+        @Override
+        public boolean test(ExportRecordColumns columns, int row) {
+            return destinations.contains(columns.destinationName(columns.destinationId(row)));
+        }
+    }
+
+    record DateBetween(LocalDate from, LocalDate to) implements RecordPredicate {
+        @Override
+        public boolean test(ExportRecord record) {
+            return (from == null || !record.date().isBefore(from)) && (to == null || !record.date().isAfter(to));
+        }
+
+        @Override
+        public boolean test(ExportRecordColumns columns, int row) {
+            long day = columns.epochDay(row);
+            return (from == null || day >= from.toEpochDay()) && (to == null || day <= to.toEpochDay());
+        }
+    }
+
+    record VolumeRange(double min, double max) implements RecordPredicate {
+        @Override
+        public boolean test(ExportRecord record) {
+            return record.volumeTons() >= min && record.volumeTons() <= max;
+        }
+
+        @Override
+        public boolean test(ExportRecordColumns columns, int row) {
+            double volume = columns.volumeTons(row);
+            return volume >= min && volume <= max;
+        }
+    }
+
+    record IndicatorThreshold(MarketIndicator indicator, double threshold, boolean above) implements RecordPredicate {
+        public IndicatorThreshold {
+            Objects.requireNonNull(indicator, "indicator");
+        }
+
+        @Override
+        public boolean test(ExportRecord record) {
+            Map<MarketIndicator, Double> indicators = record.indicators();
+            Double value = indicators == null ? null : indicators.get(indicator);
+            return value != null && passes(value);
+        }
+
+        @Override
+        public boolean test(ExportRecordColumns columns, int row) {
+            return columns.hasIndicator(row, indicator) && passes(columns.indicator(row, indicator));
+        }
+
+        private boolean passes(double value) {
+            return above ? value > threshold : value < threshold;
+        }
+    }
+
+    /**
+     * Conjunction; evaluated left to right, so the planner puts the most selective terms first.
+     * An empty conjunction matches everything.
+     */
+    record And(List<RecordPredicate> terms) implements RecordPredicate {
+        static final And TRUE = new And(List.of());
+
+        public And {
+            terms = List.copyOf(terms);
+        }
+
+        static RecordPredicate of(List<RecordPredicate> predicates) {
+            List<RecordPredicate> flat = new ArrayList<>();
+            for (RecordPredicate predicate : predicates) {
+                if (predicate instanceof And and) {
+                    flat.addAll(and.terms());
+                } else {
+                    flat.add(predicate);
+                }
+            }
+            return flat.size() == 1 ? flat.get(0) : new And(flat);
+        }
+
+        @Override
+        public boolean test(ExportRecord record) {
+            for (RecordPredicate term : terms) {
+                if (!term.test(record)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean test(ExportRecordColumns columns, int row) {
+            for (RecordPredicate term : terms) {
+                if (!term.test(columns, row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Disjunction; an empty disjunction matches nothing.
+     */
+    record Or(List<RecordPredicate> terms) implements RecordPredicate {
+        public Or {
+            terms = List.copyOf(terms);
+        }
+
+        static RecordPredicate of(List<RecordPredicate> predicates) {
+            List<RecordPredicate> flat = new ArrayList<>();
+            for (RecordPredicate predicate : predicates) {
+                if (predicate instanceof Or or) {
+                    flat.addAll(or.terms());
+                } else {
+                    flat.add(predicate);
+                }
+            }
+            return flat.size() == 1 ? flat.get(0) : new Or(flat);
+        }
+
+        @Override
+        public boolean test(ExportRecord record) {
+            for (RecordPredicate term : terms) {
+                if (term.test(record)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean test(ExportRecordColumns columns, int row) {
+            for (RecordPredicate term : terms) {
+                if (term.test(columns, row)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record Not(RecordPredicate predicate) implements RecordPredicate {
+        public Not {
+            Objects.requireNonNull(predicate, "predicate");
+        }
+
+        @Override
+        public boolean test(ExportRecord record) {
+            return !predicate.test(record);
+        }
+
+        @Override
+        public boolean test(ExportRecordColumns columns, int row) {
+            return !predicate.test(columns, row);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package tn.isg.economics.service;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Spliterator over the row indexes {@code [from, to)} of a random-access record list. Splits halve the
+ * range but never go below {@code chunk} rows, so each fork-join leaf scans a contiguous block of the
+ * underlying columns.
+ */
+final class RowSpliterator implements Spliterator.OfInt {
+
+    private int from;
+    private final int to;
+    private final int chunk;
+
+    RowSpliterator(int from, int to, int chunk) {
+        this.from = from;
+        this.to = to;
+        this.chunk = Math.max(1, chunk);
+    }
+
+    @Override
+    public RowSpliterator trySplit() {
+        int remaining = to - from;
+        if (remaining < 2 * chunk) {
+            return null;
+        }
+        // Split on a chunk boundary so partitions do not depend on how deep the split went
+        int middle = from + (remaining / 2 / chunk) * chunk;
+        RowSpliterator prefix = new RowSpliterator(from, middle, chunk);
+        from = middle;
+        return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        if (from >= to) {
+            return false;
+        }
+        action.accept(from++);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        for (int row = from; row < to; row++) {
+            action.accept(row);
+        }
+        from = to;
+    }
+
+    @Override
+    public long estimateSize() {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+    }
+}
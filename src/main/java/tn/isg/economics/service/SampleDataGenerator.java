@@ -0,0 +1,127 @@
+package tn.isg.economics.service;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates sample Tunisian agricultural export data: per-product price bands with a seasonal factor,
+ * random destinations and volumes, and market indicators. The same seed always yields the same records.
+ * <p>
+ * A generator is not thread-safe: parallel producers each use their own, for example one per
+ * {@link SplittableRandom#split() split} of a seeded generator.
+ */
+public class SampleDataGenerator {
+
+    private static final String[] DESTINATIONS = {"France", "Italy", "Spain", "Germany", "UK", "USA", "Canada", "Libya", "Algeria"};
+    private static final ProductType[] PRODUCTS = ProductType.values();
+
+    private final RandomGenerator random;
+
+    public SampleDataGenerator(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * @param random source of every draw, owned by this generator from now on
+     */
+    public SampleDataGenerator(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * @return for each of {@code months} months from {@code startDate}, every product exported to 2-4
+     * destinations on the same day of the month
+     */
+    public List<ExportRecord> generate(LocalDate startDate, int months) {
+        List<ExportRecord> records = new ArrayList<>();
+        for (int month = 0; month < months; month++) {
+            LocalDate date = startDate.plusMonths(month);
+            for (ProductType product : PRODUCTS) {
+                // Each product exported to 2-4 destinations per month
+                int numDestinations = 2 + (int) (random.nextDouble() * 3);
+                for (int d = 0; d < numDestinations; d++) {
+                    records.add(record(date, month, product));
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Streams {@code rows} records spread evenly over {@code months} months from {@code startDate}, in date
+     * order, to {@code sink}, so datasets larger than the heap can be generated into a repository in batches.
+     */
+    public void generate(LocalDate startDate, int months, long rows, Consumer<ExportRecord> sink) {
+        long emitted = 0;
+        for (int month = 0; month < months; month++) {
+            LocalDate first = startDate.plusMonths(month);
+            long monthEnd = rows * (month + 1) / months;
+            long monthRows = monthEnd - emitted;
+            int days = first.lengthOfMonth();
+            for (long i = 0; i < monthRows; i++) {
+                // Days advance monotonically through the month so the output stays date-ordered
+                LocalDate date = first.plusDays(i * days / monthRows);
+                sink.accept(record(date, month, PRODUCTS[random.nextInt(PRODUCTS.length)]));
+            }
+            emitted = monthEnd;
+        }
+    }
+
+    /**
+     * @return {@code rows} records spread evenly over {@code months} months from {@code startDate}
+     */
+    public List<ExportRecord> generate(LocalDate startDate, int months, int rows) {
+        List<ExportRecord> records = new ArrayList<>(rows);
+        generate(startDate, months, rows, records::add);
+        return records;
+    }
+
+    private ExportRecord record(LocalDate date, int month, ProductType product) {
+        String destination = DESTINATIONS[(int) (random.nextDouble() * DESTINATIONS.length)];
+
+        // Base prices per product (in TND per ton)
+        double basePrice = switch (product) {
+            case OLIVE_OIL -> 8000 + (random.nextDouble() * 2000);
+            case DATES -> 3000 + (random.nextDouble() * 1000);
+            case CITRUS -> 1500 + (random.nextDouble() * 500);
+            case TOMATO -> 1200 + (random.nextDouble() * 400);
+            case ALMONDS -> 12000 + (random.nextDouble() * 3000);
+            case HARISSA -> 5000 + (random.nextDouble() * 2000);
+        };
+
+        // Add seasonal variation
+        double seasonalFactor = 1.0 + 0.2 * Math.sin(month * Math.PI / 6);
+        double price = basePrice * seasonalFactor;
+
+        // Volume in tons
+        double volume = 10 + (random.nextDouble() * 90);
+
+        // Market indicators
+        Map<MarketIndicator, Double> indicators = new EnumMap<>(MarketIndicator.class);
+        indicators.put(MarketIndicator.USD_TND, 3.0 + (random.nextDouble() * 0.5));
+        indicators.put(MarketIndicator.EUR_TND, 3.2 + (random.nextDouble() * 0.4));
+        indicators.put(MarketIndicator.BRENT_OIL, 70 + (random.nextDouble() * 30));
+        indicators.put(MarketIndicator.INFLATION_RATE, 5.0 + (random.nextDouble() * 3.0));
+
+        return new ExportRecord(
+                date,
+                product,
+                destination,
+                volume,
+                BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP),
+                indicators
+        );
+    }
+}
@@ -0,0 +1,90 @@
+package tn.isg.economics.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Allocation-free decomposition of a double into the unscaled value and scale that
+ * {@link BigDecimal#valueOf(double)} would produce, for the magnitudes {@link Double#toString(double)}
+ * prints in plain notation.
+ * <p>
+ * The shortest decimal that parses back to the double is searched digit by digit; parsing is exact here
+ * because both the candidate and the power of ten are exactly representable doubles. Inputs where that
+ * search is not conclusive report {@link #UNSUPPORTED} and callers fall back to {@code BigDecimal}.
+ * Results are packed into one long, read back with {@link #unscaled(long)} and {@link #scale(long)}.
+ * <p>
+ * {@code Double.toString} only prints the shortest such decimal since JDK 19; on older runtimes every input
+ * reports {@link #UNSUPPORTED}, so callers keep matching {@code BigDecimal.valueOf} there too.
+ */
+final class ShortestDecimal {
+
+    static final long UNSUPPORTED = Long.MIN_VALUE;
+
+    private static final int SCALE_BITS = 5;
+    private static final int MAX_SCALE = 17;
+    private static final double MAX_EXACT = 0x1p53;
+    private static final double[] POWERS = new double[MAX_SCALE + 1];
+    // Printed as "0.0020" before JDK 19 (JDK-4511638)
+    private static final boolean SHORTEST_TO_STRING = Double.toString(2.0E-3).equals("0.002");
+
+    static {
+        double power = 1;
+        for (int i = 0; i <= MAX_SCALE; i++) {
+            POWERS[i] = power;
+            power *= 10;
+        }
+    }
+
+    private ShortestDecimal() {
+    }
+
+    /**
+     * @return packed unscaled value and scale of {@code BigDecimal.valueOf(value)}, or {@link #UNSUPPORTED}
+     */
+    static long decompose(double value) {
+        if (!SHORTEST_TO_STRING) {
+            return UNSUPPORTED;
+        }
+        if (value == 0) {
+            return pack(0, 1);
+        }
+        double magnitude = Math.abs(value);
+        if (!(magnitude >= 1e-3 && magnitude < 1e7)) {
+            return UNSUPPORTED;
+        }
+        // Double.toString always prints at least one fractional digit in plain notation
+        for (int scale = 1; scale <= MAX_SCALE; scale++) {
+            double scaled = value * POWERS[scale];
+            if (Math.abs(scaled) + 1 >= MAX_EXACT) {
+                return UNSUPPORTED;
+            }
+            long nearest = Math.round(scaled);
+            long match = 0;
+            int matches = 0;
+            for (long candidate = nearest - 1; candidate <= nearest + 1; candidate++) {
+                if (candidate / POWERS[scale] == value) {
+                    match = candidate;
+                    matches++;
+                }
+            }
+            if (matches == 1) {
+                return pack(match, scale);
+            }
+            if (matches > 1) {
+                return UNSUPPORTED;
+            }
+        }
+        return UNSUPPORTED;
+    }
+
+    static long unscaled(long packed) {
+        return packed >> SCALE_BITS;
+    }
+
+    static int scale(long packed) {
+        return (int) (packed & ((1 << SCALE_BITS) - 1));
+    }
+
+    private static long pack(long unscaled, int scale) {
+        return (unscaled << SCALE_BITS) | scale;
+    }
+}
@@ -0,0 +1,338 @@
+package tn.isg.economics.service;
+
+import lombok.extern.slf4j.Slf4j;
+import tn.isg.economics.exceptions.EconomicsException;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.Money;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ExportRecordRepository;
+import tn.isg.economics.repository.MappedSegmentExportRecordRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Streaming generator of arbitrarily large synthetic export datasets for load and soak tests.
+ * <p>
+ * Rows are spread evenly over the date range, in date order. Prices keep the per-product bands of
+ * {@link SampleDataGenerator} with a yearly seasonal factor that bottoms out at each product's harvest,
+ * when volumes peak; products and destinations are drawn with skewed popularity (destinations follow a
+ * Zipf law); and every record of a day carries that day's {@link MarketIndicator} values, which follow
+ * mean-reverting walks driven by shared shocks so related indicators move together.
+ * <p>
+ * The dataset is cut into blocks of {@value #BLOCK_ROWS} rows, each drawn from its own generator seeded
+ * with the seed and the block number, so the output only depends on the seed. Blocks are generated in
+ * parallel and handed over in order, with at most two blocks per worker in memory at any time.
+ */
+@Slf4j
+public class SyntheticDatasetGenerator {
+
+    public static final int BLOCK_ROWS = 32_768;
+
+    /**
+     * Destinations from most to least popular.
+     */
+    private static final String[] DESTINATIONS = {"France", "Italy", "Spain", "Germany", "Libya", "USA", "UK", "Algeria", "Canada"};
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final ProductType[] PRODUCTS = ProductType.values();
+    private static final MarketIndicator[] INDICATORS = MarketIndicator.values();
+    private static final Profile[] PROFILES = profiles();
+
+    private final long seed;
+    private final int parallelism;
+    private final LocalDate[] dates;
+    private final List<Map<MarketIndicator, Double>> indicatorsByDay;
+    /**
+     * Seasonal price and volume factors by product ordinal and month of the year (0 for January).
+     */
+    private final double[][] priceFactors = new double[PRODUCTS.length][12];
+    private final double[][] volumeFactors = new double[PRODUCTS.length][12];
+    private final double[] productCumulative = new double[PRODUCTS.length];
+    private final double[] destinationCumulative = new double[DESTINATIONS.length];
+
+    /**
+     * Generates on one worker per available processor.
+     */
+    public SyntheticDatasetGenerator(long seed, LocalDate startDate, int months) {
+        this(seed, startDate, months, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism number of worker threads generating blocks
+     */
+    public SyntheticDatasetGenerator(long seed, LocalDate startDate, int months, int parallelism) {
+        if (months <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Months and parallelism must be positive");
+        }
+        this.seed = seed;
+        this.parallelism = parallelism;
+        int days = (int) (startDate.plusMonths(months).toEpochDay() - startDate.toEpochDay());
+        this.dates = new LocalDate[days];
+        for (int day = 0; day < days; day++) {
+            dates[day] = startDate.plusDays(day);
+        }
+        this.indicatorsByDay = indicatorWalk(new SplittableRandom(seed), dates);
+
+        double productTotal = 0;
+        for (ProductType product : PRODUCTS) {
+            Profile profile = PROFILES[product.ordinal()];
+            productTotal += profile.share();
+            productCumulative[product.ordinal()] = productTotal;
+            for (int month = 0; month < 12; month++) {
+                // 1 at harvest, -1 six months away
+                double harvest = Math.cos(2 * Math.PI * (month + 1 - profile.harvestMonth()) / 12);
+                priceFactors[product.ordinal()][month] = 1 - profile.seasonality() * harvest;
+                volumeFactors[product.ordinal()][month] = 1 + 0.5 * harvest;
+            }
+        }
+        for (int i = 0; i < PRODUCTS.length; i++) {
+            productCumulative[i] /= productTotal;
+        }
+        double destinationTotal = 0;
+        for (int i = 0; i < DESTINATIONS.length; i++) {
+            destinationTotal += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            destinationCumulative[i] = destinationTotal;
+        }
+        for (int i = 0; i < DESTINATIONS.length; i++) {
+            destinationCumulative[i] /= destinationTotal;
+        }
+    }
+
+    /**
+     * Hands the {@code rows} records over to {@code sink} in date order, one block at a time, from the
+     * calling thread.
+     */
+    public void generate(long rows, Consumer<List<ExportRecord>> sink) {
+        pipeline(rows, block -> block(block, rows), sink);
+    }
+
+    /**
+     * Appends {@code rows} records to {@code repository} block by block.
+     */
+    public void writeTo(ExportRecordRepository repository, long rows) {
+        generate(rows, repository::append);
+    }
+
+    /**
+     * Writes {@code rows} records to a CSV file in the layout of {@link RecordExporter#exportToCsv}, the
+     * lines of each block being encoded in parallel too. The file is compressed as its name implies, see
+     * {@link Compression#of(Path)}.
+     */
+    public void writeCsv(Path path, long rows) throws IOException {
+        try (ExportBuffer out = RecordExporter.open(path, Compression.of(path))) {
+            new RecordEncoder(out).csvHeader();
+            pipeline(rows, block -> {
+                try {
+                    ByteArrayOutputStream lines = new ByteArrayOutputStream(BLOCK_ROWS * 48);
+                    ExportBuffer buffer = new ExportBuffer(Channels.newChannel(lines), ByteBuffer.allocate(1 << 16));
+                    RecordEncoder encoder = new RecordEncoder(buffer);
+                    for (ExportRecord record : block(block, rows)) {
+                        encoder.csv(record);
+                    }
+                    buffer.flush();
+                    return lines.toByteArray();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, lines -> {
+                try {
+                    out.put(lines);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Generates {@code rows} records into {@code output}: a CSV file if its name ends with {@code .csv},
+     * {@code .csv.gz} or {@code .csv.zst}, otherwise a {@link MappedSegmentExportRecordRepository} directory.
+     * <p>
+     * Usage: {@code SyntheticDatasetGenerator <rows> <output> [seed] [months]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticDatasetGenerator <rows> <output.csv|segment-directory> [seed] [months]");
+            System.exit(2);
+        }
+        long rows = Long.parseLong(args[0]);
+        Path output = Path.of(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 20240101L;
+        int months = args.length > 3 ? Integer.parseInt(args[3]) : 120;
+        SyntheticDatasetGenerator generator = new SyntheticDatasetGenerator(seed, LocalDate.of(2015, 1, 1), months);
+
+        long started = System.nanoTime();
+        if (output.getFileName().toString().matches(".*\\.csv(\\.gz|\\.zst)?")) {
+            generator.writeCsv(output, rows);
+        } else {
+            try (MappedSegmentExportRecordRepository repository = new MappedSegmentExportRecordRepository(output)) {
+                generator.writeTo(repository, rows);
+            }
+        }
+        log.info("Generated {} rows into {} in {} ms", rows, output, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Runs {@code producer} on every block in parallel and passes the results to {@code consumer} in block
+     * order on the calling thread, keeping at most {@code 2 * parallelism} blocks in flight.
+     */
+    private <T> void pipeline(long rows, LongFunction<T> producer, Consumer<T> consumer) {
+        long blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "dataset-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Queue<Future<T>> inFlight = new ArrayDeque<>();
+        try {
+            for (long block = 0; block < blocks; block++) {
+                if (inFlight.size() == 2 * parallelism) {
+                    consumer.accept(inFlight.remove().get());
+                }
+                long index = block;
+                inFlight.add(workers.submit(() -> producer.apply(index)));
+            }
+            while (!inFlight.isEmpty()) {
+                consumer.accept(inFlight.remove().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EconomicsException("Interrupted while generating the dataset", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new EconomicsException("Dataset generation failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private List<ExportRecord> block(long block, long rows) {
+        long from = block * BLOCK_ROWS;
+        long to = Math.min(rows, from + BLOCK_ROWS);
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(block + 1)));
+        List<ExportRecord> records = new ArrayList<>((int) (to - from));
+        for (long row = from; row < to; row++) {
+            // Days advance monotonically with the row number so the output stays date-ordered
+            int day = (int) (row * dates.length / rows);
+            records.add(record(random, day));
+        }
+        return records;
+    }
+
+    private ExportRecord record(SplittableRandom random, int day) {
+        ProductType product = PRODUCTS[draw(productCumulative, random.nextDouble())];
+        String destination = DESTINATIONS[draw(destinationCumulative, random.nextDouble())];
+        Profile profile = PROFILES[product.ordinal()];
+        int month = dates[day].getMonthValue() - 1;
+
+        double price = (profile.basePrice() + random.nextDouble() * profile.priceRange())
+                * priceFactors[product.ordinal()][month];
+        double volume = (10 + random.nextDouble() * 90) * volumeFactors[product.ordinal()][month];
+        return new ExportRecord(
+                dates[day],
+                product,
+                destination,
+                volume,
+                Money.toBigDecimal(Math.round(price * 100)),
+                indicatorsByDay.get(day)
+        );
+    }
+
+    private static int draw(double[] cumulative, double u) {
+        int i = 0;
+        while (i < cumulative.length - 1 && cumulative[i] <= u) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Daily indicator values from mean-reverting walks. Exchange rates share a currency shock; Brent,
+     * shipping and inflation share an oil shock; rainfall reverts to a wet-winter seasonal mean.
+     * Records of a day share one unmodifiable map.
+     */
+    private static List<Map<MarketIndicator, Double>> indicatorWalk(SplittableRandom random, LocalDate[] dates) {
+        double[] mean = {3.25, 3.4, 85, 6.5, 1500, 50};
+        double[] reversion = {0.02, 0.02, 0.02, 0.01, 0.03, 0.2};
+        double[] volatility = {0.01, 0.01, 1.2, 0.02, 30, 5};
+        double[] value = mean.clone();
+        List<Map<MarketIndicator, Double>> days = new ArrayList<>(dates.length);
+        for (LocalDate date : dates) {
+            double currency = random.nextGaussian();
+            double oil = random.nextGaussian();
+            double[] shock = {
+                    0.8 * currency + 0.6 * random.nextGaussian(),
+                    0.8 * currency + 0.6 * random.nextGaussian(),
+                    oil,
+                    0.4 * oil + 0.92 * random.nextGaussian(),
+                    0.7 * oil + 0.71 * random.nextGaussian(),
+                    random.nextGaussian()
+            };
+            mean[5] = 50 + 40 * Math.cos(2 * Math.PI * (date.getDayOfYear() - 15) / 365.25);
+            Map<MarketIndicator, Double> indicators = new EnumMap<>(MarketIndicator.class);
+            for (MarketIndicator indicator : INDICATORS) {
+                int i = indicator.ordinal();
+                value[i] += reversion[i] * (mean[i] - value[i]) + volatility[i] * shock[i];
+                value[i] = Math.max(0, value[i]);
+                indicators.put(indicator, value[i]);
+            }
+            days.add(Collections.unmodifiableMap(indicators));
+        }
+        return days;
+    }
+
+    /**
+     * @return by product ordinal: price band of {@link SampleDataGenerator}, harvest month from 1 to 12,
+     * seasonal price amplitude and share of the export rows
+     */
+    private static Profile[] profiles() {
+        Profile[] profiles = new Profile[PRODUCTS.length];
+        for (ProductType product : PRODUCTS) {
+            profiles[product.ordinal()] = switch (product) {
+                case OLIVE_OIL -> new Profile(8000, 2000, 12, 0.2, 0.30);
+                case DATES -> new Profile(3000, 1000, 10, 0.2, 0.25);
+                case CITRUS -> new Profile(1500, 500, 1, 0.2, 0.15);
+                case TOMATO -> new Profile(1200, 400, 7, 0.2, 0.12);
+                case ALMONDS -> new Profile(12000, 3000, 8, 0.2, 0.06);
+                case HARISSA -> new Profile(5000, 2000, 9, 0.05, 0.12);
+            };
+        }
+        return profiles;
+    }
+
+    /**
+     * SplitMix64 finalizer, spreading consecutive block numbers over unrelated seeds.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private record Profile(double basePrice, double priceRange, int harvestMonth, double seasonality, double share) {
+    }
+}
@@ -0,0 +1,77 @@
+package tn.isg.economics.service;
+
+import com.github.luben.zstd.ZstdDirectBufferCompressingStreamNoFinalizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Zstandard stream compressing direct buffers in place with zstd-jni; heap buffers are staged through a
+ * direct one.
+ */
+final class ZstdChannel implements WritableByteChannel {
+
+    private static final int LEVEL = 3;
+
+    private final WritableByteChannel out;
+    private final ZstdDirectBufferCompressingStreamNoFinalizer stream;
+    private ByteBuffer staging;
+    private boolean open = true;
+
+    ZstdChannel(WritableByteChannel out) throws IOException {
+        this.out = out;
+        ByteBuffer target = ByteBuffer.allocateDirect(ZstdDirectBufferCompressingStreamNoFinalizer.recommendedOutputBufferSize());
+        this.stream = new ZstdDirectBufferCompressingStreamNoFinalizer(target, LEVEL) {
+            @Override
+            protected ByteBuffer flushBuffer(ByteBuffer toFlush) throws IOException {
+                toFlush.flip();
+                ExportBuffer.writeFully(out, toFlush);
+                return toFlush.clear();
+            }
+        };
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        int length = source.remaining();
+        if (source.isDirect()) {
+            stream.compress(source);
+            return length;
+        }
+        // zstd-jni only reads direct buffers
+        if (staging == null) {
+            staging = ByteBuffer.allocateDirect(1 << 16);
+        }
+        while (source.hasRemaining()) {
+            staging.clear();
+            int chunk = Math.min(staging.remaining(), source.remaining());
+            staging.put(staging.position(), source, source.position(), chunk).limit(chunk);
+            source.position(source.position() + chunk);
+            stream.compress(staging);
+        }
+        return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            stream.close();
+        } finally {
+            out.close();
+        }
+    }
+}
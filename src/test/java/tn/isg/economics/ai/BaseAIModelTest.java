@@ -0,0 +1,95 @@
+package tn.isg.economics.ai;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+import tn.isg.economics.repository.SampleRecords;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BaseAIModelTest {
+
+    @Test
+    public void matchesBigDecimalMovingAverage() {
+        List<ExportRecord> records = sampleRecords(3_000, 31L);
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(records);
+        BaseAIModel model = new BaseAIModel();
+        LocalDate target = LocalDate.of(2025, 1, 1);
+
+        for (List<ExportRecord> source : List.of(records, repository.findAll())) {
+            for (ProductType product : ProductType.values()) {
+                for (String destination : new String[]{"France", "Italy", "Spain", "Nowhere"}) {
+                    assertEquals(expectedPrice(records, product, destination),
+                            model.predict(source, target, product, destination).predictedPricePerTon(),
+                            product + " " + destination);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void keepsZeroFloorAndMissingPrices() {
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        List<ExportRecord> records = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            BigDecimal price = i == 0 ? null : i >= 3 && i < 6 ? new BigDecimal("1000.00") : BigDecimal.ONE;
+            records.add(new ExportRecord(day.minusDays(i), ProductType.DATES, "France", 1, price, Map.of()));
+        }
+        assertEquals(BigDecimal.ZERO, expectedPrice(records, ProductType.DATES, "France"));
+        assertEquals(expectedPrice(records, ProductType.DATES, "France"),
+                new BaseAIModel().predict(records, day, ProductType.DATES, "France").predictedPricePerTon());
+    }
+
+    /**
+     * The BigDecimal implementation the model replaced.
+     */
+    private static BigDecimal expectedPrice(List<ExportRecord> history, ProductType product, String destination) {
+        List<ExportRecord> relevant = history.stream()
+                .filter(r -> r.productType() == product)
+                .filter(r -> Objects.equals(r.destination(), destination))
+                .sorted((a, b) -> b.date().compareTo(a.date()))
+                .limit(12)
+                .toList();
+        if (relevant.isEmpty()) {
+            relevant = history.stream()
+                    .filter(r -> r.productType() == product)
+                    .sorted((a, b) -> b.date().compareTo(a.date()))
+                    .limit(12)
+                    .toList();
+        }
+        BigDecimal avgPrice = sum(relevant).divide(BigDecimal.valueOf(relevant.size()), 2, RoundingMode.HALF_UP);
+        if (relevant.size() >= 6) {
+            BigDecimal recentAvg = sum(relevant.subList(0, 3)).divide(BigDecimal.valueOf(3), 2, RoundingMode.HALF_UP);
+            BigDecimal olderAvg = sum(relevant.subList(3, 6)).divide(BigDecimal.valueOf(3), 2, RoundingMode.HALF_UP);
+            avgPrice = avgPrice.add(recentAvg.subtract(olderAvg).divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP));
+        }
+        return avgPrice.max(BigDecimal.ZERO);
+    }
+
+    private static BigDecimal sum(List<ExportRecord> records) {
+        return records.stream().map(ExportRecord::pricePerTon).filter(Objects::nonNull)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Shared sample records with every 50th price removed.
+     */
+    private static List<ExportRecord> sampleRecords(int count, long seed) {
+        List<ExportRecord> records = new ArrayList<>(count);
+        for (ExportRecord r : SampleRecords.random(count, seed)) {
+            BigDecimal price = records.size() % 50 == 0 ? null : r.pricePerTon();
+            records.add(new ExportRecord(r.date(), r.productType(), r.destination(), r.volumeTons(), price, r.indicators()));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,117 @@
+package tn.isg.economics.ai;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.PredictionRequest;
+import tn.isg.economics.model.PredictionResult;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+import tn.isg.economics.service.SampleDataGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CachingPredictorTest {
+
+    private static final LocalDate START = LocalDate.of(2022, 1, 1);
+    private static final LocalDate TARGET = LocalDate.of(2024, 6, 1);
+
+    private final CountingPredictor counting = new CountingPredictor();
+
+    @Test
+    public void invalidatesOnlyTheSeriesThatReceivedRecords() {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(new SampleDataGenerator(14L).generate(START, 24));
+        CachingPredictor cache = new CachingPredictor(counting);
+        try (SeriesIndex index = new SeriesIndex(repository)) {
+            PredictionResult dates = cache.predict(index, TARGET, ProductType.DATES, "France");
+            PredictionResult citrus = cache.predict(index, TARGET, ProductType.CITRUS, "Italy");
+            assertSame(dates, cache.predict(index, TARGET, ProductType.DATES, "France"));
+            assertEquals(2, counting.calls.get());
+
+            long citrusVersion = index.version(ProductType.CITRUS, "Italy");
+            repository.append(List.of(record(ProductType.DATES, "France", "9999.99")));
+            assertEquals(citrusVersion, index.version(ProductType.CITRUS, "Italy"));
+
+            assertSame(citrus, cache.predict(index, TARGET, ProductType.CITRUS, "Italy"));
+            assertNotEquals(dates, cache.predict(index, TARGET, ProductType.DATES, "France"));
+            assertEquals(3, counting.calls.get());
+            assertEquals(new CachingPredictor.Stats(2, 3, 1, 0), cache.stats());
+        }
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedResult() {
+        SeriesIndex index = SeriesIndex.of(new SampleDataGenerator(15L).generate(START, 12));
+        CachingPredictor cache = new CachingPredictor(counting, 2);
+        cache.predict(index, TARGET, ProductType.DATES, "France");
+        cache.predict(index, TARGET, ProductType.CITRUS, "France");
+        cache.predict(index, TARGET, ProductType.DATES, "France");
+        cache.predict(index, TARGET, ProductType.TOMATO, "France");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.stats().evictions());
+        cache.predict(index, TARGET, ProductType.DATES, "France");
+        assertEquals(3, counting.calls.get());
+        cache.predict(index, TARGET, ProductType.CITRUS, "France");
+        assertEquals(4, counting.calls.get());
+    }
+
+    @Test
+    public void batchesOnlyTheMisses() {
+        List<ExportRecord> records = new SampleDataGenerator(16L).generate(START, 12);
+        SeriesIndex index = SeriesIndex.of(records);
+        CachingPredictor cache = new CachingPredictor(counting);
+        List<PredictionRequest> requests = PredictionRequest.grid(List.of(ProductType.values()),
+                List.of("France", "Italy"), List.of(TARGET, TARGET.plusMonths(3)));
+
+        cache.predict(index, TARGET, ProductType.OLIVE_OIL, "Italy");
+        List<PredictionResult> results = cache.predictBatch(index, requests);
+        assertEquals(new BaseAIModel().predictBatch(index, requests), results);
+        assertEquals(requests.size() - 1, counting.batched.get());
+        assertEquals(results, cache.predictBatch(index, requests));
+        assertEquals(requests.size() - 1, counting.batched.get());
+    }
+
+    private static ExportRecord record(ProductType product, String destination, String price) {
+        return new ExportRecord(TARGET.minusDays(1), product, destination, 10, new BigDecimal(price), Map.of());
+    }
+
+    private static final class CountingPredictor implements Predictor {
+        private final BaseAIModel model = new BaseAIModel();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger batched = new AtomicInteger();
+
+        @Override
+        public PredictionResult predict(List<ExportRecord> historicalData, LocalDate targetDate,
+                                        ProductType productType, String destination) {
+            calls.incrementAndGet();
+            return model.predict(historicalData, targetDate, productType, destination);
+        }
+
+        @Override
+        public PredictionResult predict(SeriesIndex history, LocalDate targetDate,
+                                        ProductType productType, String destination) {
+            calls.incrementAndGet();
+            return model.predict(history, targetDate, productType, destination);
+        }
+
+        @Override
+        public List<PredictionResult> predictBatch(SeriesIndex history, List<PredictionRequest> requests) {
+            batched.addAndGet(requests.size());
+            return model.predictBatch(history, requests);
+        }
+
+        @Override
+        public String getModelName() {
+            return model.getModelName();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package tn.isg.economics.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final Duration OPEN = Duration.ofSeconds(30);
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 4, 3, 0.5, OPEN, now::get);
+
+    @Test
+    public void opensOnTheFailureRateOfTheRollingWindow() {
+        call(true);
+        call(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        call(false);
+        call(false);
+        call(false);
+        call(false);
+        // Both failures have rolled out of the window
+        call(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        call(true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        assertFalse(breaker.tryAcquire());
+        assertEquals(new CircuitBreaker.Stats(CircuitBreaker.State.OPEN, 4, 4, 1, 1), breaker.stats());
+    }
+
+    @Test
+    public void probesOnceOpenDurationHasElapsed() {
+        call(true);
+        call(true);
+        call(true);
+        now.addAndGet(OPEN.toNanos() - 1);
+        assertFalse(breaker.tryAcquire());
+
+        now.incrementAndGet();
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        now.addAndGet(OPEN.toNanos());
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        // The window starts empty again
+        call(true);
+        call(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(2, breaker.stats().openings());
+    }
+
+    @Test
+    public void replacesALostProbe() {
+        call(true);
+        call(true);
+        call(true);
+        now.addAndGet(OPEN.toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(OPEN.toNanos());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void call(boolean fails) {
+        assertTrue(breaker.tryAcquire());
+        if (fails) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package tn.isg.economics.ai;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.PredictionRequest;
+import tn.isg.economics.model.PredictionResult;
+import tn.isg.economics.model.PredictionStatus;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.service.SampleDataGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DJLPredictorTest {
+
+    private static final LocalDate START = LocalDate.of(2022, 1, 1);
+    private static final List<String> DESTINATIONS = List.of("France", "Italy", "Spain");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void runsOnnxModelOnFeatureVectors() throws Exception {
+        // price = newest price / 2 + horizon in days
+        float[] weights = new float[PriceFeatures.COUNT];
+        weights[0] = 0.5f;
+        weights[PriceFeatures.COUNT - 1] = 1f;
+        Path model = directory.resolve("linear.onnx");
+        Files.write(model, linearModel(weights));
+
+        List<ExportRecord> records = new SampleDataGenerator(21L).generate(START, 24);
+        SeriesIndex index = SeriesIndex.of(records);
+        List<PredictionRequest> requests = PredictionRequest.grid(List.of(ProductType.values()), DESTINATIONS,
+                List.of(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 5, 1)));
+
+        try (DJLPredictor predictor = new DJLPredictor(new OnnxInferenceEngine(model, 2))) {
+            List<PredictionResult> batch = predictor.predictBatch(index, requests);
+            assertEquals("ONNX-Runtime", predictor.getModelName());
+
+            ExecutorService callers = Executors.newFixedThreadPool(8);
+            try {
+                List<CompletableFuture<PredictionResult>> singles = new ArrayList<>();
+                for (PredictionRequest request : requests) {
+                    singles.add(CompletableFuture.supplyAsync(() -> predictor.predict(
+                            index, request.targetDate(), request.productType(), request.destination()), callers));
+                }
+                for (int i = 0; i < requests.size(); i++) {
+                    PredictionRequest request = requests.get(i);
+                    RecentPrices series = index.recent(request.productType(), request.destination());
+                    float expected = series.cents(0) / 100f * 0.5f + ChronoUnit.DAYS.between(series.date(0), request.targetDate());
+                    PredictionResult single = singles.get(i).join();
+                    assertEquals(PredictionStatus.SUCCESS, single.status());
+                    assertEquals(BigDecimal.valueOf(expected).setScale(2, RoundingMode.HALF_UP), single.predictedPricePerTon());
+                    assertEquals(single, batch.get(i));
+                }
+            } finally {
+                callers.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void fallsBackToBaselineWhenInferenceFails() {
+        InferenceEngine broken = new InferenceEngine() {
+            private int calls;
+
+            @Override
+            public float[] infer(FloatBuffer features) {
+                if (calls++ > 0) {
+                    throw new IllegalStateException("broken");
+                }
+                return new float[InferenceEngine.rows(features)];
+            }
+
+            @Override
+            public int poolSize() {
+                return 1;
+            }
+
+            @Override
+            public String name() {
+                return "broken";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        List<ExportRecord> records = new SampleDataGenerator(22L).generate(START, 12);
+        LocalDate target = LocalDate.of(2023, 3, 1);
+        try (DJLPredictor predictor = new DJLPredictor(broken)) {
+            PredictionResult result = predictor.predict(records, target, ProductType.DATES, "France");
+            PredictionResult baseline = new BaseAIModel().predict(records, target, ProductType.DATES, "France");
+            assertEquals(PredictionStatus.FALLBACK_USED, result.status());
+            assertEquals("broken", result.modelName());
+            assertEquals(baseline.predictedPricePerTon(), result.predictedPricePerTon());
+        }
+    }
+
+    @Test
+    public void fallsBackWhenModelScoresFewerRowsThanRequested() {
+        InferenceEngine truncating = new StubEngine() {
+            @Override
+            public float[] infer(FloatBuffer features) {
+                return new float[Math.max(0, InferenceEngine.rows(features) - 1)];
+            }
+        };
+        List<ExportRecord> records = new SampleDataGenerator(22L).generate(START, 12);
+        LocalDate target = LocalDate.of(2023, 3, 1);
+        try (DJLPredictor predictor = new DJLPredictor(truncating)) {
+            PredictionResult result = predictor.predict(records, target, ProductType.DATES, "France");
+            assertEquals(PredictionStatus.FALLBACK_USED, result.status());
+        }
+    }
+
+    @Test
+    public void closesEngineWhenWarmUpFails() {
+        AtomicBoolean closed = new AtomicBoolean();
+        InferenceEngine failing = new StubEngine() {
+            @Override
+            public float[] infer(FloatBuffer features) {
+                throw new IllegalStateException("cannot warm up");
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> new DJLPredictor(failing));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void enhancedBaselineDependsOnlyOnSeedAndRequest() {
+        List<ExportRecord> records = new SampleDataGenerator(23L).generate(START, 24);
+        SeriesIndex index = SeriesIndex.of(records);
+        List<PredictionRequest> requests = PredictionRequest.grid(List.of(ProductType.values()), DESTINATIONS,
+                List.of(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 5, 1)));
+
+        List<PredictionResult> sequential = requests.stream()
+                .map(request -> new DJLPredictor(7L).predict(index, request.targetDate(), request.productType(),
+                        request.destination()))
+                .toList();
+        DJLPredictor shared = new DJLPredictor(7L);
+        List<PredictionResult> parallel = requests.parallelStream()
+                .map(request -> shared.predict(index, request.targetDate(), request.productType(),
+                        request.destination()))
+                .toList();
+        assertEquals(sequential, parallel);
+        assertEquals(sequential, shared.predictBatch(index, requests));
+        assertNotEquals(sequential, new DJLPredictor(8L).predictBatch(index, requests));
+    }
+
+    private abstract static class StubEngine implements InferenceEngine {
+        @Override
+        public int poolSize() {
+            return 1;
+        }
+
+        @Override
+        public String name() {
+            return "stub";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Serializes an ONNX model computing {@code Y = X · W} for {@code X: float[N, weights.length]}.
+     */
+    private static byte[] linearModel(float[] weights) throws IOException {
+        ByteBuffer raw = ByteBuffer.allocate(weights.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (float weight : weights) {
+            raw.putFloat(weight);
+        }
+        byte[] node = new Proto().string(1, "X").string(1, "W").string(2, "Y").string(4, "MatMul").bytes();
+        byte[] initializer = new Proto().varint(1, weights.length).varint(1, 1).varint(2, 1)
+                .string(8, "W").message(9, raw.array()).bytes();
+        byte[] graph = new Proto()
+                .message(1, node)
+                .string(2, "linear")
+                .message(5, initializer)
+                .message(11, valueInfo("X", weights.length))
+                .message(12, valueInfo("Y", 1))
+                .bytes();
+        byte[] opset = new Proto().string(1, "").varint(2, 13).bytes();
+        return new Proto().varint(1, 7).message(7, graph).message(8, opset).bytes();
+    }
+
+    private static byte[] valueInfo(String name, int columns) throws IOException {
+        byte[] rows = new Proto().string(2, "N").bytes();
+        byte[] cols = new Proto().varint(1, columns).bytes();
+        byte[] shape = new Proto().message(1, rows).message(1, cols).bytes();
+        byte[] tensor = new Proto().varint(1, 1).message(2, shape).bytes();
+        byte[] type = new Proto().message(1, tensor).bytes();
+        return new Proto().string(1, name).message(2, type).bytes();
+    }
+
+    /**
+     * Minimal protobuf wire-format writer.
+     */
+    private static final class Proto {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Proto varint(int field, long value) {
+            writeVarint((long) field << 3);
+            writeVarint(value);
+            return this;
+        }
+
+        Proto message(int field, byte[] value) throws IOException {
+            writeVarint(((long) field << 3) | 2);
+            writeVarint(value.length);
+            out.write(value);
+            return this;
+        }
+
+        Proto string(int field, String value) throws IOException {
+            return message(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package tn.isg.economics.ai;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+import tn.isg.economics.service.SampleDataGenerator;
+
+import java.nio.FloatBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class FeatureStoreTest {
+
+    private static final LocalDate START = LocalDate.of(2022, 1, 1);
+    private static final LocalDate TARGET = LocalDate.of(2025, 1, 1);
+    private static final String[] DESTINATIONS = {"France", "Italy", "Spain", "Germany", "UK", "USA", "Canada", "Libya", "Algeria", "Nowhere"};
+
+    @Test
+    public void servesTheFeaturesOfEachSeries() {
+        List<ExportRecord> records = new SampleDataGenerator(8L).generate(START, 24);
+        assertSameFeatures(records, SeriesIndex.of(records));
+    }
+
+    @Test
+    public void refreshesSeriesTouchedByAppends() {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(new SampleDataGenerator(9L).generate(START, 12, 2_000));
+        try (SeriesIndex index = new SeriesIndex(repository)) {
+            assertSameFeatures(new ArrayList<>(repository.findAll()), index);
+
+            repository.append(new SampleDataGenerator(10L).generate(START.plusMonths(6), 12, 300));
+            repository.append(new SampleDataGenerator(11L).generate(START.plusMonths(17), 1, 40));
+            assertSameFeatures(new ArrayList<>(repository.findAll()), index);
+
+            repository.saveAll(new SampleDataGenerator(12L).generate(START, 3));
+            assertSameFeatures(new ArrayList<>(repository.findAll()), index);
+        }
+    }
+
+    @Test
+    public void fillsConsecutiveRowsAndSkipsUnknownProducts() {
+        List<ExportRecord> records = new SampleDataGenerator(13L).generate(START, 6).stream()
+                .filter(record -> record.productType() != ProductType.ALMONDS)
+                .toList();
+        FeatureStore store = SeriesIndex.of(records).features();
+        FloatBuffer batch = InferenceEngine.allocate(2);
+
+        assertEquals(0, store.fill(batch, ProductType.ALMONDS, "France", TARGET));
+        assertEquals(0, batch.position());
+        assertNull(store.row(ProductType.ALMONDS, "France", TARGET));
+
+        store.fill(batch, ProductType.DATES, "France", TARGET);
+        store.fill(batch, ProductType.CITRUS, "Italy", TARGET);
+        float[] second = new float[PriceFeatures.COUNT];
+        batch.flip().position(PriceFeatures.COUNT).get(second);
+        assertArrayEquals(store.row(ProductType.CITRUS, "Italy", TARGET), second);
+    }
+
+    private static void assertSameFeatures(List<ExportRecord> records, SeriesIndex index) {
+        for (ProductType product : ProductType.values()) {
+            for (String destination : DESTINATIONS) {
+                List<ExportRecord> series = records.stream()
+                        .filter(record -> record.productType() == product && record.destination().equals(destination))
+                        .toList();
+                RecentPrices prices = index.recent(product, destination);
+                if (series.isEmpty()) {
+                    series = records.stream().filter(record -> record.productType() == product).toList();
+                    prices = index.recent(product);
+                }
+                float[] expected = PriceFeatures.of(prices, newestIndicators(series), TARGET);
+                assertArrayEquals(expected, index.features().row(product, destination, TARGET), product + " " + destination);
+            }
+        }
+    }
+
+    private static double[] newestIndicators(List<ExportRecord> series) {
+        LocalDate newest = series.stream().map(ExportRecord::date).max(Comparator.naturalOrder()).orElseThrow();
+        double[] indicators = new double[MarketIndicator.values().length];
+        Arrays.fill(indicators, Double.NaN);
+        series.stream()
+                .filter(record -> record.date().equals(newest))
+                .forEach(record -> record.indicators().forEach((indicator, value) -> indicators[indicator.ordinal()] = value));
+        return indicators;
+    }
+}
@@ -0,0 +1,213 @@
+package tn.isg.economics.ai;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.exceptions.ReportGenerationException;
+import tn.isg.economics.service.SampleDataGenerator;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LangChain4jReportGeneratorTest {
+
+    private static final Duration DEADLINE = Duration.ofSeconds(10);
+    private static final ChatLanguageModel UNUSED = messages -> {
+        throw new AssertionError("blocking model called");
+    };
+
+    private static final StreamingChatLanguageModel UNUSED_STREAMING = (messages, handler) -> {
+        throw new AssertionError("streaming model called");
+    };
+
+    private final BlockingQueue<StreamingResponseHandler<AiMessage>> handlers = new LinkedBlockingQueue<>();
+    private final LangChain4jReportGenerator generator =
+            new LangChain4jReportGenerator(UNUSED, (messages, handler) -> handlers.add(handler), new ReportCache(4), new CircuitBreaker("test"), new ReportPrompt(), 2);
+    private final List<String> chunks = new CopyOnWriteArrayList<>();
+    private StreamingResponseHandler<AiMessage> handler;
+
+    @Test
+    public void deliversTokensAsTheyArrive() throws Exception {
+        CompletableFuture<String> report = generate(DEADLINE);
+
+        handler.onNext("# Market ");
+        assertEquals(List.of("# Market "), chunks);
+        assertFalse(report.isDone());
+        handler.onNext("report");
+        handler.onComplete(Response.from(AiMessage.from("# Market report")));
+
+        assertEquals(List.of("# Market ", "report"), chunks);
+        assertEquals("# Market report", report.get());
+    }
+
+    @Test
+    public void fallsBackToTheTemplateWhenTheModelFailsFirst() throws Exception {
+        AtomicReference<Thread> modelCaller = new AtomicReference<>();
+        LangChain4jReportGenerator offline = new LangChain4jReportGenerator(UNUSED, (messages, handler) -> {
+            modelCaller.set(Thread.currentThread());
+            throw new IllegalStateException("connection refused");
+        }, new ReportCache(4), new CircuitBreaker("test"), new ReportPrompt(), 2);
+        CompletableFuture<String> report = offline.generateReportAsync(
+                new SampleDataGenerator(3L).generate(LocalDate.of(2023, 1, 1), 2), List.of(), Map.of(),
+                chunks::add, DEADLINE);
+
+        assertTrue(report.get().contains("TUNISIAN AGRICULTURAL EXPORT MARKET INTELLIGENCE REPORT"));
+        assertEquals(List.of(report.get()), chunks);
+        assertNotSame(Thread.currentThread(), modelCaller.get());
+    }
+
+    @Test
+    public void failsWhenTheModelFailsMidReport() throws Exception {
+        CompletableFuture<String> report = generate(DEADLINE);
+
+        handler.onNext("# Market ");
+        handler.onError(new IllegalStateException("stream reset"));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, report::get);
+        assertInstanceOf(ReportGenerationException.class, failure.getCause());
+        assertEquals(List.of("# Market "), chunks);
+    }
+
+    @Test
+    public void stopsDeliveringOnCancellationAndDeadline() throws Exception {
+        CompletableFuture<String> cancelled = generate(DEADLINE);
+        handler.onNext("a");
+        cancelled.cancel(true);
+        handler.onNext("b");
+        handler.onComplete(Response.from(AiMessage.from("ab")));
+        assertTrue(cancelled.isCancelled());
+        assertEquals(List.of("a"), chunks);
+
+        chunks.clear();
+        CompletableFuture<String> late = generator.generateReportAsync(List.of(), List.of(), Map.of(), chunks::add,
+                Duration.ofMillis(50));
+        ExecutionException failure = assertThrows(ExecutionException.class, late::get);
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        // The model is not called at all if the deadline passes before the report thread starts
+        StreamingResponseHandler<AiMessage> lateHandler = handlers.poll();
+        if (lateHandler != null) {
+            lateHandler.onNext("c");
+        }
+        assertEquals(List.of(), chunks);
+    }
+
+    @Test
+    public void answersRepeatedPromptsFromTheCache() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ReportCache cache = new ReportCache(4);
+        LangChain4jReportGenerator cached = new LangChain4jReportGenerator(
+                messages -> Response.from(AiMessage.from("report " + calls.incrementAndGet())),
+                (messages, handler) -> handler.onError(new IllegalStateException("connection refused")),
+                cache, new CircuitBreaker("test"), new ReportPrompt(), 2);
+        Map<String, Object> statistics = Map.of("Average Price", "1000");
+
+        assertEquals("report 1", cached.generateReport(List.of(), List.of(), statistics));
+        assertEquals("report 1", cached.generateReport(List.of(), List.of(), statistics));
+        assertEquals("report 1", cached.generateReportAsync(List.of(), List.of(), statistics, chunks::add, DEADLINE).get());
+        assertEquals(List.of("report 1"), chunks);
+        assertEquals("report 2", cached.generateReport(List.of(), List.of(), Map.of("Average Price", "1001")));
+        assertEquals(2, calls.get());
+        assertEquals(new ReportCache.Stats(2, 0, 2, 0), cache.stats());
+
+        // Template reports are not cached, so the model is asked again once it is back
+        chunks.clear();
+        String template = cached.generateReportAsync(List.of(), List.of(), Map.of(), chunks::add, DEADLINE).get();
+        assertEquals(List.of(template), chunks);
+        assertEquals("report 3", cached.generateReport(List.of(), List.of(), Map.of()));
+    }
+
+    @Test
+    public void usesTheTemplateAtOnceWhileTheBreakerIsOpen() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 2, 0.5, Duration.ofMinutes(1));
+        LangChain4jReportGenerator offline = new LangChain4jReportGenerator(
+                messages -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("connection refused");
+                },
+                (messages, handler) -> {
+                    calls.incrementAndGet();
+                    handler.onError(new IllegalStateException("connection refused"));
+                },
+                new ReportCache(4), breaker, new ReportPrompt(), 2);
+
+        String template = offline.generateReport(List.of(), List.of(), Map.of());
+        assertEquals(template, offline.generateReportAsync(List.of(), List.of(), Map.of(), chunks::add, DEADLINE).get());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        assertEquals(template, offline.generateReport(List.of(), List.of(), Map.of()));
+        assertEquals(template, offline.generateReportAsync(List.of(), List.of(), Map.of(), chunks::add, DEADLINE).get());
+        assertEquals(2, calls.get());
+        assertEquals(new CircuitBreaker.Stats(CircuitBreaker.State.OPEN, 0, 2, 2, 1), offline.circuitBreakerStats());
+    }
+
+    @Test
+    public void callersQueuedForTheModelFailFastOnceTheBreakerOpens() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch calling = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 1, 0.5, Duration.ofMinutes(1));
+        LangChain4jReportGenerator single = new LangChain4jReportGenerator(
+                messages -> {
+                    calls.incrementAndGet();
+                    calling.countDown();
+                    try {
+                        fail.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException("connection refused");
+                },
+                UNUSED_STREAMING, new ReportCache(4), breaker, new ReportPrompt(), 1);
+
+        CompletableFuture<String> first = new CompletableFuture<>();
+        Thread firstCaller = Thread.ofPlatform().start(
+                () -> first.complete(single.generateReport(List.of(), List.of(), Map.of("Report", 1))));
+        calling.await();
+        CompletableFuture<String> queued = new CompletableFuture<>();
+        Thread queuedCaller = Thread.ofPlatform().start(
+                () -> queued.complete(single.generateReport(List.of(), List.of(), Map.of("Report", 2))));
+        while (queuedCaller.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+        fail.countDown();
+        firstCaller.join();
+        queuedCaller.join();
+
+        assertTrue(queued.get().contains("TUNISIAN AGRICULTURAL EXPORT MARKET INTELLIGENCE REPORT"));
+        assertEquals(1, calls.get());
+        assertEquals(new CircuitBreaker.Stats(CircuitBreaker.State.OPEN, 0, 1, 1, 1), breaker.stats());
+    }
+
+    /**
+     * Starts a report and waits for the report thread to hand it to the streaming model.
+     */
+    private CompletableFuture<String> generate(Duration deadline) throws InterruptedException {
+        CompletableFuture<String> report = generator.generateReportAsync(
+                List.of(), List.of(), Map.of("Average Price", "1000"), chunks::add, deadline);
+        handler = handlers.poll(10, TimeUnit.SECONDS);
+        return report;
+    }
+}
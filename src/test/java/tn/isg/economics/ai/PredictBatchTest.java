@@ -0,0 +1,62 @@
+package tn.isg.economics.ai;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.PredictionRequest;
+import tn.isg.economics.model.PredictionResult;
+import tn.isg.economics.model.PredictionStatus;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.service.SampleDataGenerator;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PredictBatchTest {
+
+    private static final LocalDate START = LocalDate.of(2022, 1, 1);
+    private static final List<String> DESTINATIONS = List.of("France", "Italy", "Libya", "Algeria");
+    private static final List<LocalDate> HORIZONS = List.of(
+            LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1), LocalDate.of(2024, 6, 1));
+
+    @Test
+    public void batchEqualsOnePredictionPerRequest() {
+        List<ExportRecord> records = new SampleDataGenerator(12L).generate(START, 24);
+        List<PredictionRequest> requests = PredictionRequest.grid(List.of(ProductType.values()), DESTINATIONS, HORIZONS);
+        BaseAIModel model = new BaseAIModel();
+
+        List<PredictionResult> batch = model.predictBatch(records, requests);
+        assertEquals(requests.size(), batch.size());
+        for (int i = 0; i < requests.size(); i++) {
+            PredictionRequest request = requests.get(i);
+            assertEquals(model.predict(records, request.targetDate(), request.productType(), request.destination()),
+                    batch.get(i));
+        }
+    }
+
+    @Test
+    public void seriesWithoutHistoryFailWithoutFailingTheBatch() {
+        List<ExportRecord> records = new SampleDataGenerator(13L).generate(START, 6).stream()
+                .filter(record -> record.productType() != ProductType.HARISSA)
+                .toList();
+        List<PredictionRequest> requests = PredictionRequest.grid(
+                List.of(ProductType.HARISSA, ProductType.DATES), List.of("France"), HORIZONS);
+
+        for (Predictor predictor : List.of(new BaseAIModel(), new DJLPredictor())) {
+            List<PredictionResult> batch = predictor.predictBatch(records, requests);
+            for (int i = 0; i < requests.size(); i++) {
+                PredictionResult result = batch.get(i);
+                assertEquals(requests.get(i).targetDate(), result.targetDate());
+                if (requests.get(i).productType() == ProductType.HARISSA) {
+                    assertEquals(PredictionStatus.FAILED, result.status());
+                    assertNull(result.predictedPricePerTon());
+                } else {
+                    assertEquals(predictor.getModelName(), result.modelName());
+                    assertEquals(ProductType.DATES, result.productType());
+                }
+            }
+        }
+    }
+}
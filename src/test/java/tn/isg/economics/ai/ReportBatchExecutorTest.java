@@ -0,0 +1,145 @@
+package tn.isg.economics.ai;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.exceptions.ReportGenerationException;
+import tn.isg.economics.model.ReportRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReportBatchExecutorTest {
+
+    @Test
+    public void limitsConcurrentModelCallsAndKeepsRequestOrder() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        // Trips only with three calls in the model at once, so every batch of calls reaches the limit
+        CyclicBarrier limitReached = new CyclicBarrier(3);
+        LangChain4jReportGenerator generator = new LangChain4jReportGenerator(
+                messages -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        limitReached.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    running.decrementAndGet();
+                    return Response.from(AiMessage.from(reportLine(((UserMessage) messages.get(0)).singleText())));
+                },
+                (messages, handler) -> handler.onError(new UnsupportedOperationException()),
+                new ReportCache(64), new CircuitBreaker("test"), new ReportPrompt(), 3);
+        List<ReportRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            requests.add(new ReportRequest(List.of(), List.of(), Map.of("Report", i)));
+        }
+
+        List<String> reports;
+        try (ReportBatchExecutor batch = new ReportBatchExecutor(generator, 8)) {
+            reports = batch.generateAll(requests);
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals("- Report: " + i, reports.get(i));
+        }
+        assertTrue(maxRunning.get() <= 3, "at most 3 concurrent calls, saw " + maxRunning.get());
+    }
+
+    @Test
+    public void blocksSubmittersBeyondThePendingLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ReportGenerator blocked = (historicalData, predictions, statistics) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "report " + statistics.get("Report");
+        };
+
+        try (ReportBatchExecutor batch = new ReportBatchExecutor(blocked, 2)) {
+            CompletableFuture<String> first = batch.submit(request(1));
+            batch.submit(request(2));
+            CompletableFuture<CompletableFuture<String>> third = new CompletableFuture<>();
+            Thread submitter = Thread.ofPlatform().start(() -> {
+                try {
+                    third.complete(batch.submit(request(3)));
+                } catch (InterruptedException e) {
+                    third.completeExceptionally(e);
+                }
+            });
+            // The submitter only parks waiting for a pending slot
+            while (submitter.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+            assertFalse(third.isDone());
+
+            release.countDown();
+            assertEquals("report 1", first.get());
+            assertEquals("report 3", third.get(10, TimeUnit.SECONDS).get());
+        }
+    }
+
+    @Test
+    public void rethrowsReportFailures() throws Exception {
+        ReportGenerator failing = (historicalData, predictions, statistics) -> {
+            throw new ReportGenerationException("no data");
+        };
+
+        try (ReportBatchExecutor batch = new ReportBatchExecutor(failing)) {
+            ReportGenerationException failure = assertThrows(ReportGenerationException.class,
+                    () -> batch.generateAll(List.of(request(1), request(2))));
+            assertTrue(failure.getMessage().contains("no data"));
+        }
+    }
+
+    @Test
+    public void cancelsTheRunningReportsAfterTheFirstFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch interrupted = new CountDownLatch(3);
+        ReportGenerator generator = (historicalData, predictions, statistics) -> {
+            try {
+                if ((int) statistics.get("Report") == 4) {
+                    started.await();
+                    throw new ReportGenerationException("no data");
+                }
+                started.countDown();
+                new CountDownLatch(1).await();
+                throw new AssertionError("never released");
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException(e);
+            }
+        };
+
+        try (ReportBatchExecutor batch = new ReportBatchExecutor(generator)) {
+            assertThrows(ReportGenerationException.class,
+                    () -> batch.generateAll(List.of(request(1), request(2), request(3), request(4))));
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static String reportLine(String prompt) {
+        int start = prompt.indexOf("- Report: ");
+        return prompt.substring(start, prompt.indexOf('\n', start));
+    }
+
+    private static ReportRequest request(int report) {
+        return new ReportRequest(List.of(), List.of(), Map.of("Report", report));
+    }
+}
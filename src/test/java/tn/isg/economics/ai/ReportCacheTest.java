@@ -0,0 +1,91 @@
+package tn.isg.economics.ai;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ReportCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void keysOnModelAndPrompt() {
+        String key = ReportCache.key("llama2", "prompt");
+
+        assertEquals(key, ReportCache.key("llama2", "prompt"));
+        assertEquals(64, key.length());
+        assertNotEquals(key, ReportCache.key("llama3", "prompt"));
+        assertNotEquals(key, ReportCache.key("llama2", "prompt "));
+        assertNotEquals(ReportCache.key("ab", "c"), ReportCache.key("a", "bc"));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedReportFromMemory() {
+        ReportCache cache = new ReportCache(2);
+        cache.put("a", "report a");
+        cache.put("b", "report b");
+        assertEquals("report a", cache.get("a"));
+        cache.put("c", "report c");
+
+        assertNull(cache.get("b"));
+        assertEquals("report a", cache.get("a"));
+        assertEquals("report c", cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(new ReportCache.Stats(3, 0, 1, 1), cache.stats());
+        assertEquals(0.75, cache.stats().hitRate());
+    }
+
+    @Test
+    public void keepsReportsOnDiskAcrossInstances() throws Exception {
+        Path reports = directory.resolve("reports");
+        ReportCache first = new ReportCache(reports, 1);
+        first.put("a", "report a");
+        first.put("b", "report b");
+        assertEquals("report a", first.get("a"));
+        first.flush();
+
+        ReportCache second = new ReportCache(reports, 1);
+        assertEquals("report b", second.get("b"));
+        assertEquals("report b", second.get("b"));
+        assertNull(second.get("c"));
+        assertEquals(new ReportCache.Stats(1, 1, 1, 0), second.stats());
+        assertEquals(1, first.stats().diskHits());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedFilesBeyondTheDiskCapacity() throws Exception {
+        Path reports = directory.resolve("reports");
+        ReportCache first = new ReportCache(reports, 1, 2);
+        first.put("a", "report a");
+        first.put("b", "report b");
+        assertEquals("report a", first.get("a"));
+        first.put("c", "report c");
+        first.flush();
+
+        assertEquals(Set.of("a.md", "c.md"), files(reports));
+
+        // A new instance picks up the order from the modification times
+        ReportCache second = new ReportCache(reports, 1, 2);
+        assertEquals("report a", second.get("a"));
+        second.put("d", "report d");
+        second.flush();
+        assertEquals(Set.of("a.md", "d.md"), files(reports));
+    }
+
+    private static Set<String> files(Path directory) throws IOException {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing.map(path -> path.getFileName().toString()).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package tn.isg.economics.ai;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.PredictionResult;
+import tn.isg.economics.model.PredictionStatus;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+import tn.isg.economics.service.SampleDataGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReportPromptTest {
+
+    private static final LocalDate TARGET = LocalDate.of(2024, 6, 1);
+    private static final String INSTRUCTIONS = "\n\nWrite the report.";
+
+    @Test
+    public void estimatesTokensLocally() {
+        assertEquals(0, ReportPrompt.estimateTokens(" \n"));
+        assertEquals(2, ReportPrompt.estimateTokens("Tunisian"));
+        assertEquals(4, ReportPrompt.estimateTokens("Tunisia's"));
+        assertEquals(7, ReportPrompt.estimateTokens("- 12.50%"));
+    }
+
+    @Test
+    public void listsTheLargestMovesAgainstTheLastObservedPrice() {
+        List<ExportRecord> history = List.of(
+                record(LocalDate.of(2024, 1, 1), ProductType.DATES, "France", "1000.00"),
+                record(LocalDate.of(2024, 2, 1), ProductType.DATES, "France", "2000.00"),
+                record(LocalDate.of(2024, 1, 15), ProductType.CITRUS, "Italy", "500.00")
+        );
+        List<PredictionResult> predictions = List.of(
+                prediction(ProductType.DATES, "France", "2100.00", 0.9),
+                prediction(ProductType.CITRUS, "Italy", "400.00", 0.6),
+                prediction(ProductType.HARISSA, "Libya", "3000.00", 0.95),
+                new PredictionResult(TARGET, ProductType.ALMONDS, "Spain", null, 0, PredictionStatus.FAILED, "test")
+        );
+
+        String prompt = new ReportPrompt(1000, 1).build(history, predictions, Map.of("Average Price", 1166.67), INSTRUCTIONS);
+
+        assertTrue(prompt.contains("- Date Range: 2024-01-01 to 2024-02-01\n"), prompt);
+        assertTrue(prompt.contains("## Predictions by Product (3)\n"), prompt);
+        assertTrue(prompt.contains("- DATES: 1 predictions, 1 destinations, avg 2100.00 TND/ton (min 2100.00, max 2100.00), avg confidence 90.0%\n"), prompt);
+        assertTrue(prompt.contains("- CITRUS → Italy on 2024-06-01: 500.00 → 400.00 TND/ton (-20.0%), confidence 60.0%\n"), prompt);
+        assertFalse(prompt.contains("DATES → France"), prompt);
+        assertTrue(prompt.contains("## Most Confident Predictions\n- HARISSA → Libya on 2024-06-01: 3000.00 TND/ton, confidence 95.0%\n"), prompt);
+        assertFalse(prompt.contains("ALMONDS"), prompt);
+        assertTrue(prompt.endsWith("- Average Price: 1166.67\n" + INSTRUCTIONS), prompt);
+    }
+
+    @Test
+    public void staysWithinTheTokenBudget() {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(new SampleDataGenerator(21L).generate(LocalDate.of(2022, 1, 1), 24));
+        List<ExportRecord> history = repository.findAll();
+        List<PredictionResult> predictions = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ExportRecord record = history.get(i % history.size());
+            predictions.add(prediction(record.productType(), record.destination(), (1000 + i) + ".00", (i % 100) / 100.0));
+        }
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            statistics.put("Statistic " + i, i);
+        }
+
+        String prompt = new ReportPrompt(800, 10).build(history, predictions, statistics, INSTRUCTIONS);
+
+        assertTrue(ReportPrompt.estimateTokens(prompt) <= 800, prompt);
+        assertTrue(prompt.contains("## Largest Predicted Moves vs Last Observed Price\n"), prompt);
+        assertTrue(prompt.contains(" more omitted)\n"), prompt);
+        assertTrue(prompt.endsWith(INSTRUCTIONS));
+        // The same data read as records gives the same prompt
+        assertEquals(prompt, new ReportPrompt(800, 10).build(new ArrayList<>(history), predictions, statistics, INSTRUCTIONS));
+    }
+
+    private static ExportRecord record(LocalDate date, ProductType product, String destination, String price) {
+        return new ExportRecord(date, product, destination, 10, new BigDecimal(price), Map.of());
+    }
+
+    private static PredictionResult prediction(ProductType product, String destination, String price, double confidence) {
+        return new PredictionResult(TARGET, product, destination, new BigDecimal(price), confidence,
+                PredictionStatus.SUCCESS, "test");
+    }
+}
@@ -0,0 +1,59 @@
+package tn.isg.economics.ai;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+import tn.isg.economics.service.SampleDataGenerator;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SeriesIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2022, 1, 1);
+    private static final LocalDate TARGET = LocalDate.of(2025, 1, 1);
+    private static final String[] DESTINATIONS = {"France", "Italy", "Spain", "Germany", "UK", "USA", "Canada", "Libya", "Algeria", "Nowhere"};
+
+    private final BaseAIModel model = new BaseAIModel();
+
+    @Test
+    public void predictsLikeAScanOfTheHistory() {
+        List<ExportRecord> records = new SampleDataGenerator(3L).generate(START, 24);
+        assertSamePredictions(records, SeriesIndex.of(records));
+    }
+
+    @Test
+    public void followsAppendsAndReplacements() {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(new SampleDataGenerator(4L).generate(START, 12, 2_000));
+        try (SeriesIndex index = new SeriesIndex(repository)) {
+            // Appends may go back in time, and land on days already in the series
+            repository.append(new SampleDataGenerator(5L).generate(START.plusMonths(6), 12, 300));
+            repository.append(new SampleDataGenerator(6L).generate(START.plusMonths(11), 1, 40));
+            assertSamePredictions(new ArrayList<>(repository.findAll()), index);
+
+            repository.saveAll(new SampleDataGenerator(7L).generate(START, 3));
+            assertSamePredictions(new ArrayList<>(repository.findAll()), index);
+        }
+    }
+
+    @Test
+    public void rejectsUnknownProducts() {
+        SeriesIndex empty = SeriesIndex.of(List.of());
+        assertThrows(IllegalArgumentException.class, () -> model.predict(empty, TARGET, ProductType.DATES, "France"));
+    }
+
+    private void assertSamePredictions(List<ExportRecord> records, SeriesIndex index) {
+        for (ProductType product : ProductType.values()) {
+            for (String destination : DESTINATIONS) {
+                assertEquals(model.predict(records, TARGET, product, destination),
+                        model.predict(index, TARGET, product, destination), product + " " + destination);
+            }
+        }
+    }
+}
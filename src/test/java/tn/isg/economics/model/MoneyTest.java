@@ -0,0 +1,44 @@
+package tn.isg.economics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MoneyTest {
+
+    @Test
+    public void dividesLikeBigDecimalHalfUp() {
+        Random random = new Random(17L);
+        for (int i = 0; i < 100_000; i++) {
+            long cents = switch (i % 3) {
+                case 0 -> random.nextInt(2_000_001) - 1_000_000;
+                case 1 -> random.nextLong();
+                default -> (random.nextInt(200) - 100) * 5L;
+            };
+            long divisor = i % 2 == 0 ? random.nextInt(20) + 1 : -(random.nextInt(1_000) + 1);
+            BigDecimal expected = Money.toBigDecimal(cents).divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP);
+            assertEquals(expected, Money.toBigDecimal(Money.divide(cents, divisor)), cents + " / " + divisor);
+        }
+    }
+
+    @Test
+    public void roundsToCentsLikeSetScale() {
+        for (String amount : new String[]{"1.005", "-1.005", "2.5", "0.004999", "-0.005", "123456.789"}) {
+            BigDecimal value = new BigDecimal(amount);
+            assertEquals(value.setScale(2, RoundingMode.HALF_UP), Money.toBigDecimal(Money.toCents(value)), amount);
+        }
+    }
+
+    @Test
+    public void detectsOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.divide(Long.MIN_VALUE, -1));
+        assertThrows(ArithmeticException.class, () -> Money.toCents(new BigDecimal("1e30")));
+    }
+}
@@ -0,0 +1,109 @@
+package tn.isg.economics.repository;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColumnarExportRecordRepositoryTest {
+
+    @Test
+    public void findAllMatchesRowOrientedRepository() {
+        List<ExportRecord> records = SampleRecords.random(5_000, 42L);
+        InMemoryExportRecordRepository rows = new InMemoryExportRecordRepository();
+        ColumnarExportRecordRepository columns = new ColumnarExportRecordRepository();
+        rows.saveAll(records);
+        columns.saveAll(records);
+
+        assertEquals(rows.findAll(), columns.findAll());
+        assertEquals(rows.findLatest(), columns.findLatest());
+    }
+
+    @Test
+    public void keepsMissingPricesAndIndicators() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(List.of(new ExportRecord(date, ProductType.DATES, "Libya", 12.5, null, Map.of())));
+
+        ColumnarRecordList all = repository.findAll();
+        ExportRecord record = all.get(0);
+        assertNull(record.pricePerTon());
+        assertTrue(record.indicators().isEmpty());
+        assertEquals(date.toEpochDay(), all.epochDay(0));
+        assertEquals("Libya", all.destinationName(all.destinationId(0)));
+    }
+
+    @Test
+    public void columnarFootprintIsFractionOfRowOriented() {
+        List<ExportRecord> records = SampleRecords.random(50_000, 7L);
+        ColumnarExportRecordRepository columns = new ColumnarExportRecordRepository();
+        columns.saveAll(records);
+
+        long rowBytes = MemoryFootprint.rowOriented(records);
+        long columnBytes = MemoryFootprint.columnar(columns);
+        assertTrue(columnBytes * 4 < rowBytes, "columnar=" + columnBytes + " rows=" + rowBytes);
+    }
+
+    @Test
+    public void lateAppendsInterleaveWithStoredRowsBeforeAndAfterCompaction() {
+        List<ExportRecord> records = SampleRecords.random(6_000, 13L);
+        InMemoryExportRecordRepository rows = new InMemoryExportRecordRepository();
+        ColumnarExportRecordRepository columns = new ColumnarExportRecordRepository(Integer.MAX_VALUE);
+        rows.saveAll(records.subList(0, 3_000));
+        columns.saveAll(records.subList(0, 3_000));
+        List<ExportRecord> handedOut = columns.findAll();
+        List<ExportRecord> handedOutCopy = new ArrayList<>(handedOut);
+
+        for (int from = 3_000; from < records.size(); from += 1_000) {
+            List<ExportRecord> batch = records.subList(from, from + 1_000);
+            rows.append(batch);
+            columns.append(batch);
+            // An in-order row lands in the main store while the late run is pending
+            ExportRecord next = new ExportRecord(rows.findLatest().orElseThrow().date().plusDays(1),
+                    ProductType.DATES, "Libya", 1.0, null, Map.of());
+            rows.append(List.of(next));
+            columns.append(List.of(next));
+            assertSameRows(rows, columns);
+        }
+        assertEquals(handedOutCopy, handedOut);
+
+        columns.compact();
+        assertSameRows(rows, columns);
+        assertEquals(records.size() + 3, columns.size());
+    }
+
+    @Test
+    public void inOrderAppendsLeaveListsAlreadyHandedOutUnchanged() {
+        List<ExportRecord> records = new ArrayList<>(SampleRecords.random(4_000, 21L));
+        records.sort(Comparator.comparing(ExportRecord::date));
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(records.subList(0, 1_000));
+
+        List<List<ExportRecord>> handedOut = new ArrayList<>();
+        for (int from = 1_000; from < records.size(); from += 500) {
+            handedOut.add(repository.findAll());
+            repository.append(records.subList(from, from + 500));
+        }
+        for (int i = 0; i < handedOut.size(); i++) {
+            assertEquals(records.subList(0, 1_000 + i * 500), handedOut.get(i));
+        }
+        assertEquals(records, repository.findAll());
+    }
+
+    private static void assertSameRows(InMemoryExportRecordRepository expected, ColumnarExportRecordRepository actual) {
+        assertEquals(expected.findAll(), actual.findAll());
+        assertEquals(expected.findLatest(), actual.findLatest());
+        LocalDate since = LocalDate.of(2024, 1, 15);
+        assertEquals(expected.findSince(since), actual.findSince(since));
+        RecordQueryTest.assertQueriesMatch(actual);
+    }
+}
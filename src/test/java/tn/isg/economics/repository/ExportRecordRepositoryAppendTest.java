@@ -0,0 +1,112 @@
+package tn.isg.economics.repository;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import tn.isg.economics.model.ExportRecord;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ExportRecordRepositoryAppendTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memory", "columnar", "segments"})
+    public void appendMatchesStableSortOfAllRecords(String kind) throws Exception {
+        List<ExportRecord> records = SampleRecords.random(6_000, 11L);
+        List<ExportRecord> initial = records.subList(0, 5_000);
+        List<ExportRecord> later = records.subList(5_000, records.size());
+
+        List<ExportRecord> expected = new ArrayList<>(initial);
+        expected.sort(Comparator.comparing(ExportRecord::date));
+        List<ExportRecord> sortedLater = new ArrayList<>(later);
+        sortedLater.sort(Comparator.comparing(ExportRecord::date));
+        expected.addAll(sortedLater);
+        expected.sort(Comparator.comparing(ExportRecord::date));
+
+        ExportRecordRepository repository = create(kind);
+        AtomicInteger appended = new AtomicInteger();
+        repository.addChangeListener(new RepositoryChangeListener() {
+            @Override
+            public void onAppend(List<ExportRecord> batch, long sequence) {
+                appended.addAndGet(batch.size());
+            }
+
+            @Override
+            public void onReplace(List<ExportRecord> all, long sequence) {
+            }
+        });
+
+        repository.saveAll(initial);
+        long before = repository.changeSequence();
+        repository.append(later);
+
+        assertEquals(before + 1, repository.changeSequence());
+        assertEquals(later.size(), appended.get());
+        assertEquals(expected, repository.findAll());
+        assertEquals(expected.stream().max(Comparator.comparing(ExportRecord::date)), repository.findLatest());
+
+        LocalDate since = expected.get(expected.size() / 2).date();
+        assertEquals(expected.stream().filter(r -> !r.date().isBefore(since)).toList(), repository.findSince(since));
+
+        if (repository instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"columnar", "segments"})
+    public void followersSeeEveryRecordOnceDespiteConcurrentAppends(String kind) throws Exception {
+        List<ExportRecord> records = SampleRecords.random(4_000, 17L);
+        ExportRecordRepository repository = create(kind);
+        repository.saveAll(records.subList(0, 1_000));
+
+        Thread writer = new Thread(() -> {
+            for (int from = 1_000; from < records.size(); from += 100) {
+                repository.append(records.subList(from, from + 100));
+            }
+        });
+        writer.start();
+        List<AtomicInteger> seen = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            AtomicInteger count = new AtomicInteger();
+            repository.follow(new RepositoryChangeListener() {
+                @Override
+                public void onAppend(List<ExportRecord> batch, long sequence) {
+                    count.addAndGet(batch.size());
+                }
+
+                @Override
+                public void onReplace(List<ExportRecord> all, long sequence) {
+                    count.set(all.size());
+                }
+            });
+            seen.add(count);
+        }
+        writer.join();
+
+        for (AtomicInteger count : seen) {
+            assertEquals(records.size(), count.get());
+        }
+        if (repository instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private ExportRecordRepository create(String kind) {
+        return switch (kind) {
+            case "memory" -> new InMemoryExportRecordRepository();
+            case "columnar" -> new ColumnarExportRecordRepository();
+            default -> new MappedSegmentExportRecordRepository(directory);
+        };
+    }
+}
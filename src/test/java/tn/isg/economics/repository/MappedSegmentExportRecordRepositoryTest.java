@@ -0,0 +1,135 @@
+package tn.isg.economics.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tn.isg.economics.model.ExportRecord;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MappedSegmentExportRecordRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void reopensSavedRecordsFromSegments() {
+        List<ExportRecord> records = SampleRecords.random(20_000, 3L);
+        InMemoryExportRecordRepository expected = new InMemoryExportRecordRepository();
+        expected.saveAll(records);
+
+        try (MappedSegmentExportRecordRepository repository = new MappedSegmentExportRecordRepository(directory)) {
+            repository.saveAll(records);
+            assertEquals(expected.findAll(), repository.findAll());
+        }
+        try (MappedSegmentExportRecordRepository reopened = new MappedSegmentExportRecordRepository(directory)) {
+            assertEquals(expected.findAll(), reopened.findAll());
+            assertEquals(expected.findLatest(), reopened.findLatest());
+        }
+    }
+
+    @Test
+    public void appendedRowsSurviveRestartAndCompaction() {
+        List<ExportRecord> records = SampleRecords.random(10_000, 5L);
+        List<ExportRecord> first = records.subList(0, 8_000);
+        List<ExportRecord> late = records.subList(8_000, records.size());
+        InMemoryExportRecordRepository expected = new InMemoryExportRecordRepository();
+        List<ExportRecord> all = new ArrayList<>(first);
+        all.addAll(late);
+        expected.saveAll(all);
+
+        try (MappedSegmentExportRecordRepository repository = new MappedSegmentExportRecordRepository(directory, Integer.MAX_VALUE)) {
+            repository.saveAll(first);
+            repository.append(late);
+            assertEquals(expected.findAll(), repository.findAll());
+        }
+        try (MappedSegmentExportRecordRepository reopened = new MappedSegmentExportRecordRepository(directory, Integer.MAX_VALUE)) {
+            assertEquals(expected.findAll(), reopened.findAll());
+            reopened.compact();
+            assertEquals(expected.findAll(), reopened.findAll());
+        }
+        try (MappedSegmentExportRecordRepository compacted = new MappedSegmentExportRecordRepository(directory)) {
+            assertEquals(expected.findAll(), compacted.findAll());
+            assertEquals(records.size(), compacted.findAll().size());
+        }
+    }
+
+    @Test
+    public void mergesSuccessiveAppendsIntoTheTail() {
+        List<ExportRecord> records = SampleRecords.random(6_000, 9L);
+        InMemoryExportRecordRepository expected = new InMemoryExportRecordRepository();
+        expected.saveAll(records.subList(0, 2_000));
+
+        try (MappedSegmentExportRecordRepository repository = new MappedSegmentExportRecordRepository(directory, Integer.MAX_VALUE)) {
+            repository.saveAll(records.subList(0, 2_000));
+            for (int from = 2_000; from < records.size(); from += 500) {
+                List<ExportRecord> batch = records.subList(from, from + 500);
+                repository.append(batch);
+                expected.append(batch);
+                assertEquals(expected.findAll(), repository.findAll());
+                assertEquals(expected.findLatest(), repository.findLatest());
+            }
+        }
+        try (MappedSegmentExportRecordRepository reopened = new MappedSegmentExportRecordRepository(directory, Integer.MAX_VALUE)) {
+            assertEquals(expected.findAll(), reopened.findAll());
+        }
+    }
+
+    @Test
+    public void inOrderAppendsGrowTheTailWithoutDisturbingEarlierSnapshots() {
+        List<ExportRecord> records = new ArrayList<>(SampleRecords.random(3_000, 13L));
+        records.sort(Comparator.comparing(ExportRecord::date));
+        List<ExportRecord> saved = records.subList(0, 1_000);
+
+        try (MappedSegmentExportRecordRepository repository = new MappedSegmentExportRecordRepository(directory, Integer.MAX_VALUE)) {
+            repository.saveAll(saved);
+            List<List<ExportRecord>> snapshots = new ArrayList<>();
+            for (int from = 1_000; from < records.size(); from += 100) {
+                snapshots.add(repository.findAll());
+                repository.append(records.subList(from, from + 100));
+            }
+            assertEquals(records, repository.findAll());
+            for (int i = 0; i < snapshots.size(); i++) {
+                assertEquals(records.subList(0, 1_000 + i * 100), snapshots.get(i));
+            }
+
+            // Two lists derived from the same one must not fill the same spare rows
+            SegmentedRecordList base = repository.findAll();
+            ExportRecord last = records.get(records.size() - 1);
+            ExportRecord first = new ExportRecord(last.date(), last.productType(), "Italy", 1, last.pricePerTon(), last.indicators());
+            ExportRecord second = new ExportRecord(last.date(), last.productType(), "Spain", 2, last.pricePerTon(), last.indicators());
+            SegmentedRecordList left = base.withTailRows(List.of(first));
+            SegmentedRecordList right = base.withTailRows(List.of(second));
+            assertEquals(first, left.get(left.size() - 1));
+            assertEquals(second, right.get(right.size() - 1));
+            assertEquals(records, base);
+        }
+    }
+
+    @Test
+    public void indexedQueriesFollowAppendsAndCompaction() {
+        List<ExportRecord> records = SampleRecords.random(40_000, 5L);
+        try (MappedSegmentExportRecordRepository repository = new MappedSegmentExportRecordRepository(directory, Integer.MAX_VALUE)) {
+            repository.saveAll(records.subList(0, 30_000));
+            RecordQueryTest.assertQueriesMatch(repository);
+
+            // In-order appends extend the indexes, earlier-dated ones have them rebuilt
+            repository.append(records.subList(30_000, 35_000).stream()
+                    .map(r -> new ExportRecord(r.date().plusYears(3), r.productType(), r.destination(),
+                            r.volumeTons(), r.pricePerTon(), r.indicators()))
+                    .toList());
+            RecordQueryTest.assertQueriesMatch(repository);
+            repository.append(records.subList(35_000, 40_000));
+            RecordQueryTest.assertQueriesMatch(repository);
+            repository.compact();
+            RecordQueryTest.assertQueriesMatch(repository);
+        }
+        try (MappedSegmentExportRecordRepository reopened = new MappedSegmentExportRecordRepository(directory)) {
+            RecordQueryTest.assertQueriesMatch(reopened);
+        }
+    }
+}
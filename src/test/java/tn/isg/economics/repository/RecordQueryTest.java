@@ -0,0 +1,68 @@
+package tn.isg.economics.repository;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecordQueryTest {
+
+    private static final LocalDate FROM = LocalDate.of(2023, 6, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 2, 29);
+
+    private static final List<RecordQuery> QUERIES = List.of(
+            RecordQuery.all(),
+            RecordQuery.product(ProductType.DATES),
+            RecordQuery.destination("Italy"),
+            RecordQuery.between(FROM, TO),
+            RecordQuery.product(ProductType.OLIVE_OIL).and(RecordQuery.destination("France")),
+            RecordQuery.product(ProductType.CITRUS).and(RecordQuery.destination("Libya")).and(RecordQuery.between(FROM, TO)),
+            new RecordQuery(Set.of(ProductType.TOMATO, ProductType.ALMONDS), Set.of("Spain", "Germany"), FROM, null),
+            RecordQuery.destination("Atlantis"),
+            RecordQuery.product(ProductType.DATES).and(RecordQuery.product(ProductType.HARISSA)),
+            RecordQuery.between(TO, FROM)
+    );
+
+    @Test
+    public void indexedQueriesMatchLinearFilter() {
+        List<ExportRecord> records = SampleRecords.random(150_000, 5L);
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(records.subList(0, 120_000));
+        assertQueriesMatch(repository);
+
+        // In-order appends extend the indexes, earlier-dated ones are indexed in the late run
+        repository.append(records.subList(120_000, 150_000).stream()
+                .map(r -> new ExportRecord(r.date().plusYears(3), r.productType(), r.destination(),
+                        r.volumeTons(), r.pricePerTon(), r.indicators()))
+                .toList());
+        assertQueriesMatch(repository);
+        repository.append(records.subList(120_000, 150_000));
+        assertQueriesMatch(repository);
+    }
+
+    @Test
+    public void andIntersectsConstraints() {
+        RecordQuery query = RecordQuery.between(FROM, null)
+                .and(RecordQuery.between(null, TO))
+                .and(new RecordQuery(Set.of(ProductType.DATES, ProductType.CITRUS), null, null, null))
+                .and(RecordQuery.product(ProductType.CITRUS));
+
+        assertEquals(new RecordQuery(Set.of(ProductType.CITRUS), null, FROM, TO), query);
+        assertTrue(RecordQuery.product(ProductType.DATES).and(RecordQuery.product(ProductType.CITRUS)).products().isEmpty());
+    }
+
+    static void assertQueriesMatch(IndexedExportRecordRepository repository) {
+        List<ExportRecord> all = repository.findAll();
+        for (RecordQuery query : QUERIES) {
+            List<ExportRecord> expected = all.stream().filter(query::matches).toList();
+            assertEquals(expected, repository.query(query), query.toString());
+            assertEquals(expected.size(), repository.count(query), query.toString());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package tn.isg.economics.repository;
+
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded export records shared by the tests: dates in random order over 2023-2024, every product, the
+ * {@link #DESTINATIONS}, prices with two decimals and the USD/TND and Brent indicators.
+ */
+public final class SampleRecords {
+
+    public static final List<String> DESTINATIONS = List.of("France", "Italy", "Spain", "Germany", "Libya");
+
+    private SampleRecords() {
+    }
+
+    /**
+     * @return {@code count} records; the same seed always yields the same records
+     */
+    public static List<ExportRecord> random(int count, long seed) {
+        Random random = new Random(seed);
+        LocalDate start = LocalDate.of(2023, 1, 1);
+        List<ExportRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<MarketIndicator, Double> indicators = new EnumMap<>(MarketIndicator.class);
+            indicators.put(MarketIndicator.USD_TND, 3.0 + random.nextDouble() * 0.5);
+            indicators.put(MarketIndicator.BRENT_OIL, 70 + random.nextDouble() * 30);
+            records.add(new ExportRecord(
+                    start.plusDays(random.nextInt(730)),
+                    ProductType.values()[random.nextInt(ProductType.values().length)],
+                    DESTINATIONS.get(random.nextInt(DESTINATIONS.size())),
+                    10 + random.nextDouble() * 90,
+                    BigDecimal.valueOf(100_000 + random.nextInt(1_000_000), 2),
+                    indicators
+            ));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,184 @@
+package tn.isg.economics.service;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+import tn.isg.economics.repository.SampleRecords;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AggregationEngineTest {
+
+    private final ExportAnalyticsService service = new ExportAnalyticsService();
+
+    @Test
+    public void matchesBigDecimalStreamsOnRecordsAndColumns() {
+        List<ExportRecord> records = sampleRecords(40_000, 21L);
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(records);
+
+        for (List<ExportRecord> source : List.of(records, repository.findAll())) {
+            assertEquals(revenueByProduct(source), service.revenueByProduct(source));
+            assertEquals(revenueByDestination(source), service.revenueByDestination(source));
+            assertEquals(averagePriceByMonth(source), service.averagePriceByMonth(source));
+            assertEquals(averagePrice(source), service.averagePrice(source));
+            assertEquals(source.stream().mapToDouble(ExportRecord::volumeTons).sum(), service.volumeStats(source).getSum());
+        }
+    }
+
+    @Test
+    public void parallelScanIsIdenticalToSequential() {
+        List<ExportRecord> records = sampleRecords(120_000, 8L);
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(records);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ExportAnalyticsService parallel = new ExportAnalyticsService(null, pool, 1);
+            Aggregation everything = new Aggregation(Set.of(Dimension.DESTINATION, Dimension.MONTH), Set.of(Measure.values()));
+            for (List<ExportRecord> source : List.of(records, repository.findAll())) {
+                SortedMap<AggregateKey, Aggregates> expected = service.aggregate(source, everything);
+                SortedMap<AggregateKey, Aggregates> actual = parallel.aggregate(source, everything);
+                assertEquals(expected.keySet(), actual.keySet());
+                expected.forEach((key, group) -> {
+                    for (Measure measure : Measure.values()) {
+                        assertEquals(group.value(measure), actual.get(key).value(measure), key + " " + measure);
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void groupsByYearMonthAndMultipleDimensions() {
+        List<ExportRecord> records = sampleRecords(10_000, 5L);
+        SortedMap<AggregateKey, Aggregates> cells = service.aggregate(records,
+                Aggregation.of(Measure.COUNT, Measure.PRICE_MAX).by(Dimension.PRODUCT, Dimension.YEAR_MONTH));
+
+        Map<AggregateKey, Long> expected = records.stream().collect(Collectors.groupingBy(
+                r -> new AggregateKey(r.productType(), null, null, YearMonth.from(r.date())), TreeMap::new, Collectors.counting()));
+        assertEquals(expected.keySet(), cells.keySet());
+        cells.forEach((key, group) -> {
+            assertEquals(expected.get(key), group.count());
+            BigDecimal max = records.stream()
+                    .filter(r -> r.productType() == key.product() && YearMonth.from(r.date()).equals(key.yearMonth()))
+                    .map(ExportRecord::pricePerTon).max(BigDecimal::compareTo).orElseThrow();
+            assertEquals(0, max.compareTo(group.maxPrice()));
+        });
+    }
+
+    @Test
+    public void decomposesDoublesLikeBigDecimalValueOf() {
+        Random random = new Random(99L);
+        for (int i = 0; i < 200_000; i++) {
+            double value = switch (i % 4) {
+                case 0 -> random.nextDouble() * 100;
+                case 1 -> Math.round(random.nextDouble() * 1_000_000) / 100.0;
+                case 2 -> random.nextDouble() * 1e-2;
+                default -> Double.longBitsToDouble(random.nextLong());
+            };
+            if (!Double.isFinite(value)) {
+                continue;
+            }
+            long packed = ShortestDecimal.decompose(value);
+            if (packed != ShortestDecimal.UNSUPPORTED) {
+                BigDecimal expected = BigDecimal.valueOf(value);
+                assertEquals(expected, BigDecimal.valueOf(ShortestDecimal.unscaled(packed), ShortestDecimal.scale(packed)),
+                        Double.toString(value));
+            }
+        }
+    }
+
+    @Test
+    public void exactSumSurvivesOverflowOfItsAccumulators() {
+        ExactDecimalSum sum = new ExactDecimalSum();
+        BigDecimal expected = BigDecimal.ZERO;
+        for (int i = 0; i < 1_000; i++) {
+            sum.addProduct(Long.MAX_VALUE - i, 3, Long.MAX_VALUE / 7, 2);
+            expected = expected.add(BigDecimal.valueOf(Long.MAX_VALUE - i, 3).multiply(BigDecimal.valueOf(Long.MAX_VALUE / 7, 2)));
+            sum.add(-i, 1);
+            expected = expected.add(BigDecimal.valueOf(-i, 1));
+        }
+        assertEquals(expected, sum.toBigDecimal());
+    }
+
+    @Test
+    public void exactDoubleSumIsTheRoundedExactTotalInAnyOrder() {
+        Random random = new Random(7L);
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            values.add(switch (i % 3) {
+                case 0 -> random.nextDouble() * 1e16;
+                case 1 -> -random.nextDouble() * 1e-3;
+                default -> random.nextInt(500) / 4.0;
+            });
+        }
+        double expected = values.stream().map(BigDecimal::new).reduce(BigDecimal.ZERO, BigDecimal::add).doubleValue();
+        for (int round = 0; round < 5; round++) {
+            Collections.shuffle(values, random);
+            ExactDoubleSum left = new ExactDoubleSum();
+            ExactDoubleSum right = new ExactDoubleSum();
+            int split = random.nextInt(values.size());
+            values.subList(0, split).forEach(left::add);
+            values.subList(split, values.size()).forEach(right::add);
+            right.merge(left);
+            assertEquals(expected, right.toDouble());
+        }
+    }
+
+    private static Map<ProductType, BigDecimal> revenueByProduct(List<ExportRecord> records) {
+        return records.stream().collect(Collectors.groupingBy(ExportRecord::productType, TreeMap::new,
+                Collectors.mapping(r -> r.pricePerTon().multiply(BigDecimal.valueOf(r.volumeTons())),
+                        Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))));
+    }
+
+    private static Map<String, BigDecimal> revenueByDestination(List<ExportRecord> records) {
+        return records.stream().collect(Collectors.groupingBy(ExportRecord::destination, TreeMap::new,
+                Collectors.mapping(r -> r.pricePerTon().multiply(BigDecimal.valueOf(r.volumeTons())),
+                        Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))));
+    }
+
+    private static Map<Integer, BigDecimal> averagePriceByMonth(List<ExportRecord> records) {
+        return records.stream().collect(Collectors.groupingBy(r -> r.date().getMonthValue(), TreeMap::new,
+                Collectors.collectingAndThen(Collectors.toList(), group -> averagePrice(group))));
+    }
+
+    private static BigDecimal averagePrice(List<ExportRecord> records) {
+        BigDecimal sum = records.stream().map(ExportRecord::pricePerTon).reduce(BigDecimal.ZERO, BigDecimal::add);
+        return sum.divide(BigDecimal.valueOf(records.size()), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Shared sample records with every third volume a quarter ton and every third one above 1e7, which
+     * {@link ShortestDecimal} leaves to the BigDecimal fallback.
+     */
+    private static List<ExportRecord> sampleRecords(int count, long seed) {
+        Random random = new Random(seed);
+        List<ExportRecord> records = new ArrayList<>(count);
+        for (ExportRecord r : SampleRecords.random(count, seed)) {
+            double volume = switch (records.size() % 3) {
+                case 0 -> r.volumeTons();
+                case 1 -> random.nextInt(500) / 4.0;
+                default -> 1e7 + random.nextDouble();
+            };
+            records.add(new ExportRecord(r.date(), r.productType(), r.destination(), volume, r.pricePerTon(), r.indicators()));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,117 @@
+package tn.isg.economics.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tn.isg.economics.exceptions.DataAccessException;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ColumnarFileReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void readsBackEveryRecord() throws IOException {
+        LocalDate day = LocalDate.of(2023, 5, 17);
+        List<ExportRecord> records = new ArrayList<>(List.of(
+                new ExportRecord(day, ProductType.DATES, null, Double.NaN, null, null),
+                new ExportRecord(day.minusDays(400), ProductType.HARISSA, "Côte d'Ivoire", -1.5,
+                        new BigDecimal("-12.30"), Map.of(MarketIndicator.BRENT_OIL, 81.25))
+        ));
+        records.addAll(synthetic(9L, 24, 150_000));
+        Path path = directory.resolve("export.txcf");
+
+        RecordExporter.exportToColumnar(records, path);
+
+        try (ColumnarFileReader reader = ColumnarFileReader.open(path)) {
+            assertEquals(records.size(), reader.rowCount());
+            assertEquals(3, reader.rowGroupCount());
+            List<ExportRecord> read = reader.read();
+            assertEquals(records.size(), read.size());
+            assertEquals(new ExportRecord(day, ProductType.DATES, null, Double.NaN, null, Map.of()), read.get(0));
+            assertEquals(records.subList(1, records.size()), read.subList(1, read.size()));
+        }
+    }
+
+    @Test
+    public void exportsColumnStoresLikeRecords() throws IOException {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(new SampleDataGenerator(10L).generate(LocalDate.of(2022, 1, 1), 12, 5_000));
+        Path fromColumns = directory.resolve("columns.txcf");
+        Path fromRecords = directory.resolve("records.txcf");
+
+        RecordExporter.exportToColumnar(repository.findAll(), fromColumns);
+        RecordExporter.exportToColumnar(new ArrayList<>(repository.findAll()), fromRecords);
+
+        assertEquals(-1, Files.mismatch(fromColumns, fromRecords));
+    }
+
+    @Test
+    public void skipsRowGroupsTheFilterRulesOut() throws IOException {
+        List<ExportRecord> records = synthetic(11L, 48, 400_000);
+        Path path = directory.resolve("export.txcf");
+        RecordExporter.exportToColumnar(records, path);
+
+        try (ColumnarFileReader reader = ColumnarFileReader.open(path)) {
+            RecordPredicate month = RecordPredicate.dateBetween(LocalDate.of(2021, 3, 1), LocalDate.of(2021, 3, 31))
+                    .and(RecordPredicate.productEq(ProductType.ALMONDS));
+            assertEquals(1, matchingGroups(reader, month));
+            assertEquals(records.stream().filter(month::test).toList(), reader.read(month));
+
+            RecordPredicate nowhere = RecordPredicate.destinationIn("Japan");
+            assertEquals(0, matchingGroups(reader, nowhere));
+            assertEquals(List.of(), reader.read(nowhere));
+
+            RecordPredicate huge = RecordPredicate.volumeBetween(1e6, Double.MAX_VALUE)
+                    .or(RecordPredicate.indicatorAbove(MarketIndicator.USD_TND, 1e3));
+            assertEquals(0, matchingGroups(reader, huge));
+
+            RecordPredicate notMonth = RecordPredicate.not(month);
+            assertEquals(reader.rowGroupCount(), matchingGroups(reader, notMonth));
+            assertEquals(records.stream().filter(notMonth::test).toList(), reader.read(notMonth));
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        Path csv = directory.resolve("export.csv");
+        RecordExporter.exportToCsv(new SampleDataGenerator(12L).generate(LocalDate.of(2022, 1, 1), 1), csv);
+
+        assertThrows(DataAccessException.class, () -> ColumnarFileReader.open(csv));
+        assertThrows(DataAccessException.class, () -> ColumnarFileReader.open(directory.resolve("missing.txcf")));
+
+        Path empty = directory.resolve("empty.txcf");
+        RecordExporter.exportToColumnar(List.of(), empty);
+        try (ColumnarFileReader reader = ColumnarFileReader.open(empty)) {
+            assertEquals(0, reader.rowCount());
+            assertFalse(reader.read().iterator().hasNext());
+        }
+    }
+
+    private static List<ExportRecord> synthetic(long seed, int months, int rows) {
+        List<ExportRecord> records = new ArrayList<>(rows);
+        new SyntheticDatasetGenerator(seed, LocalDate.of(2020, 1, 1), months, 1).generate(rows, records::addAll);
+        return records;
+    }
+
+    private static long matchingGroups(ColumnarFileReader reader, RecordPredicate filter) {
+        return IntStream.range(0, reader.rowGroupCount()).filter(group -> reader.mayMatch(group, filter)).count();
+    }
+}
@@ -0,0 +1,67 @@
+package tn.isg.economics.service;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+import tn.isg.economics.repository.SampleRecords;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MaterializedAggregatesTest {
+
+    @Test
+    public void followsSaveAllAndAppends() {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        ExportAnalyticsService service = new ExportAnalyticsService(repository);
+        repository.saveAll(SampleRecords.random(5_000, 3L));
+        try (MaterializedAggregates aggregates = new MaterializedAggregates(service, repository)) {
+            repository.append(SampleRecords.random(700, 4L));
+            repository.append(SampleRecords.random(300, 5L));
+
+            List<ExportRecord> all = repository.findAll();
+            assertEquals(service.revenueByProduct(all), aggregates.revenueByProduct(RecordPredicate.always()));
+            assertEquals(service.revenueByDestination(all), aggregates.revenueByDestination(RecordPredicate.always()));
+            assertEquals(service.averagePriceByMonth(all), aggregates.averagePriceByMonth(RecordPredicate.always()));
+
+            repository.saveAll(SampleRecords.random(100, 6L));
+            assertEquals(service.revenueByProduct(repository.findAll()),
+                    aggregates.revenueByProduct(RecordPredicate.always()));
+        }
+    }
+
+    @Test
+    public void rollsUpFilteredCellsLikeAQuery() {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        ExportAnalyticsService service = new ExportAnalyticsService(repository);
+        repository.saveAll(SampleRecords.random(8_000, 11L));
+        MaterializedAggregates aggregates = new MaterializedAggregates(service, repository);
+
+        RecordPredicate filter = RecordPredicate.destinationIn("France", "Spain")
+                .and(RecordPredicate.dateBetween(LocalDate.of(2022, 3, 1), LocalDate.of(2023, 6, 30)))
+                .and(RecordPredicate.not(RecordPredicate.productEq(ProductType.DATES)));
+        assertTrue(aggregates.canAnswer(filter));
+        List<ExportRecord> matching = service.query(filter);
+        assertEquals(service.revenueByProduct(matching), aggregates.revenueByProduct(filter));
+        assertEquals(service.averagePriceByMonth(matching), aggregates.averagePriceByMonth(filter));
+    }
+
+    @Test
+    public void rejectsFiltersThatSplitCells() {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        MaterializedAggregates aggregates = new MaterializedAggregates(new ExportAnalyticsService(repository), repository);
+
+        RecordPredicate midMonth = RecordPredicate.dateBetween(LocalDate.of(2022, 3, 15), null);
+        assertFalse(aggregates.canAnswer(midMonth));
+        assertFalse(aggregates.canAnswer(RecordPredicate.volumeBetween(10, 20)));
+        assertFalse(aggregates.canAnswer(RecordPredicate.productEq(ProductType.DATES).or(midMonth)));
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregates.rollUp(Aggregation.of(Measure.COUNT), midMonth));
+    }
+}
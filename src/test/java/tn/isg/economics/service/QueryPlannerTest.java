@@ -0,0 +1,94 @@
+package tn.isg.economics.service;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+import tn.isg.economics.repository.InMemoryExportRecordRepository;
+import tn.isg.economics.repository.RecordQuery;
+import tn.isg.economics.repository.SampleRecords;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryPlannerTest {
+
+    private static final LocalDate FROM = LocalDate.of(2023, 6, 1);
+    private static final LocalDate TO = LocalDate.of(2023, 9, 30);
+
+    private static final List<RecordPredicate> PREDICATES = List.of(
+            RecordPredicate.always(),
+            RecordPredicate.productEq(ProductType.DATES),
+            RecordPredicate.productEq(ProductType.OLIVE_OIL)
+                    .and(RecordPredicate.destinationIn("France", "Italy"))
+                    .and(RecordPredicate.dateBetween(FROM, TO)),
+            RecordPredicate.volumeBetween(20, 40).and(RecordPredicate.indicatorAbove(MarketIndicator.BRENT_OIL, 90)),
+            RecordPredicate.anyOf(RecordPredicate.productEq(ProductType.CITRUS), RecordPredicate.productEq(ProductType.TOMATO))
+                    .and(RecordPredicate.indicatorBelow(MarketIndicator.USD_TND, 3.2)),
+            RecordPredicate.not(RecordPredicate.destinationIn("Libya")).and(RecordPredicate.dateBetween(null, TO)),
+            RecordPredicate.destinationIn("Atlantis").or(RecordPredicate.volumeBetween(95, 100)),
+            RecordPredicate.indicatorAbove(MarketIndicator.RAINFALL_INDEX, 0)
+    );
+
+    @Test
+    public void plannedQueriesMatchLinearFilter() {
+        List<ExportRecord> records = SampleRecords.random(60_000, 11L);
+        ColumnarExportRecordRepository indexed = new ColumnarExportRecordRepository();
+        InMemoryExportRecordRepository plain = new InMemoryExportRecordRepository();
+        indexed.saveAll(records);
+        plain.saveAll(records);
+        ExportAnalyticsService indexedService = new ExportAnalyticsService(indexed);
+        ExportAnalyticsService plainService = new ExportAnalyticsService(plain);
+
+        List<ExportRecord> all = indexed.findAll();
+        for (RecordPredicate predicate : PREDICATES) {
+            List<ExportRecord> expected = all.stream().filter(predicate::test).toList();
+            assertEquals(expected, indexedService.query(predicate), predicate.toString());
+            assertEquals(expected, plainService.query(predicate), predicate.toString());
+            assertEquals(expected, indexedService.filter(all, predicate), predicate.toString());
+        }
+    }
+
+    @Test
+    public void selectiveConditionsUseIndexesAndRunFirst() {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(SampleRecords.random(20_000, 3L));
+        QueryPlanner planner = new QueryPlanner(repository);
+
+        RecordPredicate volume = RecordPredicate.volumeBetween(10, 90);
+        RecordPredicate rare = RecordPredicate.indicatorAbove(MarketIndicator.BRENT_OIL, 99);
+        QueryPlan plan = planner.plan(RecordPredicate.allOf(
+                volume, RecordPredicate.productEq(ProductType.DATES), rare, RecordPredicate.destinationIn("Qatar")));
+
+        assertTrue(plan.usesIndex());
+        assertEquals(new RecordQuery(Set.of(ProductType.DATES), Set.of("Qatar"), null, null), plan.indexLookup());
+        assertEquals(repository.count(plan.indexLookup()), plan.estimatedRows());
+        // Neither residual term is indexable; they share a fixed estimate and keep their order
+        assertEquals(List.of(volume, rare), ((RecordPredicate.And) plan.residual()).terms());
+
+        // A condition matching most of the table is cheaper to scan than to look up
+        QueryPlan broad = planner.plan(RecordPredicate.not(RecordPredicate.productEq(ProductType.DATES))
+                .and(RecordPredicate.dateBetween(null, LocalDate.of(2030, 1, 1))));
+        assertFalse(broad.usesIndex());
+        assertInstanceOf(RecordPredicate.Not.class, ((RecordPredicate.And) broad.residual()).terms().get(0));
+    }
+
+    @Test
+    public void chainedFiltersFuseIntoOneConjunction() {
+        RecordPredicate chained = RecordPredicate.always()
+                .and(RecordPredicate.productEq(ProductType.DATES))
+                .and(RecordPredicate.destinationIn("Italy"))
+                .and(RecordPredicate.dateBetween(FROM, TO));
+
+        assertEquals(3, ((RecordPredicate.And) chained).terms().size());
+        assertEquals(RecordPredicate.productEq(ProductType.DATES),
+                RecordPredicate.not(RecordPredicate.not(RecordPredicate.productEq(ProductType.DATES))));
+    }
+}
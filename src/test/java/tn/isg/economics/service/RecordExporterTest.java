@@ -0,0 +1,131 @@
+package tn.isg.economics.service;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecordExporterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2023, 5, 17);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void writesTheSameOutputAsFormattingEachRecord() throws IOException {
+        List<ExportRecord> records = new ArrayList<>(List.of(
+                record(1.005, new BigDecimal("1234.50")),
+                record(0.125, new BigDecimal("99")),
+                record(10.0, new BigDecimal("0.001")),
+                record(2.675, new BigDecimal("12.345")),
+                record(1e7, new BigDecimal("1E+3")),
+                record(12345678.9, new BigDecimal("0.0000001")),
+                record(0.0004, null),
+                record(0, new BigDecimal("-5.25"))
+        ));
+        records.addAll(new SampleDataGenerator(3L).generate(LocalDate.of(2022, 1, 1), 24));
+
+        assertEquals(referenceCsv(records), csv(records));
+        assertEquals(referenceJson(records), json(records));
+        assertEquals("[\n]", json(List.of()));
+    }
+
+    @Test
+    public void exportsColumnStoresWithoutMaterializingRecords() throws IOException {
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        repository.saveAll(new SampleDataGenerator(4L).generate(LocalDate.of(2022, 1, 1), 12, 5_000));
+        List<ExportRecord> materialized = new ArrayList<>(repository.findAll());
+
+        assertEquals(csv(materialized), csv(repository.findAll()));
+        assertEquals(json(materialized), json(repository.findAll()));
+    }
+
+    @Test
+    public void compressesAsTheFileNameImplies() throws IOException {
+        // Several times the buffer size, so compressed streams span many writes
+        List<ExportRecord> records = new SampleDataGenerator(5L).generate(LocalDate.of(2022, 1, 1), 12, 100_000);
+        String expected = csv(records);
+        assertTrue(expected.length() > 3 * RecordExporter.BUFFER_SIZE);
+
+        Path gzip = directory.resolve("export.csv.gz");
+        RecordExporter.exportToCsv(records, gzip);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzip))) {
+            assertEquals(expected, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        Path zstd = directory.resolve("export.csv.zst");
+        RecordExporter.exportToCsv(records, zstd);
+        try (InputStream in = new ZstdInputStream(Files.newInputStream(zstd))) {
+            assertEquals(expected, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertTrue(Files.size(zstd) < expected.length() / 3);
+    }
+
+    @Test
+    public void escapesDestinations() throws IOException {
+        ExportRecord record = new ExportRecord(DAY, ProductType.DATES, "Korea, \"South\"", 1, BigDecimal.ONE, Map.of());
+        assertEquals(RecordExporter.CSV_HEADER + "2023-05-17,DATES,\"Korea, \"\"South\"\"\",1.00,1\n", csv(List.of(record)));
+        assertTrue(json(List.of(record)).contains("\"destination\": \"Korea, \\\"South\\\"\","));
+    }
+
+    private String csv(List<ExportRecord> records) throws IOException {
+        Path path = directory.resolve("export.csv");
+        RecordExporter.exportToCsv(records, path);
+        return Files.readString(path);
+    }
+
+    private String json(List<ExportRecord> records) throws IOException {
+        Path path = directory.resolve("export.json");
+        RecordExporter.exportToJson(records, path);
+        return Files.readString(path);
+    }
+
+    private static ExportRecord record(double volume, BigDecimal price) {
+        return new ExportRecord(DAY, ProductType.OLIVE_OIL, "France", volume, price, Map.of());
+    }
+
+    private static String referenceCsv(List<ExportRecord> records) {
+        StringBuilder csv = new StringBuilder("Date,ProductType,Destination,VolumeTons,PricePerTon\n");
+        for (ExportRecord record : records) {
+            csv.append(String.format(Locale.ROOT, "%s,%s,%s,%.2f,%s\n", record.date(), record.productType(),
+                    record.destination(), record.volumeTons(), record.pricePerTon()));
+        }
+        return csv.toString();
+    }
+
+    private static String referenceJson(List<ExportRecord> records) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < records.size(); i++) {
+            ExportRecord r = records.get(i);
+            json.append("  {\n");
+            json.append("    \"date\": \"").append(r.date()).append("\",\n");
+            json.append("    \"productType\": \"").append(r.productType()).append("\",\n");
+            json.append("    \"destination\": \"").append(r.destination()).append("\",\n");
+            json.append("    \"volumeTons\": ").append(r.volumeTons()).append(",\n");
+            json.append("    \"pricePerTon\": ").append(r.pricePerTon()).append("\n");
+            json.append("  }");
+            if (i < records.size() - 1) json.append(",");
+            json.append("\n");
+        }
+        return json.append("]").toString();
+    }
+}
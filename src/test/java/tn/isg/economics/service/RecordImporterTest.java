@@ -0,0 +1,153 @@
+package tn.isg.economics.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tn.isg.economics.exceptions.DataAccessException;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecordImporterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2023, 5, 17);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void readsBackWhatTheExporterWrites() throws IOException {
+        List<ExportRecord> records = new ArrayList<>(List.of(
+                record("Korea, \"South\"", 1.005, new BigDecimal("1234.50")),
+                record("Côte\nd'Ivoire", 2.675, new BigDecimal("1E+3")),
+                record(null, 12345678.9, new BigDecimal("0.0000001")),
+                record("Tab\tand \\slash", 0.0004, null),
+                record("France", 1e-7, new BigDecimal("-5.25"))
+        ));
+        records.addAll(new SampleDataGenerator(6L).generate(LocalDate.of(2022, 1, 1), 12, 20_000));
+        // Small chunks so records straddle many chunk boundaries
+        RecordImporter importer = new RecordImporter(3, 4096);
+
+        Path csv = directory.resolve("export.csv");
+        RecordExporter.exportToCsv(records, csv);
+        List<ExportRecord> fromCsv = read(importer, csv);
+        assertEquals(records.size(), fromCsv.size());
+        for (int i = 0; i < records.size(); i++) {
+            ExportRecord expected = records.get(i);
+            double roundedVolume = BigDecimal.valueOf(expected.volumeTons()).setScale(2, RoundingMode.HALF_UP).doubleValue();
+            assertEquals(withVolume(expected, roundedVolume), withoutIndicators(fromCsv.get(i)));
+        }
+
+        Path json = directory.resolve("export.json");
+        RecordExporter.exportToJson(records, json);
+        assertEquals(records.stream().map(RecordImporterTest::withoutIndicators).toList(), read(importer, json));
+    }
+
+    @Test
+    public void readsCompressedFilesAndJsonLines() throws IOException {
+        List<ExportRecord> records = new SampleDataGenerator(7L).generate(LocalDate.of(2022, 1, 1), 12, 30_000);
+        List<ExportRecord> expected = records.stream().map(RecordImporterTest::withoutIndicators).toList();
+        RecordImporter importer = new RecordImporter(2, 64 * 1024);
+
+        for (String name : List.of("export.json.gz", "export.json.zst")) {
+            Path path = directory.resolve(name);
+            RecordExporter.exportToJson(records, path);
+            assertEquals(expected, read(importer, path));
+        }
+
+        Path lines = directory.resolve("export.jsonl");
+        RecordExporter.exportToJson(records, directory.resolve("array.json"));
+        String array = Files.readString(directory.resolve("array.json"));
+        // One object per line, as JSON lines writers emit them
+        Files.writeString(lines, array.substring(1, array.length() - 1)
+                .replaceAll("\n *", " ").replace("}, {", "}\n{").strip() + "\n");
+        assertEquals(expected, read(importer, lines));
+    }
+
+    @Test
+    public void readsIndicatorsAndSkipsUnknownFields() throws IOException {
+        Path lines = directory.resolve("records.ndjson");
+        Files.writeString(lines, """
+                {"id": 1, "date": "2023-05-17", "tags": ["a", {"b": "}"}], "productType": "DATES", "destination": "Libya", "volumeTons": 12.5, "pricePerTon": 3100.25, "indicators": {"USD_TND": 3.1, "UNKNOWN": 2, "BRENT_OIL": null}}
+                {"productType": "CITRUS", "volumeTons": 1.25e2, "date": "2023-05-18", "destination": null}
+                """);
+
+        List<ExportRecord> records = read(new RecordImporter(1), lines);
+
+        assertEquals(List.of(
+                new ExportRecord(DAY, ProductType.DATES, "Libya", 12.5, new BigDecimal("3100.25"),
+                        Map.of(MarketIndicator.USD_TND, 3.1)),
+                new ExportRecord(DAY.plusDays(1), ProductType.CITRUS, null, 125.0, null, Map.of())
+        ), records);
+    }
+
+    @Test
+    public void appendsToTheRepositoryWithInternedDestinations() throws IOException {
+        Path csv = directory.resolve("export.csv.gz");
+        List<ExportRecord> records = new SampleDataGenerator(8L).generate(LocalDate.of(2022, 1, 1), 12, 10_000);
+        RecordExporter.exportToCsv(records, csv);
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+
+        long imported = new RecordImporter(2, 8192).importInto(repository, csv);
+
+        assertEquals(records.size(), imported);
+        assertEquals(records.size(), repository.findAll().size());
+        List<ExportRecord> read = read(new RecordImporter(2, 8192), csv);
+        Map<String, String> first = read.stream()
+                .collect(Collectors.toMap(ExportRecord::destination, ExportRecord::destination, (a, b) -> a));
+        read.forEach(record -> assertSame(first.get(record.destination()), record.destination()));
+    }
+
+    @Test
+    public void reportsWhereTheInputIsMalformed() throws IOException {
+        Path csv = directory.resolve("bad.csv");
+        String header = RecordExporter.CSV_HEADER;
+        Files.writeString(csv, header + "2023-05-17,DATES,Libya,1.00,2.00\n2023-05-17,FIGS,Libya,1.00,2.00\n");
+        DataAccessException unknownProduct = assertThrows(DataAccessException.class, () -> read(new RecordImporter(1), csv));
+        assertTrue(unknownProduct.getMessage().contains("offset " + (header.length() + 44)), unknownProduct.getMessage());
+
+        Files.writeString(csv, "date;product\n");
+        assertThrows(DataAccessException.class, () -> read(new RecordImporter(1), csv));
+
+        Path json = directory.resolve("bad.json");
+        Files.writeString(json, "[{\"date\": \"2023-02-30\", \"productType\": \"DATES\", \"volumeTons\": 1}]");
+        assertThrows(DataAccessException.class, () -> read(new RecordImporter(1), json));
+
+        assertThrows(IllegalArgumentException.class, () -> RecordImporter.Format.of(Path.of("records.xml")));
+    }
+
+    private static List<ExportRecord> read(RecordImporter importer, Path path) throws IOException {
+        List<ExportRecord> records = new ArrayList<>();
+        importer.read(path, records::addAll);
+        return records;
+    }
+
+    private static ExportRecord record(String destination, double volume, BigDecimal price) {
+        return new ExportRecord(DAY, ProductType.DATES, destination, volume, price, Map.of(MarketIndicator.USD_TND, 3.1));
+    }
+
+    private static ExportRecord withoutIndicators(ExportRecord record) {
+        return withVolume(record, record.volumeTons());
+    }
+
+    private static ExportRecord withVolume(ExportRecord record, double volume) {
+        return new ExportRecord(record.date(), record.productType(), record.destination(), volume,
+                record.pricePerTon(), Map.of());
+    }
+}
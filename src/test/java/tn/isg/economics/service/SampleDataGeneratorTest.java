@@ -0,0 +1,36 @@
+package tn.isg.economics.service;
+
+import org.junit.jupiter.api.Test;
+import tn.isg.economics.model.ExportRecord;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class SampleDataGeneratorTest {
+
+    private static final LocalDate START = LocalDate.of(2022, 1, 1);
+
+    @Test
+    public void sameSeedGivesSameRecords() {
+        assertEquals(new SampleDataGenerator(7L).generate(START, 24), new SampleDataGenerator(7L).generate(START, 24));
+        assertEquals(new SampleDataGenerator(7L).generate(START, 12, 5_000), new SampleDataGenerator(7L).generate(START, 12, 5_000));
+        assertNotEquals(new SampleDataGenerator(7L).generate(START, 24), new SampleDataGenerator(8L).generate(START, 24));
+        assertEquals(new SampleDataGenerator(7L).generate(START, 24), new SampleDataGenerator(new SplittableRandom(7L)).generate(START, 24));
+    }
+
+    @Test
+    public void spreadsRowsOverMonthsInDateOrder() {
+        List<ExportRecord> records = new SampleDataGenerator(1L).generate(START, 12, 10_001);
+        assertEquals(10_001, records.size());
+        assertEquals(START, records.get(0).date());
+        assertFalse(records.get(records.size() - 1).date().isAfter(START.plusMonths(12).minusDays(1)));
+        for (int i = 1; i < records.size(); i++) {
+            assertFalse(records.get(i).date().isBefore(records.get(i - 1).date()));
+        }
+    }
+}
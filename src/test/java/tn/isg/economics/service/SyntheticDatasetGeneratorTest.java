@@ -0,0 +1,107 @@
+package tn.isg.economics.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tn.isg.economics.model.ExportRecord;
+import tn.isg.economics.model.MarketIndicator;
+import tn.isg.economics.model.ProductType;
+import tn.isg.economics.repository.ColumnarExportRecordRepository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SyntheticDatasetGeneratorTest {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+    private static final long ROWS = 3 * SyntheticDatasetGenerator.BLOCK_ROWS + 123;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void outputOnlyDependsOnTheSeed() {
+        List<ExportRecord> sequential = generate(new SyntheticDatasetGenerator(5L, START, 36, 1));
+        assertEquals(ROWS, sequential.size());
+        assertEquals(sequential, generate(new SyntheticDatasetGenerator(5L, START, 36, 4)));
+        assertFalse(sequential.equals(generate(new SyntheticDatasetGenerator(6L, START, 36, 4))));
+    }
+
+    @Test
+    public void generatesDateOrderedRealisticRows() {
+        List<ExportRecord> records = generate(new SyntheticDatasetGenerator(7L, START, 36, 3));
+        assertEquals(START, records.get(0).date());
+        assertEquals(START.plusMonths(36).minusDays(1), records.get(records.size() - 1).date());
+        for (int i = 1; i < records.size(); i++) {
+            ExportRecord previous = records.get(i - 1);
+            ExportRecord record = records.get(i);
+            assertFalse(record.date().isBefore(previous.date()));
+            if (record.date().equals(previous.date())) {
+                assertSame(previous.indicators(), record.indicators());
+            }
+        }
+        for (ExportRecord record : records) {
+            assertEquals(MarketIndicator.values().length, record.indicators().size());
+            BigDecimal[] band = band(record.productType());
+            assertTrue(record.pricePerTon().compareTo(band[0]) >= 0 && record.pricePerTon().compareTo(band[1]) <= 0,
+                    record.toString());
+        }
+
+        Map<String, Long> byDestination = records.stream()
+                .collect(Collectors.groupingBy(ExportRecord::destination, Collectors.counting()));
+        assertEquals(9, byDestination.size());
+        assertTrue(byDestination.get("France") > 3 * byDestination.get("Canada"));
+        Map<ProductType, Long> byProduct = records.stream()
+                .collect(Collectors.groupingBy(ExportRecord::productType, Collectors.counting()));
+        assertTrue(byProduct.get(ProductType.OLIVE_OIL) > 3 * byProduct.get(ProductType.ALMONDS));
+    }
+
+    @Test
+    public void writesRepositoriesAndCsvFiles() throws IOException {
+        SyntheticDatasetGenerator generator = new SyntheticDatasetGenerator(8L, START, 12, 2);
+        List<ExportRecord> expected = generate(generator);
+
+        ColumnarExportRecordRepository repository = new ColumnarExportRecordRepository();
+        generator.writeTo(repository, ROWS);
+        assertEquals(expected, new ArrayList<>(repository.findAll()));
+
+        Path csv = directory.resolve("generated.csv");
+        Path reference = directory.resolve("reference.csv");
+        generator.writeCsv(csv, ROWS);
+        RecordExporter.exportToCsv(expected, reference);
+        assertEquals(Files.readString(reference), Files.readString(csv));
+    }
+
+    private static List<ExportRecord> generate(SyntheticDatasetGenerator generator) {
+        List<ExportRecord> records = new ArrayList<>();
+        generator.generate(ROWS, records::addAll);
+        return records;
+    }
+
+    /**
+     * @return band of {@link SampleDataGenerator} widened by the ±20% seasonal factor
+     */
+    private static BigDecimal[] band(ProductType product) {
+        Function<Double, BigDecimal> price = value -> BigDecimal.valueOf(value).setScale(2);
+        return switch (product) {
+            case OLIVE_OIL -> new BigDecimal[]{price.apply(8000 * 0.8), price.apply(10000 * 1.2)};
+            case DATES -> new BigDecimal[]{price.apply(3000 * 0.8), price.apply(4000 * 1.2)};
+            case CITRUS -> new BigDecimal[]{price.apply(1500 * 0.8), price.apply(2000 * 1.2)};
+            case TOMATO -> new BigDecimal[]{price.apply(1200 * 0.8), price.apply(1600 * 1.2)};
+            case ALMONDS -> new BigDecimal[]{price.apply(12000 * 0.8), price.apply(15000 * 1.2)};
+            case HARISSA -> new BigDecimal[]{price.apply(5000 * 0.8), price.apply(7000 * 1.2)};
+        };
+    }
+}